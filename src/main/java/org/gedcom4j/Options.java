@@ -37,6 +37,12 @@ public final class Options {
     /** Should collections in the object model be pre-initialized? NOT THREADSAFE. */
     private static boolean collectionInitializationEnabled = false;
 
+    /**
+     * Are root-level records equal only to themselves, rather than compared field by field? See
+     * {@link org.gedcom4j.model.RecordEquality}. NOT THREADSAFE.
+     */
+    private static boolean identityEqualityEnabled = false;
+
     /**
      * Get whether collections in the object model should be pre-initialized. NOT THREADSAFE.
      * 
@@ -46,11 +52,22 @@ public final class Options {
         return collectionInitializationEnabled;
     }
 
+    /**
+     * Get whether root-level records are equal only to themselves, with identity hash codes, rather than being compared field by
+     * field. See {@link org.gedcom4j.model.RecordEquality}. NOT THREADSAFE.
+     * 
+     * @return whether root-level records are equal only to themselves. NOT THREADSAFE.
+     */
+    public static boolean isIdentityEqualityEnabled() {
+        return identityEqualityEnabled;
+    }
+
     /**
      * Reset all options to defaults
      */
     public static void resetToDefaults() {
         collectionInitializationEnabled = false;
+        identityEqualityEnabled = false;
     }
 
     /**
@@ -63,6 +80,18 @@ public final class Options {
         Options.collectionInitializationEnabled = collectionInitializationEnabled;
     }
 
+    /**
+     * Set whether root-level records are equal only to themselves, with identity hash codes, rather than being compared field by
+     * field. See {@link org.gedcom4j.model.RecordEquality}. Records must not be in any hash-based collections when this is
+     * changed, since their hash codes change with it. NOT THREADSAFE.
+     * 
+     * @param identityEqualityEnabled
+     *            whether root-level records are equal only to themselves. NOT THREADSAFE.
+     */
+    public static void setIdentityEqualityEnabled(boolean identityEqualityEnabled) {
+        Options.identityEqualityEnabled = identityEqualityEnabled;
+    }
+
     /**
      * Private constructor prevents instantiation and subclassing.
      */
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.exception;
+
+import java.io.IOException;
+
+/**
+ * An exception for when a snapshot file was written by a version of gedcom4j whose snapshot format or model classes differ from the
+ * ones in use, so the snapshot cannot be restored and the GEDCOM must be parsed again instead
+ * 
+ * @author frizbog
+ */
+public class IncompatibleSnapshotException extends IOException {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = 4466287530935174602L;
+
+    /**
+     * Default constructor
+     */
+    public IncompatibleSnapshotException() {
+        // Nothing special to do - super behavior works
+    }
+
+    /**
+     * Constructor that takes only a message
+     * 
+     * @param message
+     *            the message
+     */
+    public IncompatibleSnapshotException(String message) {
+        super(message);
+        // Nothing special to do - super behavior works
+    }
+
+    /**
+     * Constructor that takes a message and cause
+     * 
+     * @param message
+     *            the message
+     * @param cause
+     *            the cause
+     */
+    public IncompatibleSnapshotException(String message, Throwable cause) {
+        super(message, cause);
+        // Nothing special to do - super behavior works
+    }
+
+    /**
+     * Constructor that takes only a cause
+     * 
+     * @param cause
+     *            the cause
+     */
+    public IncompatibleSnapshotException(Throwable cause) {
+        super(cause);
+        // Nothing special to do - super behavior works
+    }
+
+}
@@ -74,6 +74,54 @@ public class AnselHandler {
      */
     private static final char ANSEL_DIACRITICS_BEGIN_AT = 0x00E0;
 
+    /**
+     * The number of distinct byte values
+     */
+    private static final int BYTE_VALUES = 256;
+
+    /**
+     * The UTF-16 character for each ANSEL byte value, when it is not combined with anything
+     */
+    private static final char[] DECODED = new char[BYTE_VALUES];
+
+    /**
+     * The precombined glyph for each base character with a single combining diacritic, indexed by the diacritic's offset from
+     * {@link #ANSEL_DIACRITICS_BEGIN_AT} times 256 plus the base character. A zero means there is no precombined glyph.
+     */
+    private static final char[] COMBINED = new char[(BYTE_VALUES - ANSEL_DIACRITICS_BEGIN_AT) * BYTE_VALUES];
+
+    /**
+     * The number of UTF-16 characters that have an entry in {@link #ENCODED}. Covers Latin-1, the Latin extensions, and the
+     * combining diacritics, which is where nearly all the characters that have an ANSEL encoding are.
+     */
+    private static final int ENCODED_TABLE_SIZE = 0x2000;
+
+    /**
+     * The ANSEL bytes for each UTF-16 character below {@link #ENCODED_TABLE_SIZE}, when not followed by combining diacritics. Up to
+     * three bytes are packed into the low 24 bits, first byte lowest, with the number of bytes in the high 8 bits.
+     */
+    private static final int[] ENCODED = new int[ENCODED_TABLE_SIZE];
+
+    static {
+        for (int b = 0; b < BYTE_VALUES; b++) {
+            DECODED[b] = AnselMapping.decode(b);
+        }
+        for (int d = ANSEL_DIACRITICS_BEGIN_AT; d < BYTE_VALUES; d++) {
+            for (int b = 0; b < BYTE_VALUES; b++) {
+                COMBINED[(d - ANSEL_DIACRITICS_BEGIN_AT) * BYTE_VALUES + b] = getCombinedGlyph((char) b, (char) d, (char) 0);
+            }
+        }
+        AnselHandler handler = new AnselHandler();
+        for (int c = 0; c < ENCODED_TABLE_SIZE; c++) {
+            String ansel = handler.toAnsel(String.valueOf((char) c));
+            int packed = ansel.length() << 24;
+            for (int i = 0; i < ansel.length(); i++) {
+                packed |= (ansel.charAt(i) & 0xFF) << (8 * i);
+            }
+            ENCODED[c] = packed;
+        }
+    }
+
     /**
      * Convert a single UTF-16 string into a string of characters, each of which represents an ANSEL character
      *
@@ -164,67 +212,148 @@ public class AnselHandler {
     }
 
     /**
-     * Convert an string of ANSEL bytes to UTF-16
+     * Convert a single UTF-16 string into ANSEL bytes, putting them in the supplied buffer. Produces the same bytes as
+     * {@link #toAnsel(String)}, but looks up most characters in a table and allocates nothing.
      *
+     * @param utf16
+     *            a run-of-the mill java string in UTF-16 encoding, containing special characters if desired
      * @param ansel
-     *            A string of ANSEL data. Each byte of ANSEL data should be represented as a single character in the string,
+     *            the buffer to put the ANSEL bytes in. Must have room for three bytes per character in the string, starting at the
+     *            offset.
+     * @param offset
+     *            the index in the buffer of the first byte to put there
+     * @return the index in the buffer just past the last byte put there
+     */
+    public int toAnsel(String utf16, byte[] ansel, int offset) {
+        int anselIdx = offset;
+        int len = utf16.length();
+        for (int i = 0; i < len; i++) {
+            char c = utf16.charAt(i);
+            if (i + 1 < len && AnselMapping.isUnicodeCombiningDiacritic(utf16.charAt(i + 1))) {
+                // Combining diacritics come before the base character in ANSEL, and can come in pairs
+                ansel[anselIdx++] = (byte) AnselMapping.encode(utf16.charAt(++i));
+                if (i + 1 < len && AnselMapping.isUnicodeCombiningDiacritic(utf16.charAt(i + 1))) {
+                    ansel[anselIdx++] = (byte) AnselMapping.encode(utf16.charAt(++i));
+                }
+                ansel[anselIdx++] = (byte) c;
+            } else if (c < ANSEL_EXTENDED_BEGIN_AT) {
+                ansel[anselIdx++] = (byte) c;
+            } else if (c < ENCODED_TABLE_SIZE) {
+                int packed = ENCODED[c];
+                for (int b = 0; b < packed >>> 24; b++) {
+                    ansel[anselIdx++] = (byte) (packed >>> (8 * b));
+                }
+            } else {
+                String encoded = toAnsel(String.valueOf(c));
+                for (int b = 0; b < encoded.length(); b++) {
+                    ansel[anselIdx++] = (byte) encoded.charAt(b);
+                }
+            }
+        }
+        return anselIdx;
+    }
+
+    /**
+     * Convert a range of ANSEL bytes to UTF-16. Runs of 7-bit characters are copied as they are; everything else is translated
+     * through lookup tables, and diacritics are combined with the base character that follows them whenever possible.
+     *
+     * @param ansel
+     *            A buffer of ANSEL data. Each byte of ANSEL data should be represented as a single character in the buffer,
      *            unconverted to any unicode and without changing the order of characters.
+     * @param offset
+     *            the index of the first character in the buffer to convert
+     * @param length
+     *            the number of characters to convert
      * @return the UTF16 string representation of the ANSEL data, after translation
      */
-    public String toUtf16(String ansel) {
-        char[] utf16 = new char[512];
-        int anselIndex = 0;
-        int utfIdx = 0;
-        char c;
-        int len = ansel.length();
-        while (anselIndex < len) {
-            // Get a character to examine
-            c = ansel.charAt(anselIndex++);
-            // If the character isn't a diacritical character, we can just process it as normal
-            if (c < ANSEL_DIACRITICS_BEGIN_AT || anselIndex >= len) {
-                utf16[utfIdx++] = AnselMapping.decode(c);
+    public String toUtf16(char[] ansel, int offset, int length) {
+        int end = offset + length;
+        int anselIndex = offset;
+        while (anselIndex < end && ansel[anselIndex] < 0x80) {
+            anselIndex++;
+        }
+        if (anselIndex == end) {
+            // Plain 7-bit data needs no translation at all
+            return new String(ansel, offset, length);
+        }
+
+        // The translation is never longer than the original
+        char[] utf16 = new char[length];
+        int utfIdx = anselIndex - offset;
+        System.arraycopy(ansel, offset, utf16, 0, utfIdx);
+        while (anselIndex < end) {
+            char c = ansel[anselIndex++];
+            if (c < 0x80) {
+                utf16[utfIdx++] = c;
                 continue;
             }
-
-            // It's a diacritic, but there might be two diacritics before the actual character
-            char diacritic2 = 0; // 0 means no second diacritic
-            char diacritic1 = c; // this character is actually a diacritic, so save it, and get another character
-            if (anselIndex >= len) {
-                // wraps in middle of diacritic+character combination
-                utf16[utfIdx++] = AnselMapping.decode(c);
+            // If the character isn't a diacritical character, or there's nothing after it to combine with, just decode it
+            if (c < ANSEL_DIACRITICS_BEGIN_AT || anselIndex >= end) {
+                utf16[utfIdx++] = decode(c);
                 continue;
             }
-            c = ansel.charAt(anselIndex++);
 
-            // If the next character we got is also a diacritic, we need to do the same sort of thing
+            // It's a diacritic, but there might be two diacritics before the actual character
+            char diacritic1 = c;
+            char diacritic2 = 0; // 0 means no second diacritic
+            c = ansel[anselIndex++];
             if (c >= ANSEL_DIACRITICS_BEGIN_AT) {
-                // This character is ALSO a diacritic - save it and read another character
+                // This character is ALSO a diacritic
                 diacritic2 = c;
-                if (anselIndex >= len) {
+                if (anselIndex >= end) {
                     // wraps in middle of diacritic+character combination
-                    utf16[utfIdx++] = AnselMapping.decode(c);
+                    utf16[utfIdx++] = decode(c);
                     continue;
                 }
-                // Get the base character
-                c = ansel.charAt(anselIndex++);
+                c = ansel[anselIndex++];
             }
-            // Otherwise the character we just read was the base character
 
             // See if there's a combined glyph for the base+the diacritics
-            char combined = getCombinedGlyph(c, diacritic1, diacritic2);
+            char combined;
+            if (diacritic2 == 0 && c < BYTE_VALUES && diacritic1 < BYTE_VALUES) {
+                combined = COMBINED[(diacritic1 - ANSEL_DIACRITICS_BEGIN_AT) * BYTE_VALUES + c];
+            } else {
+                combined = getCombinedGlyph(c, diacritic1, diacritic2);
+            }
             if (combined == 0) {
                 // no combined glyph available - continue to use a composite
-                utf16[utfIdx++] = AnselMapping.decode(c);
-                utf16[utfIdx++] = AnselMapping.decode(diacritic1);
+                utf16[utfIdx++] = decode(c);
+                utf16[utfIdx++] = decode(diacritic1);
                 if (diacritic2 != 0) {
-                    utf16[utfIdx++] = AnselMapping.decode(diacritic1);
+                    utf16[utfIdx++] = decode(diacritic1);
                 }
             } else {
                 // A combined glyph was available!
                 utf16[utfIdx++] = combined;
             }
         }
-        return new String(utf16).substring(0, utfIdx);
+        return new String(utf16, 0, utfIdx);
+    }
+
+    /**
+     * Convert an string of ANSEL bytes to UTF-16
+     *
+     * @param ansel
+     *            A string of ANSEL data. Each byte of ANSEL data should be represented as a single character in the string,
+     *            unconverted to any unicode and without changing the order of characters.
+     * @return the UTF16 string representation of the ANSEL data, after translation
+     */
+    public String toUtf16(String ansel) {
+        return toUtf16(ansel.toCharArray(), 0, ansel.length());
+    }
+
+    /**
+     * Decode a single ANSEL character that is not being combined with anything
+     *
+     * @param c
+     *            the ANSEL character
+     * @return the UTF-16 character
+     */
+    private static char decode(char c) {
+        if (c < BYTE_VALUES) {
+            return DECODED[c];
+        }
+        return AnselMapping.decode(c);
     }
 
     /**
@@ -1880,7 +2009,7 @@ public class AnselHandler {
      * @return a single character that combines the base and the diacritic(s), or a zero if no such character exists
      */
     @SuppressWarnings({ "PMD.ExcessiveMethodLength", "PMD.NcssMethodCount", "checkstyle:methodlength" })
-    private char getCombinedGlyph(char baseChar, char modifier1, char modifier2) {
+    private static char getCombinedGlyph(char baseChar, char modifier1, char modifier2) {
 
         if (baseChar == 'A') {
             if (modifier1 == '\u00E0' /* HOOK ABOVE */) {
@@ -53,7 +53,12 @@ public class FileProgressEvent extends EventObject {
     /**
      * The number of bytes read or written
      */
-    private final int bytesProcessed;
+    private final long bytesProcessed;
+
+    /**
+     * The number of bytes of compressed data read, when reading a compressed file. -1 if the data isn't compressed.
+     */
+    private final long compressedBytesProcessed;
 
     /**
      * Constructor
@@ -68,21 +73,80 @@ public class FileProgressEvent extends EventObject {
      *            is the file complete
      */
     public FileProgressEvent(Object source, int linesProcessed, int bytesProcessed, boolean complete) {
+        this(source, linesProcessed, (long) bytesProcessed, complete);
+    }
+
+    /**
+     * Constructor, for files that may be larger than 2GB
+     * 
+     * @param source
+     *            the source object
+     * @param linesProcessed
+     *            the number of lines processed
+     * @param bytesProcessed
+     *            the number of bytes processed
+     * @param complete
+     *            is the file complete
+     */
+    public FileProgressEvent(Object source, int linesProcessed, long bytesProcessed, boolean complete) {
+        this(source, linesProcessed, bytesProcessed, -1, complete);
+    }
+
+    /**
+     * Constructor, for reading compressed files
+     * 
+     * @param source
+     *            the source object
+     * @param linesProcessed
+     *            the number of lines processed
+     * @param bytesProcessed
+     *            the number of bytes of decompressed data processed
+     * @param compressedBytesProcessed
+     *            the number of bytes of compressed data read, or -1 if the data isn't compressed
+     * @param complete
+     *            is the file complete
+     */
+    public FileProgressEvent(Object source, int linesProcessed, long bytesProcessed, long compressedBytesProcessed,
+            boolean complete) {
         super(source);
         this.linesProcessed = linesProcessed;
         this.bytesProcessed = bytesProcessed;
+        this.compressedBytesProcessed = compressedBytesProcessed;
         this.complete = complete;
     }
 
     /**
-     * Get the bytesProcessed
+     * Get the bytesProcessed. For files larger than 2GB, this value is capped at {@link Integer#MAX_VALUE} - use
+     * {@link #getByteOffset()} instead.
      * 
      * @return the bytesProcessed
      */
     public int getBytesProcessed() {
+        return (int) Math.min(bytesProcessed, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the number of bytes processed, which is also the offset into the file or stream that processing has reached. For
+     * compressed files, this is the offset into the decompressed data - see {@link #getCompressedByteOffset()} for the offset
+     * into the file itself.
+     * 
+     * @return the number of bytes processed
+     */
+    public long getByteOffset() {
         return bytesProcessed;
     }
 
+    /**
+     * Get the number of bytes of the file that have been read, which for compressed files is the offset into the compressed data.
+     * This is the figure to compare to the size of the file to show progress. For data that isn't compressed, this is the same as
+     * {@link #getByteOffset()}.
+     * 
+     * @return the number of bytes of the file that have been read
+     */
+    public long getCompressedByteOffset() {
+        return compressedBytesProcessed < 0 ? bytesProcessed : compressedBytesProcessed;
+    }
+
     /**
      * Get the number of lines processed
      * 
@@ -101,6 +165,15 @@ public class FileProgressEvent extends EventObject {
         return complete;
     }
 
+    /**
+     * Is the data being processed compressed?
+     * 
+     * @return true if the data being processed is decompressed from a compressed file
+     */
+    public boolean isCompressed() {
+        return compressedBytesProcessed >= 0;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -113,6 +186,10 @@ public class FileProgressEvent extends EventObject {
         builder.append(linesProcessed);
         builder.append(", bytesProcessed=");
         builder.append(bytesProcessed);
+        if (compressedBytesProcessed >= 0) {
+            builder.append(", compressedBytesProcessed=");
+            builder.append(compressedBytesProcessed);
+        }
         builder.append("]");
         return builder.toString();
     }
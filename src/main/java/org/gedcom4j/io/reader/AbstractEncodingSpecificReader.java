@@ -52,7 +52,7 @@ abstract class AbstractEncodingSpecificReader {
     /**
      * The number of bytes read from the input file or stream
      */
-    protected int bytesRead = 0;
+    protected long bytesRead = 0;
 
     /**
      * The {@link GedcomParser} we're reading files for
@@ -84,6 +84,21 @@ abstract class AbstractEncodingSpecificReader {
      */
     public abstract String nextLine() throws IOException, GedcomParserException;
 
+    /**
+     * Get the next line of the file, without necessarily making a String of it. The same rules apply as for {@link #nextLine()}.
+     * Unless overridden, this just returns {@link #nextLine()}.
+     * 
+     * @return the next line of the file, or null if no more lines to read. Only valid until the next line is read, since the
+     *         object returned might be reused for it.
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws GedcomParserException
+     *             if the file is malformed and cannot be parsed as a GEDCOM file for some reason
+     */
+    public CharSequence nextLineChars() throws IOException, GedcomParserException {
+        return nextLine();
+    }
+
     /**
      * Close resources that might have been opened in the concrete class
      * 
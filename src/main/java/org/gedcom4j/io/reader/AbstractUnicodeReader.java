@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.parser.GedcomParser;
+
+/**
+ * A reader for UTF-16 (Unicode) data. The bytes are read in bulk and decoded a buffer at a time, and lines are split out of the
+ * decoded characters. A byte order marker at the start of the data is discarded, and any combination of carriage returns and line
+ * feeds ends a line.
+ * 
+ * @author frizbog
+ */
+abstract class AbstractUnicodeReader extends AbstractEncodingSpecificReader {
+
+    /**
+     * The size of the byte and character buffers
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The byte order marker, as a character
+     */
+    private static final char BYTE_ORDER_MARKER = '\uFEFF';
+
+    /**
+     * The decoder for the data
+     */
+    private final CharsetDecoder decoder;
+
+    /**
+     * Bytes read from the stream and not decoded yet
+     */
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * Characters decoded and not split into lines yet
+     */
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * The line buffer for the current line, when it spans more than one buffer of characters
+     */
+    @SuppressWarnings("PMD.AvoidStringBufferField")
+    private final StringBuilder lineBuffer = new StringBuilder();
+
+    /**
+     * Have we read all the bytes in the stream yet?
+     */
+    private boolean eof = false;
+
+    /**
+     * Are we at the beginning of the data, where there might be a byte order marker?
+     */
+    private boolean beginningOfFile = true;
+
+    /**
+     * Constructor
+     * 
+     * @param parser
+     *            the {@link GedcomParser} which is using this object to read files
+     * @param byteStream
+     *            the stream of data to be read
+     * @param charset
+     *            the UTF-16 charset with the byte order of the data
+     */
+    AbstractUnicodeReader(GedcomParser parser, InputStream byteStream, Charset charset) {
+        super(parser, byteStream);
+        decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(
+                CodingErrorAction.REPLACE);
+        chars.flip();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String nextLine() throws IOException, GedcomParserException {
+        while (chars.hasRemaining() || fillChars()) {
+            char[] c = chars.array();
+            int pos = chars.position();
+            int limit = chars.limit();
+
+            // If it's a byte order marker at the beginning of the file, discard it
+            if (beginningOfFile) {
+                beginningOfFile = false;
+                if (c[pos] == BYTE_ORDER_MARKER) {
+                    pos++;
+                }
+            }
+
+            // Ignore leading whitespace, including the line breaks after the previous line
+            if (lineBuffer.length() == 0) {
+                while (pos < limit && Character.isWhitespace(c[pos])) {
+                    pos++;
+                }
+            }
+
+            // Find the end of the line
+            int start = pos;
+            while (pos < limit && c[pos] != '\r' && c[pos] != '\n') {
+                pos++;
+            }
+            if (pos == limit) {
+                // Line continues in the next buffer
+                lineBuffer.append(c, start, pos - start);
+                consume(pos);
+                continue;
+            }
+            String result;
+            if (lineBuffer.length() == 0) {
+                result = new String(c, start, pos - start);
+            } else {
+                lineBuffer.append(c, start, pos - start);
+                result = lineBuffer.toString();
+                lineBuffer.setLength(0);
+            }
+            consume(pos + 1);
+            return result;
+        }
+
+        // Hit EOF - return the final line, if any
+        if (lineBuffer.length() > 0) {
+            String result = lineBuffer.toString();
+            lineBuffer.setLength(0);
+            return result;
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void cleanUp() throws IOException {
+        // do nothing
+    }
+
+    /**
+     * Mark the decoded characters up to the supplied position as consumed, counting the bytes they were decoded from. Every UTF-16
+     * code unit is two bytes, so the count is exact even though bytes are decoded ahead of the lines being returned.
+     * 
+     * @param newPosition
+     *            the position in the character buffer of the first character not consumed
+     */
+    private void consume(int newPosition) {
+        bytesRead += 2L * (newPosition - chars.position());
+        chars.position(newPosition);
+    }
+
+    /**
+     * Refill the character buffer with characters decoded from the stream. Any incomplete character at the end of the stream is
+     * discarded.
+     * 
+     * @return true if there are characters in the buffer, or false if the end of the stream has been reached
+     * @throws IOException
+     *             if the stream cannot be read
+     */
+    private boolean fillChars() throws IOException {
+        chars.clear();
+        while (chars.position() == 0 && (!eof || bytes.position() > 1)) {
+            if (!eof) {
+                int r = byteStream.read(bytes.array(), bytes.position(), bytes.remaining());
+                if (r < 0) {
+                    eof = true;
+                } else {
+                    bytes.position(bytes.position() + r);
+                }
+            }
+            bytes.flip();
+            decoder.decode(bytes, chars, false);
+            bytes.compact();
+            if (eof && chars.position() == 0) {
+                break;
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+}
@@ -28,7 +28,6 @@ package org.gedcom4j.io.reader;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Arrays;
 
 import org.gedcom4j.exception.GedcomParserException;
 import org.gedcom4j.io.encoding.AnselHandler;
@@ -36,7 +35,8 @@ import org.gedcom4j.parser.GedcomParser;
 
 /**
  * A reader that reads a single line from an ANSEL-encoded file. This implementation handles ANSEL encoding (1 byte per character,
- * some extended character support).
+ * some extended character support). Bytes are read from the stream in bulk, and runs of plain 7-bit characters in the middle of a
+ * line are copied straight into the line buffer.
  * 
  * @author frizbog
  */
@@ -47,6 +47,16 @@ final class AnselReader extends AbstractEncodingSpecificReader {
      */
     private static final char ANSEL_DIACRITICS_BEGIN_AT = 0x00E0;
 
+    /**
+     * The length at which lines are split with a synthetic CONC tag
+     */
+    private static final int MAX_LINE_LENGTH = 250;
+
+    /**
+     * The size of the buffer of bytes read from the stream
+     */
+    private static final int BUFFER_SIZE = 8192;
+
     /**
      * Helper class
      */
@@ -88,6 +98,21 @@ final class AnselReader extends AbstractEncodingSpecificReader {
      */
     private final char[] holdingBin = new char[2];
 
+    /**
+     * Bytes read from the stream
+     */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * Index of the next unconsumed byte in {@link #buffer}
+     */
+    private int bufferPos = 0;
+
+    /**
+     * Number of valid bytes in {@link #buffer}
+     */
+    private int bufferLimit = 0;
+
     /**
      * Constructor
      * 
@@ -112,20 +137,28 @@ final class AnselReader extends AbstractEncodingSpecificReader {
         }
         String result = null;
         while (!eof) {
-            int twoCharsBack = oneCharBack;
-            oneCharBack = currChar;
-            currChar = byteStream.read();
-            if (currChar >= 0) {
-                bytesRead++;
-            }
-
             // Check for EOF
-            if (currChar < 0) {
+            if (bufferPos == bufferLimit && !fillBuffer()) {
+                oneCharBack = currChar;
+                currChar = -1;
                 result = getThisLine();
                 eof = true;
                 break;
             }
 
+            // In the middle of a line, plain 7-bit characters need no special handling
+            if (lineBufferIdx > 0 && holdingBinIdx == 0) {
+                copyPlainRun();
+                if (bufferPos == bufferLimit) {
+                    continue;
+                }
+            }
+
+            int twoCharsBack = oneCharBack;
+            oneCharBack = currChar;
+            currChar = buffer[bufferPos++] & 0xFF;
+            bytesRead++;
+
             // Ignore leading whitespace
             if (Character.isWhitespace(currChar) && lineBufferIdx == 0) {
                 continue;
@@ -170,13 +203,11 @@ final class AnselReader extends AbstractEncodingSpecificReader {
                     lineBuffer[lineBufferIdx++] = holdingBin[1];
                 }
                 holdingBinIdx = 0;
-                holdingBin[0] = ' ';
-                holdingBin[1] = ' ';
 
             }
 
             // Split line if it's too long, but don't split diactrics apart from their base characters
-            if (lineBufferIdx >= 250 && currChar < ANSEL_DIACRITICS_BEGIN_AT) {
+            if (lineBufferIdx >= MAX_LINE_LENGTH && currChar < ANSEL_DIACRITICS_BEGIN_AT) {
                 result = getThisLine();
                 insertSyntheticConcTag(result);
                 break;
@@ -196,6 +227,45 @@ final class AnselReader extends AbstractEncodingSpecificReader {
         // do nothing
     }
 
+    /**
+     * Copy the run of plain 7-bit characters at the current position in the buffer straight into the line buffer, stopping at the
+     * first line break, extended character, or the point where the line would need to be split.
+     */
+    private void copyPlainRun() {
+        int limit = Math.min(bufferLimit, bufferPos + MAX_LINE_LENGTH - lineBufferIdx);
+        int start = bufferPos;
+        int pos = start;
+        byte b;
+        while (pos < limit && (b = buffer[pos]) >= 0 && b != 0x0D && b != 0x0A) {
+            lineBuffer[lineBufferIdx++] = (char) b;
+            pos++;
+        }
+        int copied = pos - start;
+        if (copied > 0) {
+            oneCharBack = copied > 1 ? buffer[pos - 2] : currChar;
+            currChar = buffer[pos - 1];
+            bytesRead += copied;
+            bufferPos = pos;
+        }
+    }
+
+    /**
+     * Refill the buffer with bytes from the stream
+     * 
+     * @return true if there are bytes in the buffer, or false if the end of the stream has been reached
+     * @throws IOException
+     *             if the stream cannot be read
+     */
+    private boolean fillBuffer() throws IOException {
+        int r;
+        do {
+            r = byteStream.read(buffer, 0, buffer.length);
+        } while (r == 0);
+        bufferPos = 0;
+        bufferLimit = Math.max(r, 0);
+        return r > 0;
+    }
+
     /**
      * Determine what level was in use on the provided line
      * 
@@ -254,11 +324,9 @@ final class AnselReader extends AbstractEncodingSpecificReader {
     private String getThisLine() {
         String result = null;
         if (lineBufferIdx > 0) {
-            String s = new String(lineBuffer).substring(0, lineBufferIdx - holdingBinIdx);
-            result = anselHandler.toUtf16(s);
+            result = anselHandler.toUtf16(lineBuffer, 0, lineBufferIdx - holdingBinIdx);
         }
         linesRead++;
-        Arrays.fill(lineBuffer, ' ');
         lineBufferIdx = 0;
         return result;
     }
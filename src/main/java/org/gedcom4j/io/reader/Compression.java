@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.reader;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * A way that a gedcom file can be compressed, as recognized from the first few bytes of the file.
+ * 
+ * @author frizbog
+ */
+public enum Compression {
+
+    /**
+     * Not compressed
+     */
+    NONE,
+
+    /**
+     * Compressed with gzip, as in a <code>.ged.gz</code> file
+     */
+    GZIP,
+
+    /**
+     * In a zip archive. The first entry in the archive that is not a directory is read.
+     */
+    ZIP;
+
+    /**
+     * The number of bytes needed to recognize a compressed file
+     */
+    private static final int SIGNATURE_LENGTH = 4;
+
+    /**
+     * The size of the buffer that gzipped data is read into for decompressing
+     */
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    /**
+     * Find out how the data in a stream is compressed, from its first few bytes. The stream is left at the same position.
+     * 
+     * @param bytes
+     *            the stream of data
+     * @return how the data is compressed
+     * @throws IOException
+     *             if the data cannot be read
+     */
+    public static Compression of(BufferedInputStream bytes) throws IOException {
+        bytes.mark(SIGNATURE_LENGTH);
+        try {
+            return of((InputStream) bytes);
+        } finally {
+            bytes.reset();
+        }
+    }
+
+    /**
+     * Find out how a file is compressed, from its first few bytes
+     * 
+     * @param filename
+     *            the name of the file
+     * @return how the file is compressed
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public static Compression of(String filename) throws IOException {
+        try (FileInputStream fis = new FileInputStream(filename)) {
+            return of(fis);
+        }
+    }
+
+    /**
+     * Get a stream of the decompressed data from a stream of compressed data
+     * 
+     * @param compressed
+     *            the stream of compressed data, which should be buffered
+     * @return a stream of the decompressed data
+     * @throws IOException
+     *             if the compressed data cannot be read, or is not in the right format
+     */
+    InputStream decompress(InputStream compressed) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(compressed, GZIP_BUFFER_SIZE);
+            case ZIP:
+                ZipInputStream zis = new ZipInputStream(compressed);
+                ZipEntry entry = zis.getNextEntry();
+                while (entry != null && entry.isDirectory()) {
+                    entry = zis.getNextEntry();
+                }
+                if (entry == null) {
+                    throw new IOException("Zip archive does not contain any files");
+                }
+                return zis;
+            default:
+                return compressed;
+        }
+    }
+
+    /**
+     * Read the first few bytes of a stream to find out how the data is compressed
+     * 
+     * @param bytes
+     *            the stream of data, at its start
+     * @return how the data is compressed
+     * @throws IOException
+     *             if the data cannot be read
+     */
+    private static Compression of(InputStream bytes) throws IOException {
+        byte[] signature = new byte[SIGNATURE_LENGTH];
+        int length = 0;
+        int read = bytes.read(signature, 0, SIGNATURE_LENGTH);
+        while (read > 0) {
+            length += read;
+            read = length < SIGNATURE_LENGTH ? bytes.read(signature, length, SIGNATURE_LENGTH - length) : -1;
+        }
+        if (length >= 2 && (signature[0] & 0xFF) == 0x1F && (signature[1] & 0xFF) == 0x8B) {
+            return GZIP;
+        }
+        if (length == SIGNATURE_LENGTH && signature[0] == 'P' && signature[1] == 'K' && signature[2] == 3 && signature[3] == 4) {
+            return ZIP;
+        }
+        return NONE;
+    }
+}
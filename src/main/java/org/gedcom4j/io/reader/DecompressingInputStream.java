@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.reader;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A stream of the decompressed contents of gzipped or zipped data, which keeps track of how much of the compressed data has been
+ * read as well as how much decompressed data. Closing this stream closes the stream of compressed data.
+ * 
+ * @author frizbog
+ */
+public class DecompressingInputStream extends FilterInputStream {
+
+    /**
+     * The stream of compressed data that was supplied
+     */
+    private final InputStream source;
+
+    /**
+     * The stream of compressed data, which counts the bytes read from it
+     */
+    private final ProgressTrackingInputStream compressed;
+
+    /**
+     * Constructor
+     * 
+     * @param source
+     *            the stream of compressed data. It does not need to be buffered.
+     * @param compression
+     *            how the data is compressed
+     * @throws IOException
+     *             if the compressed data cannot be read, or is not in the right format
+     */
+    public DecompressingInputStream(InputStream source, Compression compression) throws IOException {
+        super(null);
+        this.source = source;
+        compressed = new ProgressTrackingInputStream(source instanceof BufferedInputStream ? source : new BufferedInputStream(
+                source));
+        in = compression.decompress(compressed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * Get the number of bytes of compressed data read so far. Some compressed data is read ahead of the decompressed data that
+     * has been read.
+     * 
+     * @return the number of bytes of compressed data read so far
+     */
+    public long getCompressedBytesRead() {
+        return compressed.getBytesRead();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean markSupported() {
+        // Buffer the decompressed data to be able to mark it
+        return false;
+    }
+}
@@ -30,11 +30,14 @@ import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
 
 import org.gedcom4j.exception.GedcomParserException;
 import org.gedcom4j.exception.ParserCancelledException;
 import org.gedcom4j.exception.UnsupportedGedcomCharsetException;
+import org.gedcom4j.io.encoding.Encoding;
 import org.gedcom4j.io.event.FileProgressEvent;
 import org.gedcom4j.parser.GedcomParser;
 
@@ -64,15 +67,35 @@ public final class GedcomFileReader {
     final byte[] firstChunk = new byte[FIRST_CHUNK_SIZE];
 
     /**
-     * The buffered input stream of bytes to read
+     * The stream of bytes to read. Either a buffered input stream, or a stream over a memory-mapped file.
      */
-    private final BufferedInputStream byteStream;
+    private final InputStream byteStream;
+
+    /**
+     * The stream over the memory-mapped file being read, or null if not reading a memory-mapped file
+     */
+    private final MappedFileInputStream mappedFileInputStream;
+
+    /**
+     * The stream of data decompressed from a compressed file, or null if not reading compressed data
+     */
+    private final DecompressingInputStream decompressingInputStream;
 
     /**
      * The encoding-specific reader helper class to actually read the bytes
      */
     private final AbstractEncodingSpecificReader encodingSpecificReader;
 
+    /**
+     * The encoding of the data being read
+     */
+    private Encoding encoding;
+
+    /**
+     * The byte offset at which the most recently returned line begins
+     */
+    private long lineOffset;
+
     /**
      * The {@link GedcomParser} we're reading files for
      */
@@ -100,10 +123,102 @@ public final class GedcomFileReader {
             UnsupportedGedcomCharsetException {
         this.parser = parser;
         byteStream = bufferedInputStream;
+        mappedFileInputStream = null;
+        decompressingInputStream = null;
+        saveFirstChunk();
+        encodingSpecificReader = getEncodingSpecificReader();
+    }
+
+    /**
+     * Constructor for reading data whose encoding is already known - for example, a part of a file whose encoding was determined
+     * when the whole file was read. The data does not need to begin at the start of the file, but must begin at the start of a
+     * line.
+     * 
+     * @param parser
+     *            the {@link GedcomParser} which is using this object to read files
+     * @param bufferedInputStream
+     *            the buffered input stream of bytes
+     * @param encoding
+     *            the encoding of the data
+     * @throws IOException
+     *             if there is a problem reading the data
+     */
+    public GedcomFileReader(GedcomParser parser, BufferedInputStream bufferedInputStream, Encoding encoding) throws IOException {
+        this.parser = parser;
+        byteStream = bufferedInputStream;
+        mappedFileInputStream = null;
+        decompressingInputStream = null;
+        this.encoding = encoding;
+        encodingSpecificReader = readerFor(encoding);
+    }
+
+    /**
+     * Constructor for reading a file by mapping it into memory rather than streaming it. ASCII and UTF-8 files have their lines
+     * found by scanning the mapped bytes directly; files in other encodings are decoded from the mapped bytes by the same
+     * encoding-specific readers used for streams. The channel is not closed by this class.
+     * 
+     * @param parser
+     *            the {@link GedcomParser} which is using this object to read files
+     * 
+     * @param fileChannel
+     *            the channel for the file to read, open for reading
+     * @throws IOException
+     *             if there is a problem reading the data
+     * @throws UnsupportedGedcomCharsetException
+     *             if the file is using an unsupported character encoding
+     */
+    public GedcomFileReader(GedcomParser parser, FileChannel fileChannel) throws IOException, UnsupportedGedcomCharsetException {
+        this.parser = parser;
+        mappedFileInputStream = new MappedFileInputStream(new MappedFile(fileChannel));
+        byteStream = mappedFileInputStream;
+        decompressingInputStream = null;
+        saveFirstChunk();
+        encodingSpecificReader = getEncodingSpecificReader();
+    }
+
+    /**
+     * Constructor for reading the decompressed contents of a gzipped or zipped file. The encoding is determined from the
+     * decompressed data, and progress events report the offsets into both the decompressed and the compressed data.
+     * 
+     * @param parser
+     *            the {@link GedcomParser} which is using this object to read files
+     * @param decompressingInputStream
+     *            the stream of decompressed data
+     * @throws IOException
+     *             if there is a problem reading the data
+     * @throws UnsupportedGedcomCharsetException
+     *             if the file is using an unsupported character encoding
+     */
+    public GedcomFileReader(GedcomParser parser, DecompressingInputStream decompressingInputStream) throws IOException,
+            UnsupportedGedcomCharsetException {
+        this.parser = parser;
+        this.decompressingInputStream = decompressingInputStream;
+        byteStream = new BufferedInputStream(decompressingInputStream, FIRST_CHUNK_SIZE);
+        mappedFileInputStream = null;
         saveFirstChunk();
         encodingSpecificReader = getEncodingSpecificReader();
     }
 
+    /**
+     * Get the encoding of the data being read
+     * 
+     * @return the encoding of the data being read
+     */
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Get the byte offset at which the most recently returned line begins. The offset is never past the start of the line, but
+     * might include line breaks or whitespace before it. Offsets are exact for memory-mapped files; for other data, some
+     * encodings are decoded ahead of the line being returned, so the offsets are only approximate.
+     * 
+     * @return the byte offset at which the most recently returned line begins
+     */
+    public long getLineOffset() {
+        return lineOffset;
+    }
+
     /**
      * Get the next line of the file.
      * 
@@ -114,14 +229,32 @@ public final class GedcomFileReader {
      *             if the file is malformed and cannot be processed as a result
      */
     public String nextLine() throws IOException, GedcomParserException {
+        CharSequence result = nextLineChars();
+        return result == null ? null : result.toString();
+    }
+
+    /**
+     * Get the next line of the file, without necessarily making a String of it. Memory-mapped ASCII and UTF-8 files hand back a
+     * view of the bytes of the line in the file, so that only the parts of the line that are kept need to be made into strings.
+     * 
+     * @return the next line of the file, or null if no more lines to read. Only valid until the next line is read, since the
+     *         object returned might be reused for it.
+     * @throws IOException
+     *             if there is a problem reading the data
+     * @throws GedcomParserException
+     *             if the file is malformed and cannot be processed as a result
+     */
+    public CharSequence nextLineChars() throws IOException, GedcomParserException {
         if (parser.isCancelled()) {
             throw new ParserCancelledException("File load is cancelled");
         }
-        String result = encodingSpecificReader.nextLine();
+        lineOffset = encodingSpecificReader.bytesRead;
+        CharSequence result = encodingSpecificReader.nextLineChars();
         linesProcessed++;
         if (linesProcessed % parser.getReadNotificationRate() == 0 || result == null) {
+            long compressedBytesRead = decompressingInputStream == null ? -1 : decompressingInputStream.getCompressedBytesRead();
             parser.notifyFileObservers(new FileProgressEvent(this, linesProcessed, encodingSpecificReader.bytesRead,
-                    result == null));
+                    compressedBytesRead, result == null));
         }
         return result;
     }
@@ -156,7 +289,7 @@ public final class GedcomFileReader {
      *             <li>No CHAR tag was found within the first 2k or so of the file</li>
      *             </ul>
      */
-    private AbstractEncodingSpecificReader anselAsciiOrUtf8() throws IOException, UnsupportedGedcomCharsetException {
+    private Encoding anselAsciiOrUtf8() throws IOException, UnsupportedGedcomCharsetException {
         /*
          * Try reading as UTF-8. Most likely to successfully read and be useful for figuring out what the encoding really is
          */
@@ -170,17 +303,17 @@ public final class GedcomFileReader {
                 if (s.startsWith("1 CHAR ")) {
                     String e = s.substring("1 CHAR ".length());
                     if ("ANSEL".equalsIgnoreCase(e)) {
-                        return new AnselReader(parser, byteStream);
+                        return Encoding.ANSEL;
                     } else if ("UTF-8".equalsIgnoreCase(e)) {
-                        return new Utf8Reader(parser, byteStream);
+                        return Encoding.UTF_8;
                     } else if ("ASCII".equalsIgnoreCase(e)) {
-                        return new AsciiReader(parser, byteStream);
+                        return Encoding.ASCII;
                     } else if ("ANSI".equalsIgnoreCase(e)) {
                         /*
                          * Technically, this is illegal, but UTF_8 is the most-likely-to-work scenario, so let's try it and be a bit
                          * forgiving
                          */
-                        return new Utf8Reader(parser, byteStream);
+                        return Encoding.UTF_8;
                     } else {
                         throw new UnsupportedGedcomCharsetException("Specified charset " + e
                                 + " is not a supported charset encoding for GEDCOMs");
@@ -194,8 +327,22 @@ public final class GedcomFileReader {
                 r.close();
             }
         }
-        // All other avenues exhausted, go with an ANSEL reader since that's the default encoding in GEDCOM 5.5
-        return new AnselReader(parser, byteStream);
+        // All other avenues exhausted, go with ANSEL since that's the default encoding in GEDCOM 5.5
+        return Encoding.ANSEL;
+    }
+
+    /**
+     * Get a reader for ASCII data
+     * 
+     * @return a reader for ASCII data, which works directly on the mapped bytes if reading a memory-mapped file
+     * @throws IOException
+     *             if the data cannot be read
+     */
+    private AbstractEncodingSpecificReader asciiReader() throws IOException {
+        if (mappedFileInputStream != null) {
+            return new MappedFileLineReader(parser, mappedFileInputStream, Encoding.ASCII);
+        }
+        return new AsciiReader(parser, byteStream);
     }
 
     /**
@@ -218,19 +365,22 @@ public final class GedcomFileReader {
              * Special byte order marker to indicate UTF-8 encoding. Not every program does this, but if it does, we KNOW it's UTF-8
              * and should discard the BOM
              */
-            AbstractEncodingSpecificReader result = new Utf8Reader(parser, byteStream);
-            ((Utf8Reader) result).setByteOrderMarkerRead(true);
+            encoding = Encoding.UTF_8;
+            AbstractEncodingSpecificReader result = utf8Reader();
+            if (result instanceof Utf8Reader) {
+                ((Utf8Reader) result).setByteOrderMarkerRead(true);
+            }
             return result;
         }
 
         if (firstNBytes(2) == 0xFFFE || firstNBytes(2) == 0x3000 || firstNBytes(2) == 0x0D00 || firstNBytes(2) == 0x0A00) {
             // If the first two firstChunk make up a single zero character, a single line feed character, or a single
             // carriage return character, using the bytes shown, it's unicode little-endian
-            return new UnicodeLittleEndianReader(parser, byteStream);
+            encoding = Encoding.UNICODE_LITTLE_ENDIAN;
         } else if (firstNBytes(2) == 0xFEFF || firstNBytes(2) == 0x0030 || firstNBytes(2) == 0x000D || firstNBytes(2) == 0x000A) {
             // If the first two firstChunk make up a single zero character, a single line feed character, or a single
             // carriage return character, using the bytes shown, it's unicode big-endian
-            return new UnicodeBigEndianReader(parser, byteStream);
+            encoding = Encoding.UNICODE_BIG_ENDIAN;
         } else {
             boolean zeroFollowedBySpace = firstNBytes(2) == 0x3020;
             boolean blankLineFollowedByZero = firstNBytes(2) == 0x0A30 || firstNBytes(2) == 0x0D30;
@@ -241,13 +391,38 @@ public final class GedcomFileReader {
                 /*
                  * Could be ANSEL, ASCII, or UTF-8. Figure out which
                  */
-                return anselAsciiOrUtf8();
+                encoding = anselAsciiOrUtf8();
+            } else {
+                throw new IOException("Does not appear to be a valid gedcom file - "
+                        + "doesn't begin with a zero or newline in any supported encoding, "
+                        + "and does not begin with a BOM marker for UTF-8 encoding. ");
             }
-            throw new IOException("Does not appear to be a valid gedcom file - "
-                    + "doesn't begin with a zero or newline in any supported encoding, "
-                    + "and does not begin with a BOM marker for UTF-8 encoding. ");
         }
+        return readerFor(encoding);
+    }
 
+    /**
+     * Get an encoding-specific reader for the supplied encoding
+     * 
+     * @param e
+     *            the encoding
+     * @return a reader for data in the supplied encoding
+     * @throws IOException
+     *             if the data cannot be read
+     */
+    private AbstractEncodingSpecificReader readerFor(Encoding e) throws IOException {
+        switch (e) {
+            case ANSEL:
+                return new AnselReader(parser, byteStream);
+            case ASCII:
+                return asciiReader();
+            case UNICODE_BIG_ENDIAN:
+                return new UnicodeBigEndianReader(parser, byteStream);
+            case UNICODE_LITTLE_ENDIAN:
+                return new UnicodeLittleEndianReader(parser, byteStream);
+            default:
+                return utf8Reader();
+        }
     }
 
     /**
@@ -257,12 +432,40 @@ public final class GedcomFileReader {
      *             if the stream of bytes cannot be read.
      */
     private void saveFirstChunk() throws IOException {
+        if (mappedFileInputStream != null) {
+            MappedFile mappedFile = mappedFileInputStream.getMappedFile();
+            if (mappedFile.size() == 0) {
+                throw new IOException("Unable to read bytes off stream");
+            }
+            mappedFile.get(0, firstChunk, 0, (int) Math.min(FIRST_CHUNK_SIZE, mappedFile.size()));
+            return;
+        }
         byteStream.mark(FIRST_CHUNK_SIZE);
         int read = byteStream.read(firstChunk);
         if (read < 0) {
             throw new IOException("Unable to read bytes off stream");
         }
+        // Streams such as decompressed data can return less than they could in one read, so keep going until the chunk is full
+        int total = 0;
+        while (read > 0) {
+            total += read;
+            read = total < FIRST_CHUNK_SIZE ? byteStream.read(firstChunk, total, FIRST_CHUNK_SIZE - total) : -1;
+        }
         byteStream.reset();
 
     }
+
+    /**
+     * Get a reader for UTF-8 data
+     * 
+     * @return a reader for UTF-8 data, which works directly on the mapped bytes if reading a memory-mapped file
+     * @throws IOException
+     *             if the data cannot be read
+     */
+    private AbstractEncodingSpecificReader utf8Reader() throws IOException {
+        if (mappedFileInputStream != null) {
+            return new MappedFileLineReader(parser, mappedFileInputStream, Encoding.UTF_8);
+        }
+        return new Utf8Reader(parser, byteStream);
+    }
 }
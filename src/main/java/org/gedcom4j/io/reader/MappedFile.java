@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A read-only, memory-mapped view of a file. Because a single {@link MappedByteBuffer} can address at most 2GB, the file is mapped
+ * in windows that slide forward as the data is read, so files of any size can be read without copying them into the heap through
+ * an {@link java.io.InputStream}.
+ * 
+ * @author frizbog
+ */
+final class MappedFile implements Closeable {
+
+    /**
+     * The size of each mapped window of the file. 256MB.
+     */
+    private static final int WINDOW_SIZE = 1 << 28;
+
+    /**
+     * The channel for the file being mapped
+     */
+    private final FileChannel channel;
+
+    /**
+     * The total size of the file, in bytes
+     */
+    private final long size;
+
+    /**
+     * The currently mapped window of the file
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * A second view over the current window, whose position is moved around for bulk copies so the window itself can be read with
+     * absolute offsets
+     */
+    private ByteBuffer bulkView;
+
+    /**
+     * The offset in the file of the first byte in the current window
+     */
+    private long windowStart;
+
+    /**
+     * The number of bytes in the current window
+     */
+    private int windowLength;
+
+    /**
+     * Constructor
+     * 
+     * @param channel
+     *            the channel for the file to map. Must be open for reading.
+     * @throws IOException
+     *             if the size of the file cannot be determined
+     */
+    MappedFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        size = channel.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        window = null;
+        bulkView = null;
+        channel.close();
+    }
+
+    /**
+     * Get the byte at the supplied offset in the file
+     * 
+     * @param position
+     *            the offset in the file. Must be at least zero and less than {@link #size()}.
+     * @return the byte at that offset
+     * @throws IOException
+     *             if the file cannot be mapped
+     */
+    byte get(long position) throws IOException {
+        long offsetInWindow = position - windowStart;
+        if (window == null || offsetInWindow < 0 || offsetInWindow >= windowLength) {
+            mapWindowAt(position);
+            offsetInWindow = 0;
+        }
+        return window.get((int) offsetInWindow);
+    }
+
+    /**
+     * Copy a range of bytes from the file into the supplied array
+     * 
+     * @param position
+     *            the offset in the file of the first byte to copy
+     * @param dest
+     *            the array to copy the bytes into
+     * @param offset
+     *            the offset in <code>dest</code> to start copying to
+     * @param length
+     *            the number of bytes to copy. The range must lie entirely within the file.
+     * @throws IOException
+     *             if the file cannot be mapped
+     */
+    void get(long position, byte[] dest, int offset, int length) throws IOException {
+        long pos = position;
+        int off = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            long offsetInWindow = pos - windowStart;
+            if (window == null || offsetInWindow < 0 || offsetInWindow >= windowLength) {
+                mapWindowAt(pos);
+                offsetInWindow = 0;
+            }
+            int n = (int) Math.min(remaining, windowLength - offsetInWindow);
+            bulkView.position((int) offsetInWindow);
+            bulkView.get(dest, off, n);
+            pos += n;
+            off += n;
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Get the size of the file
+     * 
+     * @return the size of the file, in bytes
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Map a new window of the file, starting at the supplied position
+     * 
+     * @param position
+     *            the offset in the file where the window should start
+     * @throws IOException
+     *             if the file cannot be mapped
+     */
+    private void mapWindowAt(long position) throws IOException {
+        if (position < 0 || position >= size) {
+            throw new IOException("Attempt to read offset " + position + " of a file that is " + size + " bytes long");
+        }
+        windowStart = position;
+        windowLength = (int) Math.min(WINDOW_SIZE, size - position);
+        window = channel.map(MapMode.READ_ONLY, windowStart, windowLength);
+        bulkView = window.duplicate();
+    }
+}
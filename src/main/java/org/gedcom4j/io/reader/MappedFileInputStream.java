@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} over a {@link MappedFile}. Used by the encoding-specific readers that decode the file a byte at a time, so
+ * that they read from the mapped file rather than through a buffered stream over a file descriptor. The current position in the
+ * file is exposed so readers that scan the mapped bytes directly can share and advance it.
+ * 
+ * @author frizbog
+ */
+final class MappedFileInputStream extends InputStream {
+
+    /**
+     * The mapped file being read
+     */
+    private final MappedFile mappedFile;
+
+    /**
+     * The offset in the file of the next byte to be read
+     */
+    private long position;
+
+    /**
+     * Constructor
+     * 
+     * @param mappedFile
+     *            the mapped file to read
+     */
+    MappedFileInputStream(MappedFile mappedFile) {
+        this.mappedFile = mappedFile;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, mappedFile.size() - position);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        if (position >= mappedFile.size()) {
+            return -1;
+        }
+        return mappedFile.get(position++) & 0xFF;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        long remaining = mappedFile.size() - position;
+        if (remaining <= 0) {
+            return -1;
+        }
+        int n = (int) Math.min(len, remaining);
+        mappedFile.get(position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = Math.max(0, Math.min(n, mappedFile.size() - position));
+        position += skipped;
+        return skipped;
+    }
+
+    /**
+     * Get the mapped file being read
+     * 
+     * @return the mapped file being read
+     */
+    MappedFile getMappedFile() {
+        return mappedFile;
+    }
+
+    /**
+     * Get the offset in the file of the next byte to be read
+     * 
+     * @return the offset in the file of the next byte to be read
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * Set the offset in the file of the next byte to be read
+     * 
+     * @param position
+     *            the offset in the file of the next byte to be read
+     */
+    void setPosition(long position) {
+        this.position = position;
+    }
+
+}
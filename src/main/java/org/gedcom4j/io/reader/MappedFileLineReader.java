@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.reader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.io.encoding.Encoding;
+import org.gedcom4j.parser.GedcomParser;
+
+/**
+ * A reader for ASCII and UTF-8 encoded data in a memory-mapped file. Since both encodings use single bytes for the line terminators
+ * and the whitespace that GEDCOM lines are trimmed of, line boundaries are found by scanning the mapped bytes directly. Lines made
+ * up entirely of 7-bit characters (the vast majority of lines in most files) are handed out by {@link #nextLineChars()} as a view
+ * of their bytes, without being decoded to a String at all - the parser tokenizes the bytes, and only makes strings of the parts of
+ * the line it keeps. Lines with other characters are decoded to a String once a complete, non-blank line has been found.
+ * 
+ * @author frizbog
+ */
+final class MappedFileLineReader extends AbstractEncodingSpecificReader {
+
+    /**
+     * A view of the line held in {@link MappedFileLineReader#lineBytes}, which must be made up entirely of 7-bit characters, so
+     * that each byte is one character. Reused for every line.
+     */
+    private final class LineChars implements CharSequence {
+
+        /**
+         * The number of bytes in the line
+         */
+        private int length;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+            }
+            return (char) lineBytes[index];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int length() {
+            return length;
+        }
+
+        /**
+         * {@inheritDoc} The sequence returned is a String, so it can be kept after the line has been reused.
+         */
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("Start: " + start + ", End: " + end + ", Length: " + length);
+            }
+            return new String(lineBytes, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return new String(lineBytes, 0, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Carriage return byte
+     */
+    private static final byte CR = 0x0D;
+
+    /**
+     * Line feed byte
+     */
+    private static final byte LF = 0x0A;
+
+    /**
+     * The stream over the mapped file, which holds our current position in the file
+     */
+    private final MappedFileInputStream in;
+
+    /**
+     * The mapped file being read
+     */
+    private final MappedFile mappedFile;
+
+    /**
+     * The encoding of the file - either {@link Encoding#ASCII} or {@link Encoding#UTF_8}
+     */
+    private final Encoding encoding;
+
+    /**
+     * Reusable buffer that the bytes of each line are copied into before being decoded
+     */
+    private byte[] lineBytes = new byte[256];
+
+    /**
+     * Reusable view of {@link #lineBytes}, for lines made up entirely of 7-bit characters
+     */
+    private final LineChars lineChars = new LineChars();
+
+    /**
+     * Constructor
+     * 
+     * @param parser
+     *            the {@link GedcomParser} which is using this object to read files
+     * @param in
+     *            the stream over the mapped file to read
+     * @param encoding
+     *            the encoding of the file - either {@link Encoding#ASCII} or {@link Encoding#UTF_8}
+     * @throws IOException
+     *             if the beginning of the file cannot be read
+     */
+    MappedFileLineReader(GedcomParser parser, MappedFileInputStream in, Encoding encoding) throws IOException {
+        super(parser, in);
+        if (encoding != Encoding.ASCII && encoding != Encoding.UTF_8) {
+            throw new IllegalArgumentException("Only ASCII and UTF-8 encoded files can be read by this class, not " + encoding);
+        }
+        this.in = in;
+        this.encoding = encoding;
+        mappedFile = in.getMappedFile();
+        if (encoding == Encoding.UTF_8 && mappedFile.size() >= 3 && mappedFile.get(0) == (byte) 0xEF && mappedFile.get(
+                1) == (byte) 0xBB && mappedFile.get(2) == (byte) 0xBF) {
+            // Discard the byte order marker
+            in.setPosition(3);
+            bytesRead = 3;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String nextLine() throws IOException, GedcomParserException {
+        CharSequence result = nextLineChars();
+        return result == null ? null : result.toString();
+    }
+
+    /**
+     * {@inheritDoc} Lines made up entirely of 7-bit characters are returned as a reusable view of their bytes.
+     */
+    @Override
+    public CharSequence nextLineChars() throws IOException, GedcomParserException {
+        long size = mappedFile.size();
+        long pos = in.getPosition();
+        CharSequence result = null;
+        while (result == null && pos < size) {
+            // Skip leading whitespace, which includes any blank lines
+            while (pos < size && isWhitespace(mappedFile.get(pos))) {
+                pos++;
+            }
+            if (pos >= size) {
+                break;
+            }
+
+            long start = pos;
+            int highBits = 0;
+            byte b = mappedFile.get(pos);
+            while (b != CR && b != LF) {
+                highBits |= b;
+                if (++pos >= size) {
+                    break;
+                }
+                b = mappedFile.get(pos);
+            }
+            int len = (int) (pos - start);
+            if (pos < size) {
+                pos++; // Consume the line terminator
+            }
+
+            if (lineBytes.length < len) {
+                lineBytes = new byte[Math.max(len, lineBytes.length * 2)];
+            }
+            mappedFile.get(start, lineBytes, 0, len);
+
+            if (highBits >= 0) {
+                // Every byte had its high bit clear, so it's plain 7-bit data, and needs no decoding
+                lineChars.length = len;
+                result = lineChars;
+            } else {
+                result = decodeExtendedLine(len);
+            }
+        }
+        in.setPosition(pos);
+        bytesRead = pos;
+        if (result != null) {
+            linesRead++;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void cleanUp() throws IOException {
+        // do nothing - the mapped file is owned by whoever opened it
+    }
+
+    /**
+     * Decode a line, held in {@link #lineBytes}, which contains bytes outside the 7-bit range
+     * 
+     * @param len
+     *            the number of bytes in the line
+     * @return the decoded line, or null if the line turned out to be entirely whitespace once decoded
+     * @throws IOException
+     *             if the file is ASCII encoded, since extended characters are not supported in ASCII
+     */
+    private String decodeExtendedLine(int len) throws IOException {
+        if (encoding == Encoding.ASCII) {
+            for (int i = 0; i < len; i++) {
+                if (lineBytes[i] < 0) {
+                    throw new IOException("Extended characters not supported in ASCII: 0x" + Integer.toHexString(lineBytes[i]
+                            & 0xFF));
+                }
+            }
+        }
+        String s = new String(lineBytes, 0, len, StandardCharsets.UTF_8);
+        // Strip off Byte Order Mark if needed
+        if (s.length() > 0 && s.charAt(0) == (char) 0xFEFF) {
+            s = s.substring(1);
+        }
+        // Trim any leading non-ASCII whitespace too
+        int i = 0;
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+            i++;
+        }
+        if (i == s.length()) {
+            return null;
+        }
+        return i == 0 ? s : s.substring(i);
+    }
+
+    /**
+     * Is the supplied byte a whitespace character in both ASCII and UTF-8, as defined by {@link Character#isWhitespace(int)}?
+     * Line terminators count as whitespace.
+     * 
+     * @param b
+     *            the byte
+     * @return true if and only if the byte is a single-byte whitespace character
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b >= 0x09 && b <= 0x0D || b >= 0x1C && b <= 0x1F;
+    }
+}
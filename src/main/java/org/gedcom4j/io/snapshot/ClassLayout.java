@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.snapshot;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.gedcom4j.model.Gedcom;
+
+/**
+ * The layout of a model class in a snapshot - the fields that are written for each instance of the class, in the order they are
+ * written, and a fingerprint of that layout that is stored in the snapshot so a reader can tell whether the class has changed
+ * since the snapshot was written. For enums, the layout is the list of constants instead of the fields.
+ * 
+ * @author frizbog
+ */
+final class ClassLayout {
+
+    /**
+     * Orders the fields declared by a single class by name, since {@link Class#getDeclaredFields()} does not promise any order
+     */
+    private static final Comparator<Field> FIELD_NAME_ORDER = new Comparator<Field>() {
+        @Override
+        public int compare(Field f1, Field f2) {
+            return f1.getName().compareTo(f2.getName());
+        }
+    };
+
+    /**
+     * The layouts computed so far, keyed by class. Computing a layout takes reflection, so each is computed only once.
+     */
+    private static final ConcurrentMap<Class<?>, ClassLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+    /**
+     * The prefix of the names of the classes (and enumerations) that make up the model
+     */
+    private static final String MODEL_PACKAGE_PREFIX = Gedcom.class.getPackage().getName() + ".";
+
+    /**
+     * The constructor used to make new instances of the class. Null for enums.
+     */
+    private final Constructor<?> constructor;
+
+    /**
+     * The arguments to pass to {@link #constructor}
+     */
+    private final Object[] constructorArgs;
+
+    /**
+     * The class this is the layout of
+     */
+    private final Class<?> describedClass;
+
+    /**
+     * The constants of the enum, in ordinal order. Null for classes that are not enums.
+     */
+    private final Object[] enumConstants;
+
+    /**
+     * The fields written for each instance of the class - all the non-static, non-transient fields of the class and its
+     * superclasses, superclass fields first
+     */
+    private final Field[] fields;
+
+    /**
+     * The fingerprint of the layout
+     */
+    private final long fingerprint;
+
+    /**
+     * Constructor
+     * 
+     * @param describedClass
+     *            the class to compute the layout of
+     * @throws IOException
+     *             if the class has a field of a primitive type that snapshots do not support, or has no constructor that can be
+     *             used to make instances of it
+     */
+    private ClassLayout(Class<?> describedClass) throws IOException {
+        this.describedClass = describedClass;
+        StringBuilder signature = new StringBuilder(describedClass.getName());
+        if (describedClass.isEnum()) {
+            enumConstants = describedClass.getEnumConstants();
+            fields = new Field[0];
+            constructor = null;
+            constructorArgs = null;
+            for (Object e : enumConstants) {
+                signature.append(';').append(((Enum<?>) e).name());
+            }
+        } else {
+            enumConstants = null;
+            fields = findFields(describedClass);
+            for (Field f : fields) {
+                signature.append(';').append(f.getDeclaringClass().getSimpleName()).append('.').append(f.getName()).append(':')
+                        .append(f.getGenericType());
+            }
+            Constructor<?> c = findConstructor(describedClass, new Class<?>[0]);
+            if (c == null) {
+                // Some classes, like CustomFact, insist on being constructed with a string - which gets overwritten anyway
+                c = findConstructor(describedClass, new Class<?>[] { String.class });
+            }
+            if (c == null) {
+                throw new IOException(describedClass.getName()
+                        + " has no constructor that can be used to restore it from a snapshot");
+            }
+            constructor = c;
+            constructorArgs = new Object[c.getParameterTypes().length];
+        }
+        fingerprint = fingerprintOf(signature);
+    }
+
+    /**
+     * Get the layout of the supplied class
+     * 
+     * @param c
+     *            the class. Must be a class from the model package (see {@link #modelClassOf(Class)}).
+     * @return the layout of the class
+     * @throws IOException
+     *             if the class can't be written to or read from a snapshot
+     */
+    static ClassLayout of(Class<?> c) throws IOException {
+        ClassLayout result = LAYOUTS.get(c);
+        if (result == null) {
+            result = new ClassLayout(c);
+            LAYOUTS.putIfAbsent(c, result);
+        }
+        return result;
+    }
+
+    /**
+     * Get the model class that an object of the supplied class is written to a snapshot as. Proxies for lazily loaded records, and
+     * any other subclasses of the model classes from outside the model package, are written as the model class they extend.
+     * 
+     * @param c
+     *            the class of the object
+     * @return the model class that the object is written as, or null if the object is not part of the model at all
+     */
+    static Class<?> modelClassOf(Class<?> c) {
+        Class<?> result = c;
+        while (result != null && !result.getName().startsWith(MODEL_PACKAGE_PREFIX)) {
+            result = result.getSuperclass();
+        }
+        return result;
+    }
+
+    /**
+     * Compute the fingerprint of a layout signature - a 64-bit FNV-1a hash of its UTF-8 bytes
+     * 
+     * @param signature
+     *            the signature of the layout
+     * @return the fingerprint of the signature
+     */
+    private static long fingerprintOf(CharSequence signature) {
+        long result = 0xcbf29ce484222325L;
+        for (byte b : signature.toString().getBytes(StandardCharsets.UTF_8)) {
+            result ^= b & 0xFF;
+            result *= 0x100000001b3L;
+        }
+        return result;
+    }
+
+    /**
+     * Find a constructor of the class with the supplied parameter types
+     * 
+     * @param c
+     *            the class
+     * @param parameterTypes
+     *            the types of the constructor parameters
+     * @return the constructor, made accessible, or null if the class does not have one with those parameter types
+     */
+    private static Constructor<?> findConstructor(Class<?> c, Class<?>[] parameterTypes) {
+        if (Modifier.isAbstract(c.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> result = c.getDeclaredConstructor(parameterTypes);
+            result.setAccessible(true);
+            return result;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Find the fields of a class that are written to snapshots
+     * 
+     * @param c
+     *            the class
+     * @return the non-static, non-transient fields of the class and its superclasses, made accessible, with the fields of
+     *         superclasses first and the fields of each class in name order
+     * @throws IOException
+     *             if one of the fields is of a primitive type that snapshots do not support
+     */
+    private static Field[] findFields(Class<?> c) throws IOException {
+        List<Field> result = new ArrayList<>();
+        if (c.getSuperclass() != null) {
+            result.addAll(Arrays.asList(findFields(c.getSuperclass())));
+        }
+        Field[] declared = c.getDeclaredFields();
+        Arrays.sort(declared, FIELD_NAME_ORDER);
+        for (Field f : declared) {
+            if (Modifier.isStatic(f.getModifiers()) || Modifier.isTransient(f.getModifiers())) {
+                continue;
+            }
+            Class<?> type = f.getType();
+            if (type.isPrimitive() && type != int.class && type != long.class && type != boolean.class) {
+                throw new IOException("Field " + f + " is of a type that cannot be written to a snapshot");
+            }
+            f.setAccessible(true);
+            result.add(f);
+        }
+        return result.toArray(new Field[result.size()]);
+    }
+
+    /**
+     * Get the class this is the layout of
+     * 
+     * @return the class this is the layout of
+     */
+    Class<?> getDescribedClass() {
+        return describedClass;
+    }
+
+    /**
+     * Get the constant of the enum with the supplied ordinal
+     * 
+     * @param ordinal
+     *            the ordinal of the constant
+     * @return the constant
+     * @throws IOException
+     *             if the class is not an enum, or has no constant with that ordinal
+     */
+    Object getEnumConstant(int ordinal) throws IOException {
+        if (enumConstants == null || ordinal < 0 || ordinal >= enumConstants.length) {
+            throw new IOException("No constant " + ordinal + " in " + describedClass.getName());
+        }
+        return enumConstants[ordinal];
+    }
+
+    /**
+     * Get the fields written for each instance of the class
+     * 
+     * @return the fields written for each instance of the class, in the order they are written. The array must not be modified.
+     */
+    Field[] getFields() {
+        return fields;
+    }
+
+    /**
+     * Get the fingerprint of the layout. The fingerprint changes if the class is renamed, or any field is added, removed, renamed,
+     * or changes type, or (for enums) if any constant is added, removed, renamed, or reordered.
+     * 
+     * @return the fingerprint of the layout
+     */
+    long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Make a new instance of the class, to have its fields filled in from a snapshot
+     * 
+     * @return the new instance
+     * @throws IOException
+     *             if the class is an enum or the instance cannot be constructed
+     */
+    Object newInstance() throws IOException {
+        if (constructor == null) {
+            throw new IOException("Cannot construct instances of " + describedClass.getName());
+        }
+        try {
+            return constructor.newInstance(constructorArgs);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IOException("Unable to construct instance of " + describedClass.getName(), e);
+        }
+    }
+}
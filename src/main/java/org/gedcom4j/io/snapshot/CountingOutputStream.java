@@ -24,26 +24,26 @@
  * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
  * OTHER DEALINGS IN THE SOFTWARE.
  */
-package org.gedcom4j.io.writer;
+package org.gedcom4j.io.snapshot;
 
 import java.io.IOException;
 import java.io.OutputStream;
 
 /**
- * An {@link OutputStream} Decorator that tracks/exposes the number of bytes written to the stream
+ * An output stream that counts the bytes written to it, as a long so that the count can go past 2GB, and passes them on to
+ * another stream - or discards them, when only the count is wanted.
  * 
  * @author frizbog
- *
  */
-class ProgressTrackingOutputStream extends OutputStream {
+final class CountingOutputStream extends OutputStream {
 
     /**
-     * The number of bytes written to this stream
+     * The number of bytes written so far
      */
-    int bytesWritten;
+    private long count;
 
     /**
-     * The output stream being decorated
+     * The stream the bytes are passed on to. Null if they are discarded.
      */
     private final OutputStream out;
 
@@ -51,9 +51,9 @@ class ProgressTrackingOutputStream extends OutputStream {
      * Constructor
      * 
      * @param out
-     *            the output stream to be decorated
+     *            the stream to pass the bytes on to. Null to discard them and just count them.
      */
-    ProgressTrackingOutputStream(OutputStream out) {
+    CountingOutputStream(OutputStream out) {
         this.out = out;
     }
 
@@ -61,9 +61,10 @@ class ProgressTrackingOutputStream extends OutputStream {
      * {@inheritDoc}
      */
     @Override
-    public void write(byte[] b) throws IOException {
-        out.write(b);
-        bytesWritten += b.length;
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
     }
 
     /**
@@ -71,8 +72,10 @@ class ProgressTrackingOutputStream extends OutputStream {
      */
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
-        out.write(b, off, len);
-        bytesWritten += len;
+        if (out != null) {
+            out.write(b, off, len);
+        }
+        count += len;
     }
 
     /**
@@ -80,17 +83,18 @@ class ProgressTrackingOutputStream extends OutputStream {
      */
     @Override
     public void write(int b) throws IOException {
-        out.write(b);
-        bytesWritten++;
+        if (out != null) {
+            out.write(b);
+        }
+        count++;
     }
 
     /**
-     * Get the bytesWritten
+     * Get the number of bytes written so far
      * 
-     * @return the bytesWritten
+     * @return the number of bytes written so far
      */
-    int getBytesWritten() {
-        return bytesWritten;
+    long getCount() {
+        return count;
     }
-
 }
@@ -0,0 +1,637 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.snapshot;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.gedcom4j.exception.IncompatibleSnapshotException;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.HasXref;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.parser.LazyFamily;
+import org.gedcom4j.parser.LazyIndividual;
+import org.gedcom4j.parser.RecordLoader;
+
+/**
+ * <p>
+ * A read-only store of the records in a snapshot file written by {@link SnapshotWriter}, which maps the file into memory instead
+ * of reading it into the heap. Only the small table of classes is read when the store is opened; records are found through the
+ * fixed-width tables in the file, and each is decoded into ordinary objects on the heap the first time it is used - the objects
+ * are not views of the file, and decoding one costs about as much as reading it from a stream would. The operating system's page
+ * cache holds the undecoded data, so a store can be far larger than the heap, and several JVMs opening the same file share one
+ * copy of it.
+ * </p>
+ * <p>
+ * Individuals and families are handed out as flyweights - {@link LazyIndividual}s and {@link LazyFamily}s, with all the same
+ * getters, which hold nothing but their xref until one of their other methods is called, and then decode themselves from the file.
+ * The links between records (for example, from a {@link org.gedcom4j.model.FamilyChild} to its family) are flyweights too, so an
+ * entire tree can be navigated while only the records actually visited are decoded. Other records, such as sources and notes, are
+ * decoded in full when they are referred to. The store only keeps weak references to the records it hands out, so they can be
+ * garbage collected as soon as the caller is done with them, and are decoded again if they are asked for after that; until then,
+ * every request for the same record gets the same object.
+ * </p>
+ * <p>
+ * Since a record that has been collected is decoded afresh the next time it is asked for, changes made to it would be lost, so
+ * the flyweights are read-only: their setters throw an {@link UnsupportedOperationException}, and their lists are unmodifiable. The
+ * other records, and the objects within the flyweights (names, events and so on), are not protected in the same way, and changes
+ * to them are not kept either. Only one flyweight is decoded at a time.
+ * </p>
+ * <p>
+ * Problems reading the file after the store has been opened are reported as {@link IllegalStateException}s, since they can arise
+ * in any getter of a flyweight. Flyweights must not be used after the store has been closed. This class is thread-safe.
+ * </p>
+ * 
+ * @author frizbog
+ */
+public class MappedRecordStore implements Closeable {
+
+    /**
+     * A weak reference to a record handed out by the store, which remembers the record's id so it can be removed from
+     * {@link MappedRecordStore#records} once the record has been collected
+     */
+    private static final class RecordReference extends WeakReference<Object> {
+
+        /**
+         * The id of the record
+         */
+        private final int recordId;
+
+        /**
+         * Constructor
+         * 
+         * @param record
+         *            the record - a flyweight, or a decoded record of another class
+         * @param recordId
+         *            the id of the record
+         * @param queue
+         *            the queue to put the reference on once the record has been collected
+         */
+        RecordReference(Object record, int recordId, ReferenceQueue<Object> queue) {
+            super(record, queue);
+            this.recordId = recordId;
+        }
+    }
+
+    /**
+     * A read-only list of the records of one class in the xref index, which makes a flyweight for each record as it is asked for
+     * 
+     * @param <T>
+     *            the type of record
+     */
+    private final class FlyweightList<T> extends AbstractList<T> implements RandomAccess {
+
+        /**
+         * The position in the xref index of the first record in the list
+         */
+        private final int first;
+
+        /**
+         * The class of the records in the list
+         */
+        private final Class<T> recordClass;
+
+        /**
+         * The number of records in the list
+         */
+        private final int size;
+
+        /**
+         * Constructor
+         * 
+         * @param recordClass
+         *            the class of the records in the list
+         * @param classId
+         *            the index of that class in the class table, or -1 if it's not in the class table
+         * @throws IllegalStateException
+         *             if the xref index can't be read from the file
+         */
+        FlyweightList(Class<T> recordClass, int classId) {
+            this.recordClass = recordClass;
+            if (classId < 0) {
+                first = 0;
+                size = 0;
+                return;
+            }
+            try {
+                int start = firstInXrefIndex(classId);
+                size = firstInXrefIndex(classId + 1) - start;
+                first = start;
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to read xref index of snapshot", e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            try {
+                return recordClass.cast(record(data.getInt(xrefIndexStart + (first + index) * 4L)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to read record from snapshot", e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * The loader the flyweights use to decode themselves from the store. Its records are read-only.
+     */
+    private final class FlyweightLoader implements RecordLoader {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isReadOnly() {
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void load(HasXref record, int lineNum, long position) {
+            MappedRecordStore.this.load(record, (int) position);
+        }
+    }
+
+    /**
+     * Decodes record data from the mapped file
+     */
+    private final class MappedDecoder extends RecordDecoder {
+
+        /**
+         * The offset in the file of the next byte to read
+         */
+        private long pos;
+
+        /**
+         * Constructor
+         * 
+         * @param classes
+         *            the layouts of the classes in the class table, in order
+         * @param pos
+         *            the offset in the file of the first byte to read
+         */
+        MappedDecoder(ClassLayout[] classes, long pos) {
+            super(classes);
+            this.pos = pos;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected byte readByte() throws IOException {
+            return data.get(pos++);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected int readInt() throws IOException {
+            int result = data.getInt(pos);
+            pos += 4;
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected Object record(int recordId) throws IOException {
+            return MappedRecordStore.this.record(recordId);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected String string(int stringId) throws IOException {
+            return MappedRecordStore.this.string(stringId);
+        }
+    }
+
+    /**
+     * The layouts of the classes in the class table, in order
+     */
+    private final ClassLayout[] classes;
+
+    /**
+     * The offset in the file of the class ids in the record table
+     */
+    private final long classIdsStart;
+
+    /**
+     * The references to records that have been garbage collected, waiting to be removed from {@link #records}
+     */
+    private final ReferenceQueue<Object> collectedRecords = new ReferenceQueue<>();
+
+    /**
+     * The mapped file
+     */
+    private final MappedSegments data;
+
+    /**
+     * The index in the class table of {@link Family}, or -1 if there are no families in the store
+     */
+    private final int familyClassId;
+
+    /**
+     * The loader the flyweights use to decode themselves from the store
+     */
+    private final FlyweightLoader flyweightLoader = new FlyweightLoader();
+
+    /**
+     * The index in the class table of {@link Individual}, or -1 if there are no individuals in the store
+     */
+    private final int individualClassId;
+
+    /**
+     * The number of records in the record table
+     */
+    private final int recordCount;
+
+    /**
+     * The records handed out that may still be in use - the flyweights, and the other records that have been decoded - keyed by
+     * record id
+     */
+    private final Map<Integer, RecordReference> records = new HashMap<>();
+
+    /**
+     * The offset in the file of the start of the record data
+     */
+    private final long recordDataStart;
+
+    /**
+     * The offset in the file of the record data offsets in the record table
+     */
+    private final long recordOffsetsStart;
+
+    /**
+     * The number of strings in the string table
+     */
+    private final int stringCount;
+
+    /**
+     * The offset in the file of the start of the string data
+     */
+    private final long stringDataStart;
+
+    /**
+     * The offset in the file of the string offsets in the string table
+     */
+    private final long stringOffsetsStart;
+
+    /**
+     * The offset in the file of the xref string ids in the record table
+     */
+    private final long xrefIdsStart;
+
+    /**
+     * The number of records in the xref index
+     */
+    private final int xrefIndexCount;
+
+    /**
+     * The offset in the file of the xref index
+     */
+    private final long xrefIndexStart;
+
+    /**
+     * Constructor. Opens and maps the file, and checks that it is a snapshot this version of gedcom4j can use.
+     * 
+     * @param file
+     *            the snapshot file
+     * @throws IncompatibleSnapshotException
+     *             if the snapshot was written by an incompatible version of gedcom4j, or the file is not a snapshot at all
+     * @throws IOException
+     *             if the file can't be opened or mapped, or is corrupt
+     */
+    @SuppressWarnings("resource")
+    public MappedRecordStore(File file) throws IOException {
+        data = new MappedSegments(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+        try {
+            if (data.size() < 8) {
+                throw new IncompatibleSnapshotException("Data is not a gedcom4j snapshot");
+            }
+            SnapshotFormat.checkPreamble(data.getInt(0), data.getInt(4));
+
+            stringCount = data.getInt(8);
+            stringOffsetsStart = 12;
+            stringDataStart = stringOffsetsStart + (stringCount + 1L) * 8;
+
+            MappedDecoder classTable = new MappedDecoder(new ClassLayout[0], stringDataStart + data.getLong(stringOffsetsStart
+                    + stringCount * 8L));
+            classes = new ClassLayout[classTable.readVarInt()];
+            int f = -1;
+            int i = -1;
+            for (int c = 0; c < classes.length; c++) {
+                String className = string(classTable.readVarInt());
+                long hi = classTable.readInt();
+                classes[c] = SnapshotFormat.layoutOf(className, hi << 32 | classTable.readInt() & 0xFFFFFFFFL);
+                if (classes[c].getDescribedClass() == Family.class) {
+                    f = c;
+                } else if (classes[c].getDescribedClass() == Individual.class) {
+                    i = c;
+                }
+            }
+            familyClassId = f;
+            individualClassId = i;
+
+            recordCount = data.getInt(classTable.pos);
+            classIdsStart = classTable.pos + 4;
+            xrefIdsStart = classIdsStart + recordCount * 4L;
+            recordOffsetsStart = xrefIdsStart + recordCount * 4L;
+            long xrefIndexCountPos = recordOffsetsStart + (recordCount + 1L) * 8;
+            xrefIndexCount = data.getInt(xrefIndexCountPos);
+            xrefIndexStart = xrefIndexCountPos + 4;
+            recordDataStart = xrefIndexStart + xrefIndexCount * 4L;
+            if (recordDataStart + data.getLong(recordOffsetsStart + recordCount * 8L) != data.size()) {
+                throw new IOException("Corrupt snapshot - file is not the length given in the record table");
+            }
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        data.close();
+    }
+
+    /**
+     * Get all the families in the store (that have xrefs), in xref order
+     * 
+     * @return a read-only list of all the families in the store. The flyweights are made as the list is read.
+     */
+    public List<Family> getFamilies() {
+        return new FlyweightList<>(Family.class, familyClassId);
+    }
+
+    /**
+     * Get the family with the supplied xref
+     * 
+     * @param xref
+     *            the xref of the family
+     * @return a flyweight for the family, or null if there is no family with that xref in the store
+     */
+    public Family getFamily(String xref) {
+        return (Family) find(familyClassId, xref);
+    }
+
+    /**
+     * Get the individual with the supplied xref
+     * 
+     * @param xref
+     *            the xref of the individual
+     * @return a flyweight for the individual, or null if there is no individual with that xref in the store
+     */
+    public Individual getIndividual(String xref) {
+        return (Individual) find(individualClassId, xref);
+    }
+
+    /**
+     * Get all the individuals in the store (that have xrefs), in xref order
+     * 
+     * @return a read-only list of all the individuals in the store. The flyweights are made as the list is read.
+     */
+    public List<Individual> getIndividuals() {
+        return new FlyweightList<>(Individual.class, individualClassId);
+    }
+
+    /**
+     * Decode a record into the supplied object
+     * 
+     * @param record
+     *            the object to decode the record into - either a flyweight, or a newly constructed instance of the record's class
+     * @param recordId
+     *            the id of the record
+     * @throws IllegalStateException
+     *             if the record can't be read from the file
+     */
+    void load(Object record, int recordId) {
+        try {
+            MappedDecoder decoder = new MappedDecoder(classes, recordDataStart + data.getLong(recordOffsetsStart + recordId * 8L));
+            decoder.readFields(record, classes[classIdOf(recordId)]);
+            if (decoder.pos != recordDataStart + data.getLong(recordOffsetsStart + (recordId + 1L) * 8)) {
+                throw new IOException("Corrupt snapshot - record " + recordId + " is not the length given in the record table");
+            }
+        } catch (IOException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("Unable to read record " + recordId + " from snapshot", e);
+        }
+    }
+
+    /**
+     * Get the index in the class table of the class of a record
+     * 
+     * @param recordId
+     *            the id of the record
+     * @return the index of its class
+     * @throws IOException
+     *             if the record table can't be read
+     */
+    private int classIdOf(int recordId) throws IOException {
+        if (recordId < 0 || recordId >= recordCount) {
+            throw new IOException("Corrupt snapshot - no record " + recordId);
+        }
+        return data.getInt(classIdsStart + recordId * 4L);
+    }
+
+    /**
+     * Find a record in the xref index
+     * 
+     * @param classId
+     *            the index in the class table of the class of the record
+     * @param xref
+     *            the xref of the record
+     * @return a flyweight for the record (or the record itself, for classes without flyweights), or null if there is no record of
+     *         that class with that xref
+     * @throws IllegalStateException
+     *             if the index can't be read from the file
+     */
+    private Object find(int classId, String xref) {
+        if (classId < 0 || xref == null) {
+            return null;
+        }
+        try {
+            int low = 0;
+            int high = xrefIndexCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int recordId = data.getInt(xrefIndexStart + mid * 4L);
+                int c = Integer.compare(classIdOf(recordId), classId);
+                if (c == 0) {
+                    c = xrefOf(recordId).compareTo(xref);
+                }
+                if (c < 0) {
+                    low = mid + 1;
+                } else if (c > 0) {
+                    high = mid - 1;
+                } else {
+                    return record(recordId);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to find record " + xref + " in snapshot", e);
+        }
+    }
+
+    /**
+     * Find the position in the xref index of the first record of a class (or of a later class, if there are none of that class)
+     * 
+     * @param classId
+     *            the index in the class table of the class
+     * @return the position in the xref index of the first record whose class is at that index in the class table or later
+     * @throws IOException
+     *             if the index can't be read from the file
+     */
+    private int firstInXrefIndex(int classId) throws IOException {
+        int low = 0;
+        int high = xrefIndexCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (classIdOf(data.getInt(xrefIndexStart + mid * 4L)) < classId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get a record - the one already handed out, if it is still in use, or else a new one. Individuals and families are
+     * flyweights; other records are decoded in full.
+     * 
+     * @param recordId
+     *            the id of the record
+     * @return the record
+     * @throws IOException
+     *             if the record can't be read from the file
+     */
+    private Object record(int recordId) throws IOException {
+        int classId = classIdOf(recordId);
+        synchronized (records) {
+            for (Reference<?> r = collectedRecords.poll(); r != null; r = collectedRecords.poll()) {
+                RecordReference collected = (RecordReference) r;
+                if (records.get(collected.recordId) == collected) {
+                    records.remove(collected.recordId);
+                }
+            }
+            RecordReference ref = records.get(recordId);
+            Object result = ref == null ? null : ref.get();
+            if (result != null) {
+                return result;
+            }
+            boolean flyweight = classId == individualClassId || classId == familyClassId;
+            if (classId == individualClassId) {
+                result = new LazyIndividual(flyweightLoader, xrefOf(recordId), 0, recordId);
+            } else if (classId == familyClassId) {
+                result = new LazyFamily(flyweightLoader, xrefOf(recordId), 0, recordId);
+            } else {
+                result = classes[classId].newInstance();
+            }
+            // Kept before it's decoded, so records that refer back to it get this instance
+            records.put(recordId, new RecordReference(result, recordId, collectedRecords));
+            if (!flyweight) {
+                try {
+                    load(result, recordId);
+                } catch (RuntimeException e) {
+                    records.remove(recordId);
+                    throw e;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Get a string from the string table
+     * 
+     * @param stringId
+     *            the index of the string in the string table
+     * @return the string
+     * @throws IOException
+     *             if the string can't be read from the file
+     */
+    private String string(int stringId) throws IOException {
+        if (stringId < 0 || stringId >= stringCount) {
+            throw new IOException("Corrupt snapshot - no string " + stringId);
+        }
+        long start = data.getLong(stringOffsetsStart + stringId * 8L);
+        int length = (int) (data.getLong(stringOffsetsStart + (stringId + 1L) * 8) - start);
+        byte[] b = new byte[length];
+        data.get(stringDataStart + start, b, 0, length);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the xref of a record
+     * 
+     * @param recordId
+     *            the id of the record
+     * @return the xref of the record, or null if it has none
+     * @throws IOException
+     *             if the xref can't be read from the file
+     */
+    private String xrefOf(int recordId) throws IOException {
+        int stringId = data.getInt(xrefIdsStart + recordId * 4L);
+        return stringId < 0 ? null : string(stringId);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A read-only, memory-mapped view of a whole file. Because a single {@link MappedByteBuffer} can address at most 2GB, the file is
+ * mapped as a series of segments. Unlike the <code>MappedFile</code> class used for reading GEDCOM files, which slides a single
+ * window forward through a file, every part of the file is always mapped, and all the methods read with absolute offsets, so the
+ * file can be read at random and by several threads at once.
+ * 
+ * @author frizbog
+ */
+final class MappedSegments implements Closeable {
+
+    /**
+     * The number of bits in an offset within a segment
+     */
+    private static final int SEGMENT_BITS = 30;
+
+    /**
+     * The size of each mapped segment of the file. 1GB.
+     */
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    /**
+     * The channel for the file being mapped
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped segments of the file, in order
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * The total size of the file, in bytes
+     */
+    private final long size;
+
+    /**
+     * Constructor
+     * 
+     * @param channel
+     *            the channel for the file to map. Must be open for reading.
+     * @throws IOException
+     *             if the file cannot be mapped
+     */
+    MappedSegments(FileChannel channel) throws IOException {
+        this.channel = channel;
+        size = channel.size();
+        segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i * SEGMENT_SIZE;
+            segments[i] = channel.map(MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Get the byte at the supplied offset in the file
+     * 
+     * @param position
+     *            the offset in the file. Must be at least zero and less than {@link #size()}.
+     * @return the byte at that offset
+     * @throws IOException
+     *             if the offset is outside the file
+     */
+    byte get(long position) throws IOException {
+        checkRange(position, 1);
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_SIZE - 1));
+    }
+
+    /**
+     * Copy a range of bytes from the file into the supplied array
+     * 
+     * @param position
+     *            the offset in the file of the first byte to copy
+     * @param dest
+     *            the array to copy the bytes into
+     * @param offset
+     *            the offset in <code>dest</code> to start copying to
+     * @param length
+     *            the number of bytes to copy
+     * @throws IOException
+     *             if the range is not entirely within the file
+     */
+    void get(long position, byte[] dest, int offset, int length) throws IOException {
+        checkRange(position, length);
+        long pos = position;
+        int off = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            int offsetInSegment = (int) (pos & SEGMENT_SIZE - 1);
+            int n = Math.min(remaining, SEGMENT_SIZE - offsetInSegment);
+            // Each copy gets its own view of the segment, since moving the segment's own position isn't safe across threads
+            ByteBuffer view = segments[(int) (pos >>> SEGMENT_BITS)].duplicate();
+            view.position(offsetInSegment);
+            view.get(dest, off, n);
+            pos += n;
+            off += n;
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Get the 4-byte, big-endian int at the supplied offset in the file
+     * 
+     * @param position
+     *            the offset in the file of the first byte of the int
+     * @return the int
+     * @throws IOException
+     *             if the int is not entirely within the file
+     */
+    int getInt(long position) throws IOException {
+        checkRange(position, 4);
+        int offsetInSegment = (int) (position & SEGMENT_SIZE - 1);
+        if (offsetInSegment <= SEGMENT_SIZE - 4) {
+            return segments[(int) (position >>> SEGMENT_BITS)].getInt(offsetInSegment);
+        }
+        // Straddles two segments
+        return (get(position) & 0xFF) << 24 | (get(position + 1) & 0xFF) << 16 | (get(position + 2) & 0xFF) << 8 | get(position + 3)
+                & 0xFF;
+    }
+
+    /**
+     * Get the 8-byte, big-endian long at the supplied offset in the file
+     * 
+     * @param position
+     *            the offset in the file of the first byte of the long
+     * @return the long
+     * @throws IOException
+     *             if the long is not entirely within the file
+     */
+    long getLong(long position) throws IOException {
+        long hi = getInt(position);
+        return hi << 32 | getInt(position + 4) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Get the size of the file
+     * 
+     * @return the size of the file, in bytes
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Check that a range of bytes lies entirely within the file
+     * 
+     * @param position
+     *            the offset in the file of the first byte of the range
+     * @param length
+     *            the number of bytes in the range
+     * @throws IOException
+     *             if the range is not entirely within the file
+     */
+    private void checkRange(long position, int length) throws IOException {
+        if (position < 0 || length < 0 || position + length > size) {
+            throw new IOException("Attempt to read " + length + " bytes at offset " + position + " of a file that is " + size
+                    + " bytes long");
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.snapshot;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes the data of records in a snapshot (see {@link SnapshotFormat}) into model objects. Subclasses supply the bytes, and
+ * resolve the references to strings and other records, so the same decoding works for snapshots read from a stream and snapshots
+ * that are memory-mapped.
+ * 
+ * @author frizbog
+ */
+abstract class RecordDecoder {
+
+    /**
+     * The layouts of the classes in the class table, in order
+     */
+    private final ClassLayout[] classes;
+
+    /**
+     * Constructor
+     * 
+     * @param classes
+     *            the layouts of the classes in the class table of the snapshot, in order
+     */
+    RecordDecoder(ClassLayout[] classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * Read the values of the fields of an object
+     * 
+     * @param o
+     *            the object to set the fields of
+     * @param layout
+     *            the layout of the object's class
+     * @throws IOException
+     *             if the values can't be read or don't match the fields
+     */
+    void readFields(Object o, ClassLayout layout) throws IOException {
+        try {
+            for (Field f : layout.getFields()) {
+                Class<?> type = f.getType();
+                if (type == int.class) {
+                    f.setInt(o, readInt());
+                } else if (type == long.class) {
+                    long hi = readInt();
+                    f.setLong(o, hi << 32 | readInt() & 0xFFFFFFFFL);
+                } else if (type == boolean.class) {
+                    f.setBoolean(o, readByte() != 0);
+                } else {
+                    f.set(o, readValue());
+                }
+            }
+        } catch (IllegalAccessException | IllegalArgumentException e) {
+            throw new IOException("Corrupt snapshot - unable to set fields of " + layout.getDescribedClass().getName(), e);
+        }
+    }
+
+    /**
+     * Read a tagged value
+     * 
+     * @return the value
+     * @throws IOException
+     *             if the value can't be read
+     */
+    Object readValue() throws IOException {
+        byte tag = readByte();
+        switch (tag) {
+            case SnapshotFormat.NULL:
+                return null;
+            case SnapshotFormat.STRING:
+                return string(readVarInt());
+            case SnapshotFormat.ENUM: {
+                ClassLayout enumLayout = classes[readVarInt()];
+                return enumLayout.getEnumConstant(readVarInt());
+            }
+            case SnapshotFormat.LIST: {
+                int size = readVarInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                return list;
+            }
+            case SnapshotFormat.MAP: {
+                int size = readVarInt();
+                // Keep the iteration order the map had when it was written
+                Map<Object, Object> map = new LinkedHashMap<>(size + size / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    Object key = readValue();
+                    map.put(key, readValue());
+                }
+                return map;
+            }
+            case SnapshotFormat.RECORD:
+                return record(readVarInt());
+            case SnapshotFormat.OBJECT: {
+                ClassLayout layout = classes[readVarInt()];
+                Object result = layout.newInstance();
+                readFields(result, layout);
+                return result;
+            }
+            default:
+                throw new IOException("Corrupt snapshot - unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Read a varint
+     * 
+     * @return the value read
+     * @throws IOException
+     *             if the varint is malformed
+     */
+    int readVarInt() throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = readByte();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint in snapshot");
+    }
+
+    /**
+     * Read the next byte of the record data
+     * 
+     * @return the byte
+     * @throws IOException
+     *             if the byte can't be read
+     */
+    protected abstract byte readByte() throws IOException;
+
+    /**
+     * Read a 4-byte int from the record data
+     * 
+     * @return the int
+     * @throws IOException
+     *             if the int can't be read
+     */
+    protected int readInt() throws IOException {
+        return (readByte() & 0xFF) << 24 | (readByte() & 0xFF) << 16 | (readByte() & 0xFF) << 8 | readByte() & 0xFF;
+    }
+
+    /**
+     * Get the record with the supplied id
+     * 
+     * @param recordId
+     *            the id of the record
+     * @return the record
+     * @throws IOException
+     *             if the record can't be read
+     */
+    protected abstract Object record(int recordId) throws IOException;
+
+    /**
+     * Get the string with the supplied index in the string table
+     * 
+     * @param stringId
+     *            the index of the string
+     * @return the string
+     * @throws IOException
+     *             if the string can't be read
+     */
+    protected abstract String string(int stringId) throws IOException;
+}
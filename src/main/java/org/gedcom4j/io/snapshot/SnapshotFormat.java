@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.gedcom4j.exception.IncompatibleSnapshotException;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.model.Multimedia;
+import org.gedcom4j.model.NoteRecord;
+import org.gedcom4j.model.Repository;
+import org.gedcom4j.model.Source;
+import org.gedcom4j.model.Submission;
+import org.gedcom4j.model.Submitter;
+
+/**
+ * <p>
+ * Constants and helpers describing the layout of a snapshot file. A snapshot is laid out as follows, where a <i>varint</i> is an
+ * unsigned int written seven bits at a time, low bits first, with the high bit of each byte set if more bytes follow.
+ * </p>
+ * <ol>
+ * <li>The {@link #MAGIC} number and the {@link #FORMAT_VERSION}, as 4-byte ints</li>
+ * <li>The string table - a 4-byte count, then the 8-byte offset of each string (and of the end of the last string) from the start
+ * of the string data, then the string data itself, which is each string in UTF-8, one after another. Every string in the
+ * snapshot, including class names, is written as its index in this table.</li>
+ * <li>The class table - a varint count, then for each class the varint index of its name in the string table and the 8-byte
+ * fingerprint of its {@link ClassLayout}</li>
+ * <li>The record table - a 4-byte count, then the 4-byte index in the class table of the class of each record, then the 4-byte
+ * index in the string table of the xref of each record (-1 if it has none), then the 8-byte offset of each record's data (and of
+ * the end of the last record's data) from the start of the record data. The first record is the {@link org.gedcom4j.model.Gedcom}
+ * itself; the rest are the root-level records (individuals, families, etc.), each of which gets an integer id (its position in
+ * the table) in place of its xref.</li>
+ * <li>The xref index - a 4-byte count, then the 4-byte ids of the records that have xrefs, ordered by their class's index in the
+ * class table and then by xref, so that a record can be found by binary search</li>
+ * <li>The data of each record, one after another - the values of the fields in the record's layout</li>
+ * </ol>
+ * <p>
+ * All the tables other than the class table are fixed-width, so a record can be found in a snapshot without reading the snapshot
+ * into memory first, and decoded only when it is needed - see {@link MappedRecordStore}.
+ * </p>
+ * <p>
+ * int, long and boolean fields are written as 4, 8 and 1 bytes respectively. All other fields are written as a one byte tag
+ * followed by data that depends on the tag - see {@link #NULL}, {@link #STRING}, {@link #ENUM}, {@link #LIST}, {@link #MAP},
+ * {@link #RECORD} and {@link #OBJECT}.
+ * </p>
+ * 
+ * @author frizbog
+ */
+final class SnapshotFormat {
+
+    /**
+     * The first four bytes of every snapshot - "G4JS"
+     */
+    static final int MAGIC = 0x47344A53;
+
+    /**
+     * The version of the layout described above. Must be changed whenever the layout changes, so that snapshots written with an
+     * older layout are rejected rather than misread. (Changes to the model classes themselves are caught by the fingerprints in
+     * the class table, so they don't need a new format version.)
+     */
+    static final int FORMAT_VERSION = 2;
+
+    /**
+     * Tag for a null value. No data follows.
+     */
+    static final byte NULL = 0;
+
+    /**
+     * Tag for a string. Followed by the varint index of the string in the string table.
+     */
+    static final byte STRING = 1;
+
+    /**
+     * Tag for an enum constant. Followed by the varint index of the enum in the class table and the varint ordinal of the constant.
+     */
+    static final byte ENUM = 2;
+
+    /**
+     * Tag for a list. Followed by the varint size of the list and then each of its values.
+     */
+    static final byte LIST = 3;
+
+    /**
+     * Tag for a map. Followed by the varint size of the map and then each of its keys and values, key first.
+     */
+    static final byte MAP = 4;
+
+    /**
+     * Tag for a reference to a root-level record. Followed by the varint id of the record (its index in the record table).
+     */
+    static final byte RECORD = 5;
+
+    /**
+     * Tag for any other model object. Followed by the varint index of its class in the class table and then the values of the
+     * fields in its layout.
+     */
+    static final byte OBJECT = 6;
+
+    /**
+     * The model classes that are written as records of their own, and referred to by id wherever else they appear, rather than
+     * being written in full where they appear
+     */
+    private static final Set<Class<?>> RECORD_CLASSES = Collections.unmodifiableSet(new HashSet<Class<?>>(Arrays.<Class<?>> asList(
+            Family.class, Individual.class, Multimedia.class, NoteRecord.class, Repository.class, Source.class, Submission.class,
+            Submitter.class)));
+
+    /**
+     * Private constructor prevents instantiation and subclassing.
+     */
+    private SnapshotFormat() {
+        // Do nothing
+    }
+
+    /**
+     * Check the magic number and format version at the start of a snapshot
+     * 
+     * @param magic
+     *            the magic number read from the snapshot
+     * @param version
+     *            the format version read from the snapshot
+     * @throws IncompatibleSnapshotException
+     *             if the magic number is wrong or the format version is not the current one
+     */
+    static void checkPreamble(int magic, int version) throws IncompatibleSnapshotException {
+        if (magic != MAGIC) {
+            throw new IncompatibleSnapshotException("Data is not a gedcom4j snapshot");
+        }
+        if (version != FORMAT_VERSION) {
+            throw new IncompatibleSnapshotException("Snapshot is in format version " + version + " but only version "
+                    + FORMAT_VERSION + " is supported");
+        }
+    }
+
+    /**
+     * Is the supplied model class written as a record of its own?
+     * 
+     * @param modelClass
+     *            the model class
+     * @return true if objects of the class are written as records of their own, and referred to by id elsewhere
+     */
+    static boolean isRecordClass(Class<?> modelClass) {
+        return RECORD_CLASSES.contains(modelClass);
+    }
+
+    /**
+     * Get the layout of a class in the class table of a snapshot, making sure it matches the class as it is now
+     * 
+     * @param className
+     *            the name of the class
+     * @param fingerprint
+     *            the fingerprint of the class's layout when the snapshot was written
+     * @return the layout of the class
+     * @throws IncompatibleSnapshotException
+     *             if the class no longer exists or has changed since the snapshot was written, or is not a model class
+     * @throws IOException
+     *             if the layout of the class can't be determined
+     */
+    static ClassLayout layoutOf(String className, long fingerprint) throws IOException {
+        Class<?> c;
+        try {
+            c = Class.forName(className, false, SnapshotFormat.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IncompatibleSnapshotException("Snapshot contains class " + className + " which no longer exists", e);
+        }
+        if (ClassLayout.modelClassOf(c) != c) {
+            throw new IncompatibleSnapshotException("Snapshot contains class " + className + " which is not a model class");
+        }
+        ClassLayout result = ClassLayout.of(c);
+        if (result.getFingerprint() != fingerprint) {
+            throw new IncompatibleSnapshotException("Class " + className + " has changed since the snapshot was written");
+        }
+        return result;
+    }
+
+    /**
+     * Read a varint
+     * 
+     * @param in
+     *            the input to read from
+     * @return the value read
+     * @throws IOException
+     *             if the value cannot be read
+     */
+    static int readVarInt(DataInput in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint in snapshot");
+    }
+
+    /**
+     * Write a table of 8-byte offsets for a series of items stored one after another - 0, then the offset of the end of each item
+     * 
+     * @param out
+     *            the output to write to
+     * @param lengths
+     *            the lengths of the items, in order
+     * @return the offset of the end of the last item, which is the total length of the items
+     * @throws IOException
+     *             if the offsets cannot be written
+     */
+    static long writeOffsets(DataOutput out, List<Long> lengths) throws IOException {
+        long offset = 0;
+        out.writeLong(offset);
+        for (Long length : lengths) {
+            offset += length;
+            out.writeLong(offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Write a varint
+     * 
+     * @param out
+     *            the output to write to
+     * @param value
+     *            the value to write. Must not be negative.
+     * @throws IOException
+     *             if the value cannot be written
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.writeByte(remaining);
+    }
+}
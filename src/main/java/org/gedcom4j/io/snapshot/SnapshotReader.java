@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.gedcom4j.exception.IncompatibleSnapshotException;
+import org.gedcom4j.model.Gedcom;
+
+/**
+ * <p>
+ * Restores a {@link Gedcom} structure from a snapshot written by {@link SnapshotWriter}. Every record in the snapshot is
+ * constructed up front from the record table, so references between records are resolved as the records' data is read, in a
+ * single pass, without any lookups by xref. The record data is decoded as it is read from the stream, rather than being read into
+ * memory first, so snapshots larger than 2GB can be read (as long as the restored structure fits in the heap).
+ * </p>
+ * <p>
+ * If the snapshot was written by a version of gedcom4j with a different snapshot format, or with different model classes, an
+ * {@link IncompatibleSnapshotException} is thrown, and the GEDCOM data should be parsed again (and a new snapshot written).
+ * </p>
+ * 
+ * @author frizbog
+ */
+public class SnapshotReader {
+
+    /**
+     * Decodes record data as it is read from the stream, one record after another
+     */
+    private static final class StreamDecoder extends RecordDecoder {
+
+        /**
+         * The stream being read
+         */
+        private final DataInputStream din;
+
+        /**
+         * The offset in the record data of the next byte to read. A long, since the record data can be larger than 2GB.
+         */
+        private long pos;
+
+        /**
+         * The records, in the order of the record table
+         */
+        private final Object[] records;
+
+        /**
+         * The strings in the string table, in order
+         */
+        private final String[] strings;
+
+        /**
+         * Constructor
+         * 
+         * @param classes
+         *            the layouts of the classes in the class table, in order
+         * @param strings
+         *            the strings in the string table, in order
+         * @param records
+         *            the records, in the order of the record table
+         * @param din
+         *            the stream being read, positioned at the start of the record data
+         * @param pos
+         *            the offset in the record data that the stream is positioned at
+         */
+        StreamDecoder(ClassLayout[] classes, String[] strings, Object[] records, DataInputStream din, long pos) {
+            super(classes);
+            this.strings = strings;
+            this.records = records;
+            this.din = din;
+            this.pos = pos;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected byte readByte() throws IOException {
+            byte result = din.readByte();
+            pos++;
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected int readInt() throws IOException {
+            int result = din.readInt();
+            pos += 4;
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected Object record(int recordId) {
+            return records[recordId];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected String string(int stringId) {
+            return strings[stringId];
+        }
+    }
+
+    /**
+     * The size of the buffer used when reading from a stream
+     */
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * Read a snapshot from a file
+     * 
+     * @param file
+     *            the file to read
+     * @return the GEDCOM structure restored from the snapshot
+     * @throws IncompatibleSnapshotException
+     *             if the snapshot was written by an incompatible version of gedcom4j, or the file is not a snapshot at all
+     * @throws IOException
+     *             if the file can't be read, or is corrupt
+     */
+    public Gedcom read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Read a snapshot from a stream. The stream is not closed.
+     * 
+     * @param in
+     *            the stream to read
+     * @return the GEDCOM structure restored from the snapshot
+     * @throws IncompatibleSnapshotException
+     *             if the snapshot was written by an incompatible version of gedcom4j, or the stream does not contain a snapshot
+     * @throws IOException
+     *             if the stream can't be read, or the snapshot is corrupt
+     */
+    public Gedcom read(InputStream in) throws IOException {
+        try {
+            DataInputStream din = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+            try {
+                int magic = din.readInt();
+                SnapshotFormat.checkPreamble(magic, din.readInt());
+            } catch (EOFException e) {
+                throw new IncompatibleSnapshotException("Data is not a gedcom4j snapshot", e);
+            }
+            String[] strings = readStrings(din);
+            ClassLayout[] classes = readClasses(din, strings);
+
+            int recordCount = din.readInt();
+            int[] classIds = new int[recordCount];
+            for (int i = 0; i < recordCount; i++) {
+                classIds[i] = din.readInt();
+            }
+            // The xrefs are only needed for finding records in place
+            skipFully(din, recordCount * 4L);
+            long[] offsets = new long[recordCount + 1];
+            for (int i = 0; i <= recordCount; i++) {
+                offsets[i] = din.readLong();
+            }
+            skipFully(din, din.readInt() * 4L);
+
+            Object[] records = new Object[recordCount];
+            for (int i = 0; i < recordCount; i++) {
+                records[i] = classes[classIds[i]].newInstance();
+            }
+            // The record data follows, starting at the first record's offset, with each record straight after the one before
+            StreamDecoder decoder = new StreamDecoder(classes, strings, records, din, offsets[0]);
+            for (int i = 0; i < recordCount; i++) {
+                decoder.readFields(records[i], classes[classIds[i]]);
+                if (decoder.pos != offsets[i + 1]) {
+                    throw new IOException("Corrupt snapshot - record " + i + " is not the length given in the record table");
+                }
+            }
+            if (recordCount == 0 || !(records[0] instanceof Gedcom)) {
+                throw new IOException("Corrupt snapshot - first record is not a Gedcom");
+            }
+            return (Gedcom) records[0];
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt snapshot", e);
+        }
+    }
+
+    /**
+     * Read the class table
+     * 
+     * @param din
+     *            the stream being read
+     * @param strings
+     *            the strings in the string table
+     * @return the layouts of the classes in the class table, in order
+     * @throws IOException
+     *             if the stream can't be read, or the classes have changed since the snapshot was written
+     */
+    private ClassLayout[] readClasses(DataInputStream din, String[] strings) throws IOException {
+        ClassLayout[] result = new ClassLayout[SnapshotFormat.readVarInt(din)];
+        for (int i = 0; i < result.length; i++) {
+            String className = strings[SnapshotFormat.readVarInt(din)];
+            result[i] = SnapshotFormat.layoutOf(className, din.readLong());
+        }
+        return result;
+    }
+
+    /**
+     * Read the string table
+     * 
+     * @param din
+     *            the stream being read
+     * @return the strings in the string table, in order
+     * @throws IOException
+     *             if the stream can't be read
+     */
+    private String[] readStrings(DataInputStream din) throws IOException {
+        String[] result = new String[din.readInt()];
+        long[] offsets = new long[result.length + 1];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = din.readLong();
+        }
+        byte[] buf = new byte[256];
+        for (int i = 0; i < result.length; i++) {
+            int len = (int) (offsets[i + 1] - offsets[i]);
+            if (len > buf.length) {
+                buf = new byte[Math.max(len, buf.length * 2)];
+            }
+            din.readFully(buf, 0, len);
+            result[i] = new String(buf, 0, len, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    /**
+     * Skip over bytes in the stream
+     * 
+     * @param din
+     *            the stream being read
+     * @param count
+     *            the number of bytes to skip
+     * @throws IOException
+     *             if the stream can't be read, or ends before that many bytes have been skipped
+     */
+    private void skipFully(DataInputStream din, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            int skipped = din.skipBytes((int) Math.min(remaining, Integer.MAX_VALUE));
+            if (skipped == 0) {
+                // Either the end of the stream, which this will report, or a stream that won't skip
+                din.readByte();
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.HasCustomFacts;
+import org.gedcom4j.model.HasXref;
+
+/**
+ * <p>
+ * Writes a {@link Gedcom} structure to a compact binary snapshot, which {@link SnapshotReader} can restore much faster than the
+ * GEDCOM data can be parsed again. Snapshots are meant as a cache of parsed data, not as a substitute for the GEDCOM file - they
+ * can only be read by a version of gedcom4j whose model classes are the same as the version that wrote them.
+ * </p>
+ * <p>
+ * Every string in the structure is written once, in a string table at the front of the snapshot, and referred to by index after
+ * that. Each root-level record is written separately, with its offset and length in a record table, and is referred to by an
+ * integer id rather than by its xref. See {@link SnapshotFormat} for the details of the layout. The records are encoded twice -
+ * once to build the tables, and again to write their data after the tables - so the snapshot is streamed out rather than built up
+ * in memory first, and can be larger than 2GB.
+ * </p>
+ * <p>
+ * Individuals and families loaded lazily (see {@link org.gedcom4j.parser.GedcomParser#setLazyLoading(boolean)}) are loaded as they
+ * are written. Subclasses of the model classes are written as the model class they extend, so any additional fields they have are
+ * not saved. This class is not thread-safe.
+ * </p>
+ * 
+ * @author frizbog
+ */
+public class SnapshotWriter {
+
+    /**
+     * The size of the buffer used when writing to a stream
+     */
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * The output the records' data is encoded to - a stream that just counts the bytes while the tables are being built, and the
+     * snapshot itself once they have been written
+     */
+    private DataOutputStream bodyOut;
+
+    /**
+     * The ids of the classes in the class table, keyed by class
+     */
+    private final Map<Class<?>, Integer> classIds = new HashMap<>();
+
+    /**
+     * The layouts of the classes in the class table, in order
+     */
+    private final List<ClassLayout> classes = new ArrayList<>();
+
+    /**
+     * The GEDCOM structure being written
+     */
+    private final Gedcom gedcom;
+
+    /**
+     * The ids of the classes of the records in the record table, in order
+     */
+    private final List<Integer> recordClassIds = new ArrayList<>();
+
+    /**
+     * The ids of the records, keyed by record. Identity-based, since records are written once per instance regardless of what
+     * they're equal to.
+     */
+    private final Map<Object, Integer> recordIds = new IdentityHashMap<>();
+
+    /**
+     * The lengths of the records' data, in the order of the record table
+     */
+    private final List<Long> recordLengths = new ArrayList<>();
+
+    /**
+     * The ids in the string table of the xrefs of the records in the record table, in order. -1 for records without xrefs.
+     */
+    private final List<Integer> recordXrefIds = new ArrayList<>();
+
+    /**
+     * The records to be written, in the order of the record table
+     */
+    private final List<Object> records = new ArrayList<>();
+
+    /**
+     * The ids of the strings in the string table, keyed by string
+     */
+    private final Map<String, Integer> stringIds = new HashMap<>();
+
+    /**
+     * The strings in the string table, in order
+     */
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * Constructor
+     * 
+     * @param gedcom
+     *            the GEDCOM structure to write
+     */
+    public SnapshotWriter(Gedcom gedcom) {
+        if (gedcom == null) {
+            throw new IllegalArgumentException("gedcom must be supplied");
+        }
+        this.gedcom = gedcom;
+    }
+
+    /**
+     * Write the snapshot to a file
+     * 
+     * @param file
+     *            the file to write to. Created if it doesn't exist; replaced if it does.
+     * @throws IOException
+     *             if the snapshot can't be written
+     */
+    public void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory " + parent);
+        }
+        try (OutputStream o = new FileOutputStream(file)) {
+            write(o);
+        }
+    }
+
+    /**
+     * Write the snapshot to a stream. The stream is flushed but not closed.
+     * 
+     * @param out
+     *            the stream to write to
+     * @throws IOException
+     *             if the snapshot can't be written
+     */
+    public void write(OutputStream out) throws IOException {
+        reset();
+        try {
+            encodeRecords();
+
+            DataOutputStream o = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+            o.writeInt(SnapshotFormat.MAGIC);
+            o.writeInt(SnapshotFormat.FORMAT_VERSION);
+
+            // The class names go into the string table, so add them before writing it
+            List<Integer> classNameIds = new ArrayList<>(classes.size());
+            for (ClassLayout c : classes) {
+                classNameIds.add(stringId(c.getDescribedClass().getName()));
+            }
+
+            List<byte[]> encodedStrings = new ArrayList<>(strings.size());
+            List<Long> stringLengths = new ArrayList<>(strings.size());
+            for (String s : strings) {
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                encodedStrings.add(b);
+                stringLengths.add((long) b.length);
+            }
+            o.writeInt(encodedStrings.size());
+            SnapshotFormat.writeOffsets(o, stringLengths);
+            for (byte[] b : encodedStrings) {
+                o.write(b);
+            }
+
+            SnapshotFormat.writeVarInt(o, classes.size());
+            for (int i = 0; i < classes.size(); i++) {
+                SnapshotFormat.writeVarInt(o, classNameIds.get(i));
+                o.writeLong(classes.get(i).getFingerprint());
+            }
+
+            o.writeInt(records.size());
+            for (Integer classId : recordClassIds) {
+                o.writeInt(classId);
+            }
+            for (Integer xrefId : recordXrefIds) {
+                o.writeInt(xrefId);
+            }
+            long dataLength = SnapshotFormat.writeOffsets(o, recordLengths);
+
+            List<Integer> xrefIndex = getXrefIndex();
+            o.writeInt(xrefIndex.size());
+            for (Integer recordId : xrefIndex) {
+                o.writeInt(recordId);
+            }
+
+            writeRecords(o, dataLength);
+            o.flush();
+        } finally {
+            reset();
+        }
+    }
+
+    /**
+     * Get the id of a class in the class table, adding it to the table if needed
+     * 
+     * @param modelClass
+     *            the model class
+     * @return the id of the class
+     * @throws IOException
+     *             if the class cannot be written to a snapshot
+     */
+    private int classId(Class<?> modelClass) throws IOException {
+        Integer result = classIds.get(modelClass);
+        if (result == null) {
+            result = classes.size();
+            classes.add(ClassLayout.of(modelClass));
+            classIds.put(modelClass, result);
+        }
+        return result;
+    }
+
+    /**
+     * Encode the {@link Gedcom} and every record reachable from it, to build the string, class and record tables and find the
+     * length of each record's data. The data itself is thrown away, since it can't be written until the tables in front of it are,
+     * and keeping it would limit the size of a snapshot to what fits in memory - see {@link #writeRecords(OutputStream, long)}. The
+     * records are numbered as they are first encountered, so the list of records grows as it is worked through.
+     * 
+     * @throws IOException
+     *             if any of the records can't be encoded
+     */
+    private void encodeRecords() throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(null);
+        bodyOut = new DataOutputStream(counter);
+        recordId(gedcom);
+        for (int i = 0; i < records.size(); i++) {
+            long start = counter.getCount();
+            writeFields(records.get(i), classes.get(recordClassIds.get(i)));
+            recordLengths.add(counter.getCount() - start);
+        }
+        bodyOut.flush();
+    }
+
+    /**
+     * Get the xref index - the ids of the records that have xrefs, ordered by class and then by xref
+     * 
+     * @return the xref index
+     */
+    private List<Integer> getXrefIndex() {
+        List<Integer> result = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            if (recordXrefIds.get(i) >= 0) {
+                result.add(i);
+            }
+        }
+        Collections.sort(result, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer r1, Integer r2) {
+                int c = recordClassIds.get(r1).compareTo(recordClassIds.get(r2));
+                if (c != 0) {
+                    return c;
+                }
+                return strings.get(recordXrefIds.get(r1)).compareTo(strings.get(recordXrefIds.get(r2)));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Get the id of a record in the record table, adding it to the table (to be encoded later) if needed
+     * 
+     * @param record
+     *            the record
+     * @return the id of the record
+     * @throws IOException
+     *             if the record cannot be written to a snapshot
+     */
+    private int recordId(Object record) throws IOException {
+        Integer result = recordIds.get(record);
+        if (result == null) {
+            Class<?> modelClass = ClassLayout.modelClassOf(record.getClass());
+            if (modelClass != record.getClass() && record instanceof HasCustomFacts) {
+                // Make sure lazily loaded records are loaded, since their fields are read directly - any getter will do
+                ((HasCustomFacts) record).getCustomFacts();
+            }
+            result = records.size();
+            records.add(record);
+            recordClassIds.add(classId(modelClass));
+            String xref = record instanceof HasXref ? ((HasXref) record).getXref() : null;
+            recordXrefIds.add(xref == null ? -1 : stringId(xref));
+            recordIds.put(record, result);
+        }
+        return result;
+    }
+
+    /**
+     * Clear out the tables from any previous write
+     */
+    private void reset() {
+        bodyOut = null;
+        classIds.clear();
+        classes.clear();
+        recordClassIds.clear();
+        recordIds.clear();
+        recordLengths.clear();
+        recordXrefIds.clear();
+        records.clear();
+        stringIds.clear();
+        strings.clear();
+    }
+
+    /**
+     * Get the id of a string in the string table, adding it to the table if needed
+     * 
+     * @param s
+     *            the string
+     * @return the id of the string
+     */
+    private int stringId(String s) {
+        Integer result = stringIds.get(s);
+        if (result == null) {
+            result = strings.size();
+            strings.add(s);
+            stringIds.put(s, result);
+        }
+        return result;
+    }
+
+    /**
+     * Write the values of the fields of an object
+     * 
+     * @param o
+     *            the object
+     * @param layout
+     *            the layout of the object's model class
+     * @throws IOException
+     *             if the values can't be written
+     */
+    private void writeFields(Object o, ClassLayout layout) throws IOException {
+        try {
+            for (Field f : layout.getFields()) {
+                Class<?> type = f.getType();
+                if (type == int.class) {
+                    bodyOut.writeInt(f.getInt(o));
+                } else if (type == long.class) {
+                    bodyOut.writeLong(f.getLong(o));
+                } else if (type == boolean.class) {
+                    bodyOut.writeBoolean(f.getBoolean(o));
+                } else {
+                    writeValue(f.get(o));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IOException("Unable to read fields of " + layout.getDescribedClass().getName(), e);
+        }
+    }
+
+    /**
+     * Encode the records again, now that the tables are complete, and write their data to the snapshot. Since nothing new is
+     * added to the tables by now, the data comes out the same as it did in {@link #encodeRecords()}, as long as the records
+     * haven't been changed in the meantime.
+     * 
+     * @param out
+     *            the stream to write the data to
+     * @param dataLength
+     *            the total length of the records' data given in the record table
+     * @throws IOException
+     *             if the data can't be written, or does not match the record table
+     */
+    private void writeRecords(OutputStream out, long dataLength) throws IOException {
+        int recordCount = records.size();
+        int stringCount = strings.size();
+        CountingOutputStream counter = new CountingOutputStream(out);
+        bodyOut = new DataOutputStream(counter);
+        for (int i = 0; i < recordCount; i++) {
+            writeFields(records.get(i), classes.get(recordClassIds.get(i)));
+        }
+        bodyOut.flush();
+        if (counter.getCount() != dataLength || records.size() != recordCount || strings.size() != stringCount) {
+            throw new IOException("Records were changed while the snapshot was being written");
+        }
+    }
+
+    /**
+     * Write a tagged value
+     * 
+     * @param value
+     *            the value
+     * @throws IOException
+     *             if the value can't be written
+     */
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            bodyOut.writeByte(SnapshotFormat.NULL);
+        } else if (value instanceof String) {
+            bodyOut.writeByte(SnapshotFormat.STRING);
+            SnapshotFormat.writeVarInt(bodyOut, stringId((String) value));
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            bodyOut.writeByte(SnapshotFormat.LIST);
+            SnapshotFormat.writeVarInt(bodyOut, list.size());
+            for (Object item : list) {
+                writeValue(item);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            bodyOut.writeByte(SnapshotFormat.MAP);
+            SnapshotFormat.writeVarInt(bodyOut, map.size());
+            for (Entry<?, ?> e : map.entrySet()) {
+                writeValue(e.getKey());
+                writeValue(e.getValue());
+            }
+        } else if (value instanceof Enum) {
+            Class<?> enumClass = ((Enum<?>) value).getDeclaringClass();
+            if (ClassLayout.modelClassOf(enumClass) != enumClass) {
+                throw new IOException("Cannot write value of type " + enumClass.getName() + " to a snapshot");
+            }
+            bodyOut.writeByte(SnapshotFormat.ENUM);
+            SnapshotFormat.writeVarInt(bodyOut, classId(enumClass));
+            SnapshotFormat.writeVarInt(bodyOut, ((Enum<?>) value).ordinal());
+        } else {
+            Class<?> modelClass = ClassLayout.modelClassOf(value.getClass());
+            if (modelClass == null) {
+                throw new IOException("Cannot write value of type " + value.getClass().getName() + " to a snapshot");
+            }
+            if (SnapshotFormat.isRecordClass(modelClass)) {
+                bodyOut.writeByte(SnapshotFormat.RECORD);
+                SnapshotFormat.writeVarInt(bodyOut, recordId(value));
+            } else {
+                int classId = classId(modelClass);
+                bodyOut.writeByte(SnapshotFormat.OBJECT);
+                SnapshotFormat.writeVarInt(bodyOut, classId);
+                writeFields(value, classes.get(classId));
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import org.gedcom4j.exception.WriterCancelledException;
+import org.gedcom4j.writer.GedcomWriter;
+
+/**
+ * A writer that uses one of Java's built-in {@link Charset}s (i.e., UTF-8 and UNICODE) to encode the data.
+ * 
+ * @author frizbog
+ */
+abstract class AbstractCharsetWriter extends AbstractEncodingSpecificWriter {
+
+    /**
+     * The character set being written
+     */
+    private final Charset charset;
+
+    /**
+     * The encoder that encodes each line into the buffer. Characters that can't be encoded (such as unpaired surrogates) are
+     * replaced.
+     */
+    private final CharsetEncoder encoder;
+
+    /**
+     * Holds the characters of the line being encoded, so the encoder can work from an array
+     */
+    private char[] chars = new char[256];
+
+    /**
+     * Constructor
+     * 
+     * @param writer
+     *            The {@link GedcomWriter} this object is assisting
+     * @param charset
+     *            the character set to write
+     */
+    AbstractCharsetWriter(GedcomWriter writer, Charset charset) {
+        super(writer);
+        this.charset = charset;
+        encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(
+                CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected byte[] encodeLineTerminator(String lineTerminator) {
+        return lineTerminator.getBytes(charset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void writeLine(OutputStream out, String line) throws IOException, WriterCancelledException {
+        if (chars.length < line.length()) {
+            chars = new char[line.length()];
+        }
+        line.getChars(0, line.length(), chars, 0);
+        CharBuffer in = CharBuffer.wrap(chars, 0, line.length());
+        encoder.reset();
+        boolean flushed = false;
+        while (!flushed) {
+            ByteBuffer bb = ByteBuffer.wrap(buffer, bufferLength, buffer.length - bufferLength);
+            CoderResult result = encoder.encode(in, bb, true);
+            if (result.isUnderflow()) {
+                result = encoder.flush(bb);
+                flushed = result.isUnderflow();
+            }
+            bytesWritten += bb.position() - bufferLength;
+            bufferLength = bb.position();
+            if (result.isOverflow()) {
+                flushBuffer(out);
+            }
+        }
+        writeLineTerminator(out);
+    }
+
+}
@@ -41,6 +41,22 @@ import org.gedcom4j.writer.GedcomWriter;
  */
 abstract class AbstractEncodingSpecificWriter {
 
+    /**
+     * The initial size of the buffer that encoded bytes are collected in before they are written to the stream
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Encoded bytes waiting to be written to the stream. Encoding writers put their bytes here (see
+     * {@link #ensureBufferSpace(OutputStream, int)}) so the stream is written to in large chunks rather than a byte at a time.
+     */
+    protected byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * The number of bytes in {@link #buffer} that are waiting to be written to the stream
+     */
+    protected int bufferLength;
+
     /**
      * The lines of GEDCOM data to write
      */
@@ -61,11 +77,26 @@ abstract class AbstractEncodingSpecificWriter {
      */
     protected int bytesWritten;
 
+    /**
+     * The number of lines written
+     */
+    protected int lineCount;
+
     /**
      * When we've exceeded this many line written, notify the listeners and update this value based on the rate
      */
     protected int notifyAfterThisManyLines = 0;
 
+    /**
+     * The line terminator, encoded. Computed the first time a line terminator is written, and again if the terminator changes.
+     */
+    private byte[] lineTerminatorBytes;
+
+    /**
+     * The line terminator that {@link #lineTerminatorBytes} is the encoded form of
+     */
+    private LineTerminator lineTerminatorEncoded;
+
     /**
      * Constructor
      * 
@@ -87,8 +118,38 @@ abstract class AbstractEncodingSpecificWriter {
      *             if the write operation was cancelled
      */
     public void write(OutputStream out) throws IOException, WriterCancelledException {
-        int lineCount = 0;
-        for (String line : gedcomLines) {
+        writeLines(out, gedcomLines);
+        finish(out);
+    }
+
+    /**
+     * Finish writing after the last of the lines has been written, and notify the listeners that the write is complete
+     * 
+     * @param out
+     *            the output stream
+     * @throws IOException
+     *             if the data can't be written to the stream
+     */
+    void finish(OutputStream out) throws IOException {
+        flushBuffer(out);
+        writer.notifyFileObservers(new FileProgressEvent(this, lineCount, bytesWritten, true));
+    }
+
+    /**
+     * Write some of the gedcom lines to an output stream, encoding as needed. May be called repeatedly to write the file a chunk at
+     * a time, followed by a single call to {@link #finish(OutputStream)}.
+     * 
+     * @param out
+     *            the output stream
+     * @param lines
+     *            the lines to write
+     * @throws IOException
+     *             if the data can't be written to the stream
+     * @throws WriterCancelledException
+     *             if the write operation was cancelled
+     */
+    void writeLines(OutputStream out, List<String> lines) throws IOException, WriterCancelledException {
+        for (String line : lines) {
             if (lineCount >= notifyAfterThisManyLines) {
                 writer.notifyFileObservers(new FileProgressEvent(this, lineCount, bytesWritten, false));
                 notifyAfterThisManyLines += writer.getFileNotificationRate();
@@ -96,7 +157,50 @@ abstract class AbstractEncodingSpecificWriter {
             writeLine(out, line);
             lineCount++;
         }
-        writer.notifyFileObservers(new FileProgressEvent(this, lineCount, bytesWritten, true));
+    }
+
+    /**
+     * Encode the line terminator
+     * 
+     * @param lineTerminator
+     *            the characters of the line terminator
+     * @return the encoded line terminator
+     */
+    protected abstract byte[] encodeLineTerminator(String lineTerminator);
+
+    /**
+     * Make sure there is room for at least the specified number of bytes in the buffer, writing the buffered bytes to the stream
+     * if necessary to make room
+     * 
+     * @param out
+     *            the output stream we're writing to
+     * @param bytesNeeded
+     *            the number of bytes that are about to be put in the buffer
+     * @throws IOException
+     *             if the buffered bytes can't be written to the stream
+     */
+    protected void ensureBufferSpace(OutputStream out, int bytesNeeded) throws IOException {
+        if (bufferLength + bytesNeeded > buffer.length) {
+            flushBuffer(out);
+            if (bytesNeeded > buffer.length) {
+                buffer = new byte[bytesNeeded];
+            }
+        }
+    }
+
+    /**
+     * Write any buffered bytes to the stream
+     * 
+     * @param out
+     *            the output stream we're writing to
+     * @throws IOException
+     *             if the buffered bytes can't be written to the stream
+     */
+    protected void flushBuffer(OutputStream out) throws IOException {
+        if (bufferLength > 0) {
+            out.write(buffer, 0, bufferLength);
+            bufferLength = 0;
+        }
     }
 
     /**
@@ -123,5 +227,17 @@ abstract class AbstractEncodingSpecificWriter {
      * @throws WriterCancelledException
      *             if the write operation was cancelled
      */
-    protected abstract void writeLineTerminator(OutputStream out) throws IOException, WriterCancelledException;
+    protected void writeLineTerminator(OutputStream out) throws IOException, WriterCancelledException {
+        if (lineTerminatorEncoded != terminator) {
+            lineTerminatorBytes = encodeLineTerminator(terminator.getCharacters());
+            lineTerminatorEncoded = terminator;
+        }
+        ensureBufferSpace(out, lineTerminatorBytes.length);
+        System.arraycopy(lineTerminatorBytes, 0, buffer, bufferLength, lineTerminatorBytes.length);
+        bufferLength += lineTerminatorBytes.length;
+        bytesWritten += lineTerminatorBytes.length;
+        if (writer.isCancelled()) {
+            throw new WriterCancelledException("Construction and writing of GEDCOM cancelled");
+        }
+    }
 }
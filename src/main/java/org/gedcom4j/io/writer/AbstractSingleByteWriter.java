@@ -26,10 +26,8 @@
  */
 package org.gedcom4j.io.writer;
 
-import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
-import org.gedcom4j.exception.WriterCancelledException;
 import org.gedcom4j.writer.GedcomWriter;
 
 /**
@@ -53,32 +51,8 @@ public abstract class AbstractSingleByteWriter extends AbstractEncodingSpecificW
      * {@inheritDoc}
      */
     @Override
-    protected void writeLineTerminator(OutputStream out) throws IOException, WriterCancelledException {
-        switch (terminator) {
-            case CR_ONLY:
-                out.write((byte) 0x0D);
-                bytesWritten++;
-                break;
-            case LF_ONLY:
-                out.write((byte) 0x0A);
-                bytesWritten++;
-                break;
-            case LFCR:
-                out.write((byte) 0x0A);
-                out.write((byte) 0x0D);
-                bytesWritten += 2;
-                break;
-            case CRLF:
-                out.write((byte) 0x0D);
-                out.write((byte) 0x0A);
-                bytesWritten += 2;
-                break;
-            default:
-                throw new IllegalStateException("Terminator selection of " + terminator + " is an unrecognized value");
-        }
-        if (writer.isCancelled()) {
-            throw new WriterCancelledException("Construction and writing of GEDCOM cancelled");
-        }
+    protected byte[] encodeLineTerminator(String lineTerminator) {
+        return lineTerminator.getBytes(StandardCharsets.US_ASCII);
     }
 
-}
\ No newline at end of file
+}
@@ -60,12 +60,11 @@ class AnselWriter extends AbstractSingleByteWriter {
      */
     @Override
     protected void writeLine(OutputStream out, String line) throws IOException, WriterCancelledException {
-        String anselLine = anselHandler.toAnsel(line);
-        for (int i = 0; i < anselLine.length(); i++) {
-            char c = anselLine.charAt(i);
-            out.write(c);
-            bytesWritten++;
-        }
+        // Each character can take up to three bytes in ANSEL - a base character and two combining diacritics
+        ensureBufferSpace(out, line.length() * 3);
+        int end = anselHandler.toAnsel(line, buffer, bufferLength);
+        bytesWritten += end - bufferLength;
+        bufferLength = end;
         writeLineTerminator(out);
     }
 
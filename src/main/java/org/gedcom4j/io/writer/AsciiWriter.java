@@ -59,14 +59,15 @@ class AsciiWriter extends AbstractSingleByteWriter {
      */
     @Override
     protected void writeLine(OutputStream out, String line) throws IOException, WriterCancelledException {
+        ensureBufferSpace(out, line.length());
         for (int i = 0; i < line.length(); i++) {
             char c = line.charAt(i);
-            if (c < 0 || c > 0x7f) {
-                c = "?".charAt(0);
+            if (c > 0x7f) {
+                c = '?';
             }
-            out.write(c);
-            bytesWritten++;
+            buffer[bufferLength++] = (byte) c;
         }
+        bytesWritten += line.length();
         writeLineTerminator(out);
     }
 
@@ -87,6 +87,21 @@ public class GedcomFileWriter {
         this.gedcomLines = gedcomLines;
     }
 
+    /**
+     * Finish writing the gedcom lines to an output stream, after one or more calls to {@link #writeLines(OutputStream)}
+     * 
+     * @param out
+     *            the output stream
+     * @throws IOException
+     *             if the data can't be written to the stream
+     */
+    public void finish(OutputStream out) throws IOException {
+        if (encodingSpecificWriter == null) {
+            encodingSpecificWriter = newEncodingSpecificWriter();
+        }
+        encodingSpecificWriter.finish(out);
+    }
+
     /**
      * Get the terminator
      * 
@@ -136,31 +151,66 @@ public class GedcomFileWriter {
      *             if the write operation was cancelled
      */
     public void write(OutputStream out) throws IOException, WriterCancelledException {
+        encodingSpecificWriter = null;
+        writeLines(out);
+        finish(out);
+    }
+
+    /**
+     * <p>
+     * Write the gedcom lines currently in the list to an output stream, encoding as needed, without finishing the write. This
+     * allows the list to be used as a buffer: the caller can clear it and refill it with the next lines, call this method again,
+     * and so on, and then call {@link #finish(OutputStream)} after the last lines are written.
+     * </p>
+     * <p>
+     * The encoding is chosen from the CHAR line in the header the first time this method is called, so the first batch of lines
+     * must include the entire header.
+     * </p>
+     * 
+     * @param out
+     *            the output stream
+     * @throws IOException
+     *             if the data can't be written to the stream
+     * @throws WriterCancelledException
+     *             if the write operation was cancelled
+     */
+    public void writeLines(OutputStream out) throws IOException, WriterCancelledException {
+        if (encodingSpecificWriter == null) {
+            encodingSpecificWriter = newEncodingSpecificWriter();
+        }
+        encodingSpecificWriter.writeLines(out, gedcomLines);
+    }
 
-        encodingSpecificWriter = new AnselWriter(writer);
+    /**
+     * Create the encoding-specific writer for the character set named in the header
+     * 
+     * @return the encoding-specific writer for the character set named in the header
+     */
+    private AbstractEncodingSpecificWriter newEncodingSpecificWriter() {
+        AbstractEncodingSpecificWriter result = new AnselWriter(writer);
 
         for (String line : gedcomLines) {
             if ("1 CHAR ASCII".equals(line)) {
-                encodingSpecificWriter = new AsciiWriter(writer);
+                result = new AsciiWriter(writer);
                 break;
             }
             if ("1 CHAR UTF-8".equals(line)) {
-                encodingSpecificWriter = new Utf8Writer(writer);
+                result = new Utf8Writer(writer);
                 break;
             }
             if ("1 CHAR UNICODE".equals(line)) {
                 if (useLittleEndianForUnicode) {
-                    encodingSpecificWriter = new UnicodeLittleEndianWriter(writer);
+                    result = new UnicodeLittleEndianWriter(writer);
                 } else {
-                    encodingSpecificWriter = new UnicodeBigEndianWriter(writer);
+                    result = new UnicodeBigEndianWriter(writer);
                 }
                 break;
             }
         }
 
-        encodingSpecificWriter.gedcomLines = gedcomLines;
-        encodingSpecificWriter.terminator = terminator;
-        encodingSpecificWriter.write(out);
+        result.gedcomLines = gedcomLines;
+        result.terminator = terminator;
+        return result;
     }
 
 }
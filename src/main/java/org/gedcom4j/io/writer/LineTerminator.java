@@ -35,19 +35,34 @@ public enum LineTerminator {
     /**
      * CR only - used mostly by old Macs
      */
-    CR_ONLY,
+    CR_ONLY("\r"),
     /**
      * CR + LF - used mostly for Windows
      */
-    CRLF,
+    CRLF("\r\n"),
     /**
      * LF only - used mostly by Linux and newer Macs
      */
-    LF_ONLY,
+    LF_ONLY("\n"),
     /**
      * LF+CR - not commonly used, but GEDCOM supports it
      */
-    LFCR;
+    LFCR("\n\r");
+
+    /**
+     * The characters that make up the line terminator
+     */
+    private final String characters;
+
+    /**
+     * Constructor
+     * 
+     * @param characters
+     *            the characters that make up the line terminator
+     */
+    LineTerminator(String characters) {
+        this.characters = characters;
+    }
 
     /**
      * Set default line terminator based on JVM settings
@@ -70,4 +85,13 @@ public enum LineTerminator {
         return LineTerminator.CRLF;
     }
 
+    /**
+     * Get the characters that make up the line terminator
+     * 
+     * @return the characters that make up the line terminator
+     */
+    public String getCharacters() {
+        return characters;
+    }
+
 }
@@ -26,10 +26,8 @@
  */
 package org.gedcom4j.io.writer;
 
-import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
-import org.gedcom4j.exception.WriterCancelledException;
 import org.gedcom4j.writer.GedcomWriter;
 
 /**
@@ -37,7 +35,7 @@ import org.gedcom4j.writer.GedcomWriter;
  * 
  * @author frizbog
  */
-class UnicodeBigEndianWriter extends AbstractEncodingSpecificWriter {
+class UnicodeBigEndianWriter extends AbstractCharsetWriter {
 
     /**
      * Constructor
@@ -46,59 +44,7 @@ class UnicodeBigEndianWriter extends AbstractEncodingSpecificWriter {
      *            The {@link GedcomWriter} this object is assisting
      */
     UnicodeBigEndianWriter(GedcomWriter writer) {
-        super(writer);
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    protected void writeLine(OutputStream out, String line) throws IOException, WriterCancelledException {
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            out.write(c >> 8);
-            out.write(c & 0x00FF);
-            bytesWritten += 2;
-        }
-        writeLineTerminator(out);
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    protected void writeLineTerminator(OutputStream out) throws IOException, WriterCancelledException {
-        switch (terminator) {
-            case CR_ONLY:
-                out.write((byte) 0x00);
-                out.write((byte) 0x0D);
-                bytesWritten += 2;
-                break;
-            case LF_ONLY:
-                out.write((byte) 0x00);
-                out.write((byte) 0x0A);
-                bytesWritten += 2;
-                break;
-            case LFCR:
-                out.write((byte) 0x00);
-                out.write((byte) 0x0A);
-                out.write((byte) 0x00);
-                out.write((byte) 0x0D);
-                bytesWritten += 4;
-                break;
-            case CRLF:
-                out.write((byte) 0x00);
-                out.write((byte) 0x0D);
-                out.write((byte) 0x00);
-                out.write((byte) 0x0A);
-                bytesWritten += 4;
-                break;
-            default:
-                throw new IllegalStateException("Terminator selection of " + terminator + " is an unrecognized value");
-        }
-        if (writer.isCancelled()) {
-            throw new WriterCancelledException("Construction and writing of GEDCOM cancelled");
-        }
+        super(writer, StandardCharsets.UTF_16BE);
     }
 
 }
@@ -26,13 +26,8 @@
  */
 package org.gedcom4j.io.writer;
 
-import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
-import org.gedcom4j.exception.WriterCancelledException;
-import org.gedcom4j.io.event.FileProgressEvent;
 import org.gedcom4j.writer.GedcomWriter;
 
 /**
@@ -40,12 +35,7 @@ import org.gedcom4j.writer.GedcomWriter;
  * 
  * @author frizbog
  */
-class Utf8Writer extends AbstractEncodingSpecificWriter {
-
-    /**
-     * The number of lines written
-     */
-    private int lineCount;
+class Utf8Writer extends AbstractCharsetWriter {
 
     /**
      * Constructor
@@ -54,78 +44,7 @@ class Utf8Writer extends AbstractEncodingSpecificWriter {
      *            The {@link GedcomWriter} this object is assisting
      */
     Utf8Writer(GedcomWriter writer) {
-        super(writer);
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void write(OutputStream out) throws IOException, WriterCancelledException {
-        String lineTerminatorString = null;
-        switch (terminator) {
-            case CR_ONLY:
-                lineTerminatorString = "\r";
-                break;
-            case LF_ONLY:
-                lineTerminatorString = "\n";
-                break;
-            case LFCR:
-                lineTerminatorString = "\n\r";
-                break;
-            case CRLF:
-                lineTerminatorString = "\r\n";
-                break;
-            default:
-                throw new IllegalStateException("Terminator selection of " + terminator + " is an unrecognized value");
-        }
-
-        // Go ahead and use Java's built in UTF-8 encoder here
-        ProgressTrackingOutputStream outputStream = new ProgressTrackingOutputStream(out);
-        try (OutputStreamWriter osw = new OutputStreamWriter(outputStream, Charset.forName("UTF-8"))) {
-            for (String line : gedcomLines) {
-                osw.write(line);
-                bytesWritten = outputStream.bytesWritten;
-                osw.write(lineTerminatorString);
-                bytesWritten = outputStream.bytesWritten;
-                lineCount++;
-                if (lineCount >= notifyAfterThisManyLines) {
-                    writer.notifyFileObservers(new FileProgressEvent(this, lineCount, bytesWritten, false));
-                    notifyAfterThisManyLines += writer.getFileNotificationRate();
-                }
-
-                if (writer.isCancelled()) {
-                    throw new WriterCancelledException("Construction and writing of GEDCOM cancelled");
-                }
-            }
-            osw.flush();
-            bytesWritten = outputStream.bytesWritten;
-        }
-    }
-
-    /**
-     * <p>
-     * Note: This writer implementation does not use the writeLine or writeLineTerminator methods.
-     * </p>
-     * {@inheritDoc}
-     */
-    @Override
-    protected void writeLine(OutputStream out, String line) throws IOException {
-        // Not used
-        throw new UnsupportedOperationException(this.getClass().getName() + " does not use the abstract writeLine method");
-    }
-
-    /**
-     * <p>
-     * Note: This writer implementation does not use the writeLine or writeLineTerminator methods.
-     * </p>
-     * {@inheritDoc}
-     */
-    @Override
-    protected void writeLineTerminator(OutputStream out) throws IOException {
-        // Not used
-        throw new UnsupportedOperationException(this.getClass().getName()
-                + " does not use the abstract writeLineTerminator method");
+        super(writer, StandardCharsets.UTF_8);
     }
 
 }
@@ -37,7 +37,7 @@ import org.gedcom4j.Options;
  * @author frizbog1
  */
 @SuppressWarnings("PMD.GodClass")
-public class Family extends AbstractNotesElement implements HasCitations, HasXref {
+public class Family extends AbstractNotesElement implements HasCitations, HasOriginalLines, HasXref {
     /**
      * Serial Version UID
      */
@@ -48,6 +48,11 @@ public class Family extends AbstractNotesElement implements HasCitations, HasXre
      */
     private StringWithCustomFacts automatedRecordId;
 
+    /**
+     * The number of times this record has been marked as changed
+     */
+    private transient int changeCount;
+
     /**
      * The change date information for this family record
      */
@@ -88,6 +93,11 @@ public class Family extends AbstractNotesElement implements HasCitations, HasXre
      */
     private StringWithCustomFacts numChildren;
 
+    /**
+     * The lines this record was loaded from, separated by newline characters. Null if they were not kept.
+     */
+    private transient String originalLines;
+
     /**
      * The permanent record file number
      */
@@ -224,6 +234,9 @@ public class Family extends AbstractNotesElement implements HasCitations, HasXre
         if (this == obj) {
             return true;
         }
+        if (RecordEquality.isByIdentity()) {
+            return false;
+        }
         if (!super.equals(obj)) {
             return false;
         }
@@ -348,6 +361,14 @@ public class Family extends AbstractNotesElement implements HasCitations, HasXre
         return automatedRecordId;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getChangeCount() {
+        return changeCount;
+    }
+
     /**
      * Gets the change date.
      *
@@ -493,6 +514,14 @@ public class Family extends AbstractNotesElement implements HasCitations, HasXre
         return numChildren;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getOriginalLines() {
+        return originalLines;
+    }
+
     /**
      * Gets the rec file number.
      *
@@ -581,6 +610,9 @@ public class Family extends AbstractNotesElement implements HasCitations, HasXre
      */
     @Override
     public int hashCode() {
+        if (RecordEquality.isByIdentity()) {
+            return System.identityHashCode(this);
+        }
         final int prime = 31;
         int result = super.hashCode();
         result = prime * result + (automatedRecordId == null ? 0 : automatedRecordId.hashCode());
@@ -601,6 +633,14 @@ public class Family extends AbstractNotesElement implements HasCitations, HasXre
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markChanged() {
+        changeCount++;
+    }
+
     /**
      * Sets the automated record id.
      *
@@ -661,6 +701,14 @@ public class Family extends AbstractNotesElement implements HasCitations, HasXre
         this.numChildren = numChildren;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOriginalLines(String originalLines) {
+        this.originalLines = originalLines;
+    }
+
     /**
      * Sets the rec file number.
      *
@@ -96,11 +96,28 @@ public class Gedcom extends AbstractElement {
         return builder.toString();
     }
 
+    /**
+     * Make a map of records big enough to hold the expected number of records without growing
+     * 
+     * @param <T>
+     *            the type of record
+     * @param expectedSize
+     *            the expected number of records
+     * @return a map of records big enough to hold the expected number of records without growing
+     */
+    private static <T> Map<String, T> newRecordMap(int expectedSize) {
+        if (expectedSize <= 0) {
+            return new HashMap<>(0);
+        }
+        // Allow for the default load factor of 0.75
+        return new HashMap<>(expectedSize + expectedSize / 3 + 1);
+    }
+
     /**
      * A map of all the families in the GEDCOM file. The map is keyed on family cross-reference numbers, and the families themselves
      * are in the value set.
      */
-    private final Map<String, Family> families = new HashMap<>();
+    private final Map<String, Family> families;
 
     /**
      * Header information about the GEDCOM
@@ -111,31 +128,37 @@ public class Gedcom extends AbstractElement {
      * A map of all the individuals in the GEDCOM file. The map is keyed on the individual cross-reference numbers and the
      * individuals themselves are in the value set.
      */
-    private final Map<String, Individual> individuals = new HashMap<>(0);
+    private final Map<String, Individual> individuals;
 
     /**
      * A map of all the multimedia items in the GEDCOM file. The map is keyed by the multimedia cross-reference numbers, and the
      * multimedia items themselves (well, the metadata about them for 5.5.1) are in the value set. Remember, GEDCOM 5.5.1 multimedia
      * is not embedded in the GEDCOM, but the GEDCOM contains metadata about the multimedia.
      */
-    private final Map<String, Multimedia> multimedia = new HashMap<>(0);
+    private final Map<String, Multimedia> multimedia;
 
     /**
      * A map of notes. The map is keyed with cross-reference numbers and the notes themselves are the values.
      */
-    private final Map<String, NoteRecord> notes = new HashMap<>(0);
+    private final Map<String, NoteRecord> notes;
 
     /**
      * A map of all the source repositories in the GEDCOM file. The map is keyed on the repository cross-reference numbers, and the
      * repositories themselves are in the value set.
      */
-    private final Map<String, Repository> repositories = new HashMap<>(0);
+    private final Map<String, Repository> repositories;
 
     /**
      * A map of all the sources in the GEDCOM file. The map is keyed on source cross-reference numbers, and the sources themselves
      * are in the value set.
      */
-    private final Map<String, Source> sources = new HashMap<>(0);
+    private final Map<String, Source> sources;
+
+    /**
+     * The GEDCOM version number of the file the records' original lines were loaded from, if they were kept - see
+     * {@link HasOriginalLines}. Null if they weren't.
+     */
+    private transient String originalLinesVersion;
 
     /**
      * Information about the GEDCOM submission. There is only one and it is required, so the xref ID has a default.
@@ -146,7 +169,7 @@ public class Gedcom extends AbstractElement {
      * A map of the submitters in the GEDCOM file. The map is keyed on submitter cross-reference numbers, and the submitters
      * themselves are in the value set
      */
-    private final Map<String, Submitter> submitters = new HashMap<>(0);
+    private final Map<String, Submitter> submitters;
 
     /**
      * The trailer of the file
@@ -155,7 +178,13 @@ public class Gedcom extends AbstractElement {
 
     /** Default constructor */
     public Gedcom() {
-        // Default constructor does nothing
+        families = new HashMap<>();
+        individuals = new HashMap<>(0);
+        multimedia = new HashMap<>(0);
+        notes = new HashMap<>(0);
+        repositories = new HashMap<>(0);
+        sources = new HashMap<>(0);
+        submitters = new HashMap<>(0);
     }
 
     /**
@@ -166,6 +195,13 @@ public class Gedcom extends AbstractElement {
      */
     public Gedcom(Gedcom other) {
         super(other);
+        families = newRecordMap(other.families.size());
+        individuals = newRecordMap(other.individuals.size());
+        multimedia = newRecordMap(other.multimedia.size());
+        notes = newRecordMap(other.notes.size());
+        repositories = newRecordMap(other.repositories.size());
+        sources = newRecordMap(other.sources.size());
+        submitters = newRecordMap(other.submitters.size());
         for (Family f : other.families.values()) {
             families.put(f.getXref(), new Family(f));
         }
@@ -196,6 +232,38 @@ public class Gedcom extends AbstractElement {
         // All trailers are the same, and it's already initialized
     }
 
+    /**
+     * Constructor that sizes the maps of records to hold the expected number of each kind of record without having to grow, such as
+     * when the records in a file have been counted before it is loaded. The maps still grow if more records than expected are
+     * added.
+     * 
+     * @param expectedFamilies
+     *            the expected number of families
+     * @param expectedIndividuals
+     *            the expected number of individuals
+     * @param expectedMultimedia
+     *            the expected number of multimedia items
+     * @param expectedNotes
+     *            the expected number of note records
+     * @param expectedRepositories
+     *            the expected number of repositories
+     * @param expectedSources
+     *            the expected number of sources
+     * @param expectedSubmitters
+     *            the expected number of submitters
+     */
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    public Gedcom(int expectedFamilies, int expectedIndividuals, int expectedMultimedia, int expectedNotes,
+            int expectedRepositories, int expectedSources, int expectedSubmitters) {
+        families = newRecordMap(expectedFamilies);
+        individuals = newRecordMap(expectedIndividuals);
+        multimedia = newRecordMap(expectedMultimedia);
+        notes = newRecordMap(expectedNotes);
+        repositories = newRecordMap(expectedRepositories);
+        sources = newRecordMap(expectedSources);
+        submitters = newRecordMap(expectedSubmitters);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -329,6 +397,16 @@ public class Gedcom extends AbstractElement {
         return notes;
     }
 
+    /**
+     * Gets the GEDCOM version number of the file the records' original lines were loaded from, if they were kept - see
+     * {@link HasOriginalLines}. The lines are only written back out verbatim if the data is still being written in that version.
+     *
+     * @return the GEDCOM version number of the file the records' original lines were loaded from. Null if they weren't kept.
+     */
+    public String getOriginalLinesVersion() {
+        return originalLinesVersion;
+    }
+
     /**
      * Gets the repositories.
      *
@@ -404,6 +482,16 @@ public class Gedcom extends AbstractElement {
         this.header = header;
     }
 
+    /**
+     * Sets the GEDCOM version number of the file the records' original lines were loaded from
+     *
+     * @param originalLinesVersion
+     *            the GEDCOM version number of the file the records' original lines were loaded from. Null if they weren't kept.
+     */
+    public void setOriginalLinesVersion(String originalLinesVersion) {
+        this.originalLinesVersion = originalLinesVersion;
+    }
+
     /**
      * Sets the submission.
      *
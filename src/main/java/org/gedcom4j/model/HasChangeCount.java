@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.model;
+
+/**
+ * <p>
+ * Marks a record that counts the changes made to it, so that a writer can tell whether a record has changed since it was last
+ * written without examining its contents. See {@link org.gedcom4j.writer.GedcomWriter#setReuseUnchangedRecords(boolean)}.
+ * </p>
+ * <p>
+ * Records are not marked as changed automatically, because their lists and nested objects can be altered directly. Call
+ * {@link #markChanged()} after altering a record, or anything inside it.
+ * </p>
+ * 
+ * @author frizbog
+ */
+public interface HasChangeCount extends ModelElement {
+    /**
+     * Get the number of times this record has been marked as changed
+     * 
+     * @return the number of times this record has been marked as changed
+     */
+    int getChangeCount();
+
+    /**
+     * Mark this record as changed
+     */
+    void markChanged();
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.model;
+
+/**
+ * <p>
+ * Marks a record that can keep the lines it was loaded from, so that a writer can write those lines back out verbatim rather than
+ * constructing them again, as long as the record has not been marked as changed. See
+ * {@link org.gedcom4j.parser.GedcomParser#setKeepingOriginalLines(boolean)}.
+ * </p>
+ * <p>
+ * The lines are kept as a single string, separated by newline characters, to keep the copy compact.
+ * </p>
+ * 
+ * @author frizbog
+ */
+public interface HasOriginalLines extends HasChangeCount, HasXref {
+    /**
+     * Get the lines this record was loaded from, separated by newline characters
+     * 
+     * @return the lines this record was loaded from, separated by newline characters. Null if they were not kept.
+     */
+    String getOriginalLines();
+
+    /**
+     * Set the lines this record was loaded from
+     * 
+     * @param originalLines
+     *            the lines this record was loaded from, separated by newline characters. Null if they are not kept.
+     */
+    void setOriginalLines(String originalLines);
+}
@@ -45,7 +45,7 @@ import org.gedcom4j.model.enumerations.IndividualEventType;
  * @author frizbog1
  */
 @SuppressWarnings({ "PMD.ExcessiveClassLength", "PMD.ExcessivePublicCount", "PMD.GodClass" })
-public class Individual extends AbstractAddressableElement implements HasCitations, HasXref {
+public class Individual extends AbstractAddressableElement implements HasCitations, HasOriginalLines, HasXref {
 
     /**
      * Serial Version UID
@@ -77,6 +77,11 @@ public class Individual extends AbstractAddressableElement implements HasCitatio
      */
     private List<IndividualAttribute> attributes = getAttributes(Options.isCollectionInitializationEnabled());
 
+    /**
+     * The number of times this record has been marked as changed
+     */
+    private transient int changeCount;
+
     /**
      * The change date for this individual
      */
@@ -123,6 +128,11 @@ public class Individual extends AbstractAddressableElement implements HasCitatio
      */
     private List<PersonalName> names = getNames(Options.isCollectionInitializationEnabled());
 
+    /**
+     * The lines this record was loaded from, separated by newline characters. Null if they were not kept.
+     */
+    private transient String originalLines;
+
     /**
      * The permanent record file number for this individual
      */
@@ -303,6 +313,9 @@ public class Individual extends AbstractAddressableElement implements HasCitatio
         if (this == obj) {
             return true;
         }
+        if (RecordEquality.isByIdentity()) {
+            return false;
+        }
         if (!super.equals(obj)) {
             return false;
         }
@@ -591,6 +604,14 @@ public class Individual extends AbstractAddressableElement implements HasCitatio
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getChangeCount() {
+        return changeCount;
+    }
+
     /**
      * Gets the change date.
      *
@@ -835,6 +856,14 @@ public class Individual extends AbstractAddressableElement implements HasCitatio
         return names;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getOriginalLines() {
+        return originalLines;
+    }
+
     /**
      * Gets the permanent rec file number.
      *
@@ -979,6 +1008,9 @@ public class Individual extends AbstractAddressableElement implements HasCitatio
      */
     @Override
     public int hashCode() {
+        if (RecordEquality.isByIdentity()) {
+            return System.identityHashCode(this);
+        }
         final int prime = 31;
         int result = super.hashCode();
         if (xref != null) {
@@ -1008,6 +1040,14 @@ public class Individual extends AbstractAddressableElement implements HasCitatio
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markChanged() {
+        changeCount++;
+    }
+
     /**
      * Sets the ancestral file number.
      *
@@ -1038,6 +1078,14 @@ public class Individual extends AbstractAddressableElement implements HasCitatio
         this.changeDate = changeDate;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOriginalLines(String originalLines) {
+        this.originalLines = originalLines;
+    }
+
     /**
      * Sets the permanent rec file number.
      *
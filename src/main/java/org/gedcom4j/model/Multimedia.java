@@ -51,7 +51,7 @@ import org.gedcom4j.Options;
  * @author frizbog1
  * 
  */
-public class Multimedia extends AbstractNotesElement implements HasCitations, HasXref {
+public class Multimedia extends AbstractNotesElement implements HasCitations, HasOriginalLines, HasXref {
     /**
      * Serial Version UID
      */
@@ -63,6 +63,11 @@ public class Multimedia extends AbstractNotesElement implements HasCitations, Ha
      */
     private List<String> blob = getBlob(Options.isCollectionInitializationEnabled());
 
+    /**
+     * The number of times this record has been marked as changed
+     */
+    private transient int changeCount;
+
     /**
      * The change date for this multimedia item
      */
@@ -94,6 +99,11 @@ public class Multimedia extends AbstractNotesElement implements HasCitations, Ha
      */
     private List<FileReference> fileReferences = getFileReferences(Options.isCollectionInitializationEnabled());
 
+    /**
+     * The lines this record was loaded from, separated by newline characters. Null if they were not kept.
+     */
+    private transient String originalLines;
+
     /**
      * The record ID number
      */
@@ -173,6 +183,9 @@ public class Multimedia extends AbstractNotesElement implements HasCitations, Ha
         if (this == obj) {
             return true;
         }
+        if (RecordEquality.isByIdentity()) {
+            return false;
+        }
         if (!super.equals(obj)) {
             return false;
         }
@@ -276,6 +289,14 @@ public class Multimedia extends AbstractNotesElement implements HasCitations, Ha
         return blob;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getChangeCount() {
+        return changeCount;
+    }
+
     /**
      * Gets the change date.
      *
@@ -361,6 +382,14 @@ public class Multimedia extends AbstractNotesElement implements HasCitations, Ha
         return fileReferences;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getOriginalLines() {
+        return originalLines;
+    }
+
     /**
      * Gets the rec id number.
      *
@@ -408,6 +437,9 @@ public class Multimedia extends AbstractNotesElement implements HasCitations, Ha
      */
     @Override
     public int hashCode() {
+        if (RecordEquality.isByIdentity()) {
+            return System.identityHashCode(this);
+        }
         final int prime = 31;
         int result = super.hashCode();
         result = prime * result + (blob == null ? 0 : blob.hashCode());
@@ -423,6 +455,14 @@ public class Multimedia extends AbstractNotesElement implements HasCitations, Ha
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markChanged() {
+        changeCount++;
+    }
+
     /**
      * Sets the change date.
      *
@@ -483,6 +523,14 @@ public class Multimedia extends AbstractNotesElement implements HasCitations, Ha
         this.embeddedTitle = embeddedTitle;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOriginalLines(String originalLines) {
+        this.originalLines = originalLines;
+    }
+
     /**
      * Sets the rec id number.
      *
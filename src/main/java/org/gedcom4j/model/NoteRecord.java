@@ -38,12 +38,17 @@ import org.gedcom4j.Options;
  * @author frizbog1
  * 
  */
-public class NoteRecord extends AbstractElement implements HasCitations, HasXref {
+public class NoteRecord extends AbstractElement implements HasCitations, HasOriginalLines, HasXref {
     /**
      * Serial Version UID
      */
     private static final long serialVersionUID = 8355989906882622025L;
 
+    /**
+     * The number of times this record has been marked as changed
+     */
+    private transient int changeCount;
+
     /**
      * The change date for this note
      */
@@ -59,6 +64,11 @@ public class NoteRecord extends AbstractElement implements HasCitations, HasXref
      */
     private List<String> lines = getLines(Options.isCollectionInitializationEnabled());
 
+    /**
+     * The lines this record was loaded from, separated by newline characters. Null if they were not kept.
+     */
+    private transient String originalLines;
+
     /**
      * The record ID number
      */
@@ -128,6 +138,9 @@ public class NoteRecord extends AbstractElement implements HasCitations, HasXref
         if (this == obj) {
             return true;
         }
+        if (RecordEquality.isByIdentity()) {
+            return false;
+        }
         if (!super.equals(obj)) {
             return false;
         }
@@ -180,6 +193,14 @@ public class NoteRecord extends AbstractElement implements HasCitations, HasXref
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getChangeCount() {
+        return changeCount;
+    }
+
     /**
      * Gets the change date.
      *
@@ -238,6 +259,14 @@ public class NoteRecord extends AbstractElement implements HasCitations, HasXref
         return lines;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getOriginalLines() {
+        return originalLines;
+    }
+
     /**
      * Gets the rec id number.
      *
@@ -285,6 +314,9 @@ public class NoteRecord extends AbstractElement implements HasCitations, HasXref
      */
     @Override
     public int hashCode() {
+        if (RecordEquality.isByIdentity()) {
+            return System.identityHashCode(this);
+        }
         final int prime = 31;
         int result = super.hashCode();
         result = prime * result + (changeDate == null ? 0 : changeDate.hashCode());
@@ -296,6 +328,14 @@ public class NoteRecord extends AbstractElement implements HasCitations, HasXref
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markChanged() {
+        changeCount++;
+    }
+
     /**
      * Sets the change date.
      *
@@ -306,6 +346,14 @@ public class NoteRecord extends AbstractElement implements HasCitations, HasXref
         this.changeDate = changeDate;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOriginalLines(String originalLines) {
+        this.originalLines = originalLines;
+    }
+
     /**
      * Sets the rec id number.
      *
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.model;
+
+import org.gedcom4j.Options;
+
+/**
+ * <p>
+ * Controls how the root-level records ({@link Family}, {@link Individual}, {@link Multimedia}, {@link NoteRecord},
+ * {@link Repository}, {@link Source} and {@link Submitter}) are compared for equality.
+ * </p>
+ * <p>
+ * By default, records are compared field by field, all the way down, and their hash codes are computed from all their fields too.
+ * That is expensive for records with a lot of data, and for records like {@link Individual} that are linked to other records - and
+ * it is done every time a record is put into or looked up in a hash-based collection, such as the sets of individuals built by
+ * {@link Individual#getAncestors()}, {@link Individual#getDescendants()} and the relationship calculators. When
+ * {@link Options#setIdentityEqualityEnabled(boolean)} is turned on, records are instead equal only to themselves, and their hash
+ * codes are their identity hash codes, which never change while the record exists and cost nothing to compute.
+ * </p>
+ * <p>
+ * Comparing the contents of records, for example to compare two copies of the same file loaded separately, is still available
+ * with {@link #deepEquals(Object, Object)} and {@link #deepHashCode(Object)}, which compare field by field regardless of the
+ * option.
+ * </p>
+ * 
+ * @author frizbog
+ */
+public final class RecordEquality {
+
+    /**
+     * Whether a deep comparison is underway on the current thread, in which case records are compared field by field even when
+     * identity equality is enabled
+     */
+    private static final ThreadLocal<Boolean> COMPARING_DEEPLY = new ThreadLocal<Boolean>() {
+        @Override
+        protected Boolean initialValue() {
+            return Boolean.FALSE;
+        }
+    };
+
+    /**
+     * Compare two objects from the model field by field, including any records in or referred to by them, whether or not identity
+     * equality is enabled
+     * 
+     * @param o1
+     *            the first object. May be null.
+     * @param o2
+     *            the second object. May be null.
+     * @return true if both are null, or if they are equal field by field
+     */
+    public static boolean deepEquals(Object o1, Object o2) {
+        if (o1 == o2) {
+            return true;
+        }
+        if (o1 == null || o2 == null) {
+            return false;
+        }
+        if (!Options.isIdentityEqualityEnabled()) {
+            return o1.equals(o2);
+        }
+        Boolean previous = COMPARING_DEEPLY.get();
+        COMPARING_DEEPLY.set(Boolean.TRUE);
+        try {
+            return o1.equals(o2);
+        } finally {
+            COMPARING_DEEPLY.set(previous);
+        }
+    }
+
+    /**
+     * Compute the hash code of an object from the model from all its fields, including any records in or referred to by it,
+     * whether or not identity equality is enabled. Consistent with {@link #deepEquals(Object, Object)}.
+     * 
+     * @param o
+     *            the object. May be null.
+     * @return the hash code of the object's fields, or zero if it is null
+     */
+    public static int deepHashCode(Object o) {
+        if (o == null) {
+            return 0;
+        }
+        if (!Options.isIdentityEqualityEnabled()) {
+            return o.hashCode();
+        }
+        Boolean previous = COMPARING_DEEPLY.get();
+        COMPARING_DEEPLY.set(Boolean.TRUE);
+        try {
+            return o.hashCode();
+        } finally {
+            COMPARING_DEEPLY.set(previous);
+        }
+    }
+
+    /**
+     * Are root-level records currently compared by identity? True if {@link Options#isIdentityEqualityEnabled()}, unless a deep
+     * comparison is underway on the current thread.
+     * 
+     * @return true if root-level records are currently equal only to themselves, and hash by identity
+     */
+    public static boolean isByIdentity() {
+        return Options.isIdentityEqualityEnabled() && !COMPARING_DEEPLY.get();
+    }
+
+    /**
+     * Private constructor prevents instantiation and subclassing.
+     */
+    private RecordEquality() {
+        // Do nothing
+    }
+}
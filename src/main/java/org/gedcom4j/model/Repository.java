@@ -37,12 +37,17 @@ import org.gedcom4j.Options;
  * @author frizbog1
  * 
  */
-public class Repository extends AbstractAddressableElement implements HasXref {
+public class Repository extends AbstractAddressableElement implements HasOriginalLines, HasXref {
     /**
      * Serial Version UID
      */
     private static final long serialVersionUID = 4976586157819833016L;
 
+    /**
+     * The number of times this record has been marked as changed
+     */
+    private transient int changeCount;
+
     /**
      * The change date for this repository
      */
@@ -53,6 +58,11 @@ public class Repository extends AbstractAddressableElement implements HasXref {
      */
     private StringWithCustomFacts name;
 
+    /**
+     * The lines this record was loaded from, separated by newline characters. Null if they were not kept.
+     */
+    private transient String originalLines;
+
     /**
      * The record ID number
      */
@@ -107,6 +117,9 @@ public class Repository extends AbstractAddressableElement implements HasXref {
         if (this == obj) {
             return true;
         }
+        if (RecordEquality.isByIdentity()) {
+            return false;
+        }
         if (!super.equals(obj)) {
             return false;
         }
@@ -152,6 +165,14 @@ public class Repository extends AbstractAddressableElement implements HasXref {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getChangeCount() {
+        return changeCount;
+    }
+
     /**
      * Gets the change date.
      *
@@ -170,6 +191,14 @@ public class Repository extends AbstractAddressableElement implements HasXref {
         return name;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getOriginalLines() {
+        return originalLines;
+    }
+
     /**
      * Gets the rec id number.
      *
@@ -217,6 +246,9 @@ public class Repository extends AbstractAddressableElement implements HasXref {
      */
     @Override
     public int hashCode() {
+        if (RecordEquality.isByIdentity()) {
+            return System.identityHashCode(this);
+        }
         final int prime = 31;
         int result = super.hashCode();
         result = prime * result + (changeDate == null ? 0 : changeDate.hashCode());
@@ -227,6 +259,14 @@ public class Repository extends AbstractAddressableElement implements HasXref {
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markChanged() {
+        changeCount++;
+    }
+
     /**
      * Sets the change date.
      *
@@ -257,6 +297,14 @@ public class Repository extends AbstractAddressableElement implements HasXref {
         this.name = name;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOriginalLines(String originalLines) {
+        this.originalLines = originalLines;
+    }
+
     /**
      * Sets the rec id number.
      *
@@ -37,12 +37,17 @@ import org.gedcom4j.Options;
  * @author frizbog1
  */
 @SuppressWarnings("PMD.GodClass")
-public class Source extends AbstractNotesElement implements HasXref {
+public class Source extends AbstractNotesElement implements HasOriginalLines, HasXref {
     /**
      * Serial Version UID
      */
     private static final long serialVersionUID = 5580720679037154352L;
 
+    /**
+     * The number of times this record has been marked as changed
+     */
+    private transient int changeCount;
+
     /**
      * The change date for this source
      */
@@ -58,6 +63,11 @@ public class Source extends AbstractNotesElement implements HasXref {
      */
     private List<MultimediaReference> multimedia = getMultimedia(Options.isCollectionInitializationEnabled());
 
+    /**
+     * The lines this record was loaded from, separated by newline characters. Null if they were not kept.
+     */
+    private transient String originalLines;
+
     /**
      * The originators/authors
      */
@@ -181,6 +191,9 @@ public class Source extends AbstractNotesElement implements HasXref {
         if (this == obj) {
             return true;
         }
+        if (RecordEquality.isByIdentity()) {
+            return false;
+        }
         if (!super.equals(obj)) {
             return false;
         }
@@ -275,6 +288,14 @@ public class Source extends AbstractNotesElement implements HasXref {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getChangeCount() {
+        return changeCount;
+    }
+
     /**
      * Gets the change date.
      *
@@ -316,6 +337,14 @@ public class Source extends AbstractNotesElement implements HasXref {
         return multimedia;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getOriginalLines() {
+        return originalLines;
+    }
+
     /**
      * Gets the originators authors.
      *
@@ -417,6 +446,9 @@ public class Source extends AbstractNotesElement implements HasXref {
      */
     @Override
     public int hashCode() {
+        if (RecordEquality.isByIdentity()) {
+            return System.identityHashCode(this);
+        }
         final int prime = 31;
         int result = super.hashCode();
         result = prime * result + (changeDate == null ? 0 : changeDate.hashCode());
@@ -434,6 +466,14 @@ public class Source extends AbstractNotesElement implements HasXref {
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markChanged() {
+        changeCount++;
+    }
+
     /**
      * Sets the change date.
      *
@@ -454,6 +494,14 @@ public class Source extends AbstractNotesElement implements HasXref {
         this.data = data;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOriginalLines(String originalLines) {
+        this.originalLines = originalLines;
+    }
+
     /**
      * Set the originatorsAuthors
      * 
@@ -42,12 +42,17 @@ import org.gedcom4j.Options;
  * @author frizbog1
  */
 @SuppressWarnings("PMD.GodClass")
-public class Submitter extends AbstractAddressableElement implements HasXref {
+public class Submitter extends AbstractAddressableElement implements HasOriginalLines, HasXref {
     /**
      * Serial Version UID
      */
     private static final long serialVersionUID = 964849855689332389L;
 
+    /**
+     * The number of times this record has been marked as changed
+     */
+    private transient int changeCount;
+
     /**
      * The change date for this submitter
      */
@@ -68,6 +73,11 @@ public class Submitter extends AbstractAddressableElement implements HasXref {
      */
     private StringWithCustomFacts name;
 
+    /**
+     * The lines this record was loaded from, separated by newline characters. Null if they were not kept.
+     */
+    private transient String originalLines;
+
     /**
      * The record ID number
      */
@@ -155,6 +165,9 @@ public class Submitter extends AbstractAddressableElement implements HasXref {
         if (this == obj) {
             return true;
         }
+        if (RecordEquality.isByIdentity()) {
+            return false;
+        }
         if (!super.equals(obj)) {
             return false;
         }
@@ -221,6 +234,14 @@ public class Submitter extends AbstractAddressableElement implements HasXref {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getChangeCount() {
+        return changeCount;
+    }
+
     /**
      * Gets the change date.
      *
@@ -285,6 +306,14 @@ public class Submitter extends AbstractAddressableElement implements HasXref {
         return name;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getOriginalLines() {
+        return originalLines;
+    }
+
     /**
      * Gets the rec id number.
      *
@@ -341,6 +370,9 @@ public class Submitter extends AbstractAddressableElement implements HasXref {
      */
     @Override
     public int hashCode() {
+        if (RecordEquality.isByIdentity()) {
+            return System.identityHashCode(this);
+        }
         final int prime = 31;
         int result = super.hashCode();
         result = prime * result + (changeDate == null ? 0 : changeDate.hashCode());
@@ -354,6 +386,14 @@ public class Submitter extends AbstractAddressableElement implements HasXref {
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markChanged() {
+        changeCount++;
+    }
+
     /**
      * Sets the change date.
      *
@@ -384,6 +424,14 @@ public class Submitter extends AbstractAddressableElement implements HasXref {
         this.name = name;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOriginalLines(String originalLines) {
+        this.originalLines = originalLines;
+    }
+
     /**
      * Sets the rec id number.
      *
@@ -27,6 +27,7 @@
 package org.gedcom4j.parser;
 
 import java.util.List;
+import java.util.Map;
 
 import org.gedcom4j.model.AbstractElement;
 import org.gedcom4j.model.CustomFact;
@@ -85,7 +86,7 @@ abstract class AbstractParser<T> {
      *            the text of the error
      */
     protected void addError(String string) {
-        gedcomParser.getErrors().add(string);
+        gedcomParser.currentErrors().add(string);
     }
 
     /**
@@ -95,7 +96,7 @@ abstract class AbstractParser<T> {
      *            the text of the error
      */
     protected void addWarning(String string) {
-        gedcomParser.getWarnings().add(string);
+        gedcomParser.currentWarnings().add(string);
     }
 
     /**
@@ -111,20 +112,31 @@ abstract class AbstractParser<T> {
     }
 
     /**
-     * Get a family by their xref, adding them to the gedcom collection of families if needed.
+     * Get a family by their xref, adding them to the gedcom collection of families if needed. Like the other methods that find or
+     * create records by xref, this is safe to call from multiple threads when parsing in parallel, and returns a new placeholder
+     * that is not added to the gedcom when streaming records to {@link RecordHandler}s.
      * 
      * @param xref
      *            the xref of the family
      * @return the family with the specified xref
      */
     protected Family getFamily(String xref) {
-        Family f = gedcomParser.getGedcom().getFamilies().get(xref);
-        if (f == null) {
-            f = new Family();
+        if (gedcomParser.isStreamingRecords()) {
+            // Records aren't kept when streaming, so just make a new placeholder
+            Family f = new Family();
             f.setXref(xref);
-            gedcomParser.getGedcom().getFamilies().put(xref, f);
+            return f;
+        }
+        Map<String, Family> families = gedcomParser.getGedcom().getFamilies();
+        synchronized (families) {
+            Family f = families.get(xref);
+            if (f == null) {
+                f = new Family();
+                f.setXref(xref);
+                families.put(xref, f);
+            }
+            return f;
         }
-        return f;
     }
 
     /**
@@ -135,14 +147,21 @@ abstract class AbstractParser<T> {
      * @return the individual with the specified xref
      */
     protected Individual getIndividual(String xref) {
-        Individual i;
-        i = gedcomParser.getGedcom().getIndividuals().get(xref);
-        if (i == null) {
-            i = new Individual();
+        if (gedcomParser.isStreamingRecords()) {
+            Individual i = new Individual();
             i.setXref(xref);
-            gedcomParser.getGedcom().getIndividuals().put(xref, i);
+            return i;
+        }
+        Map<String, Individual> individuals = gedcomParser.getGedcom().getIndividuals();
+        synchronized (individuals) {
+            Individual i = individuals.get(xref);
+            if (i == null) {
+                i = new Individual();
+                i.setXref(xref);
+                individuals.put(xref, i);
+            }
+            return i;
         }
-        return i;
     }
 
     /**
@@ -153,14 +172,21 @@ abstract class AbstractParser<T> {
      * @return the multimedia item with the specified xref
      */
     protected Multimedia getMultimedia(String xref) {
-        Multimedia m;
-        m = gedcomParser.getGedcom().getMultimedia().get(xref);
-        if (m == null) {
-            m = new Multimedia();
+        if (gedcomParser.isStreamingRecords()) {
+            Multimedia m = new Multimedia();
             m.setXref(xref);
-            gedcomParser.getGedcom().getMultimedia().put(xref, m);
+            return m;
+        }
+        Map<String, Multimedia> multimedia = gedcomParser.getGedcom().getMultimedia();
+        synchronized (multimedia) {
+            Multimedia m = multimedia.get(xref);
+            if (m == null) {
+                m = new Multimedia();
+                m.setXref(xref);
+                multimedia.put(xref, m);
+            }
+            return m;
         }
-        return m;
     }
 
     /**
@@ -171,13 +197,18 @@ abstract class AbstractParser<T> {
      * @return the note record with the specified xref
      */
     protected NoteRecord getNoteRecord(String xref) {
-        NoteRecord nr;
-        nr = gedcomParser.getGedcom().getNotes().get(xref);
-        if (nr == null) {
-            nr = new NoteRecord(xref);
-            gedcomParser.getGedcom().getNotes().put(xref, nr);
+        if (gedcomParser.isStreamingRecords()) {
+            return new NoteRecord(xref);
+        }
+        Map<String, NoteRecord> notes = gedcomParser.getGedcom().getNotes();
+        synchronized (notes) {
+            NoteRecord nr = notes.get(xref);
+            if (nr == null) {
+                nr = new NoteRecord(xref);
+                notes.put(xref, nr);
+            }
+            return nr;
         }
-        return nr;
     }
 
     /**
@@ -188,14 +219,21 @@ abstract class AbstractParser<T> {
      * @return the repository with the specified xref
      */
     protected Repository getRepository(String xref) {
-        Repository r = gedcomParser.getGedcom().getRepositories().get(xref);
-        if (r == null) {
-            r = new Repository();
+        if (gedcomParser.isStreamingRecords()) {
+            Repository r = new Repository();
             r.setXref(xref);
-            gedcomParser.getGedcom().getRepositories().put(xref, r);
+            return r;
+        }
+        Map<String, Repository> repositories = gedcomParser.getGedcom().getRepositories();
+        synchronized (repositories) {
+            Repository r = repositories.get(xref);
+            if (r == null) {
+                r = new Repository();
+                r.setXref(xref);
+                repositories.put(xref, r);
+            }
+            return r;
         }
-        return r;
-
     }
 
     /**
@@ -206,12 +244,18 @@ abstract class AbstractParser<T> {
      * @return the source with the specified xref
      */
     protected Source getSource(String xref) {
-        Source src = gedcomParser.getGedcom().getSources().get(xref);
-        if (src == null) {
-            src = new Source(xref);
-            gedcomParser.getGedcom().getSources().put(src.getXref(), src);
+        if (gedcomParser.isStreamingRecords()) {
+            return new Source(xref);
+        }
+        Map<String, Source> sources = gedcomParser.getGedcom().getSources();
+        synchronized (sources) {
+            Source src = sources.get(xref);
+            if (src == null) {
+                src = new Source(xref);
+                sources.put(src.getXref(), src);
+            }
+            return src;
         }
-        return src;
     }
 
     /**
@@ -222,15 +266,23 @@ abstract class AbstractParser<T> {
      * @return the submitter with the specified xref
      */
     protected Submitter getSubmitter(String xref) {
-        Submitter s;
-        s = gedcomParser.getGedcom().getSubmitters().get(xref);
-        if (s == null) {
-            s = new Submitter();
+        if (gedcomParser.isStreamingRecords()) {
+            Submitter s = new Submitter();
             s.setName("UNSPECIFIED");
             s.setXref(xref);
-            gedcomParser.getGedcom().getSubmitters().put(xref, s);
+            return s;
+        }
+        Map<String, Submitter> submitters = gedcomParser.getGedcom().getSubmitters();
+        synchronized (submitters) {
+            Submitter s = submitters.get(xref);
+            if (s == null) {
+                s = new Submitter();
+                s.setName("UNSPECIFIED");
+                s.setXref(xref);
+                submitters.put(xref, s);
+            }
+            return s;
         }
-        return s;
     }
 
     /**
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import java.util.List;
+
+import org.gedcom4j.model.Gedcom;
+
+/**
+ * The result of loading one file in a batch - see {@link BatchLoader}
+ * 
+ * @author frizbog
+ */
+public class BatchLoadResult {
+
+    /**
+     * The name of the file
+     */
+    private final String filename;
+
+    /**
+     * The gedcom loaded from the file. Null if it couldn't be loaded.
+     */
+    private final Gedcom gedcom;
+
+    /**
+     * The errors found while parsing the file
+     */
+    private final List<String> errors;
+
+    /**
+     * The warnings found while parsing the file
+     */
+    private final List<String> warnings;
+
+    /**
+     * The exception that stopped the file from being loaded. Null if it was loaded.
+     */
+    private final Exception exception;
+
+    /**
+     * Constructor
+     * 
+     * @param filename
+     *            the name of the file
+     * @param gedcom
+     *            the gedcom loaded from the file, or null if it couldn't be loaded
+     * @param errors
+     *            the errors found while parsing the file
+     * @param warnings
+     *            the warnings found while parsing the file
+     * @param exception
+     *            the exception that stopped the file from being loaded, or null if it was loaded
+     */
+    BatchLoadResult(String filename, Gedcom gedcom, List<String> errors, List<String> warnings, Exception exception) {
+        this.filename = filename;
+        this.gedcom = gedcom;
+        this.errors = errors;
+        this.warnings = warnings;
+        this.exception = exception;
+    }
+
+    /**
+     * Get the errors found while parsing the file. If the file couldn't be loaded, these are the errors found before it failed.
+     * 
+     * @return the errors found while parsing the file
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Get the exception that stopped the file from being loaded - typically an {@link java.io.IOException} or
+     * {@link org.gedcom4j.exception.GedcomParserException}
+     * 
+     * @return the exception that stopped the file from being loaded, or null if it was loaded
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    /**
+     * Get the name of the file
+     * 
+     * @return the name of the file
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * Get the gedcom loaded from the file
+     * 
+     * @return the gedcom loaded from the file, or null if it couldn't be loaded
+     */
+    public Gedcom getGedcom() {
+        return gedcom;
+    }
+
+    /**
+     * Get the warnings found while parsing the file. If the file couldn't be loaded, these are the warnings found before it
+     * failed.
+     * 
+     * @return the warnings found while parsing the file
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * Was the file loaded?
+     * 
+     * @return true if the file was loaded, false if an exception stopped it being loaded
+     */
+    public boolean isLoaded() {
+        return exception == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(64);
+        builder.append("BatchLoadResult [filename=");
+        builder.append(filename);
+        builder.append(", errors=");
+        builder.append(errors.size());
+        builder.append(", warnings=");
+        builder.append(warnings.size());
+        if (exception != null) {
+            builder.append(", exception=");
+            builder.append(exception);
+        }
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,528 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.exception.ParserCancelledException;
+import org.gedcom4j.io.event.FileProgressEvent;
+import org.gedcom4j.io.event.FileProgressListener;
+import org.gedcom4j.parser.event.ParseProgressEvent;
+import org.gedcom4j.parser.event.ParseProgressListener;
+
+/**
+ * <p>
+ * Loads a batch of files on a pool of worker threads, with a new {@link GedcomParser} for each file. The result of loading each
+ * file is passed to a {@link BatchLoadHandler} on the thread that called {@link #load(Iterable, BatchLoadHandler)}, in the order
+ * the files finish loading.
+ * </p>
+ * <ul>
+ * <li>Only a limited number of files are loaded or waiting to be handled at once (see {@link #setMaxFilesInProgress(int)}) - no
+ * more files are started until the handler has taken the results already done - so the memory used doesn't depend on the number
+ * of files in the batch, and the file names can come from an {@link Iterable} that is read as the batch goes.</li>
+ * <li>A file that can't be loaded doesn't stop the batch. The exception is passed to the handler in the {@link BatchLoadResult},
+ * and the rest of the files are loaded as usual.</li>
+ * <li>Progress of the batch as a whole is reported to the registered {@link FileProgressListener}s and
+ * {@link ParseProgressListener}s, as the total across all the files loaded so far. Listeners are called one at a time, but from
+ * the worker threads as well as the thread that called {@link #load(Iterable, BatchLoadHandler)}.</li>
+ * </ul>
+ * <p>
+ * To configure the parsers (for example, with a filter or a string pool size), override {@link #newParser()}.
+ * </p>
+ * 
+ * @author frizbog
+ */
+public class BatchLoader {
+
+    /**
+     * Loads a file in the batch, and keeps track of its progress
+     * 
+     * @author frizbog
+     */
+    private final class FileTask implements Callable<BatchLoadResult>, FileProgressListener, ParseProgressListener {
+
+        /**
+         * The name of the file to load
+         */
+        private final String filename;
+
+        /**
+         * The parser loading the file
+         */
+        private GedcomParser parser;
+
+        /**
+         * The number of bytes of the file read, as of the most recent progress event
+         */
+        private long bytesRead;
+
+        /**
+         * The number of lines of the file read, as of the most recent progress event
+         */
+        private int linesRead;
+
+        /**
+         * The most recent parse progress event for the file. Null if there hasn't been one.
+         */
+        private ParseProgressEvent parseProgress;
+
+        /**
+         * Constructor
+         * 
+         * @param filename
+         *            the name of the file to load
+         */
+        FileTask(String filename) {
+            this.filename = filename;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public BatchLoadResult call() {
+            parser = newParser();
+            parser.registerFileObserver(this);
+            parser.registerParseObserver(this);
+            try {
+                if (cancelled) {
+                    throw new ParserCancelledException("Batch load is cancelled");
+                }
+                parser.load(filename);
+                return new BatchLoadResult(filename, parser.getGedcom(), parser.getErrors(), parser.getWarnings(), null);
+            } catch (IOException | GedcomParserException | RuntimeException e) {
+                return new BatchLoadResult(filename, null, parser.getErrors(), parser.getWarnings(), e);
+            } finally {
+                parser.unregisterFileObserver(this);
+                parser.unregisterParseObserver(this);
+                // Count everything parsed from the file in the totals, as the parser doesn't report when it has finished
+                progressNotification(new ParseProgressEvent(this, parser.getGedcom(), true, parser.getLineNum()));
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void progressNotification(FileProgressEvent e) {
+            if (cancelled) {
+                parser.cancel();
+            }
+            fileProgress(e.getByteOffset() - bytesRead, e.getLinesProcessed() - linesRead);
+            bytesRead = e.getByteOffset();
+            linesRead = e.getLinesProcessed();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void progressNotification(ParseProgressEvent e) {
+            parseProgress(parseProgress, e);
+            parseProgress = e;
+        }
+    }
+
+    /**
+     * The number of worker threads
+     */
+    private final int threadCount;
+
+    /**
+     * The maximum number of files that can be loading, or loaded and waiting to be handled, at once
+     */
+    private int maxFilesInProgress;
+
+    /**
+     * Has the batch been cancelled?
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The observers to tell about the progress of reading the files
+     */
+    private final List<WeakReference<FileProgressListener>> fileObservers = new CopyOnWriteArrayList<>();
+
+    /**
+     * The observers to tell about the progress of parsing the files
+     */
+    private final List<WeakReference<ParseProgressListener>> parseObservers = new CopyOnWriteArrayList<>();
+
+    /**
+     * The total number of bytes read from all the files in the batch so far
+     */
+    private long bytesRead;
+
+    /**
+     * The total number of lines read from all the files in the batch so far
+     */
+    private int linesRead;
+
+    /**
+     * The total number of lines parsed from all the files in the batch so far
+     */
+    private int linesParsed;
+
+    /**
+     * The total number of families parsed from all the files in the batch so far
+     */
+    private int families;
+
+    /**
+     * The total number of individuals parsed from all the files in the batch so far
+     */
+    private int individuals;
+
+    /**
+     * The total number of multimedia parsed from all the files in the batch so far
+     */
+    private int multimedia;
+
+    /**
+     * The total number of notes parsed from all the files in the batch so far
+     */
+    private int notes;
+
+    /**
+     * The total number of repositories parsed from all the files in the batch so far
+     */
+    private int repositories;
+
+    /**
+     * The total number of sources parsed from all the files in the batch so far
+     */
+    private int sources;
+
+    /**
+     * The total number of submitters parsed from all the files in the batch so far
+     */
+    private int submitters;
+
+    /**
+     * Constructor
+     * 
+     * @param threadCount
+     *            the number of worker threads to load files on. Must be at least 1.
+     */
+    public BatchLoader(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        this.threadCount = threadCount;
+        maxFilesInProgress = threadCount * 2;
+    }
+
+    /**
+     * Cancel the batch currently being loaded. No more files are started, and the files being loaded stop (and are passed to the
+     * handler with a {@link org.gedcom4j.exception.ParserCancelledException}) the next time their parsers report their progress
+     * reading the file.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Get the maximum number of files that can be loading, or loaded and waiting to be handled, at once
+     * 
+     * @return the maximum number of files that can be loading, or loaded and waiting to be handled, at once
+     */
+    public int getMaxFilesInProgress() {
+        return maxFilesInProgress;
+    }
+
+    /**
+     * Get the number of worker threads
+     * 
+     * @return the number of worker threads
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Is the batch cancelled?
+     * 
+     * @return true if the batch currently being loaded has been cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Load a batch of files, passing the result of loading each one to the handler as soon as it is done. Returns when all the
+     * files have been loaded and handled, or the batch has been cancelled and the files already started have been handled.
+     * 
+     * @param filenames
+     *            the names of the files to load. These are read from as the batch goes, so can be generated as needed.
+     * @param handler
+     *            the handler for the result of loading each file. Called on the current thread. If it throws an exception, the
+     *            batch is abandoned and the exception is thrown from this method.
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting for a file to load. The batch is abandoned.
+     */
+    public void load(Iterable<String> filenames, BatchLoadHandler handler) throws InterruptedException {
+        synchronized (this) {
+            cancelled = false;
+            bytesRead = 0;
+            linesRead = 0;
+            linesParsed = 0;
+            families = 0;
+            individuals = 0;
+            multimedia = 0;
+            notes = 0;
+            repositories = 0;
+            sources = 0;
+            submitters = 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            private final AtomicInteger threadNum = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "gedcom4j-batch-" + threadNum.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        try {
+            CompletionService<BatchLoadResult> completionService = new ExecutorCompletionService<>(executor);
+            int inProgress = 0;
+            Iterator<String> i = filenames.iterator();
+            while (!cancelled && i.hasNext()) {
+                if (inProgress >= maxFilesInProgress) {
+                    handler.fileLoaded(nextResult(completionService));
+                    inProgress--;
+                    // The handler may have cancelled the batch
+                    continue;
+                }
+                completionService.submit(new FileTask(i.next()));
+                inProgress++;
+            }
+            while (inProgress > 0) {
+                handler.fileLoaded(nextResult(completionService));
+                inProgress--;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        synchronized (this) {
+            notifyFileObservers(new FileProgressEvent(this, linesRead, bytesRead, true));
+            notifyParseObservers(new ParseProgressEvent(this, true, linesParsed, families, individuals, multimedia, notes,
+                    repositories, sources, submitters));
+        }
+    }
+
+    /**
+     * Register a observer (listener) to be informed about the progress of reading the files in the batch
+     * 
+     * @param observer
+     *            the observer you want notified
+     */
+    public void registerFileObserver(FileProgressListener observer) {
+        fileObservers.add(new WeakReference<>(observer));
+    }
+
+    /**
+     * Register a observer (listener) to be informed about the progress of parsing the files in the batch
+     * 
+     * @param observer
+     *            the observer you want notified
+     */
+    public void registerParseObserver(ParseProgressListener observer) {
+        parseObservers.add(new WeakReference<>(observer));
+    }
+
+    /**
+     * Set the maximum number of files that can be loading, or loaded and waiting to be handled, at once. Defaults to twice the
+     * number of threads.
+     * 
+     * @param maxFilesInProgress
+     *            the maximum number of files that can be loading, or loaded and waiting to be handled, at once. Must be at least
+     *            1.
+     */
+    public void setMaxFilesInProgress(int maxFilesInProgress) {
+        if (maxFilesInProgress < 1) {
+            throw new IllegalArgumentException("Max files in progress must be at least 1");
+        }
+        this.maxFilesInProgress = maxFilesInProgress;
+    }
+
+    /**
+     * Unregister a observer (listener) to be informed about the progress of reading the files in the batch
+     * 
+     * @param observer
+     *            the observer you no longer want notified
+     */
+    public void unregisterFileObserver(FileProgressListener observer) {
+        int i = 0;
+        while (i < fileObservers.size()) {
+            WeakReference<FileProgressListener> observerRef = fileObservers.get(i);
+            if (observerRef == null || observerRef.get() == observer) {
+                fileObservers.remove(observerRef);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Unregister a observer (listener) to be informed about the progress of parsing the files in the batch
+     * 
+     * @param observer
+     *            the observer you no longer want notified
+     */
+    public void unregisterParseObserver(ParseProgressListener observer) {
+        int i = 0;
+        while (i < parseObservers.size()) {
+            WeakReference<ParseProgressListener> observerRef = parseObservers.get(i);
+            if (observerRef == null || observerRef.get() == observer) {
+                parseObservers.remove(observerRef);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Get a new parser to load a file with. Called on a worker thread for each file in the batch. Override this to configure the
+     * parsers.
+     * 
+     * @return a new parser
+     */
+    protected GedcomParser newParser() {
+        return new GedcomParser();
+    }
+
+    /**
+     * Add to the totals read from all the files, and tell the observers
+     * 
+     * @param bytes
+     *            the number of bytes read since the last progress report for the file
+     * @param lines
+     *            the number of lines read since the last progress report for the file
+     */
+    private synchronized void fileProgress(long bytes, int lines) {
+        bytesRead += bytes;
+        linesRead += lines;
+        notifyFileObservers(new FileProgressEvent(this, linesRead, bytesRead, false));
+    }
+
+    /**
+     * Wait for the next file to be loaded
+     * 
+     * @param completionService
+     *            the service the files are being loaded by
+     * @return the result of loading the file
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting
+     */
+    private BatchLoadResult nextResult(CompletionService<BatchLoadResult> completionService) throws InterruptedException {
+        try {
+            return completionService.take().get();
+        } catch (ExecutionException e) {
+            // Exceptions from loading files are in the results, so this can only be an error such as running out of memory
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Notify all the file observers about the progress of the batch
+     * 
+     * @param e
+     *            the change event to tell the observers
+     */
+    private void notifyFileObservers(FileProgressEvent e) {
+        for (WeakReference<FileProgressListener> observerRef : fileObservers) {
+            FileProgressListener l = observerRef.get();
+            if (l != null) {
+                l.progressNotification(e);
+            }
+        }
+    }
+
+    /**
+     * Notify all the parse observers about the progress of the batch
+     * 
+     * @param e
+     *            the change event to tell the observers
+     */
+    private void notifyParseObservers(ParseProgressEvent e) {
+        for (WeakReference<ParseProgressListener> observerRef : parseObservers) {
+            ParseProgressListener l = observerRef.get();
+            if (l != null) {
+                l.progressNotification(e);
+            }
+        }
+    }
+
+    /**
+     * Add to the totals parsed from all the files, and tell the observers
+     * 
+     * @param previous
+     *            the previous progress event for the file, or null if there wasn't one
+     * @param e
+     *            the new progress event for the file
+     */
+    private synchronized void parseProgress(ParseProgressEvent previous, ParseProgressEvent e) {
+        if (previous != null) {
+            linesParsed -= previous.getLinesParsed();
+            families -= previous.getFamiliesProcessed();
+            individuals -= previous.getIndividualsProcessed();
+            multimedia -= previous.getMultimediaProcessed();
+            notes -= previous.getNotesProcessed();
+            repositories -= previous.getRepositoriesProcessed();
+            sources -= previous.getSourcesProcessed();
+            submitters -= previous.getSubmittersProcessed();
+        }
+        linesParsed += e.getLinesParsed();
+        families += e.getFamiliesProcessed();
+        individuals += e.getIndividualsProcessed();
+        multimedia += e.getMultimediaProcessed();
+        notes += e.getNotesProcessed();
+        repositories += e.getRepositoriesProcessed();
+        sources += e.getSourcesProcessed();
+        submitters += e.getSubmittersProcessed();
+        notifyParseObservers(new ParseProgressEvent(this, false, linesParsed, families, individuals, multimedia, notes,
+                repositories, sources, submitters));
+    }
+}
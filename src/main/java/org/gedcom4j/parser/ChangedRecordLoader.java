@@ -0,0 +1,502 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.exception.ParserCancelledException;
+import org.gedcom4j.io.reader.Compression;
+import org.gedcom4j.io.reader.DecompressingInputStream;
+import org.gedcom4j.io.reader.GedcomFileReader;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.FamilyChild;
+import org.gedcom4j.model.FamilySpouse;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Header;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.model.IndividualEvent;
+import org.gedcom4j.model.IndividualReference;
+import org.gedcom4j.model.LdsIndividualOrdinance;
+import org.gedcom4j.model.StringTree;
+import org.gedcom4j.model.Submission;
+import org.gedcom4j.model.SubmissionReference;
+
+/**
+ * <p>
+ * Loads a new version of a file into the {@link Gedcom} that a {@link GedcomParser} loaded the previous version of, for
+ * {@link GedcomParser#loadChanges(String)}. The new version is read, and each root-level record is hashed and compared to the hash
+ * of the record with the same xref in the previous version. Only the records that were added or changed are parsed. Each
+ * individual or family that was added, changed or removed gets a new object in the {@link Gedcom}, and the links to the old
+ * objects from the individuals and families that didn't change are pointed at the new ones.
+ * </p>
+ * <p>
+ * The changes can only be loaded this way if they are all to individuals, families, the header and the trailer, because those are
+ * the only records whose objects are easy to find all the links to. If any other record was added, changed or removed, nothing is
+ * changed and the whole file must be loaded instead.
+ * </p>
+ * 
+ * @author frizbog
+ */
+final class ChangedRecordLoader {
+
+    /**
+     * The parser that loaded the previous version of the file
+     */
+    private final GedcomParser parser;
+
+    /**
+     * The hashes of the records in the previous version of the file
+     */
+    private final RecordHashes oldHashes;
+
+    /**
+     * The hashes of the records in the new version of the file
+     */
+    private final RecordHashes newHashes = new RecordHashes();
+
+    /**
+     * The records that were added or changed, in file order
+     */
+    private final List<StringTree> changedRecords = new ArrayList<>();
+
+    /**
+     * The keys of the records that were added or changed (see {@link RecordHashes#keyOf(String)})
+     */
+    private final Set<String> changedKeys = new HashSet<>();
+
+    /**
+     * Does the new version of the file have a submission record?
+     */
+    private boolean hasSubmissionRecord;
+
+    /**
+     * The number of root-level records in the new version of the file read so far
+     */
+    private int recordCount;
+
+    /**
+     * Constructor
+     * 
+     * @param parser
+     *            the parser that loaded the previous version of the file
+     * @param oldHashes
+     *            the hashes of the records in the previous version of the file
+     */
+    ChangedRecordLoader(GedcomParser parser, RecordHashes oldHashes) {
+        this.parser = parser;
+        this.oldHashes = oldHashes;
+    }
+
+    /**
+     * Get the hashes of the records in the new version of the file
+     * 
+     * @return the hashes of the records in the new version of the file
+     */
+    RecordHashes getHashes() {
+        return newHashes;
+    }
+
+    /**
+     * Load the changes in the new version of the file, if they can be loaded on their own
+     * 
+     * @param filename
+     *            the name of the file
+     * @return true if the changes were loaded, or false if they can't be loaded on their own - in which case nothing has been
+     *         changed, and the whole file needs to be loaded
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed, or the load was cancelled
+     */
+    boolean load(String filename) throws IOException, GedcomParserException {
+        if (!readFile(filename) || !checkRemovedRecords()) {
+            return false;
+        }
+        loadChangedRecords();
+        return true;
+    }
+
+    /**
+     * Check that the records in the previous version of the file that aren't in the new one were all individuals or families
+     * 
+     * @return true if the records that were removed were all individuals or families
+     */
+    private boolean checkRemovedRecords() {
+        Gedcom gedcom = parser.getGedcom();
+        for (String key : oldHashes.keySet()) {
+            if (newHashes.get(key) == null) {
+                boolean individual = gedcom.getIndividuals().containsKey(key);
+                boolean family = gedcom.getFamilies().containsKey(key);
+                if (individual == family) {
+                    return false;
+                }
+                changedKeys.add(key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A record in the new version of the file has been read - keep it to be parsed if it has been added or changed
+     * 
+     * @param key
+     *            the key of the record
+     * @param tag
+     *            the tag of the record
+     * @param lines
+     *            the lines of the record
+     * @param firstLineNum
+     *            the line number of the first line of the record
+     * @return false if the record has changed, but can't be loaded on its own
+     * @throws GedcomParserException
+     *             if the record can't be parsed
+     */
+    private boolean endRecord(String key, String tag, List<String> lines, int firstLineNum) throws GedcomParserException {
+        long hash = newHashes.finishRecord();
+        if (Tag.SUBMISSION.equalsText(tag)) {
+            hasSubmissionRecord = true;
+        }
+        Long oldHash = oldHashes.get(key);
+        if (oldHash != null && oldHash.longValue() == hash) {
+            return true;
+        }
+        boolean loadable;
+        if (Tag.INDIVIDUAL.equalsText(tag)) {
+            loadable = key.charAt(0) == '@' && !parser.getGedcom().getFamilies().containsKey(key);
+        } else if (Tag.FAMILY.equalsText(tag)) {
+            loadable = key.charAt(0) == '@' && !parser.getGedcom().getIndividuals().containsKey(key);
+        } else {
+            // In a full load, the header is the first thing loaded, which matters for how it refers to the submission
+            loadable = Tag.HEADER.equalsText(key) && recordCount == 1 || Tag.TRAILER.equalsText(key);
+        }
+        if (!loadable) {
+            return false;
+        }
+        changedKeys.add(key);
+        StringTreeBuilder stringTreeBuilder = new StringTreeBuilder(parser, firstLineNum - 1);
+        for (String line : lines) {
+            stringTreeBuilder.appendLine(line);
+        }
+        List<StringTree> roots = stringTreeBuilder.getTree().getChildren();
+        if (roots != null && roots.size() == 1) {
+            changedRecords.add(roots.get(0));
+        }
+        return true;
+    }
+
+    /**
+     * Load the records that were added or changed, and point the links to the individuals and families that were replaced at their
+     * replacements
+     * 
+     * @throws GedcomParserException
+     *             if a record can't be parsed
+     */
+    private void loadChangedRecords() throws GedcomParserException {
+        Gedcom gedcom = parser.getGedcom();
+        Map<String, Individual> individuals = gedcom.getIndividuals();
+        Map<String, Family> families = gedcom.getFamilies();
+
+        // Take the old objects out, so the parsers make new ones
+        Map<Individual, Individual> replacedIndividuals = new IdentityHashMap<>();
+        Map<Family, Family> replacedFamilies = new IdentityHashMap<>();
+        for (String key : changedKeys) {
+            Individual i = individuals.remove(key);
+            if (i != null) {
+                replacedIndividuals.put(i, null);
+            }
+            Family f = families.remove(key);
+            if (f != null) {
+                replacedFamilies.put(f, null);
+            }
+        }
+
+        for (StringTree record : changedRecords) {
+            if (Tag.HEADER.equalsText(record.getTag())) {
+                loadHeader(record);
+            } else {
+                parser.loadRootItem(record);
+            }
+        }
+
+        // Point the links to the old objects at the new ones
+        for (Family f : families.values()) {
+            for (IndividualReference ir : getIndividualReferences(f)) {
+                if (replacedIndividuals.containsKey(ir.getIndividual())) {
+                    ir.setIndividual(getReplacement(ir.getIndividual(), replacedIndividuals));
+                }
+            }
+        }
+        for (Individual i : individuals.values()) {
+            for (FamilyChild fc : getFamilyChildren(i)) {
+                if (replacedFamilies.containsKey(fc.getFamily())) {
+                    fc.setFamily(getReplacement(fc.getFamily(), replacedFamilies));
+                }
+            }
+            if (i.getFamiliesWhereSpouse() != null) {
+                for (FamilySpouse fs : i.getFamiliesWhereSpouse()) {
+                    if (replacedFamilies.containsKey(fs.getFamily())) {
+                        fs.setFamily(getReplacement(fs.getFamily(), replacedFamilies));
+                    }
+                }
+            }
+        }
+
+        removeUnlinkedPlaceholders();
+    }
+
+    /**
+     * Load the header. In a full load, the header is loaded first, before the submission record is, so any reference from the
+     * header to the submission is to the default submission of a new {@link Gedcom} rather than the one in the file (if there is
+     * one). If the header doesn't refer to the submission, the submission record (if any) is referred to instead.
+     * 
+     * @param record
+     *            the header record
+     * @throws GedcomParserException
+     *             if the header can't be parsed
+     */
+    private void loadHeader(StringTree record) throws GedcomParserException {
+        Gedcom gedcom = parser.getGedcom();
+        Submission submission = gedcom.getSubmission();
+        gedcom.setHeader(new Header());
+        if (hasSubmissionRecord) {
+            gedcom.setSubmission(new Gedcom().getSubmission());
+        }
+        try {
+            parser.loadRootItem(record);
+        } finally {
+            gedcom.setSubmission(submission);
+        }
+        if (hasSubmissionRecord && gedcom.getHeader().getSubmissionReference() == null) {
+            gedcom.getHeader().setSubmissionReference(new SubmissionReference(submission));
+        }
+    }
+
+    /**
+     * Remove the placeholders that nothing links to any more, which wouldn't be there if the whole file was loaded. A placeholder
+     * is only ever made for an xref that a line points to, so the xrefs to check are those that the previous version of the file
+     * pointed to, of records of any type - a changed record may have been the only one to point to a note, source, repository,
+     * submitter or multimedia record that isn't in the file, as well as an individual or family. Any of them that the new version
+     * of the file neither has a record for nor points to goes.
+     */
+    private void removeUnlinkedPlaceholders() {
+        Gedcom gedcom = parser.getGedcom();
+        Set<String> stillPointedTo = newHashes.getPointers();
+        for (String xref : oldHashes.getPointers()) {
+            if (newHashes.get(xref) == null && !stillPointedTo.contains(xref)) {
+                gedcom.getIndividuals().remove(xref);
+                gedcom.getFamilies().remove(xref);
+                gedcom.getNotes().remove(xref);
+                gedcom.getSources().remove(xref);
+                gedcom.getRepositories().remove(xref);
+                gedcom.getSubmitters().remove(xref);
+                gedcom.getMultimedia().remove(xref);
+            }
+        }
+    }
+
+    /**
+     * Read the new version of the file, hashing each record and keeping the ones that have changed
+     * 
+     * @param filename
+     *            the name of the file
+     * @return false if a record has changed that can't be loaded on its own, or if more than one record has the same xref
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if a changed record can't be parsed, or the load was cancelled
+     */
+    private boolean readFile(String filename) throws IOException, GedcomParserException {
+        Compression compression = Compression.of(filename);
+        boolean loadable;
+        if (compression == Compression.NONE) {
+            try (FileInputStream fis = new FileInputStream(filename); FileChannel channel = fis.getChannel();) {
+                loadable = readLines(new GedcomFileReader(parser, channel));
+            }
+        } else {
+            try (FileInputStream fis = new FileInputStream(filename);
+                    DecompressingInputStream dis = new DecompressingInputStream(fis, compression);) {
+                loadable = readLines(new GedcomFileReader(parser, dis));
+            }
+        }
+        return loadable && !newHashes.hasDuplicateKeys();
+    }
+
+    /**
+     * Read the lines of the new version of the file, hashing each record and keeping the ones that have changed
+     * 
+     * @param gfr
+     *            the reader for the file
+     * @return false if a record has changed that can't be loaded on its own
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if a changed record can't be parsed, or the load was cancelled
+     */
+    private boolean readLines(GedcomFileReader gfr) throws IOException, GedcomParserException {
+        List<String> lines = new ArrayList<>();
+        String key = null;
+        String tag = null;
+        int lineNum = 0;
+        int firstLineNum = 0;
+        String line = gfr.nextLine();
+        while (line != null) {
+            lineNum++;
+            if (line.charAt(0) == '0') {
+                if (key != null && !endRecord(key, tag, lines, firstLineNum)) {
+                    return false;
+                }
+                lines.clear();
+                key = RecordHashes.keyOf(line);
+                tag = RecordHashes.tagOf(line);
+                firstLineNum = lineNum;
+                recordCount++;
+                newHashes.startRecord(key);
+            }
+            newHashes.addLine(line);
+            lines.add(line);
+            if (parser.isCancelled()) {
+                throw new ParserCancelledException("File load/parse is cancelled");
+            }
+            line = gfr.nextLine();
+        }
+        return key == null || endRecord(key, tag, lines, firstLineNum);
+    }
+
+    /**
+     * Get all the links from an individual to the families they are a child in - including those in events and LDS ordinances
+     * 
+     * @param i
+     *            the individual
+     * @return all the links from the individual to the families they are a child in
+     */
+    private static List<FamilyChild> getFamilyChildren(Individual i) {
+        List<FamilyChild> result = new ArrayList<>();
+        if (i.getFamiliesWhereChild() != null) {
+            result.addAll(i.getFamiliesWhereChild());
+        }
+        if (i.getEvents() != null) {
+            for (IndividualEvent e : i.getEvents()) {
+                if (e.getFamily() != null) {
+                    result.add(e.getFamily());
+                }
+            }
+        }
+        if (i.getLdsIndividualOrdinances() != null) {
+            for (LdsIndividualOrdinance o : i.getLdsIndividualOrdinances()) {
+                if (o.getFamilyWhereChild() != null) {
+                    result.add(o.getFamilyWhereChild());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get all the references from a family to individuals
+     * 
+     * @param f
+     *            the family
+     * @return all the references from the family to its husband, wife and children
+     */
+    private static List<IndividualReference> getIndividualReferences(Family f) {
+        List<IndividualReference> result = new ArrayList<>();
+        if (f.getHusband() != null && f.getHusband().getIndividual() != null) {
+            result.add(f.getHusband());
+        }
+        if (f.getWife() != null && f.getWife().getIndividual() != null) {
+            result.add(f.getWife());
+        }
+        if (f.getChildren() != null) {
+            for (IndividualReference ir : f.getChildren()) {
+                if (ir.getIndividual() != null) {
+                    result.add(ir);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the replacement for an old family object - the new object with the same xref. If the family was removed, a placeholder
+     * is made for it, as there would be if the whole file was loaded.
+     * 
+     * @param old
+     *            the old family object
+     * @param replaced
+     *            the old family objects, mapped to their replacements once they are known
+     * @return the replacement
+     */
+    private Family getReplacement(Family old, Map<Family, Family> replaced) {
+        Family result = replaced.get(old);
+        if (result == null) {
+            Map<String, Family> families = parser.getGedcom().getFamilies();
+            result = families.get(old.getXref());
+            if (result == null) {
+                result = new Family();
+                result.setXref(old.getXref());
+                families.put(old.getXref(), result);
+            }
+            replaced.put(old, result);
+        }
+        return result;
+    }
+
+    /**
+     * Get the replacement for an old individual object - the new object with the same xref. If the individual was removed, a
+     * placeholder is made for them, as there would be if the whole file was loaded.
+     * 
+     * @param old
+     *            the old individual object
+     * @param replaced
+     *            the old individual objects, mapped to their replacements once they are known
+     * @return the replacement
+     */
+    private Individual getReplacement(Individual old, Map<Individual, Individual> replaced) {
+        Individual result = replaced.get(old);
+        if (result == null) {
+            Map<String, Individual> individuals = parser.getGedcom().getIndividuals();
+            result = individuals.get(old.getXref());
+            if (result == null) {
+                result = new Individual();
+                result.setXref(old.getXref());
+                individuals.put(old.getXref(), result);
+            }
+            replaced.put(old, result);
+        }
+        return result;
+    }
+
+}
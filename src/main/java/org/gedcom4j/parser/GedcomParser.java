@@ -30,17 +30,29 @@ import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.gedcom4j.exception.GedcomParserException;
 import org.gedcom4j.exception.ParserCancelledException;
 import org.gedcom4j.io.event.FileProgressEvent;
 import org.gedcom4j.io.event.FileProgressListener;
+import org.gedcom4j.io.reader.Compression;
+import org.gedcom4j.io.reader.DecompressingInputStream;
 import org.gedcom4j.io.reader.GedcomFileReader;
 import org.gedcom4j.model.Family;
 import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.HasOriginalLines;
+import org.gedcom4j.model.HasXref;
 import org.gedcom4j.model.Header;
 import org.gedcom4j.model.Individual;
 import org.gedcom4j.model.Multimedia;
@@ -101,6 +113,54 @@ import org.gedcom4j.parser.event.ParseProgressListener;
 @SuppressWarnings({ "PMD.TooManyMethods", "PMD.GodClass" })
 public class GedcomParser extends AbstractParser<Gedcom> {
 
+    /**
+     * Loads a file for {@link GedcomParser#loadAsync(String, Executor)}
+     * 
+     * @author frizbog
+     */
+    private final class AsyncLoad implements Callable<Gedcom> {
+
+        /**
+         * The name of the file to load
+         */
+        private final String filename;
+
+        /**
+         * The result of the load, which is checked for cancellation while the load runs
+         */
+        private Future<Gedcom> future;
+
+        /**
+         * Constructor
+         * 
+         * @param filename
+         *            the name of the file to load
+         */
+        AsyncLoad(String filename) {
+            this.filename = filename;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Gedcom call() throws IOException, GedcomParserException {
+            asyncLoad = future;
+            try {
+                load(filename);
+                return gedcom;
+            } finally {
+                asyncLoad = null;
+            }
+        }
+    }
+
+    /**
+     * The types of root-level records that can be passed to a {@link RecordHandler}
+     */
+    private static final List<Class<?>> HANDLED_RECORD_TYPES = Arrays.<Class<?>> asList(Family.class, Individual.class,
+            Multimedia.class, NoteRecord.class, Repository.class, Source.class, Submitter.class);
+
     /**
      * The things that went wrong while parsing the gedcom file
      */
@@ -136,7 +196,12 @@ public class GedcomParser extends AbstractParser<Gedcom> {
     /**
      * Is the load/parse process being cancelled
      */
-    private boolean cancelled;
+    private volatile boolean cancelled;
+
+    /**
+     * The result of the load being run by {@link #loadAsync(String, Executor)}, while it is running. Null otherwise.
+     */
+    private volatile Future<Gedcom> asyncLoad;
 
     /**
      * Send a notification to listeners every time this many lines (or more) are read
@@ -163,6 +228,11 @@ public class GedcomParser extends AbstractParser<Gedcom> {
      */
     private StringTreeBuilder stringTreeBuilder;
 
+    /**
+     * Breaks each line read into its pieces. Reused for every line, so the tags it has seen stay cached between lines.
+     */
+    private final LinePieces linePieces = new LinePieces();
+
     /**
      * The 1-based line number that we've most recently read, so starts at zero (when we haven't read any lines yet)
      */
@@ -173,6 +243,85 @@ public class GedcomParser extends AbstractParser<Gedcom> {
      */
     private boolean insideCustomTag;
 
+    /**
+     * Should files loaded by name be memory-mapped rather than read through a buffered stream? Memory-mapping avoids copying the
+     * file through stream buffers, which is noticeably faster for very large files.
+     */
+    private boolean useMemoryMappedFiles = false;
+
+    /**
+     * Should files loaded by name have their individuals and families loaded lazily, when they are first used?
+     */
+    private boolean lazyLoading = false;
+
+    /**
+     * Indexes and loads the records of the file being loaded lazily, if any. Null otherwise.
+     */
+    private LazyRecordLoader lazyRecordLoader;
+
+    /**
+     * Should a copy of the lines each record was loaded from be kept with the record, so unchanged records can be written back out
+     * verbatim?
+     */
+    private boolean keepingOriginalLines = false;
+
+    /**
+     * Should files loaded by name be scanned quickly before they are loaded, to count their records?
+     */
+    private boolean preScanning = false;
+
+    /**
+     * Should the quick scan before loading a file also check for references to records that aren't in the file?
+     */
+    private boolean preScanningReferences = false;
+
+    /**
+     * The results of the quick scan of the file most recently loaded. Null if it wasn't scanned.
+     */
+    private PreScan preScan;
+
+    /**
+     * The pools that repeated values are shared from, across all the records in a file. They are emptied at the end of each load.
+     */
+    private StringCanonicalizer stringCanonicalizer = new StringCanonicalizer();
+
+    /**
+     * The filter for which parts of files to load. Null if everything is loaded.
+     */
+    private ParseFilter parseFilter;
+
+    /**
+     * The number of threads to parse root-level records with. If 1, records are parsed on the thread that calls the
+     * <code>load()</code> method.
+     */
+    private int parseThreadCount = 1;
+
+    /**
+     * Loads root-level items on worker threads, if parsing in parallel and a load is in progress. Null otherwise.
+     */
+    private ParallelRootItemLoader parallelLoader;
+
+    /**
+     * The task for the root-level item being loaded on the current thread, when parsing in parallel
+     */
+    private final ThreadLocal<ParallelRootItemLoader.Task> currentTask = new ThreadLocal<>();
+
+    /**
+     * The handlers that parsed records are passed to instead of being added to the {@link Gedcom}, keyed by record type
+     */
+    private final Map<Class<?>, List<RecordHandler<?>>> recordHandlers = new HashMap<>();
+
+    /**
+     * The hashes of the records in the file most recently loaded by {@link #loadChanges(String)}, so that the next call can tell
+     * which records have changed. Null if the gedcom wasn't loaded that way, or has been loaded another way since.
+     */
+    private RecordHashes recordHashes;
+
+    /**
+     * Hashes the records as they are read, while {@link #loadChanges(String)} is loading a whole file. Null otherwise.
+     */
+    private RecordHashes recordHasher;
+
     /**
      * Default constructor
      */
@@ -217,6 +366,15 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         return gedcom;
     }
 
+    /**
+     * Get the filter for which parts of files to load
+     * 
+     * @return the filter for which parts of files to load, or null if everything is loaded
+     */
+    public ParseFilter getParseFilter() {
+        return parseFilter;
+    }
+
     /**
      * Get the parse notification rate (the number of items that get parsed between each notification, if listening)
      * 
@@ -235,6 +393,24 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         return parseObservers;
     }
 
+    /**
+     * Get the number of threads used to parse root-level records
+     * 
+     * @return the number of threads used to parse root-level records
+     */
+    public int getParseThreadCount() {
+        return parseThreadCount;
+    }
+
+    /**
+     * Get the results of the quick scan of the file most recently loaded, made if {@link #setPreScanning(boolean)} was turned on
+     * 
+     * @return the results of the quick scan of the file most recently loaded, or null if it wasn't scanned
+     */
+    public PreScan getPreScan() {
+        return preScan;
+    }
+
     /**
      * Get the read notification rate
      * 
@@ -244,6 +420,25 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         return readNotificationRate;
     }
 
+    /**
+     * Get the maximum number of distinct values kept in each of the pools that repeated values are shared from
+     * 
+     * @return the maximum number of distinct values kept in each of the pools that repeated values are shared from
+     */
+    public int getStringPoolSize() {
+        return stringCanonicalizer.getMaxPoolSize();
+    }
+
+    /**
+     * Get statistics about how many repeated values were shared from the pools during the most recent load, rather than each being
+     * kept as a separate copy. See {@link #setStringPoolSize(int)}.
+     * 
+     * @return statistics about how many repeated values were shared from the pools during the most recent load
+     */
+    public StringPoolStatistics getStringPoolStatistics() {
+        return stringCanonicalizer.getStatistics();
+    }
+
     /**
      * Get the warnings
      * 
@@ -259,7 +454,11 @@ public class GedcomParser extends AbstractParser<Gedcom> {
      * @return whether the load and parse operation is cancelled
      */
     public boolean isCancelled() {
-        return cancelled;
+        if (cancelled) {
+            return true;
+        }
+        Future<Gedcom> a = asyncLoad;
+        return a != null && a.isCancelled();
     }
 
     /**
@@ -271,6 +470,42 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         return ignoreCustomTags;
     }
 
+    /**
+     * Is a copy of the lines each record was loaded from kept with the record?
+     * 
+     * @return true if a copy of the lines each record was loaded from is kept with the record
+     */
+    public boolean isKeepingOriginalLines() {
+        return keepingOriginalLines;
+    }
+
+    /**
+     * Are the individuals and families in files loaded by name loaded lazily?
+     * 
+     * @return true if the individuals and families in files loaded by name are loaded lazily
+     */
+    public boolean isLazyLoading() {
+        return lazyLoading;
+    }
+
+    /**
+     * Are files loaded by name scanned quickly before they are loaded, to count their records?
+     * 
+     * @return true if files loaded by name are scanned quickly before they are loaded
+     */
+    public boolean isPreScanning() {
+        return preScanning;
+    }
+
+    /**
+     * Does the quick scan before loading a file also check for references to records that aren't in the file?
+     * 
+     * @return true if the quick scan before loading a file also checks for references to records that aren't in the file
+     */
+    public boolean isPreScanningReferences() {
+        return preScanningReferences;
+    }
+
     /**
      * Get the strictCustomTags
      * 
@@ -290,7 +525,17 @@ public class GedcomParser extends AbstractParser<Gedcom> {
     }
 
     /**
-     * Read data from an {@link java.io.InputStream} and construct a {@link StringTree} object from its contents
+     * Are files loaded by name memory-mapped rather than read through a buffered stream?
+     * 
+     * @return true if files loaded by name are memory-mapped
+     */
+    public boolean isUseMemoryMappedFiles() {
+        return useMemoryMappedFiles;
+    }
+
+    /**
+     * Read data from an {@link java.io.InputStream} and construct a {@link StringTree} object from its contents. Gzipped or zipped
+     * data is recognized and decompressed as it is read; the stream is not closed.
      * 
      * @param bytes
      *            the input stream over the bytes of the file
@@ -300,42 +545,111 @@ public class GedcomParser extends AbstractParser<Gedcom> {
      *             if there is an error with parsing the data from the stream
      */
     public void load(BufferedInputStream bytes) throws IOException, GedcomParserException {
-        // Reset counters and stuff
-        gedcom = new Gedcom();
-        lineNum = 0;
-        errors.clear();
-        warnings.clear();
-        cancelled = false;
-
-        if (cancelled) {
-            throw new ParserCancelledException("File load/parse cancelled");
+        resetForLoad();
+        Compression compression = Compression.of(bytes);
+        if (compression == Compression.NONE) {
+            loadLines(new GedcomFileReader(this, bytes));
+        } else {
+            loadLines(new GedcomFileReader(this, new DecompressingInputStream(bytes, compression)));
         }
-        GedcomFileReader gfr = new GedcomFileReader(this, bytes);
-        stringTreeBuilder = new StringTreeBuilder(this);
-        String line = gfr.nextLine();
-        while (line != null) {
-
-            if (line.charAt(0) == '0') {
-                // We've hit the start of the next root node
-                parseAndLoadPreviousStringTree();
-            }
+    }
 
-            lineNum++;
-            stringTreeBuilder.appendLine(line);
-            line = gfr.nextLine();
-            if (cancelled) {
-                throw new ParserCancelledException("File load/parse is cancelled");
+    /**
+     * Load a gedcom file with the supplied name. Files compressed with gzip (such as <code>.ged.gz</code> files) or in zip
+     * archives are recognized by their contents and decompressed as they are read, without being written out anywhere; compressed
+     * files are always streamed, so are not memory-mapped or lazily loaded.
+     * 
+     * @param filename
+     *            the name of the file to load
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws GedcomParserException
+     *             if the file cannot be parsed
+     */
+    public void load(String filename) throws IOException, GedcomParserException {
+        Compression compression = Compression.of(filename);
+        if (compression != Compression.NONE) {
+            try (FileInputStream fis = new FileInputStream(filename);
+                    DecompressingInputStream dis = new DecompressingInputStream(fis, compression);) {
+                resetForLoad();
+                preScan(filename);
+                loadLines(new GedcomFileReader(this, dis));
             }
-            if (lineNum % parseNotificationRate == 0) {
-                notifyParseObservers(new ParseProgressEvent(this, gedcom, false, lineNum));
+            return;
+        }
+        boolean lazy = lazyLoading && !isStreamingRecords();
+        if (useMemoryMappedFiles || lazy) {
+            // Lazy loading needs the exact byte offsets of records, which memory-mapped reading provides
+            try (FileInputStream fis = new FileInputStream(filename); FileChannel channel = fis.getChannel();) {
+                resetForLoad();
+                preScan(filename);
+                GedcomFileReader gfr = new GedcomFileReader(this, channel);
+                if (lazy) {
+                    lazyRecordLoader = new LazyRecordLoader(this, filename, gfr.getEncoding());
+                }
+                try {
+                    loadLines(gfr);
+                } finally {
+                    lazyRecordLoader = null;
+                }
             }
-
+            return;
         }
-        parseAndLoadPreviousStringTree();
+        try (FileInputStream fis = new FileInputStream(filename); BufferedInputStream bis = new BufferedInputStream(fis);) {
+            resetForLoad();
+            preScan(filename);
+            loadLines(new GedcomFileReader(this, bis));
+        }
+    }
+
+    /**
+     * <p>
+     * Load a gedcom file with the supplied name on a thread supplied by an {@link Executor}, the same way as
+     * {@link #load(String)}, without waiting for it to finish. The gedcom is returned by the {@link Future}'s <code>get()</code>
+     * method once it is loaded. If the load fails, the {@link java.util.concurrent.ExecutionException} thrown by
+     * <code>get()</code> has the {@link IOException} or {@link GedcomParserException} as its cause.
+     * </p>
+     * <p>
+     * Cancelling the future stops the load: the cancellation is checked for each line of the file, so the load stops within a
+     * line (plus whatever has already been buffered) of being cancelled, and a large file doesn't keep the thread busy. If the
+     * load hasn't started, it never does. The errors and warnings are available
+     * from this parser as usual once the load is finished, but the parser must not be used for anything else while the load is
+     * running.
+     * </p>
+     * 
+     * @param filename
+     *            the name of the file to load
+     * @param executor
+     *            the executor to run the load on
+     * @return the result of the load
+     */
+    public Future<Gedcom> loadAsync(String filename, Executor executor) {
+        AsyncLoad task = new AsyncLoad(filename);
+        FutureTask<Gedcom> result = new FutureTask<>(task);
+        task.future = result;
+        executor.execute(result);
+        return result;
     }
 
     /**
-     * Load a gedcom file with the supplied name
+     * <p>
+     * Load a new version of the file that was previously loaded by this method, parsing only the records that have been added,
+     * changed or removed since then. The first time this method is called (or if the gedcom has been loaded another way since), the
+     * whole file is loaded, the same as {@link #load(String)}, and a hash of each root-level record is kept. On later calls, the
+     * records in the new version of the file are compared to the previous version by xref and hash, and if the only records that
+     * differ are individuals, families, the header and the trailer, just those records are parsed into the existing {@link Gedcom}.
+     * The links to replaced individuals and families from the records that didn't change (for example, the
+     * {@link org.gedcom4j.model.FamilyChild} and {@link org.gedcom4j.model.FamilySpouse} links of the other members of a changed
+     * family) are pointed at the new objects, so the result is the same as loading the whole file again - except that the objects
+     * for unchanged records are not replaced, and the errors and warnings are only for the records that were parsed. If any other
+     * record was added, changed or removed, the whole file is loaded instead.
+     * </p>
+     * <p>
+     * The whole file is always loaded if lazy loading is turned on, if there is a filter, or if records are being streamed to
+     * {@link RecordHandler}s, as there are then no complete records to update. Loading another file with this parser in between
+     * calls means the whole file will be loaded next time. If the changed records can't be parsed, the gedcom may be left partly
+     * updated, and the whole file is loaded next time.
+     * </p>
      * 
      * @param filename
      *            the name of the file to load
@@ -344,10 +658,36 @@ public class GedcomParser extends AbstractParser<Gedcom> {
      * @throws GedcomParserException
      *             if the file cannot be parsed
      */
-    public void load(String filename) throws IOException, GedcomParserException {
-
-        try (FileInputStream fis = new FileInputStream(filename); BufferedInputStream bis = new BufferedInputStream(fis);) {
-            load(bis);
+    public void loadChanges(String filename) throws IOException, GedcomParserException {
+        RecordHashes previous = recordHashes;
+        recordHashes = null;
+        if (lazyLoading || parseFilter != null || isStreamingRecords()) {
+            load(filename);
+            return;
+        }
+        if (previous != null) {
+            lineNum = 0;
+            errors.clear();
+            warnings.clear();
+            stringCanonicalizer.reset();
+            cancelled = false;
+            ChangedRecordLoader changedRecordLoader = new ChangedRecordLoader(this, previous);
+            try {
+                if (changedRecordLoader.load(filename)) {
+                    recordHashes = changedRecordLoader.getHashes();
+                    return;
+                }
+            } finally {
+                stringCanonicalizer.release();
+            }
+        }
+        recordHasher = new RecordHashes();
+        try {
+            load(filename);
+            recordHasher.finishRecord();
+            recordHashes = recordHasher;
+        } finally {
+            recordHasher = null;
         }
     }
 
@@ -393,6 +733,47 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         parseObservers.add(new WeakReference<>(observer));
     }
 
+    /**
+     * <p>
+     * Register a handler to be passed each record of the given type as soon as it is parsed. Registering any record handler puts
+     * the parser in streaming mode, for processing files without holding all their data in memory. In streaming mode:
+     * </p>
+     * <ul>
+     * <li>Records of types that have handlers are passed to those handlers, and are not added to the {@link Gedcom}. They can be
+     * garbage collected once the handlers are done with them.</li>
+     * <li>Records of types that have no handlers are skipped without being parsed.</li>
+     * <li>References from one record to another resolve to placeholder objects that only have their xref set, rather than to the
+     * fully loaded record.</li>
+     * <li>The header, submission, and trailer are still loaded into the {@link Gedcom} as usual.</li>
+     * </ul>
+     * <p>
+     * Handlers are called on the thread that called the <code>load()</code> method, in the order the records appear in the file,
+     * even when parsing with multiple threads.
+     * </p>
+     * 
+     * @param <T>
+     *            the type of record
+     * @param recordType
+     *            the type of record - one of {@link Individual}, {@link Family}, {@link Source}, {@link NoteRecord},
+     *            {@link Multimedia}, {@link Repository}, or {@link Submitter}
+     * @param handler
+     *            the handler to pass the records to
+     */
+    public <T extends HasXref> void registerRecordHandler(Class<T> recordType, RecordHandler<? super T> handler) {
+        if (!HANDLED_RECORD_TYPES.contains(recordType)) {
+            throw new IllegalArgumentException("Record handlers cannot be registered for " + recordType);
+        }
+        if (handler == null) {
+            throw new IllegalArgumentException("Record handler cannot be null");
+        }
+        List<RecordHandler<?>> handlers = recordHandlers.get(recordType);
+        if (handlers == null) {
+            handlers = new ArrayList<>(1);
+            recordHandlers.put(recordType, handlers);
+        }
+        handlers.add(handler);
+    }
+
     /**
      * Set whether the parser is ignoring custom tgs
      * 
@@ -403,6 +784,60 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         this.ignoreCustomTags = ignoreCustomTags;
     }
 
+    /**
+     * <p>
+     * Set whether to keep a copy of the lines each record (individual, family, multimedia, note, repository, source or submitter)
+     * was loaded from with the record - see {@link HasOriginalLines}. The {@link org.gedcom4j.writer.GedcomWriter} writes those
+     * lines back out verbatim for records that have not been marked as changed since they were loaded, rather than constructing
+     * them again from the object model. For programs that alter a few records and write the rest back out as they were, this makes
+     * writing much cheaper, and leaves the formatting of the untouched records alone.
+     * </p>
+     * <p>
+     * The lines kept are those of the record as loaded, after any line break repairs, and without any parts of the record that a
+     * {@link ParseFilter} discarded. Call {@link HasOriginalLines#markChanged()} on every record you alter, or it will be written
+     * as it was loaded. If the writer's validator makes any automatic repairs, no record's lines are written back out verbatim on
+     * that write, since the repaired records aren't marked as changed. Off by default.
+     * </p>
+     * 
+     * @param keepingOriginalLines
+     *            true to keep a copy of the lines each record was loaded from with the record
+     */
+    public void setKeepingOriginalLines(boolean keepingOriginalLines) {
+        this.keepingOriginalLines = keepingOriginalLines;
+    }
+
+    /**
+     * Set whether the individuals and families in files loaded by name are loaded lazily. If so, the file is read once to index
+     * where each individual and family is, and the {@link Gedcom} is given proxies for them that only parse them from the file the
+     * first time they are used. This is much faster, and uses much less memory, when only a few of the records in a large file are
+     * needed. Everything else in the file is loaded as usual.
+     * <p>
+     * The file must not change or be removed while the records are still to be loaded. Errors and warnings about each record are
+     * added to {@link #getErrors()} and {@link #getWarnings()} when it is loaded. If a record can't be loaded when it's first used,
+     * an {@link IllegalStateException} is thrown. Lazy loading is not used for input streams, or when records are streamed to
+     * {@link RecordHandler}s. The copy constructors of the model classes do not load the proxies they copy, so use them (e.g., call
+     * a getter) before copying them.
+     * </p>
+     * 
+     * @param lazyLoading
+     *            true if the individuals and families in files loaded by name should be loaded lazily
+     */
+    public void setLazyLoading(boolean lazyLoading) {
+        this.lazyLoading = lazyLoading;
+    }
+
+    /**
+     * Set the filter for which parts of files to load. Parts of the file the filter doesn't keep are discarded as they are read.
+     * Records that aren't kept but are referenced from parts of the file that are kept show up in the {@link Gedcom} as empty
+     * placeholders with only their xrefs.
+     * 
+     * @param parseFilter
+     *            the filter for which parts of files to load. Null to load everything.
+     */
+    public void setParseFilter(ParseFilter parseFilter) {
+        this.parseFilter = parseFilter;
+    }
+
     /**
      * Set the parse notification rate (the number of items that get parsed between each notification, if listening)
      * 
@@ -417,6 +852,54 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         this.parseNotificationRate = parseNotificationRate;
     }
 
+    /**
+     * <p>
+     * Set the number of threads used to parse root-level records. The default is 1, where records are parsed on the thread that
+     * calls the <code>load()</code> method as the file is read. With more than one thread, the calling thread reads the file and
+     * splits it into root-level records, which are parsed on a pool of worker threads created for each load and discarded
+     * afterwards.
+     * </p>
+     * <p>
+     * The resulting {@link Gedcom} is the same either way, as are the errors and warnings, although errors and warnings found while
+     * reading the file may be listed before those for records that precede them in the file.
+     * </p>
+     * 
+     * @param parseThreadCount
+     *            the number of threads to parse root-level records with. Must be at least 1.
+     */
+    public void setParseThreadCount(int parseThreadCount) {
+        if (parseThreadCount < 1) {
+            throw new IllegalArgumentException("Parse Thread Count must be at least 1");
+        }
+        this.parseThreadCount = parseThreadCount;
+    }
+
+    /**
+     * Set whether files loaded by name (see {@link #load(String)}) are scanned quickly before they are loaded. The scan counts the
+     * root-level records of each type, so that the maps of records in the {@link Gedcom} can be made big enough to hold them all
+     * from the start, rather than growing over and over as they are loaded. This is worthwhile for very large files. The results
+     * are available from {@link #getPreScan()}.
+     * 
+     * @param preScanning
+     *            true if files loaded by name should be scanned quickly before they are loaded
+     */
+    public void setPreScanning(boolean preScanning) {
+        this.preScanning = preScanning;
+    }
+
+    /**
+     * Set whether the quick scan of files before they are loaded (see {@link #setPreScanning(boolean)}) also collects the xrefs of
+     * the records and checks the pointers in the file against them. A warning is added for each xref that is pointed to but is not
+     * the xref of any record in the file, before the file is loaded. The parser still makes an empty placeholder record for each
+     * of them, as it always does. Takes memory in proportion to the number of records in the file while the scan results are kept.
+     * 
+     * @param preScanningReferences
+     *            true if the quick scan before loading a file should also check for references to records that aren't in the file
+     */
+    public void setPreScanningReferences(boolean preScanningReferences) {
+        this.preScanningReferences = preScanningReferences;
+    }
+
     /**
      * Set the read notification rate.
      * 
@@ -430,6 +913,17 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         this.readNotificationRate = readNotificationRate;
     }
 
+    /**
+     * Set whether files loaded by name (see {@link #load(String)}) are memory-mapped rather than read through a buffered stream.
+     * File progress events are still issued, and report the offset into the file that has been read.
+     * 
+     * @param useMemoryMappedFiles
+     *            true if files loaded by name should be memory-mapped
+     */
+    public void setUseMemoryMappedFiles(boolean useMemoryMappedFiles) {
+        this.useMemoryMappedFiles = useMemoryMappedFiles;
+    }
+
     /**
      * Set the strictCustomTags
      * 
@@ -450,6 +944,23 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         this.strictLineBreaks = strictLineBreaks;
     }
 
+    /**
+     * Set the maximum number of distinct values kept in each of the pools that repeated values (such as places and dates) are
+     * shared from while loading, so that each of them is only kept in memory once. Places, dates, sexes, types and source
+     * references each have a pool of their own, and the values of all the other tags share another. When a pool is full, the least
+     * recently used values that have not repeated yet are evicted first. The default is 2048.
+     * 
+     * @param stringPoolSize
+     *            the maximum number of distinct values kept in each pool. Zero turns sharing of repeated values off. Must not be
+     *            negative.
+     */
+    public void setStringPoolSize(int stringPoolSize) {
+        if (stringPoolSize < 0) {
+            throw new IllegalArgumentException("String Pool Size cannot be negative");
+        }
+        stringCanonicalizer = new StringCanonicalizer(stringPoolSize);
+    }
+
     /**
      * Unregister a observer (listener) to be informed about progress and completion.
      * 
@@ -469,6 +980,27 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         fileObservers.add(new WeakReference<>(observer));
     }
 
+    /**
+     * Unregister a handler for records of a given type. If no handlers remain for any type, the parser leaves streaming mode (see
+     * {@link #registerRecordHandler(Class, RecordHandler)}).
+     * 
+     * @param <T>
+     *            the type of record
+     * @param recordType
+     *            the type of record
+     * @param handler
+     *            the handler to no longer pass records to
+     */
+    public <T extends HasXref> void unregisterRecordHandler(Class<T> recordType, RecordHandler<? super T> handler) {
+        List<RecordHandler<?>> handlers = recordHandlers.get(recordType);
+        if (handlers != null) {
+            handlers.remove(handler);
+            if (handlers.isEmpty()) {
+                recordHandlers.remove(recordType);
+            }
+        }
+    }
+
     /**
      * Unregister a observer (listener) to be informed about progress and completion.
      * 
@@ -488,6 +1020,28 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         parseObservers.add(new WeakReference<>(observer));
     }
 
+    /**
+     * Get the errors collection that problems found on the current thread should be added to. When parsing in parallel, each
+     * root-level record collects its own errors, which are added to {@link #getErrors()} in file order.
+     * 
+     * @return the errors collection that problems found on the current thread should be added to
+     */
+    List<String> currentErrors() {
+        ParallelRootItemLoader.Task task = getCurrentTask();
+        return task == null ? errors : task.errors;
+    }
+
+    /**
+     * Get the warnings collection that problems found on the current thread should be added to. When parsing in parallel, each
+     * root-level record collects its own warnings, which are added to {@link #getWarnings()} in file order.
+     * 
+     * @return the warnings collection that problems found on the current thread should be added to
+     */
+    List<String> currentWarnings() {
+        ParallelRootItemLoader.Task task = getCurrentTask();
+        return task == null ? warnings : task.warnings;
+    }
+
     /**
      * Get the line number we're reading
      * 
@@ -497,34 +1051,53 @@ public class GedcomParser extends AbstractParser<Gedcom> {
         return lineNum;
     }
 
+    /**
+     * Get the reusable object that breaks lines into their pieces
+     * 
+     * @return the reusable object that breaks lines into their pieces
+     */
+    LinePieces getLinePieces() {
+        return linePieces;
+    }
+
+    /**
+     * Get the pools that repeated values are shared from
+     * 
+     * @return the pools that repeated values are shared from
+     */
+    StringCanonicalizer getStringCanonicalizer() {
+        return stringCanonicalizer;
+    }
+
     /**
      * Are we currently inside a custom tag?
      * 
      * @return the insideCustomTag
      */
     boolean isInsideCustomTag() {
-        return insideCustomTag;
+        ParallelRootItemLoader.Task task = getCurrentTask();
+        return task == null ? insideCustomTag : task.insideCustomTag;
     }
 
     /**
-     * {@inheritDoc}
-     * <p>
-     * Note: Not implemented in this base {@link GedcomParser} class. Things in this class are handled by the
-     * {@link #load(BufferedInputStream)} method.
+     * Are records of the given type being loaded? They aren't if the parser is in streaming mode, and there is no handler for the
+     * type.
+     * 
+     * @param recordType
+     *            the type of record
+     * @return true if records of the given type should be parsed
      */
-    @Override
-    void parse() {
-        // Do nothing
+    boolean isLoadingRecords(Class<? extends HasXref> recordType) {
+        return recordHandlers.isEmpty() || recordHandlers.containsKey(recordType);
     }
 
     /**
-     * Set the insideCustomTag
+     * Are we in streaming mode, where records are passed to {@link RecordHandler}s rather than kept in the {@link Gedcom}?
      * 
-     * @param insideCustomTag
-     *            the insideCustomTag to set
+     * @return true if and only if in streaming mode
      */
-    void setInsideCustomTag(boolean insideCustomTag) {
-        this.insideCustomTag = insideCustomTag;
+    boolean isStreamingRecords() {
+        return !recordHandlers.isEmpty();
     }
 
     /**
@@ -532,10 +1105,12 @@ public class GedcomParser extends AbstractParser<Gedcom> {
      * 
      * @param rootLevelItem
      *            the string tree for the root level item
+     * @return the record that was loaded, if the root level item was one of the record types that can be passed to a
+     *         {@link RecordHandler}; otherwise null
      * @throws GedcomParserException
      *             if the data cannot be parsed because it's not in the format expected
      */
-    private void loadRootItem(StringTree rootLevelItem) throws GedcomParserException {
+    HasXref loadRootItem(StringTree rootLevelItem) throws GedcomParserException {
         if (Tag.HEADER.equalsText(rootLevelItem.getTag())) {
             Header header = gedcom.getHeader();
             if (header == null) {
@@ -543,12 +1118,23 @@ public class GedcomParser extends AbstractParser<Gedcom> {
                 gedcom.setHeader(header);
             }
             new HeaderParser(this, rootLevelItem, header).parse();
+            if (keepingOriginalLines && header.getGedcomVersion() != null && header.getGedcomVersion().getVersionNumber() != null) {
+                gedcom.setOriginalLinesVersion(header.getGedcomVersion().getVersionNumber().getValue());
+            }
         } else if (Tag.SUBMITTER.equalsText(rootLevelItem.getTag())) {
-            Submitter submitter = getSubmitter(rootLevelItem.getXref());
-            new SubmitterParser(this, rootLevelItem, submitter).parse();
+            if (isLoadingRecords(Submitter.class)) {
+                Submitter submitter = getSubmitter(rootLevelItem.getXref());
+                new SubmitterParser(this, rootLevelItem, submitter).parse();
+                keepOriginalLines(rootLevelItem, submitter);
+                return submitter;
+            }
         } else if (Tag.INDIVIDUAL.equalsText(rootLevelItem.getTag())) {
-            Individual i = getIndividual(rootLevelItem.getXref());
-            new IndividualParser(this, rootLevelItem, i).parse();
+            if (isLoadingRecords(Individual.class)) {
+                Individual i = getIndividual(rootLevelItem.getXref());
+                new IndividualParser(this, rootLevelItem, i).parse();
+                keepOriginalLines(rootLevelItem, i);
+                return i;
+            }
         } else if (Tag.SUBMISSION.equalsText(rootLevelItem.getTag())) {
             Submission s = new Submission(rootLevelItem.getXref());
             gedcom.setSubmission(s);
@@ -564,25 +1150,252 @@ public class GedcomParser extends AbstractParser<Gedcom> {
             }
             new SubmissionParser(this, rootLevelItem, s).parse();
         } else if (Tag.NOTE.equalsText(rootLevelItem.getTag())) {
-            NoteRecord nr = getNoteRecord(rootLevelItem.getXref());
-            new NoteRecordParser(this, rootLevelItem, nr).parse();
+            if (isLoadingRecords(NoteRecord.class)) {
+                NoteRecord nr = getNoteRecord(rootLevelItem.getXref());
+                new NoteRecordParser(this, rootLevelItem, nr).parse();
+                keepOriginalLines(rootLevelItem, nr);
+                return nr;
+            }
         } else if (Tag.FAMILY.equalsText(rootLevelItem.getTag())) {
-            Family f = getFamily(rootLevelItem.getXref());
-            new FamilyParser(this, rootLevelItem, f).parse();
+            if (isLoadingRecords(Family.class)) {
+                Family f = getFamily(rootLevelItem.getXref());
+                new FamilyParser(this, rootLevelItem, f).parse();
+                keepOriginalLines(rootLevelItem, f);
+                return f;
+            }
         } else if (Tag.TRAILER.equalsText(rootLevelItem.getTag())) {
             gedcom.setTrailer(new Trailer());
         } else if (Tag.SOURCE.equalsText(rootLevelItem.getTag())) {
-            Source s = getSource(rootLevelItem.getXref());
-            new SourceParser(this, rootLevelItem, s).parse();
+            if (isLoadingRecords(Source.class)) {
+                Source s = getSource(rootLevelItem.getXref());
+                new SourceParser(this, rootLevelItem, s).parse();
+                keepOriginalLines(rootLevelItem, s);
+                return s;
+            }
         } else if (Tag.REPOSITORY.equalsText(rootLevelItem.getTag())) {
-            Repository r = getRepository(rootLevelItem.getXref());
-            new RepositoryParser(this, rootLevelItem, r).parse();
+            if (isLoadingRecords(Repository.class)) {
+                Repository r = getRepository(rootLevelItem.getXref());
+                new RepositoryParser(this, rootLevelItem, r).parse();
+                keepOriginalLines(rootLevelItem, r);
+                return r;
+            }
         } else if (Tag.OBJECT_MULTIMEDIA.equalsText(rootLevelItem.getTag())) {
-            Multimedia multimedia = getMultimedia(rootLevelItem.getXref());
-            new MultimediaParser(this, rootLevelItem, multimedia).parse();
+            if (isLoadingRecords(Multimedia.class)) {
+                Multimedia multimedia = getMultimedia(rootLevelItem.getXref());
+                new MultimediaParser(this, rootLevelItem, multimedia).parse();
+                keepOriginalLines(rootLevelItem, multimedia);
+                return multimedia;
+            }
         } else {
             unknownTag(rootLevelItem, gedcom);
         }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note: Not implemented in this base {@link GedcomParser} class. Things in this class are handled by the
+     * {@link #load(BufferedInputStream)} method.
+     */
+    @Override
+    void parse() {
+        // Do nothing
+    }
+
+    /**
+     * A root-level item has been loaded. If it was a record and we're in streaming mode, pass it to the handlers for its type.
+     * 
+     * @param record
+     *            the record that was loaded, or null if the root-level item was not a record
+     */
+    @SuppressWarnings("unchecked")
+    void recordLoaded(HasXref record) {
+        if (record == null || recordHandlers.isEmpty()) {
+            return;
+        }
+        List<RecordHandler<?>> handlers = recordHandlers.get(record.getClass());
+        if (handlers != null) {
+            for (RecordHandler<?> h : handlers) {
+                ((RecordHandler<HasXref>) h).handleRecord(record);
+            }
+        }
+    }
+
+    /**
+     * Set the gedcom that records are loaded into, for parsers that load records into a gedcom loaded by another parser
+     * 
+     * @param gedcom
+     *            the gedcom that records are loaded into
+     */
+    void setGedcom(Gedcom gedcom) {
+        this.gedcom = gedcom;
+    }
+
+    /**
+     * Set the insideCustomTag
+     * 
+     * @param insideCustomTag
+     *            the insideCustomTag to set
+     */
+    void setInsideCustomTag(boolean insideCustomTag) {
+        ParallelRootItemLoader.Task task = getCurrentTask();
+        if (task == null) {
+            this.insideCustomTag = insideCustomTag;
+        } else {
+            task.insideCustomTag = insideCustomTag;
+        }
+    }
+
+    /**
+     * Set the task for the root-level item being loaded on the current thread
+     * 
+     * @param task
+     *            the task for the root-level item being loaded on the current thread, or null when it's done
+     */
+    void setCurrentTask(ParallelRootItemLoader.Task task) {
+        if (task == null) {
+            currentTask.remove();
+        } else {
+            currentTask.set(task);
+        }
+    }
+
+    /**
+     * Append the line for a string tree node, and the lines for all its children, to a string builder, separated by newline
+     * characters
+     * 
+     * @param sb
+     *            the string builder
+     * @param node
+     *            the string tree node
+     */
+    private void appendOriginalLines(StringBuilder sb, StringTree node) {
+        if (sb.length() > 0) {
+            sb.append('\n');
+        }
+        sb.append(node.getLevel());
+        if (node.getXref() != null) {
+            sb.append(' ').append(node.getXref());
+        }
+        sb.append(' ').append(node.getTag());
+        if (node.getValue() != null) {
+            sb.append(' ').append(node.getValue());
+        }
+        if (node.getChildren() != null) {
+            for (StringTree child : node.getChildren()) {
+                appendOriginalLines(sb, child);
+            }
+        }
+    }
+
+    /**
+     * Hand the record beginning with the supplied line to the {@link #lazyRecordLoader} to load later, if it can be loaded lazily
+     * and the filter keeps it
+     * 
+     * @param line
+     *            the first line of the record
+     * @param offset
+     *            the byte offset of the line in the file
+     * @return true if the record was deferred, and the rest of its lines can be skipped
+     */
+    private boolean deferRecord(CharSequence line, long offset) {
+        try {
+            linePieces.parse(line, lineNum + 1);
+        } catch (GedcomParserException e) {
+            // Let the string tree builder deal with the malformed line as usual
+            return false;
+        }
+        if (parseFilter != null && !parseFilter.isRecordKept(linePieces.tag)) {
+            return false;
+        }
+        return lazyRecordLoader.defer(linePieces, lineNum + 1, offset);
+    }
+
+    /**
+     * Get the task for the root-level item being loaded on the current thread, if parsing in parallel
+     * 
+     * @return the task for the root-level item being loaded on the current thread, or null if not parsing in parallel or if on the
+     *         thread reading the file
+     */
+    private ParallelRootItemLoader.Task getCurrentTask() {
+        if (parseThreadCount == 1) {
+            return null;
+        }
+        return currentTask.get();
+    }
+
+    /**
+     * Keep a copy of the lines a record was loaded from with the record, if {@link #keepingOriginalLines} is set
+     * 
+     * @param rootLevelItem
+     *            the string tree the record was loaded from
+     * @param record
+     *            the record
+     */
+    private void keepOriginalLines(StringTree rootLevelItem, HasOriginalLines record) {
+        if (keepingOriginalLines) {
+            StringBuilder sb = new StringBuilder();
+            appendOriginalLines(sb, rootLevelItem);
+            record.setOriginalLines(sb.toString());
+        }
+    }
+
+    /**
+     * Read all the lines from the supplied reader, building a {@link StringTree} for each root-level item and loading it into the
+     * object model
+     * 
+     * @param gfr
+     *            the reader to get lines from
+     * @throws IOException
+     *             if there is a problem reading the data from the reader
+     * @throws GedcomParserException
+     *             if there is an error with parsing the data from the stream
+     */
+    private void loadLines(GedcomFileReader gfr) throws IOException, GedcomParserException {
+        if (parseThreadCount > 1) {
+            parallelLoader = new ParallelRootItemLoader(this, parseThreadCount);
+        }
+        try {
+            stringTreeBuilder = new StringTreeBuilder(this);
+            boolean deferred = false;
+            CharSequence line = gfr.nextLineChars();
+            while (line != null) {
+
+                if (line.charAt(0) == '0') {
+                    // We've hit the start of the next root node
+                    parseAndLoadPreviousStringTree();
+                    deferred = lazyRecordLoader != null && deferRecord(line, gfr.getLineOffset());
+                }
+
+                lineNum++;
+                if (recordHasher != null) {
+                    recordHasher.hashLine(line);
+                }
+                if (!deferred) {
+                    stringTreeBuilder.appendLine(line);
+                }
+                line = gfr.nextLineChars();
+                if (cancelled) {
+                    throw new ParserCancelledException("File load/parse is cancelled");
+                }
+                if (lineNum % parseNotificationRate == 0) {
+                    notifyParseObservers(new ParseProgressEvent(this, gedcom, false, lineNum));
+                }
+
+            }
+            parseAndLoadPreviousStringTree();
+            if (parallelLoader != null) {
+                parallelLoader.finish();
+            }
+        } finally {
+            if (parallelLoader != null) {
+                parallelLoader.shutdown();
+                parallelLoader = null;
+            }
+            // Whether the load finished, failed or was cancelled, the pooled strings are no longer needed
+            stringCanonicalizer.release();
+        }
     }
 
     /**
@@ -623,10 +1436,52 @@ public class GedcomParser extends AbstractParser<Gedcom> {
                 throw new GedcomParserException("Expected a root level item in the buffer, but found " + rootLevelItem.getLevel()
                         + " " + rootLevelItem.getTag() + " from line " + lineNum);
             }
-            loadRootItem(rootLevelItem);
-            // And discard it, now that it's loaded
+            if (parallelLoader == null) {
+                recordLoaded(loadRootItem(rootLevelItem));
+            } else {
+                parallelLoader.submit(rootLevelItem);
+            }
+            // And discard it, now that it's loaded (or handed off to be loaded)
             stringTreeBuilder = new StringTreeBuilder(this);
         }
     }
 
+    /**
+     * Scan the file quickly before loading it, if pre-scanning is turned on, and size the {@link Gedcom}'s maps of records to suit
+     * 
+     * @param filename
+     *            the name of the file to scan
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws GedcomParserException
+     *             if the file's encoding is not supported, or the load was cancelled
+     */
+    private void preScan(String filename) throws IOException, GedcomParserException {
+        if (!preScanning) {
+            return;
+        }
+        preScan = PreScan.scan(filename, preScanningReferences, this);
+        gedcom = preScan.newGedcom();
+        if (preScanningReferences) {
+            for (Map.Entry<String, Integer> e : preScan.getUnresolvedReferences().entrySet()) {
+                warnings.add("Line " + e.getValue() + " refers to " + e.getKey()
+                        + ", which is not the xref of any record in the file");
+            }
+        }
+    }
+
+    /**
+     * Reset counters and stuff before loading a file
+     */
+    private void resetForLoad() {
+        gedcom = new Gedcom();
+        preScan = null;
+        recordHashes = null;
+        lineNum = 0;
+        errors.clear();
+        warnings.clear();
+        stringCanonicalizer.reset();
+        cancelled = false;
+    }
+
 }
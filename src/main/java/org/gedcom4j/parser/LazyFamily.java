@@ -0,0 +1,632 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.List;
+
+import org.gedcom4j.model.AbstractCitation;
+import org.gedcom4j.model.ChangeDate;
+import org.gedcom4j.model.CustomFact;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.FamilyEvent;
+import org.gedcom4j.model.IndividualReference;
+import org.gedcom4j.model.LdsSpouseSealing;
+import org.gedcom4j.model.MultimediaReference;
+import org.gedcom4j.model.NoteStructure;
+import org.gedcom4j.model.RecordEquality;
+import org.gedcom4j.model.StringWithCustomFacts;
+import org.gedcom4j.model.SubmitterReference;
+import org.gedcom4j.model.UserReference;
+
+/**
+ * <p>
+ * A proxy for a {@link Family} that is loaded by a {@link RecordLoader} the first time it is used - for example, from the
+ * file, for files loaded with {@link GedcomParser#setLazyLoading(boolean)}. Until then, only its xref is known. All the public
+ * methods other than {@link #getXref()}, {@link #setXref(String)}, {@link #getChangeCount()} and {@link #markChanged()} load the
+ * family first.
+ * </p>
+ * <p>
+ * If the loader's records are read-only (see {@link RecordLoader#isReadOnly()}), the setters throw an
+ * {@link UnsupportedOperationException} and the lists are returned as unmodifiable views. The objects in the lists are not
+ * protected, but any changes made to them may be lost.
+ * </p>
+ * 
+ * @author frizbog
+ */
+public final class LazyFamily extends Family {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = 6271845913820137461L;
+
+    /**
+     * The loader that loads the family
+     */
+    private final transient RecordLoader loader;
+
+    /**
+     * The line number of the first line of the family in the loader's source
+     */
+    private final transient int lineNum;
+
+    /**
+     * The position of the family in the loader's source - for example, the byte offset in the file of its first line
+     */
+    private final transient long position;
+
+    /**
+     * Has the family been loaded yet?
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Constructor
+     * 
+     * @param loader
+     *            the loader that loads the family
+     * @param xref
+     *            the xref of the family
+     * @param lineNum
+     *            the line number of the first line of the family in the loader's source
+     * @param position
+     *            the position of the family in the loader's source - for example, the byte offset in the file of its first line
+     */
+    public LazyFamily(RecordLoader loader, String xref, int lineNum, long position) {
+        this.loader = loader;
+        this.lineNum = lineNum;
+        this.position = position;
+        super.setXref(xref);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        // No need to load anything if only identity matters
+        if (!RecordEquality.isByIdentity()) {
+            load();
+            if (obj instanceof LazyFamily) {
+                ((LazyFamily) obj).load();
+            }
+        }
+        return super.equals(obj);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StringWithCustomFacts getAutomatedRecordId() {
+        load();
+        return super.getAutomatedRecordId();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ChangeDate getChangeDate() {
+        load();
+        return super.getChangeDate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<IndividualReference> getChildren() {
+        load();
+        return view(super.getChildren(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<IndividualReference> getChildren(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getChildren(), initializeIfNeeded);
+        }
+        return super.getChildren(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AbstractCitation> getCitations() {
+        load();
+        return view(super.getCitations(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AbstractCitation> getCitations(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getCitations(), initializeIfNeeded);
+        }
+        return super.getCitations(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CustomFact> getCustomFacts() {
+        load();
+        return view(super.getCustomFacts(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CustomFact> getCustomFacts(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getCustomFacts(), initializeIfNeeded);
+        }
+        return super.getCustomFacts(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CustomFact> getCustomFactsWithTag(String tag) {
+        load();
+        return super.getCustomFactsWithTag(tag);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FamilyEvent> getEvents() {
+        load();
+        return view(super.getEvents(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FamilyEvent> getEvents(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getEvents(), initializeIfNeeded);
+        }
+        return super.getEvents(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IndividualReference getHusband() {
+        load();
+        return super.getHusband();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<LdsSpouseSealing> getLdsSpouseSealings() {
+        load();
+        return view(super.getLdsSpouseSealings(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<LdsSpouseSealing> getLdsSpouseSealings(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getLdsSpouseSealings(), initializeIfNeeded);
+        }
+        return super.getLdsSpouseSealings(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MultimediaReference> getMultimedia() {
+        load();
+        return view(super.getMultimedia(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MultimediaReference> getMultimedia(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getMultimedia(), initializeIfNeeded);
+        }
+        return super.getMultimedia(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<NoteStructure> getNoteStructures() {
+        load();
+        return view(super.getNoteStructures(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<NoteStructure> getNoteStructures(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getNoteStructures(), initializeIfNeeded);
+        }
+        return super.getNoteStructures(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StringWithCustomFacts getNumChildren() {
+        load();
+        return super.getNumChildren();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getOriginalLines() {
+        load();
+        return super.getOriginalLines();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StringWithCustomFacts getRecFileNumber() {
+        load();
+        return super.getRecFileNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StringWithCustomFacts getRestrictionNotice() {
+        load();
+        return super.getRestrictionNotice();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SubmitterReference> getSubmitters() {
+        load();
+        return view(super.getSubmitters(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SubmitterReference> getSubmitters(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getSubmitters(), initializeIfNeeded);
+        }
+        return super.getSubmitters(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<UserReference> getUserReferences() {
+        load();
+        return view(super.getUserReferences(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<UserReference> getUserReferences(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getUserReferences(), initializeIfNeeded);
+        }
+        return super.getUserReferences(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IndividualReference getWife() {
+        load();
+        return super.getWife();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        if (!RecordEquality.isByIdentity()) {
+            load();
+        }
+        return super.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markChanged() {
+        checkWritable();
+        super.markChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAutomatedRecordId(String automatedRecordId) {
+        loadForChange();
+        super.setAutomatedRecordId(automatedRecordId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAutomatedRecordId(StringWithCustomFacts automatedRecordId) {
+        loadForChange();
+        super.setAutomatedRecordId(automatedRecordId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setChangeDate(ChangeDate changeDate) {
+        loadForChange();
+        super.setChangeDate(changeDate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHusband(IndividualReference husband) {
+        loadForChange();
+        super.setHusband(husband);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setNumChildren(String numChildren) {
+        loadForChange();
+        super.setNumChildren(numChildren);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setNumChildren(StringWithCustomFacts numChildren) {
+        loadForChange();
+        super.setNumChildren(numChildren);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOriginalLines(String originalLines) {
+        loadForChange();
+        super.setOriginalLines(originalLines);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRecFileNumber(String recFileNumber) {
+        loadForChange();
+        super.setRecFileNumber(recFileNumber);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRecFileNumber(StringWithCustomFacts recFileNumber) {
+        loadForChange();
+        super.setRecFileNumber(recFileNumber);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRestrictionNotice(String restrictionNotice) {
+        loadForChange();
+        super.setRestrictionNotice(restrictionNotice);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRestrictionNotice(StringWithCustomFacts restrictionNotice) {
+        loadForChange();
+        super.setRestrictionNotice(restrictionNotice);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setWife(IndividualReference wife) {
+        loadForChange();
+        super.setWife(wife);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setXref(String xref) {
+        // The xref is known without loading
+        checkWritable();
+        super.setXref(xref);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        load();
+        return super.toString();
+    }
+
+    /**
+     * Has the family been loaded yet?
+     * 
+     * @return true if the family has been loaded
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Load the family, if it hasn't been loaded already. Does nothing on the thread that is loading it, so that it
+     * can be parsed into, or while the superclass constructors are running (when there is no loader yet).
+     */
+    void load() {
+        if (!loaded && loader != null && !Thread.holdsLock(loader)) {
+            synchronized (loader) {
+                if (!loaded) {
+                    loader.load(this, lineNum, position);
+                    loaded = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Check that the family can be changed
+     * 
+     * @throws UnsupportedOperationException
+     *             if the family is read-only
+     */
+    private void checkWritable() {
+        if (isReadOnly()) {
+            throw new UnsupportedOperationException("Family " + getXref() + " is read-only");
+        }
+    }
+
+    /**
+     * Is the family read-only?
+     * 
+     * @return true if the family is read-only - see {@link RecordLoader#isReadOnly()}
+     */
+    private boolean isReadOnly() {
+        return loader != null && loader.isReadOnly();
+    }
+
+    /**
+     * Load the family before it is changed
+     * 
+     * @throws UnsupportedOperationException
+     *             if the family is read-only
+     */
+    private void loadForChange() {
+        checkWritable();
+        load();
+    }
+
+    /**
+     * Get one of the family's lists to hand out - the list itself, unless the family is read-only, in which case an unmodifiable
+     * view of it
+     * 
+     * @param list
+     *            the list. Null if it hasn't been initialized.
+     * @param initializeIfNeeded
+     *            if the list hasn't been initialized, should an empty list be returned rather than null? Only applies when the
+     *            family is read-only, since the list itself isn't returned then.
+     * @param <T>
+     *            the type of item in the list
+     * @return the list to hand out
+     */
+    private <T> List<T> view(List<T> list, boolean initializeIfNeeded) {
+        if (!isReadOnly()) {
+            return list;
+        }
+        if (list == null) {
+            return initializeIfNeeded ? Collections.<T> emptyList() : null;
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Load the family before it is serialized, since it can't be loaded after it's deserialized
+     * 
+     * @param out
+     *            the stream the object is being written to
+     * @throws IOException
+     *             if the object can't be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        load();
+        out.defaultWriteObject();
+    }
+}
@@ -0,0 +1,943 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.gedcom4j.model.AbstractCitation;
+import org.gedcom4j.model.Address;
+import org.gedcom4j.model.Association;
+import org.gedcom4j.model.ChangeDate;
+import org.gedcom4j.model.CustomFact;
+import org.gedcom4j.model.FamilyChild;
+import org.gedcom4j.model.FamilySpouse;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.model.IndividualAttribute;
+import org.gedcom4j.model.IndividualEvent;
+import org.gedcom4j.model.LdsIndividualOrdinance;
+import org.gedcom4j.model.MultimediaReference;
+import org.gedcom4j.model.NoteStructure;
+import org.gedcom4j.model.PersonalName;
+import org.gedcom4j.model.RecordEquality;
+import org.gedcom4j.model.StringWithCustomFacts;
+import org.gedcom4j.model.Submitter;
+import org.gedcom4j.model.UserReference;
+import org.gedcom4j.model.enumerations.IndividualAttributeType;
+import org.gedcom4j.model.enumerations.IndividualEventType;
+
+/**
+ * <p>
+ * A proxy for an {@link Individual} that is loaded by a {@link RecordLoader} the first time it is used - for example, from the
+ * file, for files loaded with {@link GedcomParser#setLazyLoading(boolean)}. Until then, only its xref is known. All the public
+ * methods other than {@link #getXref()}, {@link #setXref(String)}, {@link #getChangeCount()} and {@link #markChanged()} load the
+ * individual first.
+ * </p>
+ * <p>
+ * If the loader's records are read-only (see {@link RecordLoader#isReadOnly()}), the setters throw an
+ * {@link UnsupportedOperationException} and the lists are returned as unmodifiable views. The objects in the lists are not
+ * protected, but any changes made to them may be lost.
+ * </p>
+ * 
+ * @author frizbog
+ */
+public final class LazyIndividual extends Individual {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = -4286347427305716154L;
+
+    /**
+     * The loader that loads the individual
+     */
+    private final transient RecordLoader loader;
+
+    /**
+     * The line number of the first line of the individual in the loader's source
+     */
+    private final transient int lineNum;
+
+    /**
+     * The position of the individual in the loader's source - for example, the byte offset in the file of its first line
+     */
+    private final transient long position;
+
+    /**
+     * Has the individual been loaded yet?
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Constructor
+     * 
+     * @param loader
+     *            the loader that loads the individual
+     * @param xref
+     *            the xref of the individual
+     * @param lineNum
+     *            the line number of the first line of the individual in the loader's source
+     * @param position
+     *            the position of the individual in the loader's source - for example, the byte offset in the file of its first line
+     */
+    public LazyIndividual(RecordLoader loader, String xref, int lineNum, long position) {
+        this.loader = loader;
+        this.lineNum = lineNum;
+        this.position = position;
+        super.setXref(xref);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        // No need to load anything if only identity matters
+        if (!RecordEquality.isByIdentity()) {
+            load();
+            if (obj instanceof LazyIndividual) {
+                ((LazyIndividual) obj).load();
+            }
+        }
+        return super.equals(obj);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Address getAddress() {
+        load();
+        return super.getAddress();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StringWithCustomFacts> getAliases() {
+        load();
+        return view(super.getAliases(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StringWithCustomFacts> getAliases(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getAliases(), initializeIfNeeded);
+        }
+        return super.getAliases(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Submitter> getAncestorInterest() {
+        load();
+        return view(super.getAncestorInterest(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Submitter> getAncestorInterest(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getAncestorInterest(), initializeIfNeeded);
+        }
+        return super.getAncestorInterest(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Individual> getAncestors() {
+        load();
+        return super.getAncestors();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StringWithCustomFacts getAncestralFileNumber() {
+        load();
+        return super.getAncestralFileNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Association> getAssociations() {
+        load();
+        return view(super.getAssociations(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Association> getAssociations(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getAssociations(), initializeIfNeeded);
+        }
+        return super.getAssociations(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<IndividualAttribute> getAttributes() {
+        load();
+        return view(super.getAttributes(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<IndividualAttribute> getAttributes(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getAttributes(), initializeIfNeeded);
+        }
+        return super.getAttributes(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<IndividualAttribute> getAttributesOfType(IndividualAttributeType type) {
+        load();
+        return super.getAttributesOfType(type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ChangeDate getChangeDate() {
+        load();
+        return super.getChangeDate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AbstractCitation> getCitations() {
+        load();
+        return view(super.getCitations(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AbstractCitation> getCitations(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getCitations(), initializeIfNeeded);
+        }
+        return super.getCitations(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CustomFact> getCustomFacts() {
+        load();
+        return view(super.getCustomFacts(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CustomFact> getCustomFacts(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getCustomFacts(), initializeIfNeeded);
+        }
+        return super.getCustomFacts(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CustomFact> getCustomFactsWithTag(String tag) {
+        load();
+        return super.getCustomFactsWithTag(tag);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Submitter> getDescendantInterest() {
+        load();
+        return view(super.getDescendantInterest(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Submitter> getDescendantInterest(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getDescendantInterest(), initializeIfNeeded);
+        }
+        return super.getDescendantInterest(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Individual> getDescendants() {
+        load();
+        return super.getDescendants();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StringWithCustomFacts> getEmails() {
+        load();
+        return view(super.getEmails(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StringWithCustomFacts> getEmails(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getEmails(), initializeIfNeeded);
+        }
+        return super.getEmails(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<IndividualEvent> getEvents() {
+        load();
+        return view(super.getEvents(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<IndividualEvent> getEvents(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getEvents(), initializeIfNeeded);
+        }
+        return super.getEvents(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<IndividualEvent> getEventsOfType(IndividualEventType type) {
+        load();
+        return super.getEventsOfType(type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FamilyChild> getFamiliesWhereChild() {
+        load();
+        return view(super.getFamiliesWhereChild(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FamilyChild> getFamiliesWhereChild(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getFamiliesWhereChild(), initializeIfNeeded);
+        }
+        return super.getFamiliesWhereChild(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FamilySpouse> getFamiliesWhereSpouse() {
+        load();
+        return view(super.getFamiliesWhereSpouse(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FamilySpouse> getFamiliesWhereSpouse(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getFamiliesWhereSpouse(), initializeIfNeeded);
+        }
+        return super.getFamiliesWhereSpouse(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StringWithCustomFacts> getFaxNumbers() {
+        load();
+        return view(super.getFaxNumbers(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StringWithCustomFacts> getFaxNumbers(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getFaxNumbers(), initializeIfNeeded);
+        }
+        return super.getFaxNumbers(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getFormattedName() {
+        load();
+        return super.getFormattedName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<LdsIndividualOrdinance> getLdsIndividualOrdinances() {
+        load();
+        return view(super.getLdsIndividualOrdinances(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<LdsIndividualOrdinance> getLdsIndividualOrdinances(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getLdsIndividualOrdinances(), initializeIfNeeded);
+        }
+        return super.getLdsIndividualOrdinances(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MultimediaReference> getMultimedia() {
+        load();
+        return view(super.getMultimedia(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MultimediaReference> getMultimedia(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getMultimedia(), initializeIfNeeded);
+        }
+        return super.getMultimedia(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<PersonalName> getNames() {
+        load();
+        return view(super.getNames(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<PersonalName> getNames(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getNames(), initializeIfNeeded);
+        }
+        return super.getNames(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<NoteStructure> getNoteStructures() {
+        load();
+        return view(super.getNoteStructures(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<NoteStructure> getNoteStructures(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getNoteStructures(), initializeIfNeeded);
+        }
+        return super.getNoteStructures(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getOriginalLines() {
+        load();
+        return super.getOriginalLines();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StringWithCustomFacts getPermanentRecFileNumber() {
+        load();
+        return super.getPermanentRecFileNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StringWithCustomFacts> getPhoneNumbers() {
+        load();
+        return view(super.getPhoneNumbers(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StringWithCustomFacts> getPhoneNumbers(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getPhoneNumbers(), initializeIfNeeded);
+        }
+        return super.getPhoneNumbers(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StringWithCustomFacts getRecIdNumber() {
+        load();
+        return super.getRecIdNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StringWithCustomFacts getRestrictionNotice() {
+        load();
+        return super.getRestrictionNotice();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StringWithCustomFacts getSex() {
+        load();
+        return super.getSex();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Individual> getSpouses() {
+        load();
+        return super.getSpouses();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Submitter> getSubmitters() {
+        load();
+        return view(super.getSubmitters(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Submitter> getSubmitters(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getSubmitters(), initializeIfNeeded);
+        }
+        return super.getSubmitters(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getSurnames() {
+        load();
+        return super.getSurnames();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<UserReference> getUserReferences() {
+        load();
+        return view(super.getUserReferences(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<UserReference> getUserReferences(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getUserReferences(), initializeIfNeeded);
+        }
+        return super.getUserReferences(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StringWithCustomFacts> getWwwUrls() {
+        load();
+        return view(super.getWwwUrls(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StringWithCustomFacts> getWwwUrls(boolean initializeIfNeeded) {
+        load();
+        if (isReadOnly()) {
+            return view(super.getWwwUrls(), initializeIfNeeded);
+        }
+        return super.getWwwUrls(initializeIfNeeded);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        if (!RecordEquality.isByIdentity()) {
+            load();
+        }
+        return super.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markChanged() {
+        checkWritable();
+        super.markChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAddress(Address address) {
+        loadForChange();
+        super.setAddress(address);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAncestralFileNumber(String ancestralFileNumber) {
+        loadForChange();
+        super.setAncestralFileNumber(ancestralFileNumber);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAncestralFileNumber(StringWithCustomFacts ancestralFileNumber) {
+        loadForChange();
+        super.setAncestralFileNumber(ancestralFileNumber);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setChangeDate(ChangeDate changeDate) {
+        loadForChange();
+        super.setChangeDate(changeDate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOriginalLines(String originalLines) {
+        loadForChange();
+        super.setOriginalLines(originalLines);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setPermanentRecFileNumber(String permanentRecFileNumber) {
+        loadForChange();
+        super.setPermanentRecFileNumber(permanentRecFileNumber);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setPermanentRecFileNumber(StringWithCustomFacts permanentRecFileNumber) {
+        loadForChange();
+        super.setPermanentRecFileNumber(permanentRecFileNumber);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRecIdNumber(String recIdNumber) {
+        loadForChange();
+        super.setRecIdNumber(recIdNumber);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRecIdNumber(StringWithCustomFacts recIdNumber) {
+        loadForChange();
+        super.setRecIdNumber(recIdNumber);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRestrictionNotice(String restrictionNotice) {
+        loadForChange();
+        super.setRestrictionNotice(restrictionNotice);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRestrictionNotice(StringWithCustomFacts restrictionNotice) {
+        loadForChange();
+        super.setRestrictionNotice(restrictionNotice);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSex(String sex) {
+        loadForChange();
+        super.setSex(sex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSex(StringWithCustomFacts sex) {
+        loadForChange();
+        super.setSex(sex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setXref(String xref) {
+        // The xref is known without loading
+        checkWritable();
+        super.setXref(xref);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        load();
+        return super.toString();
+    }
+
+    /**
+     * Has the individual been loaded yet?
+     * 
+     * @return true if the individual has been loaded
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Load the individual, if it hasn't been loaded already. Does nothing on the thread that is loading it, so that it
+     * can be parsed into, or while the superclass constructors are running (when there is no loader yet).
+     */
+    void load() {
+        if (!loaded && loader != null && !Thread.holdsLock(loader)) {
+            synchronized (loader) {
+                if (!loaded) {
+                    loader.load(this, lineNum, position);
+                    loaded = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Check that the individual can be changed
+     * 
+     * @throws UnsupportedOperationException
+     *             if the individual is read-only
+     */
+    private void checkWritable() {
+        if (isReadOnly()) {
+            throw new UnsupportedOperationException("Individual " + getXref() + " is read-only");
+        }
+    }
+
+    /**
+     * Is the individual read-only?
+     * 
+     * @return true if the individual is read-only - see {@link RecordLoader#isReadOnly()}
+     */
+    private boolean isReadOnly() {
+        return loader != null && loader.isReadOnly();
+    }
+
+    /**
+     * Load the individual before it is changed
+     * 
+     * @throws UnsupportedOperationException
+     *             if the individual is read-only
+     */
+    private void loadForChange() {
+        checkWritable();
+        load();
+    }
+
+    /**
+     * Get one of the individual's lists to hand out - the list itself, unless the individual is read-only, in which case an
+     * unmodifiable view of it
+     * 
+     * @param list
+     *            the list. Null if it hasn't been initialized.
+     * @param initializeIfNeeded
+     *            if the list hasn't been initialized, should an empty list be returned rather than null? Only applies when the
+     *            individual is read-only, since the list itself isn't returned then.
+     * @param <T>
+     *            the type of item in the list
+     * @return the list to hand out
+     */
+    private <T> List<T> view(List<T> list, boolean initializeIfNeeded) {
+        if (!isReadOnly()) {
+            return list;
+        }
+        if (list == null) {
+            return initializeIfNeeded ? Collections.<T> emptyList() : null;
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Load the individual before it is serialized, since it can't be loaded after it's deserialized
+     * 
+     * @param out
+     *            the stream the object is being written to
+     * @throws IOException
+     *             if the object can't be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        load();
+        out.defaultWriteObject();
+    }
+}
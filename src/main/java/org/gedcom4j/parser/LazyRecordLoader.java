@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.io.encoding.Encoding;
+import org.gedcom4j.io.reader.GedcomFileReader;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.HasXref;
+import org.gedcom4j.model.StringTree;
+
+/**
+ * Indexes the individuals and families in a file being loaded with {@link GedcomParser#setLazyLoading(boolean)}, putting proxies
+ * for them into the {@link Gedcom} instead of parsing them, and parses each one from the file when its proxy is first used. The
+ * records are found again by the byte offsets of their first lines, and parsed with a parser of this object's own that is
+ * configured the same way as the one that loaded the file. Errors and warnings found while parsing them are added to the errors
+ * and warnings of the parser that loaded the file.
+ * 
+ * @author frizbog
+ */
+final class LazyRecordLoader implements RecordLoader {
+
+    /**
+     * The name of the file the records are in
+     */
+    private final String filename;
+
+    /**
+     * The encoding of the file
+     */
+    private final Encoding encoding;
+
+    /**
+     * The gedcom the records are in
+     */
+    private final Gedcom gedcom;
+
+    /**
+     * The parser that parses the records when they are loaded
+     */
+    private final GedcomParser parser;
+
+    /**
+     * The errors list of the parser that loaded the file
+     */
+    private final List<String> errors;
+
+    /**
+     * The warnings list of the parser that loaded the file
+     */
+    private final List<String> warnings;
+
+    /**
+     * Constructor
+     * 
+     * @param loadedBy
+     *            the parser loading the file. Its settings are copied, so should not be changed until the load is complete.
+     * @param filename
+     *            the name of the file being loaded
+     * @param encoding
+     *            the encoding of the file
+     */
+    LazyRecordLoader(GedcomParser loadedBy, String filename, Encoding encoding) {
+        this.filename = filename;
+        this.encoding = encoding;
+        gedcom = loadedBy.getGedcom();
+        errors = loadedBy.getErrors();
+        warnings = loadedBy.getWarnings();
+        parser = new GedcomParser();
+        parser.setGedcom(gedcom);
+        parser.setIgnoreCustomTags(loadedBy.isIgnoreCustomTags());
+        parser.setKeepingOriginalLines(loadedBy.isKeepingOriginalLines());
+        parser.setParseFilter(loadedBy.getParseFilter());
+        parser.setStrictCustomTags(loadedBy.isStrictCustomTags());
+        parser.setStrictLineBreaks(loadedBy.isStrictLineBreaks());
+        parser.setStringPoolSize(loadedBy.getStringPoolSize());
+    }
+
+    /**
+     * {@inheritDoc} The records loaded from the file can be changed like any others.
+     */
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc} Parses the record from the file, where the position is the byte offset of its first line.
+     */
+    @Override
+    public void load(HasXref record, int lineNum, long position) {
+        try (FileInputStream fis = new FileInputStream(filename); BufferedInputStream bis = new BufferedInputStream(fis);) {
+            fis.getChannel().position(position);
+            GedcomFileReader gfr = new GedcomFileReader(parser, bis, encoding);
+            StringTreeBuilder stringTreeBuilder = new StringTreeBuilder(parser, lineNum - 1);
+            String line = gfr.nextLine();
+            while (line != null) {
+                stringTreeBuilder.appendLine(line);
+                line = gfr.nextLine();
+                if (line != null && line.charAt(0) == '0') {
+                    // Start of the next record
+                    break;
+                }
+            }
+            List<StringTree> roots = stringTreeBuilder.getTree().getChildren();
+            if (roots == null || roots.size() != 1 || !record.getXref().equals(roots.get(0).getXref())) {
+                throw new IllegalStateException("Record " + record.getXref() + " was not found at line " + lineNum + " of "
+                        + filename + " - has the file changed?");
+            }
+            parser.loadRootItem(roots.get(0));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read record " + record.getXref() + " from " + filename, e);
+        } catch (GedcomParserException e) {
+            throw new IllegalStateException("Unable to parse record " + record.getXref() + " from " + filename, e);
+        } finally {
+            parser.getStringCanonicalizer().reset();
+            errors.addAll(parser.getErrors());
+            parser.getErrors().clear();
+            warnings.addAll(parser.getWarnings());
+            parser.getWarnings().clear();
+        }
+    }
+
+    /**
+     * Put a proxy into the gedcom for the record that begins with the supplied line, if it's one that can be loaded lazily
+     * 
+     * @param lp
+     *            the pieces of the first line of the record
+     * @param lineNum
+     *            the line number of the first line of the record
+     * @param offset
+     *            the byte offset of the first line of the record
+     * @return true if a proxy was put into the gedcom, and the rest of the record can be skipped. False if the record should be
+     *         parsed as usual.
+     */
+    boolean defer(LinePieces lp, int lineNum, long offset) {
+        if (lp.level != 0 || lp.id == null) {
+            return false;
+        }
+        if (Tag.INDIVIDUAL.equalsText(lp.tag)) {
+            return defer(gedcom.getIndividuals(), lp.id, new LazyIndividual(this, lp.id, lineNum, offset));
+        }
+        if (Tag.FAMILY.equalsText(lp.tag)) {
+            return defer(gedcom.getFamilies(), lp.id, new LazyFamily(this, lp.id, lineNum, offset));
+        }
+        return false;
+    }
+
+    /**
+     * Put a proxy for a record into the gedcom, unless something is already there for its xref (for example, if the xref is used
+     * by more than one record)
+     * 
+     * @param records
+     *            the records of the proxy's type in the gedcom
+     * @param xref
+     *            the xref of the record
+     * @param proxy
+     *            the proxy
+     * @param <T>
+     *            the type of record
+     * @return true if the proxy was put into the gedcom
+     */
+    private <T> boolean defer(Map<String, T> records, String xref, T proxy) {
+        synchronized (records) {
+            if (records.containsKey(xref)) {
+                return false;
+            }
+            records.put(xref, proxy);
+            return true;
+        }
+    }
+}
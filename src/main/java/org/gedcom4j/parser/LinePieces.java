@@ -29,11 +29,175 @@ package org.gedcom4j.parser;
 import org.gedcom4j.exception.GedcomParserException;
 
 /**
- * A class that breaks up a line in a GEDCOM file into its component parts.
+ * A class that breaks up a line in a GEDCOM file into its component parts. Instances are reusable - call
+ * {@link #parse(CharSequence, int)} for each line - and work on offsets into the line rather than copying it, so the only strings
+ * allocated per line are the xref (if any) and the remainder. Lines don't have to be strings, so a reader can hand over a view of
+ * the bytes of a line in the file, and never make a string of the whole line. Tags are looked up in a table of the tags in
+ * {@link Tag}, so only custom tags that haven't been seen before cause a new string to be allocated. Lines can also be broken up in
+ * two steps, with {@link #parseLevelAndTag(CharSequence, int)} and then {@link #parseXrefAndRemainder()}, so that lines that turn
+ * out not to be wanted once their level and tag are known don't cause any strings to be allocated at all.
  * 
  * @author frizbog1
  */
-class LinePieces {
+final class LinePieces {
+
+    /**
+     * An open-addressed hash table of tag strings, which can be searched using a region of a line without having to make a
+     * substring first.
+     * 
+     * @author frizbog
+     */
+    private static final class TagTable {
+
+        /**
+         * The hash table slots. Always a power of two in size, and never more than half full.
+         */
+        private String[] entries;
+
+        /**
+         * The number of tags in the table
+         */
+        private int size;
+
+        /**
+         * Constructor
+         * 
+         * @param expectedSize
+         *            the number of tags expected to be added to the table
+         */
+        TagTable(int expectedSize) {
+            int capacity = 16;
+            while (capacity < expectedSize * 2) {
+                capacity <<= 1;
+            }
+            entries = new String[capacity];
+        }
+
+        /**
+         * Add a tag to the table. The tag must not already be in the table.
+         * 
+         * @param tag
+         *            the tag to add
+         */
+        void add(String tag) {
+            if ((size + 1) * 2 > entries.length) {
+                String[] oldEntries = entries;
+                entries = new String[oldEntries.length * 2];
+                for (String e : oldEntries) {
+                    if (e != null) {
+                        insert(e);
+                    }
+                }
+            }
+            insert(tag);
+            size++;
+        }
+
+        /**
+         * Find the tag in the table that matches the characters in the given region of a line
+         * 
+         * @param line
+         *            the line
+         * @param start
+         *            the index of the first character of the tag in the line
+         * @param end
+         *            the index after the last character of the tag in the line
+         * @return the matching tag from the table, or null if there isn't one
+         */
+        String find(CharSequence line, int start, int end) {
+            int len = end - start;
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + line.charAt(i);
+            }
+            int mask = entries.length - 1;
+            for (int i = spread(h) & mask;; i = (i + 1) & mask) {
+                String e = entries[i];
+                if (e == null) {
+                    return null;
+                }
+                if (e.length() == len && regionMatches(e, line, start)) {
+                    return e;
+                }
+            }
+        }
+
+        /**
+         * Get the number of tags in the table
+         * 
+         * @return the number of tags in the table
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Put a tag into the first free slot for its hash code
+         * 
+         * @param tag
+         *            the tag to insert
+         */
+        private void insert(String tag) {
+            int mask = entries.length - 1;
+            int i = spread(tag.hashCode()) & mask;
+            while (entries[i] != null) {
+                i = (i + 1) & mask;
+            }
+            entries[i] = tag;
+        }
+
+        /**
+         * Does a tag match the characters in a region of a line?
+         * 
+         * @param tag
+         *            the tag
+         * @param line
+         *            the line
+         * @param start
+         *            the index of the first character of the region in the line. The region is as long as the tag.
+         * @return true if and only if the characters in the region are the same as the tag's
+         */
+        private static boolean regionMatches(String tag, CharSequence line, int start) {
+            for (int i = 0; i < tag.length(); i++) {
+                if (tag.charAt(i) != line.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Mix the high bits of a hash code into the low ones, since only the low ones are used to pick a slot
+         * 
+         * @param h
+         *            the hash code
+         * @return the spread hash code
+         */
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * The most custom tags that will be remembered by each instance. Custom tags beyond this are allocated for every line they
+     * appear on.
+     */
+    private static final int MAX_CUSTOM_TAGS = 1024;
+
+    /**
+     * The tags defined in {@link Tag}, shared by all instances. Never modified after class initialization.
+     */
+    private static final TagTable KNOWN_TAGS;
+
+    static {
+        Tag[] tags = Tag.values();
+        KNOWN_TAGS = new TagTable(tags.length);
+        for (Tag t : tags) {
+            if (KNOWN_TAGS.find(t.tagText, 0, t.tagText.length()) == null) {
+                KNOWN_TAGS.add(t.tagText);
+            }
+        }
+    }
 
     /**
      * The level of the line
@@ -55,18 +219,40 @@ class LinePieces {
      */
     String remainder;
 
+    /**
+     * The custom tags (ones not in {@link Tag}) that this instance has seen
+     */
+    private final TagTable customTags = new TagTable(32);
+
     /**
      * The current character index into the line
      */
     private int currCharIdx;
 
-    /** The characters in the line */
-    private final char[] chars;
+    /**
+     * The index of the first character of the XREF ID in the line, or -1 if the line doesn't have one
+     */
+    private int idStart;
+
+    /**
+     * The index after the last character of the XREF ID in the line
+     */
+    private int idEnd;
+
+    /** The line being broken into pieces */
+    private CharSequence line;
 
     /**
      * The number of the line we are breaking into pieces
      */
-    private final int lineNum;
+    private int lineNum;
+
+    /**
+     * Constructor for a reusable {@link LinePieces} object. Call {@link #parse(CharSequence, int)} to break a line into pieces.
+     */
+    LinePieces() {
+        // Nothing to do
+    }
 
     /**
      * Constructor that makes a {@link LinePieces} object from a line of text input from a GEDCOM file
@@ -79,12 +265,66 @@ class LinePieces {
      *             if the line of text cannot be split into pieces
      */
     LinePieces(String lineToParse, int lineNum) throws GedcomParserException {
-        this.lineNum = lineNum;
-        chars = lineToParse.toCharArray();
-        processLevel();
-        processXrefId();
-        processTag();
-        processRemainder();
+        parse(lineToParse, lineNum);
+    }
+
+    /**
+     * Break a line of text input from a GEDCOM file into pieces, replacing the pieces of the previous line
+     * 
+     * @param lineToParse
+     *            a single line of text from the GEDCOM file
+     * @param lineNumber
+     *            which line in the file this is
+     * @throws GedcomParserException
+     *             if the line of text cannot be split into pieces
+     */
+    void parse(CharSequence lineToParse, int lineNumber) throws GedcomParserException {
+        parseLevelAndTag(lineToParse, lineNumber);
+        parseXrefAndRemainder();
+    }
+
+    /**
+     * Find the level and tag of a line of text input from a GEDCOM file, replacing the pieces of the previous line, without
+     * allocating strings for the rest of the line. Call {@link #parseXrefAndRemainder()} afterwards to get the rest of the pieces,
+     * if the line is wanted.
+     * 
+     * @param lineToParse
+     *            a single line of text from the GEDCOM file
+     * @param lineNumber
+     *            which line in the file this is
+     * @throws GedcomParserException
+     *             if the line of text cannot be split into pieces
+     */
+    void parseLevelAndTag(CharSequence lineToParse, int lineNumber) throws GedcomParserException {
+        line = lineToParse;
+        lineNum = lineNumber;
+        level = 0;
+        id = null;
+        tag = null;
+        remainder = null;
+        try {
+            processLevel();
+            processXrefId();
+            processTag();
+        } catch (GedcomParserException e) {
+            line = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Fill in the XREF ID and the remainder of the line whose level and tag were found by the last call to
+     * {@link #parseLevelAndTag(CharSequence, int)}
+     */
+    void parseXrefAndRemainder() {
+        try {
+            if (idStart >= 0) {
+                id = line.subSequence(idStart, idEnd).toString();
+            }
+            processRemainder();
+        } finally {
+            line = null;
+        }
     }
 
     /**
@@ -94,30 +334,24 @@ class LinePieces {
      *             if the line does not begin with a 1 or 2 digit number for level, followed by a space
      */
     private void processLevel() throws GedcomParserException {
-        try {
-            char c2 = chars[1]; // 2nd character in line
-
-            currCharIdx = -1;
-
-            if (' ' == c2) {
-                // Second character in line is a space, so assume a 1-digit level
-                level = Character.getNumericValue(chars[0]);
-                currCharIdx = 2; // Continue parsing at 3rd character in line
-            } else {
-                // Second character in line is not a space, so assume a 2-digit level
-                level = Character.getNumericValue(chars[0]) * 10 + Character.getNumericValue(chars[1]);
-                currCharIdx = 3; // Continue parsing at 4th character in line
-            }
-        } catch (NumberFormatException e) {
-            throw new GedcomParserException("Line " + lineNum
-                    + " does not begin with a 1 or 2 digit number for the level followed by a space: " + new String(chars), e);
-        } catch (IndexOutOfBoundsException e) {
+        if (line.length() < 2) {
             throw new GedcomParserException("Line " + lineNum
-                    + " does not begin with a 1 or 2 digit number for the level followed by a space: " + new String(chars), e);
+                    + " does not begin with a 1 or 2 digit number for the level followed by a space: " + line);
+        }
+        char c2 = line.charAt(1); // 2nd character in line
+
+        if (' ' == c2) {
+            // Second character in line is a space, so assume a 1-digit level
+            level = Character.getNumericValue(line.charAt(0));
+            currCharIdx = 2; // Continue parsing at 3rd character in line
+        } else {
+            // Second character in line is not a space, so assume a 2-digit level
+            level = Character.getNumericValue(line.charAt(0)) * 10 + Character.getNumericValue(c2);
+            currCharIdx = 3; // Continue parsing at 4th character in line
         }
         if (level < 0 || level > 99) {
             throw new GedcomParserException("Line " + lineNum
-                    + " does not begin with a 1 or 2 digit number for the level followed by a space: " + new String(chars));
+                    + " does not begin with a 1 or 2 digit number for the level followed by a space: " + line);
         }
     }
 
@@ -125,8 +359,8 @@ class LinePieces {
      * Process the remainder of the line
      */
     private void processRemainder() {
-        if (currCharIdx < chars.length) {
-            remainder = new String(chars, currCharIdx + 1, chars.length - currCharIdx - 1);
+        if (currCharIdx < line.length()) {
+            remainder = line.subSequence(currCharIdx + 1, line.length()).toString();
         }
     }
 
@@ -137,43 +371,49 @@ class LinePieces {
      *             if no tag could be found on the line
      */
     private void processTag() throws GedcomParserException {
-        // Parse the tag
-        StringBuilder t = new StringBuilder();
-        while (currCharIdx < chars.length && chars[currCharIdx] != ' ') {
-            t.append(chars[currCharIdx++]);
+        int start = currCharIdx;
+        int len = line.length();
+        while (currCharIdx < len && line.charAt(currCharIdx) != ' ') {
+            currCharIdx++;
         }
-        if (t.length() > 0) {
-            tag = t.toString().intern();
-        } else {
+        if (currCharIdx <= start) {
             throw new GedcomParserException("All GEDCOM lines are required to have a tag value, but no tag could be found on line "
                     + lineNum);
         }
+        tag = KNOWN_TAGS.find(line, start, currCharIdx);
+        if (tag == null) {
+            tag = customTags.find(line, start, currCharIdx);
+        }
+        if (tag == null) {
+            // A custom tag we haven't seen before
+            tag = line.subSequence(start, currCharIdx).toString();
+            if (customTags.size() < MAX_CUSTOM_TAGS) {
+                customTags.add(tag);
+            }
+        }
     }
 
     /**
-     * Process the XREF ID portion of the line, if there is one
+     * Find the XREF ID portion of the line, if there is one
      * 
      * @throws GedcomParserException
      *             if the XREF is not properly terminated with an @ sign
      */
     private void processXrefId() throws GedcomParserException {
         // Take care of the id, if any
-        StringBuilder i = null;
-        if ('@' == chars[currCharIdx]) {
-            while (currCharIdx < chars.length && chars[currCharIdx] != ' ') {
-                if (i == null) {
-                    i = new StringBuilder();
-                }
-                i.append(chars[currCharIdx++]);
+        int len = line.length();
+        idStart = -1;
+        if (currCharIdx < len && '@' == line.charAt(currCharIdx)) {
+            int start = currCharIdx;
+            while (currCharIdx < len && line.charAt(currCharIdx) != ' ') {
+                currCharIdx++;
             }
-            currCharIdx++;
-        }
-
-        if (i != null) {
-            if (i.charAt(i.length() - 1) != '@') {
+            if (line.charAt(currCharIdx - 1) != '@') {
                 throw new GedcomParserException("XRef ID begins with @ sign but is not terminated with one on line " + lineNum);
             }
-            id = i.toString().intern();
+            idStart = start;
+            idEnd = currCharIdx;
+            currCharIdx++;
         }
     }
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.model.HasXref;
+import org.gedcom4j.model.StringTree;
+
+/**
+ * <p>
+ * Loads root-level items into the object model on a pool of worker threads, for {@link GedcomParser}s that have been configured to
+ * parse in parallel (see {@link GedcomParser#setParseThreadCount(int)}). The thread reading the file splits it into root-level
+ * items, and hands each one to this class, which parses individuals, families, sources, notes, repositories, multimedia and
+ * submitters concurrently.
+ * </p>
+ * <p>
+ * The results are the same as parsing sequentially:
+ * </p>
+ * <ul>
+ * <li>Cross-references between records are resolved through the (synchronized) placeholder methods in {@link AbstractParser}, so
+ * each xref maps to exactly one object no matter which thread finds it first.</li>
+ * <li>The header, submission, trailer, and any unrecognized root-level items are loaded on the reading thread once all the items
+ * before them are finished, since they change state (like the GEDCOM version) that the other parsers depend on.</li>
+ * <li>A record whose xref has already been seen (which only happens in malformed files) waits for all the records before it, so
+ * two threads never load data into the same object.</li>
+ * <li>Errors and warnings from each root-level item are collected separately and added to the parser's collections in file
+ * order.</li>
+ * <li>Loaded records are passed to any {@link RecordHandler}s on the reading thread, in file order.</li>
+ * </ul>
+ * 
+ * @author frizbog
+ */
+class ParallelRootItemLoader {
+
+    /**
+     * A task for loading a single root-level item, which also collects the errors and warnings that come up while doing so
+     */
+    static final class Task implements Callable<Void> {
+
+        /**
+         * The errors found while parsing the item
+         */
+        final List<String> errors = new ArrayList<>(0);
+
+        /**
+         * The warnings found while parsing the item
+         */
+        final List<String> warnings = new ArrayList<>(0);
+
+        /**
+         * Are we currently parsing somewhere inside a custom tag?
+         */
+        boolean insideCustomTag;
+
+        /**
+         * The root level item to load
+         */
+        private final StringTree rootLevelItem;
+
+        /**
+         * The parser we're loading for
+         */
+        private final GedcomParser parser;
+
+        /**
+         * The result of the task, once submitted
+         */
+        private Future<Void> future;
+
+        /**
+         * The record that was loaded, if the root level item was a record
+         */
+        private HasXref record;
+
+        /**
+         * Constructor
+         * 
+         * @param parser
+         *            The parser we're loading for
+         * @param rootLevelItem
+         *            the root level item to load
+         */
+        Task(GedcomParser parser, StringTree rootLevelItem) {
+            this.parser = parser;
+            this.rootLevelItem = rootLevelItem;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Void call() throws GedcomParserException {
+            parser.setCurrentTask(this);
+            try {
+                record = parser.loadRootItem(rootLevelItem);
+            } finally {
+                parser.setCurrentTask(null);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The number of items allowed to be waiting or in progress per worker thread, which keeps the reading thread from getting too
+     * far ahead of the workers (and holding too much of the file in memory as string trees)
+     */
+    private static final int ITEMS_PENDING_PER_THREAD = 64;
+
+    /**
+     * The parser we're loading for
+     */
+    private final GedcomParser parser;
+
+    /**
+     * The worker threads
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The tasks that have been submitted but whose results have not yet been collected, in file order
+     */
+    private final Deque<Task> pending = new ArrayDeque<>();
+
+    /**
+     * The maximum number of tasks allowed in {@link #pending}
+     */
+    private final int maxPending;
+
+    /**
+     * The tags and xrefs of the records handed to the workers so far, used to detect duplicate records
+     */
+    private final Set<String> dispatched = new HashSet<>();
+
+    /**
+     * Constructor
+     * 
+     * @param parser
+     *            the parser we're loading for
+     * @param threadCount
+     *            the number of worker threads to parse with
+     */
+    ParallelRootItemLoader(GedcomParser parser, int threadCount) {
+        this.parser = parser;
+        maxPending = threadCount * ITEMS_PENDING_PER_THREAD;
+        executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            private final AtomicInteger threadNum = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "gedcom4j-parser-" + threadNum.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Wait for all the submitted items to be loaded, and collect their errors and warnings
+     * 
+     * @throws GedcomParserException
+     *             if any of the items could not be loaded
+     */
+    void finish() throws GedcomParserException {
+        while (!pending.isEmpty()) {
+            completeOldest();
+        }
+    }
+
+    /**
+     * Stop the worker threads, abandoning anything not yet loaded. Should always be called when done with this object.
+     */
+    void shutdown() {
+        for (Task t : pending) {
+            t.future.cancel(true);
+        }
+        pending.clear();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Load a root-level item, either on a worker thread or (if it affects how other items are parsed) on this thread once
+     * everything before it is loaded
+     * 
+     * @param rootLevelItem
+     *            the root level item
+     * @throws GedcomParserException
+     *             if this item or one before it could not be loaded
+     */
+    void submit(StringTree rootLevelItem) throws GedcomParserException {
+        if (!isRecord(rootLevelItem.getTag())) {
+            finish();
+            parser.recordLoaded(parser.loadRootItem(rootLevelItem));
+            return;
+        }
+        if (!dispatched.add(rootLevelItem.getTag() + rootLevelItem.getXref())) {
+            finish();
+        }
+        if (pending.size() >= maxPending) {
+            completeOldest();
+        }
+        Task task = new Task(parser, rootLevelItem);
+        task.future = executor.submit(task);
+        pending.add(task);
+
+        // Collect whatever is already done, so results don't pile up
+        while (!pending.isEmpty() && pending.peek().future.isDone()) {
+            completeOldest();
+        }
+    }
+
+    /**
+     * Wait for the oldest pending task to finish, and add its errors and warnings to the parser's
+     * 
+     * @throws GedcomParserException
+     *             if the item could not be loaded
+     */
+    private void completeOldest() throws GedcomParserException {
+        Task task = pending.poll();
+        try {
+            task.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GedcomParserException("Interrupted while waiting for records to be parsed", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GedcomParserException) {
+                throw (GedcomParserException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new GedcomParserException("Unable to parse record", cause);
+        }
+        parser.getErrors().addAll(task.errors);
+        parser.getWarnings().addAll(task.warnings);
+        parser.recordLoaded(task.record);
+    }
+
+    /**
+     * Is the tag one for the kinds of records that can be loaded on a worker thread?
+     * 
+     * @param tag
+     *            the tag of the root level item
+     * @return true if and only if the tag is for a record that can be loaded on a worker thread
+     */
+    private boolean isRecord(String tag) {
+        return Tag.INDIVIDUAL.equalsText(tag) || Tag.FAMILY.equalsText(tag) || Tag.SOURCE.equalsText(tag) || Tag.NOTE.equalsText(
+                tag) || Tag.REPOSITORY.equalsText(tag) || Tag.OBJECT_MULTIMEDIA.equalsText(tag) || Tag.SUBMITTER.equalsText(tag);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>
+ * A filter that tells a {@link GedcomParser} which parts of a GEDCOM file to load. Parts of the file that the filter does not keep
+ * are discarded as the lines are read, before any {@link org.gedcom4j.model.StringTree} nodes, parser objects, or model objects
+ * are created for them, so filtering out records and tags that aren't needed saves both time and memory.
+ * </p>
+ * <p>
+ * The filter names the root-level record types to keep by their tags (e.g., <code>INDI</code> and <code>FAM</code>). The header
+ * and trailer are always kept. Optionally, the filter can also name the tags to keep directly beneath each record (e.g.,
+ * <code>NAME</code>, <code>SEX</code>, <code>FAMS</code>); everything beneath a kept tag is kept with it. <code>CONC</code> and
+ * <code>CONT</code> lines are always kept.
+ * </p>
+ * <p>
+ * Example - load only individuals and families, and only what's needed for lineage:
+ * </p>
+ * 
+ * <pre>
+ * GedcomParser gp = new GedcomParser();
+ * gp.setParseFilter(new ParseFilter(Arrays.asList("INDI", "FAM"), Arrays.asList("NAME", "SEX", "BIRT", "DEAT", "FAMC", "FAMS",
+ *         "HUSB", "WIFE", "CHIL")));
+ * gp.load("sample/TGC551.ged");
+ * </pre>
+ * 
+ * @author frizbog
+ */
+public class ParseFilter {
+
+    /**
+     * The tags of the root-level records to keep
+     */
+    private final Set<String> recordTags;
+
+    /**
+     * The tags to keep directly beneath each kept record. Null if all of them are kept.
+     */
+    private final Set<String> subTags;
+
+    /**
+     * Constructor for a filter that keeps all of each kept record
+     * 
+     * @param recordTags
+     *            the tags of the root-level records to keep. Required.
+     */
+    public ParseFilter(Collection<String> recordTags) {
+        this(recordTags, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param recordTags
+     *            the tags of the root-level records to keep. Required.
+     * @param subTags
+     *            the tags to keep directly beneath each kept record. Optional - if null, all the tags beneath each kept record
+     *            are kept.
+     */
+    public ParseFilter(Collection<String> recordTags, Collection<String> subTags) {
+        if (recordTags == null) {
+            throw new IllegalArgumentException("Record tags are required");
+        }
+        this.recordTags = Collections.unmodifiableSet(new HashSet<>(recordTags));
+        this.subTags = subTags == null ? null : Collections.unmodifiableSet(new HashSet<>(subTags));
+    }
+
+    /**
+     * Get the tags of the root-level records to keep
+     * 
+     * @return the tags of the root-level records to keep
+     */
+    public Set<String> getRecordTags() {
+        return recordTags;
+    }
+
+    /**
+     * Get the tags to keep directly beneath each kept record
+     * 
+     * @return the tags to keep directly beneath each kept record, or null if all of them are kept
+     */
+    public Set<String> getSubTags() {
+        return subTags;
+    }
+
+    /**
+     * Are root-level records with the supplied tag kept by this filter?
+     * 
+     * @param tag
+     *            the tag of the root-level record
+     * @return true if and only if root-level records with the supplied tag are kept
+     */
+    public boolean isRecordKept(String tag) {
+        return Tag.HEADER.equalsText(tag) || Tag.TRAILER.equalsText(tag) || recordTags.contains(tag);
+    }
+
+    /**
+     * Are tags directly beneath a kept record with the supplied tag (along with everything beneath them) kept by this filter?
+     * 
+     * @param tag
+     *            the tag directly beneath the record
+     * @return true if and only if tags directly beneath a kept record with the supplied tag are kept
+     */
+    public boolean isSubTagKept(String tag) {
+        return subTags == null || Tag.CONCATENATION.equalsText(tag) || Tag.CONTINUATION.equalsText(tag) || subTags.contains(
+                tag);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(50);
+        builder.append("ParseFilter [recordTags=");
+        builder.append(recordTags);
+        if (subTags != null) {
+            builder.append(", subTags=");
+            builder.append(subTags);
+        }
+        builder.append("]");
+        return builder.toString();
+    }
+}
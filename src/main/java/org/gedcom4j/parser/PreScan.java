@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.exception.ParserCancelledException;
+import org.gedcom4j.io.reader.Compression;
+import org.gedcom4j.io.reader.DecompressingInputStream;
+import org.gedcom4j.io.reader.GedcomFileReader;
+import org.gedcom4j.model.Gedcom;
+
+/**
+ * <p>
+ * The results of a quick pass over a GEDCOM file before it is loaded, made when {@link GedcomParser#setPreScanning(boolean)} is
+ * turned on. The pass only splits the lines apart far enough to find the root-level records, so it is much faster than loading
+ * the file. It counts the root-level records of each type, so that the maps in the {@link Gedcom} can be made big enough for them
+ * up front.
+ * </p>
+ * <p>
+ * If {@link GedcomParser#setPreScanningReferences(boolean)} is also turned on, it collects the xrefs of the root-level records and
+ * looks for pointers to records that aren't in the file, which the parser reports as warnings before loading the file. This takes
+ * memory in proportion to the number of records.
+ * </p>
+ * 
+ * @author frizbog
+ */
+public final class PreScan {
+
+    /**
+     * The number of root-level records of each type, keyed by tag
+     */
+    private final Map<String, Integer> recordCounts = new HashMap<>();
+
+    /**
+     * The xrefs of the root-level records. Null if references aren't being checked.
+     */
+    private final Set<String> xrefs;
+
+    /**
+     * The pointers found so far, each with the line number it was first found on, in file order. Once the scan is complete, only
+     * those that are not the xref of any root-level record are left. Null if references aren't being checked.
+     */
+    private final Map<String, Integer> unresolvedReferences;
+
+    /**
+     * The number of lines in the file
+     */
+    private int lineCount;
+
+    /**
+     * Constructor
+     * 
+     * @param checkingReferences
+     *            true if the xrefs of the records, and the pointers to them, are to be collected
+     */
+    PreScan(boolean checkingReferences) {
+        if (checkingReferences) {
+            xrefs = new HashSet<>();
+            unresolvedReferences = new LinkedHashMap<>();
+        } else {
+            xrefs = null;
+            unresolvedReferences = null;
+        }
+    }
+
+    /**
+     * Get the number of lines in the file
+     * 
+     * @return the number of lines in the file
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Get the number of root-level records in the file with the supplied tag
+     * 
+     * @param tag
+     *            the tag of the records, such as <code>INDI</code>
+     * @return the number of root-level records in the file with the supplied tag
+     */
+    public int getRecordCount(String tag) {
+        Integer count = recordCounts.get(tag);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Get the number of root-level records in the file of each type
+     * 
+     * @return the number of root-level records in the file of each type, keyed by tag
+     */
+    public Map<String, Integer> getRecordCounts() {
+        return Collections.unmodifiableMap(recordCounts);
+    }
+
+    /**
+     * Get the pointers in the file that are not the xref of any root-level record, each with the line number it was first found on
+     * 
+     * @return the pointers in the file that are not the xref of any root-level record, in the order they were found. Null if
+     *         references were not checked.
+     */
+    public Map<String, Integer> getUnresolvedReferences() {
+        return unresolvedReferences == null ? null : Collections.unmodifiableMap(unresolvedReferences);
+    }
+
+    /**
+     * Get the xrefs of the root-level records in the file
+     * 
+     * @return the xrefs of the root-level records in the file. Null if references were not checked.
+     */
+    public Set<String> getXrefs() {
+        return xrefs == null ? null : Collections.unmodifiableSet(xrefs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(50);
+        builder.append("PreScan [lineCount=");
+        builder.append(lineCount);
+        builder.append(", recordCounts=");
+        builder.append(recordCounts);
+        if (unresolvedReferences != null) {
+            builder.append(", unresolvedReferences=");
+            builder.append(unresolvedReferences.size());
+        }
+        builder.append("]");
+        return builder.toString();
+    }
+
+    /**
+     * Add a line from the file to the results
+     * 
+     * @param line
+     *            the line, which is left-trimmed and not empty
+     */
+    void addLine(String line) {
+        lineCount++;
+        int len = line.length();
+        int i = 0;
+        while (i < len && Character.isDigit(line.charAt(i))) {
+            i++;
+        }
+        boolean rootLevel = i == 1 && line.charAt(0) == '0';
+        if (!rootLevel && unresolvedReferences == null) {
+            // Nothing else on the line is needed
+            return;
+        }
+        while (i < len && line.charAt(i) == ' ') {
+            i++;
+        }
+        String xref = null;
+        if (i < len && line.charAt(i) == '@') {
+            int end = line.indexOf(' ', i);
+            if (end < 0) {
+                end = len;
+            }
+            xref = line.substring(i, end);
+            i = end;
+            while (i < len && line.charAt(i) == ' ') {
+                i++;
+            }
+        }
+        int tagEnd = line.indexOf(' ', i);
+        if (tagEnd < 0) {
+            tagEnd = len;
+        }
+        if (rootLevel) {
+            String tag = line.substring(i, tagEnd);
+            Integer count = recordCounts.get(tag);
+            recordCounts.put(tag, count == null ? 1 : count + 1);
+            if (xrefs != null && xref != null) {
+                xrefs.add(xref);
+            }
+        }
+        if (unresolvedReferences != null && tagEnd + 1 < len && isPointer(line, tagEnd + 1)) {
+            String pointer = line.substring(tagEnd + 1);
+            if (!unresolvedReferences.containsKey(pointer)) {
+                unresolvedReferences.put(pointer, lineCount);
+            }
+        }
+    }
+
+    /**
+     * Finish the scan, once all the lines have been added
+     */
+    void finish() {
+        if (unresolvedReferences != null) {
+            Iterator<String> it = unresolvedReferences.keySet().iterator();
+            while (it.hasNext()) {
+                if (xrefs.contains(it.next())) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Make a {@link Gedcom} with maps big enough for the records in the file
+     * 
+     * @return a {@link Gedcom} with maps big enough for the records in the file
+     */
+    Gedcom newGedcom() {
+        return new Gedcom(getRecordCount(Tag.FAMILY.tagText), getRecordCount(Tag.INDIVIDUAL.tagText), getRecordCount(
+                Tag.OBJECT_MULTIMEDIA.tagText), getRecordCount(Tag.NOTE.tagText), getRecordCount(Tag.REPOSITORY.tagText),
+                getRecordCount(Tag.SOURCE.tagText), getRecordCount(Tag.SUBMITTER.tagText));
+    }
+
+    /**
+     * Scan a file
+     * 
+     * @param filename
+     *            the name of the file to scan
+     * @param checkingReferences
+     *            true if the xrefs of the records, and the pointers to them, are to be collected
+     * @param parser
+     *            the parser that the file is being scanned for. The scan stops if it is cancelled.
+     * @return the results of the scan
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws GedcomParserException
+     *             if the file's encoding is not supported, or the load was cancelled
+     */
+    static PreScan scan(String filename, boolean checkingReferences, GedcomParser parser) throws IOException,
+            GedcomParserException {
+        PreScan result = new PreScan(checkingReferences);
+        // Read with a parser of its own, so that problems with the lines are only reported by the real load
+        Compression compression = Compression.of(filename);
+        if (compression == Compression.NONE) {
+            try (FileInputStream fis = new FileInputStream(filename); FileChannel channel = fis.getChannel();) {
+                result.addLines(new GedcomFileReader(new GedcomParser(), channel), parser);
+            }
+        } else {
+            try (FileInputStream fis = new FileInputStream(filename);
+                    DecompressingInputStream dis = new DecompressingInputStream(fis, compression);) {
+                result.addLines(new GedcomFileReader(new GedcomParser(), dis), parser);
+            }
+        }
+        result.finish();
+        return result;
+    }
+
+    /**
+     * Add all the lines from a reader to the scan
+     * 
+     * @param gfr
+     *            the reader
+     * @param parser
+     *            the parser that the file is being scanned for. The scan stops if it is cancelled.
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws GedcomParserException
+     *             if the load was cancelled
+     */
+    private void addLines(GedcomFileReader gfr, GedcomParser parser) throws IOException, GedcomParserException {
+        String line = gfr.nextLine();
+        while (line != null) {
+            addLine(line);
+            if (parser.isCancelled()) {
+                throw new ParserCancelledException("File load/parse is cancelled");
+            }
+            line = gfr.nextLine();
+        }
+    }
+
+    /**
+     * Is the rest of the line, from the supplied position, a pointer to a record? Pointers begin and end with an @ sign, and have
+     * no others in between. Escape sequences such as calendar escapes in dates begin with @# and are not pointers.
+     * 
+     * @param line
+     *            the line
+     * @param start
+     *            the position to check from
+     * @return true if the rest of the line is a pointer
+     */
+    private boolean isPointer(String line, int start) {
+        int len = line.length();
+        return len - start > 2 && line.charAt(start) == '@' && line.charAt(start + 1) != '#' && line.indexOf('@', start + 1) == len
+                - 1;
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+/**
+ * <p>
+ * A handler that is given each root-level record of a given type as soon as it has been parsed, for processing GEDCOM files without
+ * building the whole {@link org.gedcom4j.model.Gedcom} in memory. Register handlers with
+ * {@link GedcomParser#registerRecordHandler(Class, RecordHandler)}.
+ * </p>
+ * <p>
+ * Records handed to a handler are not kept by the parser, so once the handler is done with a record, it can be garbage collected.
+ * </p>
+ * 
+ * @param <T>
+ *            the type of record this handler handles
+ * @author frizbog
+ */
+public interface RecordHandler<T> {
+
+    /**
+     * A record has been parsed
+     * 
+     * @param record
+     *            the record that was parsed. References in this record to other root-level records (e.g., the family of a
+     *            {@link org.gedcom4j.model.FamilyChild}) are to placeholder objects that only have their xref set.
+     */
+    void handleRecord(T record);
+}
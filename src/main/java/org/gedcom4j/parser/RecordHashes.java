@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hashes of the lines of each root-level record in a file, keyed by the record's xref - or by its tag, for records like the header
+ * that don't have one. Used by {@link GedcomParser#loadChanges(String)} to tell which records have changed since the file was last
+ * loaded. Records with the same key are hashed together. The xrefs that the lines point to are noted too, so that placeholders for
+ * records that nothing points to any more can be removed.
+ * 
+ * @author frizbog
+ */
+final class RecordHashes {
+
+    /**
+     * The initial value of a hash (the 64-bit FNV-1a offset basis)
+     */
+    private static final long HASH_BASIS = 0xcbf29ce484222325L;
+
+    /**
+     * The multiplier for each character added to a hash (the 64-bit FNV-1a prime)
+     */
+    private static final long HASH_PRIME = 0x100000001b3L;
+
+    /**
+     * The hashes of the records, keyed by xref or tag
+     */
+    private final Map<String, Long> hashes = new HashMap<>();
+
+    /**
+     * The xrefs that the lines point to
+     */
+    private final Set<String> pointers = new HashSet<>();
+
+    /**
+     * The key of the record being hashed. Null if there isn't one.
+     */
+    private String currentKey;
+
+    /**
+     * The hash of the lines of the record being hashed so far
+     */
+    private long currentHash;
+
+    /**
+     * Was more than one record found with the same key?
+     */
+    private boolean duplicateKeys;
+
+    /**
+     * Get the key that the root-level record beginning with the supplied line is hashed under
+     * 
+     * @param line
+     *            the first line of a root-level record
+     * @return the record's xref, or its tag if it doesn't have one
+     */
+    static String keyOf(String line) {
+        int len = line.length();
+        int start = 1;
+        while (start < len && line.charAt(start) == ' ') {
+            start++;
+        }
+        int end = line.indexOf(' ', start);
+        return end < 0 ? line.substring(start) : line.substring(start, end);
+    }
+
+    /**
+     * Get the tag of the root-level record beginning with the supplied line
+     * 
+     * @param line
+     *            the first line of a root-level record
+     * @return the record's tag
+     */
+    static String tagOf(String line) {
+        String key = keyOf(line);
+        if (key.length() == 0 || key.charAt(0) != '@') {
+            return key;
+        }
+        int start = line.indexOf(key) + key.length();
+        int len = line.length();
+        while (start < len && line.charAt(start) == ' ') {
+            start++;
+        }
+        int end = line.indexOf(' ', start);
+        return end < 0 ? line.substring(start) : line.substring(start, end);
+    }
+
+    /**
+     * Add a line of the record being hashed
+     * 
+     * @param line
+     *            the line
+     */
+    void addLine(CharSequence line) {
+        addPointer(line);
+        long h = currentHash;
+        for (int i = 0; i < line.length(); i++) {
+            h = (h ^ line.charAt(i)) * HASH_PRIME;
+        }
+        // Line break
+        currentHash = (h ^ '\n') * HASH_PRIME;
+    }
+
+    /**
+     * Finish hashing the current record, if any, and store its hash
+     * 
+     * @return the hash of the record's lines
+     */
+    long finishRecord() {
+        long result = currentHash;
+        if (currentKey != null) {
+            Long existing = hashes.put(currentKey, currentHash);
+            if (existing != null) {
+                duplicateKeys = true;
+                hashes.put(currentKey, existing * HASH_PRIME ^ currentHash);
+            }
+            currentKey = null;
+        }
+        return result;
+    }
+
+    /**
+     * Get the hash of the record with the supplied key
+     * 
+     * @param key
+     *            the xref, or tag, of the record
+     * @return the hash of the record's lines, or null if there is no record with that key
+     */
+    Long get(String key) {
+        return hashes.get(key);
+    }
+
+    /**
+     * Add a line from the file to the hashes. Lines beginning with a zero start a new record.
+     * 
+     * @param line
+     *            the line, which is left-trimmed and not empty
+     */
+    void hashLine(CharSequence line) {
+        if (line.charAt(0) == '0') {
+            finishRecord();
+            startRecord(keyOf(line.toString()));
+        }
+        addLine(line);
+    }
+
+    /**
+     * Get the xrefs that the lines hashed point to - that is, the values of the lines whose values are xrefs
+     * 
+     * @return the xrefs that the lines hashed point to
+     */
+    Set<String> getPointers() {
+        return pointers;
+    }
+
+    /**
+     * Was more than one record found with the same key?
+     * 
+     * @return true if more than one record was found with the same key
+     */
+    boolean hasDuplicateKeys() {
+        return duplicateKeys;
+    }
+
+    /**
+     * Get the keys of all the records hashed
+     * 
+     * @return the keys of all the records hashed
+     */
+    Set<String> keySet() {
+        return hashes.keySet();
+    }
+
+    /**
+     * Start hashing a new record
+     * 
+     * @param key
+     *            the record's key - see {@link #keyOf(String)}
+     */
+    void startRecord(String key) {
+        currentKey = key;
+        currentHash = HASH_BASIS;
+    }
+
+    /**
+     * Note the xref a line points to, if its value is an xref. The first line of a root-level record only has an xref of its own,
+     * so it doesn't point anywhere.
+     * 
+     * @param line
+     *            the line
+     */
+    private void addPointer(CharSequence line) {
+        int len = line.length();
+        if (len < 3 || line.charAt(0) == '0' || line.charAt(len - 1) != '@') {
+            return;
+        }
+        int start = len - 2;
+        while (start > 0 && line.charAt(start) != ' ') {
+            start--;
+        }
+        start++;
+        if (start > 1 && start < len - 2 && line.charAt(start) == '@') {
+            pointers.add(line.subSequence(start, len).toString());
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import org.gedcom4j.model.HasXref;
+
+/**
+ * Loads the records that {@link LazyIndividual} and {@link LazyFamily} proxies stand in for, the first time each proxy is used -
+ * for example, by parsing them from a GEDCOM file loaded with {@link GedcomParser#setLazyLoading(boolean)}, or by decoding them
+ * from a {@link org.gedcom4j.io.snapshot.MappedRecordStore}.
+ * 
+ * @author frizbog
+ */
+public interface RecordLoader {
+
+    /**
+     * Are the records this loader loads read-only? If so, the setters of their proxies throw an
+     * {@link UnsupportedOperationException} and their lists can't be modified, since any changes would not be kept.
+     * 
+     * @return true if the records this loader loads are read-only
+     */
+    boolean isReadOnly();
+
+    /**
+     * Load a record into its proxy. Called at most once for each proxy, while holding this loader's lock. While the lock is held,
+     * the proxies for this loader's records do not try to load themselves on the thread holding it, so unless they are read-only,
+     * their setters can be used to fill them in.
+     * 
+     * @param record
+     *            the proxy to load the record into
+     * @param lineNum
+     *            the line number of the first line of the record in the loader's source, as given to the proxy's constructor
+     * @param position
+     *            the position of the record in the loader's source, as given to the proxy's constructor
+     * @throws IllegalStateException
+     *             if the record can't be loaded
+     */
+    void load(HasXref record, int lineNum, long position);
+}
@@ -26,226 +26,340 @@
  */
 package org.gedcom4j.parser;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
+ * <p>
  * A class to handle canonical strings, to reduce memory consumption by repeated instances of frequently used string values. Unlike
- * string.intern(), this implementation does not put things in permgen (or does it)? It also has a max size, only canonicalizes
- * strings repeated more than a certain number of times.
+ * string.intern(), this implementation is bounded, and the strings it holds on to can be garbage collected once the canonicalizer
+ * is, or once its pools are released at the end of a load.
+ * </p>
+ * <p>
+ * The values of the tags that repeat the most (places, dates, sexes, types and source references) each get a pool of their own, so
+ * that they don't crowd each other or everything else out. Every pool is a segmented LRU cache: a string seen for the first time
+ * goes into a probationary segment, and is promoted to a protected segment if it is seen again before it's evicted. Strings that
+ * are only ever seen once are evicted first, without disturbing the strings that keep repeating, and nothing stays in a pool after
+ * it stops being used.
+ * </p>
+ * <p>
+ * Not thread-safe - each parser has its own, used by the thread reading the file.
+ * </p>
  * 
  * @author frizbog
- *
  */
-class StringCanonicalizer {
+final class StringCanonicalizer {
 
     /**
-     * A canonicalized string
+     * A segmented LRU pool of canonical strings
      * 
      * @author frizbog
      */
-    static class CanonicalizedString {
+    static final class Pool {
+
+        /**
+         * Strings that have only been seen once since they were added to the pool, least recently used first
+         */
+        final Map<String, String> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * Strings that have been seen more than once, least recently used first
+         */
+        final Map<String, String> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * The most strings the protected segment can hold
+         */
+        private final int maxProtected;
+
         /**
-         * The number of times this entry is used
+         * The most strings the pool can hold
          */
-        long count;
+        private final int maxSize;
 
         /**
-         * The value of this entry
+         * The number of strings that were found in the pool
          */
-        final String value;
+        private long hits;
+
+        /**
+         * The number of strings that were not found in the pool
+         */
+        private long misses;
+
+        /**
+         * The number of strings evicted from the pool
+         */
+        private long evictions;
 
         /**
          * Constructor
          * 
-         * @param str
-         *            the string value
+         * @param maxSize
+         *            the most strings the pool can hold. Must be at least 1.
          */
-        CanonicalizedString(String str) {
-            value = str;
-            count = 0;
+        Pool(int maxSize) {
+            this.maxSize = maxSize;
+            maxProtected = maxSize * 4 / 5;
         }
 
         /**
-         * {@inheritDoc}
+         * Get the canonical version of a string, adding it to the pool if it's not there already
+         * 
+         * @param str
+         *            the string we want the canonical version of
+         * @return the canonical version of the string
          */
-        @Override
-        public String toString() {
-            StringBuilder builder = new StringBuilder(30);
-            builder.append("CanonicalizedString [count=");
-            builder.append(count);
-            builder.append(", ");
-            if (value != null) {
-                builder.append("value=");
-                builder.append(value);
+        String canonicalize(String str) {
+            String canon = protectedSegment.get(str);
+            if (canon != null) {
+                hits++;
+                return canon;
+            }
+            canon = probation.remove(str);
+            if (canon == null) {
+                misses++;
+                probation.put(str, str);
+                trimProbation();
+                return str;
             }
-            builder.append("]");
-            return builder.toString();
+            hits++;
+            if (maxProtected == 0) {
+                probation.put(canon, canon);
+                return canon;
+            }
+            protectedSegment.put(canon, canon);
+            if (protectedSegment.size() > maxProtected) {
+                // Demote the least recently used protected string, giving it another chance in the probationary segment
+                Iterator<String> lru = protectedSegment.keySet().iterator();
+                String demoted = lru.next();
+                lru.remove();
+                probation.put(demoted, demoted);
+                trimProbation();
+            }
+            return canon;
+        }
+
+        /**
+         * Empty the pool and reset its statistics
+         */
+        void clear() {
+            probation.clear();
+            protectedSegment.clear();
+            hits = 0;
+            misses = 0;
+            evictions = 0;
+        }
+
+        /**
+         * Get the number of strings that have been evicted from the pool
+         * 
+         * @return the number of strings that have been evicted from the pool
+         */
+        long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Get the number of strings that were found in the pool
+         * 
+         * @return the number of strings that were found in the pool
+         */
+        long getHits() {
+            return hits;
+        }
+
+        /**
+         * Get the number of strings that were not found in the pool
+         * 
+         * @return the number of strings that were not found in the pool
+         */
+        long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Get the number of strings in the pool
+         * 
+         * @return the number of strings in the pool
+         */
+        int size() {
+            return probation.size() + protectedSegment.size();
         }
 
+        /**
+         * Evict the least recently used probationary strings until the pool is within its maximum size
+         */
+        private void trimProbation() {
+            Iterator<String> lru = probation.keySet().iterator();
+            while (size() > maxSize && lru.hasNext()) {
+                lru.next();
+                lru.remove();
+                evictions++;
+            }
+        }
     }
 
     /**
-     * The string pool
+     * The default maximum number of strings in each pool
      */
-    final ConcurrentMap<String, CanonicalizedString> stringPool = new ConcurrentHashMap<>(100);
+    static final int DEFAULT_MAX_POOL_SIZE = 2048;
 
     /**
-     * The minimum number of usages that a canonicalized string has to have to remain in the pool during cleanup
+     * The tags whose values get pools of their own
      */
-    private int poolUsageThreshold = 25;
+    private static final String[] SEPARATELY_POOLED_TAGS = { Tag.PLACE.tagText, Tag.DATE.tagText, Tag.SEX.tagText,
+            Tag.TYPE.tagText, Tag.SOURCE.tagText };
 
     /**
-     * The max size of the string pool
+     * The pools for the values of the tags in {@link #SEPARATELY_POOLED_TAGS}, keyed by tag. Null if canonicalization is turned
+     * off.
      */
-    private int maxPoolSize = 1000;
+    final Map<String, Pool> tagPools;
 
     /**
-     * The number of eviction events that occurred
+     * The pool for the values of all the other tags. Null if canonicalization is turned off.
      */
-    int numEvictions = 0;
+    final Pool otherValues;
 
     /**
-     * The number of items evicted
+     * The maximum number of strings in each pool
      */
-    private int numEvictedCumulative = 0;
+    private final int maxPoolSize;
 
     /**
-     * A flag to indicate whether we've maxed out the pool to keep from thrashing
+     * The statistics as they were when the pools were released, or null if they haven't been released since they were reset
      */
-    private boolean maxedOut = false;
+    private StringPoolStatistics releasedStatistics;
 
     /**
      * Default constructor
      */
     StringCanonicalizer() {
-        this(500, 25);
+        this(DEFAULT_MAX_POOL_SIZE);
     }
 
     /**
-     * Constructor that lets you specify the pool size and usage threshold
+     * Constructor that lets you specify the pool size
      * 
      * @param maxPoolSize
-     *            the maximum number of items in the pool
-     * @param poolUsageThreshold
-     *            the minimum number of uses to remain in the pool during an eviction
+     *            the maximum number of strings in each pool. Zero turns canonicalization off.
      */
-    private StringCanonicalizer(int maxPoolSize, int poolUsageThreshold) {
+    StringCanonicalizer(int maxPoolSize) {
+        if (maxPoolSize < 0) {
+            throw new IllegalArgumentException("Max pool size cannot be negative");
+        }
         this.maxPoolSize = maxPoolSize;
-        this.poolUsageThreshold = poolUsageThreshold;
+        if (maxPoolSize == 0) {
+            tagPools = null;
+            otherValues = null;
+        } else {
+            tagPools = new HashMap<>();
+            for (String tag : SEPARATELY_POOLED_TAGS) {
+                tagPools.put(tag, new Pool(maxPoolSize));
+            }
+            otherValues = new Pool(maxPoolSize);
+        }
     }
 
     /**
-     * Get the maximum number of items in the pool
+     * Get the maximum number of strings in each pool
      * 
-     * @return the maximum number of items in the pool
+     * @return the maximum number of strings in each pool
      */
-    public int getMaxPoolSize() {
+    int getMaxPoolSize() {
         return maxPoolSize;
     }
 
     /**
-     * Get the cumulative total count of items that have been evicted from the pool
-     * 
-     * @return the cumulative total count of items that have been evicted from the pool
-     */
-    public int getNumEvictedCumulative() {
-        return numEvictedCumulative;
-    }
-
-    /**
-     * Get the number of times the pool has been evicted
-     * 
-     * @return the number of times the pool has been evicted
-     */
-    public int getNumEvictions() {
-        return numEvictions;
-    }
-
-    /**
-     * Get the minimum usage to remain in the pool after eviction
-     * 
-     * @return the minimum usage to remain in the pool after eviction
-     */
-    public int getPoolUsageThreshold() {
-        return poolUsageThreshold;
-    }
-
-    /**
-     * Is the pool maxed out? Meaning - is it full, and evictions aren't helping?
+     * Get the canonical version of a string
      * 
-     * @return is the pool maxed out?
+     * @param str
+     *            the string we want to get a canonical version of
+     * @return either the string itself, or the canonicalized version, depending on the state of the string pool
      */
-    public boolean isMaxedOut() {
-        return maxedOut;
+    String getCanonicalVersion(String str) {
+        return getCanonicalVersion(null, str);
     }
 
     /**
-     * Get the canonical version of a string
+     * Get the canonical version of the value of a tag
      * 
+     * @param tag
+     *            the tag the value is for. Determines which pool is used. Optional.
      * @param str
      *            the string we want to get a canonical version of
      * @return either the string itself, or the canonicalized version, depending on the state of the string pool
      */
-    String getCanonicalVersion(String str) {
+    String getCanonicalVersion(String tag, String str) {
         if (str == null) {
             return str;
         }
         if (str.length() == 0) {
             return "".intern();
         }
-        CanonicalizedString canon;
-        canon = stringPool.get(str);
-        if (canon != null) {
-            canon.count++;
-            return canon.value;
+        if (otherValues == null) {
+            return str;
+        }
+        Pool pool = tag == null ? null : tagPools.get(tag);
+        if (pool == null) {
+            pool = otherValues;
         }
+        return pool.canonicalize(str);
+    }
 
-        // Pool is too big - try and evict the lowest used entries
-        if (stringPool.size() > maxPoolSize) {
-            evictLowValueEntries();
-            // If evicting didn't help, return the original string and mark the pool as maxed out to prevent thrashing
-            if (stringPool.size() > maxPoolSize) {
-                maxedOut = true;
-                return str;
+    /**
+     * Get the statistics for all the pools combined
+     * 
+     * @return the statistics for all the pools combined - as they were when the pools were released, if they have been released
+     *         since they were reset
+     */
+    StringPoolStatistics getStatistics() {
+        if (releasedStatistics != null) {
+            return releasedStatistics;
+        }
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        int size = 0;
+        if (otherValues != null) {
+            for (Pool pool : tagPools.values()) {
+                hits += pool.getHits();
+                misses += pool.getMisses();
+                evictions += pool.getEvictions();
+                size += pool.size();
             }
+            hits += otherValues.getHits();
+            misses += otherValues.getMisses();
+            evictions += otherValues.getEvictions();
+            size += otherValues.size();
         }
-        canon = new CanonicalizedString(str);
-        stringPool.put(str, canon);
-        return canon.value;
+        return new StringPoolStatistics(hits, misses, evictions, size);
     }
 
     /**
-     * Clear the string pool entirely
+     * Empty the pools at the end of a load, so the strings in them can be garbage collected once nothing else refers to them. The
+     * statistics are kept until the pools are next reset.
      */
-    void reset() {
-        stringPool.clear();
-        numEvictedCumulative = 0;
-        numEvictions = 0;
-        maxedOut = false;
+    void release() {
+        StringPoolStatistics statistics = getStatistics();
+        reset();
+        releasedStatistics = statistics;
     }
 
     /**
-     * Evict all items that have fewer than uses
+     * Clear the string pools and their statistics entirely
      */
-    private void evictLowValueEntries() {
-        if (maxedOut) {
-            return;
-        }
-        numEvictions++;
-        int before = stringPool.size();
-        for (CanonicalizedString canon : stringPool.values()) {
-            if (canon.count < poolUsageThreshold) {
-                stringPool.remove(canon.value);
+    void reset() {
+        releasedStatistics = null;
+        if (otherValues != null) {
+            for (Pool pool : tagPools.values()) {
+                pool.clear();
             }
+            otherValues.clear();
         }
-        int after = stringPool.size();
-        numEvictedCumulative += before - after;
-        if (before - after < 2) {
-            maxedOut = true;
-        }
-        // System.out.println((before - after) + " item(s) evicted from string pool - was " + before + ", now " +
-        // after);
     }
 
 }
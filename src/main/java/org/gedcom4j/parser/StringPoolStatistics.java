@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+/**
+ * Statistics about how well {@link GedcomParser} has been able to share single instances of repeated string values, such as places
+ * and dates, between the objects it loads. See {@link GedcomParser#getStringPoolStatistics()}.
+ * 
+ * @author frizbog
+ */
+public final class StringPoolStatistics {
+
+    /**
+     * The number of values that were already in a pool, and so were shared
+     */
+    private final long hits;
+
+    /**
+     * The number of values that were not already in a pool
+     */
+    private final long misses;
+
+    /**
+     * The number of values evicted from the pools to keep them within their maximum size
+     */
+    private final long evictions;
+
+    /**
+     * The number of values currently in the pools
+     */
+    private final int size;
+
+    /**
+     * Constructor
+     * 
+     * @param hits
+     *            the number of values that were already in a pool, and so were shared
+     * @param misses
+     *            the number of values that were not already in a pool
+     * @param evictions
+     *            the number of values evicted from the pools to keep them within their maximum size
+     * @param size
+     *            the number of values currently in the pools
+     */
+    StringPoolStatistics(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * Get the number of values evicted from the pools to keep them within their maximum size
+     * 
+     * @return the number of values evicted from the pools to keep them within their maximum size
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get the number of values that were already in a pool, and so were shared
+     * 
+     * @return the number of values that were already in a pool, and so were shared
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of values that were not already in a pool
+     * 
+     * @return the number of values that were not already in a pool
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of values in the pools - at the end of the load, for a load that has finished (the pools are emptied then)
+     * 
+     * @return the number of values in the pools
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(80);
+        builder.append("StringPoolStatistics [hits=");
+        builder.append(hits);
+        builder.append(", misses=");
+        builder.append(misses);
+        builder.append(", evictions=");
+        builder.append(evictions);
+        builder.append(", size=");
+        builder.append(size);
+        builder.append("]");
+        return builder.toString();
+    }
+
+}
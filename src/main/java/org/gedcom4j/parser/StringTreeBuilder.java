@@ -104,14 +104,27 @@ class StringTreeBuilder {
     private int lineNum = 0;
 
     /**
-     * The line we're currently processing
+     * The line we're currently processing. Only valid during {@link #appendLine(CharSequence)}, since the reader might reuse it for
+     * the next line.
      */
-    private String line;
+    private CharSequence line;
 
     /**
-     * A canonicalizing string pool to reduce the number of repeated instances of strings, without using String.intern()
+     * The filter for which parts of the file to keep, if any
      */
-    private final StringCanonicalizer canonizer = new StringCanonicalizer();
+    private final ParseFilter filter;
+
+    /**
+     * If lines are being discarded because of the {@link #filter}, the level of the line that started the discarding - all lines
+     * at deeper levels are discarded too. -1 if lines are not being discarded.
+     */
+    private int discardingBelowLevel = -1;
+
+    /**
+     * Whether the filter applies to the tags beneath the current root-level record. False for records that are kept whole, like
+     * the header.
+     */
+    private boolean filteringSubTags;
 
     /**
      * Constructor
@@ -121,10 +134,23 @@ class StringTreeBuilder {
      * 
      */
     StringTreeBuilder(GedcomParser parser) {
+        this(parser, parser.getLineNum());
+    }
+
+    /**
+     * Constructor for building a {@link StringTree} for lines that don't follow on from the lines the parser has read so far
+     * 
+     * @param parser
+     *            the {@link GedcomParser} this object will be assisting with making a {@link StringTree} for
+     * @param lineNum
+     *            the number of the line before the first line that will be appended
+     */
+    StringTreeBuilder(GedcomParser parser, int lineNum) {
         this.parser = parser;
+        filter = parser.getParseFilter();
         getTree().setLevel(-1);
         mostRecentlyAdded = null;
-        lineNum = parser.getLineNum();
+        this.lineNum = lineNum;
     }
 
     /**
@@ -141,23 +167,20 @@ class StringTreeBuilder {
      * Add the supplied line to the right place in the StringTree being built
      * 
      * @param l
-     *            the line to add
+     *            the line to add. It isn't kept once this method returns, so the caller can reuse it.
      * 
      * @throws GedcomParserException
      *             if there is an error with parsing the data from the stream
      */
-    void appendLine(String l) throws GedcomParserException {
+    void appendLine(CharSequence l) throws GedcomParserException {
         line = l;
         lineNum++;
-        treeForCurrentLine = new StringTree();
-        treeForCurrentLine.setLineNum(lineNum);
 
         checkIfNewLevelLine();
 
         if (beginsWithLevelAndSpace) {
             addNewNode();
-            mostRecentlyAdded = treeForCurrentLine;
-        } else {
+        } else if (discardingBelowLevel < 0) {
             makeConcatenationOfPreviousNode();
         }
     }
@@ -166,15 +189,21 @@ class StringTreeBuilder {
      * Add a new node to the correct parent node in the StringTree
      * 
      * @throws GedcomParserException
-     *             if there are file lines that are not well formed - see {@link LinePieces#LinePieces(String, int)}
+     *             if there are file lines that are not well formed - see {@link LinePieces#parseLevelAndTag(CharSequence, int)}
      */
     private void addNewNode() throws GedcomParserException {
-        LinePieces lp = new LinePieces(line, lineNum);
+        LinePieces lp = parser.getLinePieces();
+        lp.parseLevelAndTag(line, lineNum);
+        if (filter != null && isDiscarded(lp)) {
+            return;
+        }
+        lp.parseXrefAndRemainder();
+        treeForCurrentLine = new StringTree();
+        treeForCurrentLine.setLineNum(lineNum);
         treeForCurrentLine.setLevel(lp.level);
         treeForCurrentLine.setXref(lp.id);
-        treeForCurrentLine.setTag(lp.tag.intern());
-        treeForCurrentLine.setValue(canonizer.getCanonicalVersion(lp.remainder));
-        lp = null;
+        treeForCurrentLine.setTag(lp.tag);
+        treeForCurrentLine.setValue(parser.getStringCanonicalizer().getCanonicalVersion(lp.tag, lp.remainder));
 
         StringTree addTo = null;
         if (treeForCurrentLine.getLevel() == 0) {
@@ -191,6 +220,7 @@ class StringTreeBuilder {
             lastNodeAtLevel[treeForCurrentLine.getLevel()] = treeForCurrentLine;
         }
         Arrays.fill(lastNodeAtLevel, treeForCurrentLine.getLevel() + 1, 100, null);
+        mostRecentlyAdded = treeForCurrentLine;
     }
 
     /**
@@ -212,6 +242,34 @@ class StringTreeBuilder {
         }
     }
 
+    /**
+     * Should the line just broken into pieces be discarded, according to the {@link #filter}? Keeps track of when a discarded
+     * line's children end.
+     * 
+     * @param lp
+     *            the pieces of the line
+     * @return true if and only if the line should be discarded
+     */
+    private boolean isDiscarded(LinePieces lp) {
+        if (discardingBelowLevel >= 0) {
+            if (lp.level > discardingBelowLevel) {
+                return true;
+            }
+            discardingBelowLevel = -1;
+        }
+        boolean keep = true;
+        if (lp.level == 0) {
+            keep = filter.isRecordKept(lp.tag);
+            filteringSubTags = !Tag.HEADER.equalsText(lp.tag) && !Tag.TRAILER.equalsText(lp.tag);
+        } else if (lp.level == 1 && filteringSubTags) {
+            keep = filter.isSubTagKept(lp.tag);
+        }
+        if (!keep) {
+            discardingBelowLevel = lp.level;
+        }
+        return !keep;
+    }
+
     /**
      * Make the current node a concatenation of the previous node.
      */
@@ -222,9 +280,11 @@ class StringTreeBuilder {
             parser.getWarnings().add("Line " + lineNum + " did not begin with a level and tag, so it was discarded.");
         } else {
             // Try to add as a CONT line to previous node, as if the file had been properly escaped
+            treeForCurrentLine = new StringTree();
+            treeForCurrentLine.setLineNum(lineNum);
             treeForCurrentLine.setLevel(mostRecentlyAdded.getLevel() + 1);
             treeForCurrentLine.setTag(Tag.CONTINUATION.tagText);
-            treeForCurrentLine.setValue(line);
+            treeForCurrentLine.setValue(line.toString());
             treeForCurrentLine.setParent(mostRecentlyAdded);
             mostRecentlyAdded.getChildren(true).add(treeForCurrentLine);
             parser.getWarnings().add("Line " + lineNum + " did not begin with a level and tag, so it was treated as a "
@@ -104,14 +104,44 @@ public class ParseProgressEvent extends EventObject {
      *            the number of lines parsed so far
      */
     public ParseProgressEvent(Object source, Gedcom g, boolean complete, int linesParsed) {
+        this(source, complete, linesParsed, g.getFamilies().size(), g.getIndividuals().size(), g.getMultimedia().size(), g
+                .getNotes().size(), g.getRepositories().size(), g.getSources().size(), g.getSubmitters().size());
+    }
+
+    /**
+     * Constructor, for progress that isn't for a single gedcom - such as the total progress loading a batch of files
+     * 
+     * @param source
+     *            the source object
+     * @param complete
+     *            is the parse complete
+     * @param linesParsed
+     *            the number of lines parsed so far
+     * @param familiesProcessed
+     *            the number of families processed so far
+     * @param individualsProcessed
+     *            the number of individuals processed so far
+     * @param multimediaProcessed
+     *            the number of multimedia processed so far
+     * @param notesProcessed
+     *            the number of notes processed so far
+     * @param repositoriesProcessed
+     *            the number of repositories processed so far
+     * @param sourcesProcessed
+     *            the number of sources processed so far
+     * @param submittersProcessed
+     *            the number of submitters processed so far
+     */
+    public ParseProgressEvent(Object source, boolean complete, int linesParsed, int familiesProcessed, int individualsProcessed,
+            int multimediaProcessed, int notesProcessed, int repositoriesProcessed, int sourcesProcessed, int submittersProcessed) {
         super(source);
-        familiesProcessed = g.getFamilies().size();
-        individualsProcessed = g.getIndividuals().size();
-        multimediaProcessed = g.getMultimedia().size();
-        notesProcessed = g.getNotes().size();
-        repositoriesProcessed = g.getRepositories().size();
-        sourcesProcessed = g.getSources().size();
-        submittersProcessed = g.getSubmitters().size();
+        this.familiesProcessed = familiesProcessed;
+        this.individualsProcessed = individualsProcessed;
+        this.multimediaProcessed = multimediaProcessed;
+        this.notesProcessed = notesProcessed;
+        this.repositoriesProcessed = repositoriesProcessed;
+        this.sourcesProcessed = sourcesProcessed;
+        this.submittersProcessed = submittersProcessed;
         this.complete = complete;
         this.linesParsed = linesParsed;
     }
@@ -32,7 +32,10 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -453,6 +456,11 @@ public class Validator implements Serializable {
     /** The gedcom being validated. */
     private final Gedcom gedcom;
 
+    /**
+     * The root-level records to validate, by identity, if only some of them are to be validated. Null if all of them are.
+     */
+    private Set<ModelElement> recordsToValidate;
+
     /** The results. */
     private final ValidationResults results = new ValidationResults();
 
@@ -516,6 +524,15 @@ public class Validator implements Serializable {
         return gedcom;
     }
 
+    /**
+     * Get the root-level records to validate, if only some of them are to be validated
+     * 
+     * @return the root-level records to validate, or null if all of them are
+     */
+    public Set<ModelElement> getRecordsToValidate() {
+        return recordsToValidate;
+    }
+
     /**
      * Get the results
      * 
@@ -588,6 +605,31 @@ public class Validator implements Serializable {
         this.autoRepairResponder = autoRepairResponder;
     }
 
+    /**
+     * <p>
+     * Set the root-level records (individuals, families, multimedia, notes, repositories and submitters) to validate, if only some
+     * of them are to be validated - for example, only the ones that have changed since the last time the data was validated. The
+     * header, submission and trailer are always validated. The supplementary validators look across many records at once, so a
+     * change to one record can affect the findings for others. They are run over all the records whenever there is at least one
+     * record to validate, and skipped only when there are none.
+     * </p>
+     * <p>
+     * The records are matched by identity rather than by {@link Object#equals(Object)}, since records that are equal in content may
+     * still be different records.
+     * </p>
+     * 
+     * @param recordsToValidate
+     *            the root-level records to validate. Null to validate all of them.
+     */
+    public void setRecordsToValidate(Collection<? extends ModelElement> recordsToValidate) {
+        if (recordsToValidate == null) {
+            this.recordsToValidate = null;
+        } else {
+            this.recordsToValidate = Collections.newSetFromMap(new IdentityHashMap<ModelElement, Boolean>());
+            this.recordsToValidate.addAll(recordsToValidate);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -637,6 +679,10 @@ public class Validator implements Serializable {
                 vf.addRepair(new AutoRepair(null, new Trailer()));
             }
         }
+        if (recordsToValidate != null && recordsToValidate.isEmpty()) {
+            // Nothing has changed that the supplementary validators could find fault with
+            return;
+        }
         for (Class<? extends AbstractValidator> avc : supplementaryValidators) {
             try {
                 AbstractValidator av = avc.getConstructor(Validator.class).newInstance(this);
@@ -668,7 +714,7 @@ public class Validator implements Serializable {
                     vf.addRepair(new AutoRepair(null, null));
                     gedcom.getIndividuals().remove(entry.getKey());
                 }
-            } else {
+            } else if (isToBeValidated(entry.getValue())) {
                 new IndividualValidator(this, entry.getValue()).validate();
             }
         }
@@ -699,7 +745,7 @@ public class Validator implements Serializable {
                     vf.addRepair(new AutoRepair(null, null));
                     gedcom.getFamilies().remove(entry.getKey());
                 }
-            } else {
+            } else if (isToBeValidated(entry.getValue())) {
                 new FamilyValidator(this, entry.getValue()).validate();
             }
         }
@@ -727,7 +773,7 @@ public class Validator implements Serializable {
                     vf.addRepair(new AutoRepair(null, null));
                     gedcom.getMultimedia().remove(entry.getKey());
                 }
-            } else {
+            } else if (isToBeValidated(entry.getValue())) {
                 new MultimediaValidator(this, entry.getValue()).validate();
             }
         }
@@ -742,6 +788,9 @@ public class Validator implements Serializable {
                 newFinding(gedcom, Severity.ERROR, ProblemCode.LIST_WITH_NULL_VALUE, "notes");
                 continue;
             }
+            if (!isToBeValidated(note)) {
+                continue;
+            }
             // Root level notes should have xrefs
             if (!isSpecified(note.getXref())) {
                 newFinding(note, Severity.ERROR, ProblemCode.MISSING_REQUIRED_VALUE, "xref");
@@ -761,7 +810,7 @@ public class Validator implements Serializable {
                     vf.addRepair(new AutoRepair(null, null));
                     gedcom.getRepositories().remove(entry.getKey());
                 }
-            } else {
+            } else if (isToBeValidated(entry.getValue())) {
                 new RepositoryValidator(this, entry.getValue()).validate();
             }
         }
@@ -793,7 +842,7 @@ public class Validator implements Serializable {
                     vf.addRepair(new AutoRepair(null, null));
                     gedcom.getSubmitters().remove(entry.getKey());
                 }
-            } else {
+            } else if (isToBeValidated(entry.getValue())) {
                 new SubmitterValidator(this, entry.getValue()).validate();
             }
         }
@@ -855,4 +904,15 @@ public class Validator implements Serializable {
         return false;
     }
 
+    /**
+     * Is the supplied root-level record to be validated?
+     * 
+     * @param record
+     *            the record
+     * @return true if all records are being validated, or the record is one of the {@link #recordsToValidate}
+     */
+    private boolean isToBeValidated(ModelElement record) {
+        return recordsToValidate == null || recordsToValidate.contains(record);
+    }
+
 }
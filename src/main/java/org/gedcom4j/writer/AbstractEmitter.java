@@ -26,13 +26,13 @@
  */
 package org.gedcom4j.writer;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.gedcom4j.exception.GedcomWriterException;
 import org.gedcom4j.exception.WriterCancelledException;
 import org.gedcom4j.model.CustomFact;
 import org.gedcom4j.model.HasCustomFacts;
+import org.gedcom4j.model.HasOriginalLines;
 import org.gedcom4j.model.MultiStringWithCustomFacts;
 import org.gedcom4j.model.StringWithCustomFacts;
 import org.gedcom4j.model.enumerations.SupportedVersion;
@@ -150,26 +150,42 @@ abstract class AbstractEmitter<T> {
      *            the lines of text to write
      */
     protected void emitLinesOfText(int level, String xref, String startingTag, List<String> linesOfText) {
-        List<String> splitLinesOfText = splitLinesOnBreakingCharacters(linesOfText);
+        if (linesOfText == null) {
+            return;
+        }
         int lineNum = 0;
-        for (String l : splitLinesOfText) {
-            StringBuilder line = new StringBuilder();
-            if (lineNum == 0) {
-                line.append(level).append(" ");
-                if (xref != null && xref.length() > 0) {
-                    line.append(xref).append(" ");
-                }
-                line.append(startingTag).append(" ").append(l);
-            } else {
-                line.append(level + 1).append(" ");
-                if (xref != null && xref.length() > 0) {
-                    line.append(xref).append(" ");
-                }
-                line.append("CONT ").append(l);
-            }
-            lineNum++;
-            emitAndSplit(level, line.toString());
+        for (String l : linesOfText) {
+            lineNum = emitValue(level, xref, startingTag, l, lineNum, true);
+        }
+    }
+
+    /**
+     * Emit the lines a record was loaded from, verbatim, if they were kept when it was loaded and it has not been marked as changed
+     * since - see {@link org.gedcom4j.parser.GedcomParser#setKeepingOriginalLines(boolean)}. The lines are not used for any record
+     * if any record's xref has changed, since the lines may refer to it, if the GEDCOM version has changed, or if the validator
+     * made any automatic repairs on this write.
+     * 
+     * @param record
+     *            the record
+     * @return true if the lines the record was loaded from were emitted, so its lines do not need to be constructed
+     * @throws GedcomWriterException
+     *             if the lines cannot be written
+     */
+    protected boolean emitOriginalLines(HasOriginalLines record) throws GedcomWriterException {
+        String originalLines = record.getOriginalLines();
+        if (originalLines == null || record.getChangeCount() != 0 || !baseWriter.isOriginalLinesReusable()) {
+            return false;
+        }
+        int start = 0;
+        int end = originalLines.indexOf('\n');
+        while (end != -1) {
+            baseWriter.addLine(originalLines.substring(start, end));
+            start = end + 1;
+            end = originalLines.indexOf('\n', start);
         }
+        baseWriter.addLine(originalLines.substring(start));
+        baseWriter.flushLinesIfNeeded();
+        return true;
     }
 
     /**
@@ -202,7 +218,7 @@ abstract class AbstractEmitter<T> {
      *            the tag for the line of the file
      */
     protected void emitTag(int level, String tag) {
-        baseWriter.lines.add(level + " " + tag);
+        baseWriter.addLine(level + " " + tag);
     }
 
     /**
@@ -221,7 +237,7 @@ abstract class AbstractEmitter<T> {
             line.append(" ").append(xref);
         }
         line.append(" ").append(tag);
-        baseWriter.lines.add(line.toString());
+        baseWriter.addLine(line.toString());
     }
 
     /**
@@ -259,12 +275,9 @@ abstract class AbstractEmitter<T> {
         if (value == null) {
             StringBuilder line = new StringBuilder(Integer.toString(level));
             line.append(" ").append(tag);
-            baseWriter.lines.add(line.toString());
+            baseWriter.addLine(line.toString());
         } else {
-            List<String> temp = new ArrayList<>();
-            temp.add(value);
-            List<String> valueLines = splitLinesOnBreakingCharacters(temp);
-            emitValueLines(level, null, tag, valueLines);
+            emitValue(level, null, tag, value, 0, false);
         }
     }
 
@@ -285,18 +298,14 @@ abstract class AbstractEmitter<T> {
         if (valueToRightOfTag == null || valueToRightOfTag.getValue() == null) {
             StringBuilder line = new StringBuilder(Integer.toString(level));
             line.append(" ").append(tag);
-            baseWriter.lines.add(line.toString());
+            baseWriter.addLine(line.toString());
             if (valueToRightOfTag != null) {
                 emitCustomFacts(level + 1, valueToRightOfTag.getCustomFacts());
             }
             return;
         }
 
-        List<String> temp = new ArrayList<>();
-        temp.add(valueToRightOfTag.getValue());
-        List<String> valueLines = splitLinesOnBreakingCharacters(temp);
-
-        emitValueLines(level, null, tag, valueLines);
+        emitValue(level, null, tag, valueToRightOfTag.getValue(), 0, false);
 
         emitCustomFacts(level + 1, valueToRightOfTag.getCustomFacts());
     }
@@ -380,18 +389,19 @@ abstract class AbstractEmitter<T> {
                 if (cf == null) {
                     continue;
                 }
-                StringBuilder line = new StringBuilder(Integer.toString(level));
-                line.append(" ");
+                StringBuilder line = baseWriter.lineBuffer;
+                line.setLength(0);
+                line.append(level).append(' ');
                 if (cf.getXref() != null && cf.getXref().trim().length() > 0) {
-                    line.append(cf.getXref()).append(" ");
+                    line.append(cf.getXref()).append(' ');
                 }
                 line.append(cf.getTag());
                 if (cf.getDescription() != null && cf.getDescription().getValue() != null && cf.getDescription().getValue().trim()
                         .length() > 0) {
-                    line.append(" ").append(cf.getDescription());
+                    line.append(' ').append(cf.getDescription());
                 }
 
-                emitAndSplit(level, line.toString());
+                emitAndSplit(level + 1, line);
 
                 new ChangeDateEmitter(baseWriter, level + 1, cf.getChangeDate()).emit();
                 new CitationEmitter(baseWriter, level + 1, cf.getCitations()).emit();
@@ -405,52 +415,91 @@ abstract class AbstractEmitter<T> {
     }
 
     /**
-     * Split up an array of text lines to when line break characters appear. If any of the original line contains line split
-     * characters (newlines, line feeds, carriage returns), split the line up into multiple lines.
+     * Get the length of the line break at the supplied position in a string - "\r\n" and "\n\r" are single line breaks
      * 
-     * @param linesOfText
-     *            a single string that may or may not contain line breaks
-     * @return a list of Strings that reflect the line breaks in the original string
+     * @param s
+     *            the string
+     * @param index
+     *            the position of the line break
+     * @return the number of characters in the line break
      */
-    List<String> splitLinesOnBreakingCharacters(List<String> linesOfText) {
-        List<String> result = new ArrayList<>();
-        if (linesOfText != null) {
-            for (String s : linesOfText) {
-                String[] pieces = s.split("(\r\n|\n\r|\r|\n)");
-                for (String piece : pieces) {
-                    result.add(piece);
-                }
+    private static int breakLength(String s, int index) {
+        if (index + 1 < s.length()) {
+            char c = s.charAt(index);
+            char next = s.charAt(index + 1);
+            if (c == '\r' && next == '\n' || c == '\n' && next == '\r') {
+                return 2;
             }
         }
-        return result;
+        return 1;
     }
 
     /**
-     * Write a line out to the print writer, splitting due to length if needed with CONC lines
+     * Find the next line break in part of a string
      * 
-     * @param level
-     *            the level at which we are recording
-     * @param line
-     *            the line to be written, which may have line breaking characters (which will result in CONT lines)
+     * @param s
+     *            the string
+     * @param start
+     *            the position to start looking at
+     * @param end
+     *            the position to stop looking before
+     * @return the position of the next line break, or <code>end</code> if there isn't one before it
      */
-    private void emitAndSplit(int level, String line) {
-        if (line.length() <= MAX_LINE_LENGTH) {
-            baseWriter.lines.add(line);
-        } else {
-            // First part
-            baseWriter.lines.add(line.substring(0, MAX_LINE_LENGTH));
-            // Now a series of as many CONC lines as needed
-            String remainder = line.substring(MAX_LINE_LENGTH);
-            while (remainder.length() > 0) {
-                if (remainder.length() > MAX_LINE_LENGTH) {
-                    baseWriter.lines.add(level + 1 + " CONC " + remainder.substring(0, MAX_LINE_LENGTH));
-                    remainder = remainder.substring(MAX_LINE_LENGTH);
-                } else {
-                    baseWriter.lines.add(level + 1 + " CONC " + remainder);
-                    remainder = "";
-                }
+    private static int indexOfBreak(String s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '\r' || c == '\n') {
+                return i;
             }
         }
+        return end;
+    }
+
+    /**
+     * Get the length of a string without any line breaks at its end. Lines that would be empty at the end of a value are dropped,
+     * so this is where the last line of the value ends. If the string is nothing but line breaks, there are no lines at all, and
+     * this returns -1.
+     * 
+     * @param s
+     *            the string
+     * @return the length of the string without any line breaks at its end, or -1 if it is nothing but line breaks
+     */
+    private static int lengthWithoutTrailingBreaks(String s) {
+        int end = s.length();
+        while (end > 0 && (s.charAt(end - 1) == '\r' || s.charAt(end - 1) == '\n')) {
+            end--;
+        }
+        if (end == 0 && s.length() > 0) {
+            return -1;
+        }
+        return end;
+    }
+
+    /**
+     * Write a line out, splitting due to length if needed with CONC lines. The CONC lines are built in place in the line buffer,
+     * after the line itself, so no intermediate strings are needed.
+     * 
+     * @param concLevel
+     *            the level to write any CONC lines at
+     * @param line
+     *            the line to be written, in the writer's line buffer
+     */
+    private void emitAndSplit(int concLevel, StringBuilder line) {
+        int length = line.length();
+        if (length <= MAX_LINE_LENGTH) {
+            baseWriter.addLine(line.toString());
+            return;
+        }
+        // First part
+        baseWriter.addLine(line.substring(0, MAX_LINE_LENGTH));
+        // Now a series of as many CONC lines as needed
+        line.append(concLevel).append(" CONC ");
+        int prefixLength = line.length() - length;
+        for (int start = MAX_LINE_LENGTH; start < length; start += MAX_LINE_LENGTH) {
+            line.setLength(length + prefixLength);
+            line.append(line, start, Math.min(start + MAX_LINE_LENGTH, length));
+            baseWriter.addLine(line.substring(length));
+        }
     }
 
     /**
@@ -472,11 +521,7 @@ abstract class AbstractEmitter<T> {
     private void emitTagIfValueNotNull(int level, String xref, String tag, HasCustomFacts value) throws WriterCancelledException,
             GedcomWriterException {
         if (value != null) {
-            List<String> temp = new ArrayList<>();
-            temp.add(value.toString());
-
-            List<String> valueLines = splitLinesOnBreakingCharacters(temp);
-            emitValueLines(level, xref, tag, valueLines);
+            emitValue(level, xref, tag, value.toString(), 0, false);
 
             emitCustomFacts(level + 1, value.getCustomFacts());
         }
@@ -501,17 +546,15 @@ abstract class AbstractEmitter<T> {
         if (e == null || e.getValue() == null || e.getValue().trim().length() == 0) {
             throw new GedcomWriterException("Required value for tag " + tag + " at level " + level + " was null or blank");
         }
-        List<String> temp = new ArrayList<>();
-        temp.add(e.getValue());
-        List<String> valueLines = splitLinesOnBreakingCharacters(temp);
-
-        emitValueLines(level, xref, tag, valueLines);
+        emitValue(level, xref, tag, e.getValue(), 0, false);
 
         emitCustomFacts(level + 1, e.getCustomFacts());
     }
 
     /**
-     * Emit the value lines that have been split on line breaks
+     * Emit a value that may contain line breaks, in a single pass over the value. The first line of the value goes on a line with
+     * the tag, and each subsequent line goes on a CONT line; any line that is too long is split with CONC lines. Each line is built
+     * in the writer's reusable line buffer.
      * 
      * @param level
      *            the level within the file hierarchy
@@ -519,27 +562,46 @@ abstract class AbstractEmitter<T> {
      *            the xref for the item, if any
      * @param tag
      *            the tag for the line of the file
-     * @param valueLines
+     * @param value
      *            the value to write to the right of the tag
+     * @param lineNum
+     *            the number of lines of the value already emitted - if not zero, the value is a continuation of text already
+     *            emitted, and starts on a CONT line
+     * @param linesOfText
+     *            true if this is multi-line text (see {@link #emitLinesOfText(int, String, String, List)}), where CONT lines repeat
+     *            the xref and their CONC lines are at the same level as the CONT lines
+     * @return the number of lines of the value emitted, including those already emitted
      */
-    private void emitValueLines(int level, String xref, String tag, List<String> valueLines) {
-        boolean first = true;
-        for (String v : valueLines) {
-            StringBuilder line = new StringBuilder();
-            if (first) {
+    private int emitValue(int level, String xref, String tag, String value, int lineNum, boolean linesOfText) {
+        boolean hasXref = xref != null && xref.length() > 0;
+        int end = lengthWithoutTrailingBreaks(value);
+        int start = 0;
+        int n = lineNum;
+        StringBuilder line = baseWriter.lineBuffer;
+        while (start <= end) {
+            int lineBreak = indexOfBreak(value, start, end);
+            line.setLength(0);
+            int concLevel;
+            if (n == 0) {
                 line.append(level);
-                if (xref != null && xref.length() > 0) {
-                    line.append(" ").append(xref);
+                if (hasXref) {
+                    line.append(' ').append(xref);
                 }
-                line.append(" ").append(tag).append(" ").append(v);
-                emitAndSplit(level, line.toString());
+                line.append(' ').append(tag).append(' ');
+                concLevel = level + 1;
             } else {
                 line.append(level + 1);
-                line.append(" CONT ").append(v);
-                emitAndSplit(level + 1, line.toString());
+                if (linesOfText && hasXref) {
+                    line.append(' ').append(xref);
+                }
+                line.append(" CONT ");
+                concLevel = linesOfText ? level + 1 : level + 2;
             }
-
-            first = false;
+            line.append(value, start, lineBreak);
+            emitAndSplit(concLevel, line);
+            n++;
+            start = lineBreak + breakLength(value, lineBreak);
         }
+        return n;
     }
 }
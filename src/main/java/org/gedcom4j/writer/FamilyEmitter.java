@@ -68,6 +68,9 @@ class FamilyEmitter extends AbstractEmitter<Collection<Family>> {
     @Override
     protected void emit() throws GedcomWriterException {
         for (Family f : writeFrom) {
+            if (emitOriginalLines(f)) {
+                continue;
+            }
             emitTag(0, f.getXref(), "FAM");
             if (f.getEvents() != null) {
                 for (FamilyEvent e : f.getEvents()) {
@@ -120,6 +123,7 @@ class FamilyEmitter extends AbstractEmitter<Collection<Family>> {
             emitTagIfValueNotNull(1, "RIN", f.getAutomatedRecordId());
             new ChangeDateEmitter(baseWriter, 1, f.getChangeDate()).emit();
             emitCustomFacts(1, f.getCustomFacts());
+            baseWriter.flushLinesIfNeeded();
         }
     }
 
@@ -31,9 +31,31 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.gedcom4j.exception.GedcomWriterException;
 import org.gedcom4j.exception.GedcomWriterVersionDataMismatchException;
@@ -44,13 +66,20 @@ import org.gedcom4j.io.writer.GedcomFileWriter;
 import org.gedcom4j.io.writer.LineTerminator;
 import org.gedcom4j.model.AbstractAddressableElement;
 import org.gedcom4j.model.AbstractEvent;
+import org.gedcom4j.model.Family;
 import org.gedcom4j.model.FamilyChild;
 import org.gedcom4j.model.Gedcom;
 import org.gedcom4j.model.GedcomVersion;
+import org.gedcom4j.model.HasChangeCount;
+import org.gedcom4j.model.HasOriginalLines;
+import org.gedcom4j.model.HasXref;
 import org.gedcom4j.model.Individual;
 import org.gedcom4j.model.IndividualAttribute;
+import org.gedcom4j.model.ModelElement;
 import org.gedcom4j.model.Multimedia;
+import org.gedcom4j.model.NoteRecord;
 import org.gedcom4j.model.Repository;
+import org.gedcom4j.model.Source;
 import org.gedcom4j.model.StringWithCustomFacts;
 import org.gedcom4j.model.Submitter;
 import org.gedcom4j.model.enumerations.IndividualAttributeType;
@@ -95,6 +124,12 @@ import org.gedcom4j.writer.event.ConstructProgressListener;
  * autorepair on if you want.
  * </p>
  * 
+ * <h3>Streaming</h3>
+ * <p>
+ * By default, all the lines of the file are constructed in memory before any of them are written. For very large files, turn on
+ * streaming (see {@link #setStreaming(boolean)}) to have the lines written out in batches as they are constructed instead.
+ * </p>
+ * 
  * @author frizbog1
  */
 /**
@@ -103,12 +138,30 @@ import org.gedcom4j.writer.event.ConstructProgressListener;
  */
 @SuppressWarnings({ "PMD.GodClass", "PMD.TooManyMethods", "PMD.ExcessiveImports" })
 public class GedcomWriter extends AbstractEmitter<Gedcom> {
+    /**
+     * The number of zero bytes written at a time when allocating the space for a file up front
+     */
+    private static final int PREALLOCATION_CHUNK_SIZE = 64 * 1024;
+
     /**
      * The text lines of the GEDCOM file we're writing, which will be written using a {@link GedcomFileWriter}. Deliberately
-     * package-private so tests can access it but others can't alter it.
+     * package-private so tests can access it but others can't alter it. When streaming, this only holds the lines that have been
+     * constructed but not yet written.
      */
     List<String> lines = new ArrayList<>();
 
+    /**
+     * A buffer the emitters build each line in, reused from line to line so that a new one isn't needed for every line.
+     * Deliberately package-private so the emitters can use it.
+     */
+    final StringBuilder lineBuffer = new StringBuilder(256);
+
+    /**
+     * Did the validator make any automatic repairs on the current write? If so, neither the lines records were loaded from nor the
+     * lines rendered on earlier writes are used, since the repaired records aren't marked as changed.
+     */
+    private boolean autoRepaired;
+
     /**
      * The auto repair responder.
      */
@@ -117,7 +170,7 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
     /**
      * Has this writer been cancelled?
      */
-    private boolean cancelled;
+    private volatile boolean cancelled;
 
     /**
      * Send a notification whenever more than this many lines are constructed
@@ -129,6 +182,12 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
      */
     private final List<WeakReference<ConstructProgressListener>> constructObservers = new CopyOnWriteArrayList<>();
 
+    /**
+     * The number of threads to construct the records' lines on. If 1, records are constructed one after another on the calling
+     * thread.
+     */
+    private int emissionThreadCount = 1;
+
     /**
      * Send a notification whenever more than this many lines are written to a file
      */
@@ -139,21 +198,94 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
      */
     private final List<WeakReference<FileProgressListener>> fileObservers = new CopyOnWriteArrayList<>();
 
+    /**
+     * Whether to force the data out to the storage device after writing to a file channel
+     */
+    private boolean forceToStorage = false;
+
+    /**
+     * Whether to validate only the records that have changed since the last write that passed validation
+     */
+    private boolean incrementalValidation = false;
+
     /**
      * The number of lines constructed as last reported to the observers
      */
     private int lastLineCountNotified = 0;
 
+    /**
+     * The number of lines constructed so far. Not necessarily the same as the size of {@link #lines} when streaming.
+     */
+    private int linesConstructed = 0;
+
     /**
      * The line terminator to use
      */
     private LineTerminator lineTerminator = LineTerminator.getDefaultLineTerminator();
 
+    /**
+     * Can the lines records were loaded from be written back out verbatim on the current write? Worked out once per write - see
+     * {@link #areOriginalLinesReusable()}.
+     */
+    private boolean originalLinesReusable;
+
+    /**
+     * The number of bytes to allocate for a file by writing zeros before writing it, or 0 for none
+     */
+    private long preallocationSize = 0;
+
+    /**
+     * The writers that render records one at a time, one for each thread rendering them, while the records are being emitted
+     * separately (see {@link #emitRecordsSeparately()}). Null otherwise.
+     */
+    private ThreadLocal<GedcomWriter> recordWriters;
+
+    /**
+     * The lines rendered for each record on the last write, by record identity, when reusing the lines for unchanged records
+     */
+    private Map<Object, RenderedRecord> renderedRecords = new IdentityHashMap<>();
+
+    /**
+     * Whether {@link #renderedRecords} were rendered for GEDCOM 5.5 (as opposed to 5.5.1)
+     */
+    private boolean renderedRecordsG55;
+
+    /**
+     * Whether to reuse the lines rendered on the last write for records that have not been marked as changed since
+     */
+    private boolean reuseUnchangedRecords = false;
+
+    /**
+     * Whether to write the file while the lines are still being constructed, rather than constructing all the lines first
+     */
+    private boolean streaming = false;
+
+    /**
+     * When streaming, write out the constructed lines once at least this many have accumulated
+     */
+    private int streamingBufferSize = 1000;
+
+    /**
+     * The file writer the lines are passed to whenever the buffer fills up, when streaming. Null when not streaming.
+     */
+    private GedcomFileWriter streamingFileWriter;
+
+    /**
+     * The output stream being written to, when streaming. Null when not streaming.
+     */
+    private OutputStream streamingOut;
+
     /**
      * Whether to use little-endian unicode
      */
     private boolean useLittleEndianForUnicode = true;
 
+    /**
+     * The change counts of the records at the time of the last write that passed validation, by record identity, when validating
+     * incrementally. Null if there hasn't been one.
+     */
+    private Map<HasChangeCount, Integer> validatedChangeCounts;
+
     /**
      * Are we suppressing the call to the validator?
      */
@@ -202,6 +334,15 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
         return constructionNotificationRate;
     }
 
+    /**
+     * Get the number of threads to construct the records' lines on
+     * 
+     * @return the number of threads to construct the records' lines on
+     */
+    public int getEmissionThreadCount() {
+        return emissionThreadCount;
+    }
+
     /**
      * Get the number of lines to be written between each file notification
      * 
@@ -220,6 +361,24 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
         return lineTerminator;
     }
 
+    /**
+     * Get the number of bytes allocated for a file before writing it to a {@link Path}
+     * 
+     * @return the number of bytes allocated for a file before writing it, or 0 if no space is allocated up front
+     */
+    public long getPreallocationSize() {
+        return preallocationSize;
+    }
+
+    /**
+     * Get the number of lines that accumulate before they are written out, when streaming
+     * 
+     * @return the number of lines that accumulate before they are written out, when streaming
+     */
+    public int getStreamingBufferSize() {
+        return streamingBufferSize;
+    }
+
     /**
      * Get the validator
      * 
@@ -238,6 +397,43 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
         return cancelled;
     }
 
+    /**
+     * Is the data forced out to the storage device after writing to a file channel?
+     * 
+     * @return true if the data is forced out to the storage device after writing to a file channel
+     */
+    public boolean isForceToStorage() {
+        return forceToStorage;
+    }
+
+    /**
+     * Are only the records that have changed since the last write that passed validation validated?
+     * 
+     * @return true if only the records that have changed since the last write that passed validation are validated
+     */
+    public boolean isIncrementalValidation() {
+        return incrementalValidation;
+    }
+
+    /**
+     * Are the lines rendered on the last write reused for records that have not been marked as changed since?
+     * 
+     * @return true if the lines rendered on the last write are reused for records that have not been marked as changed since
+     */
+    public boolean isReuseUnchangedRecords() {
+        return reuseUnchangedRecords;
+    }
+
+    /**
+     * Is this writer streaming - that is, writing lines out in batches while they are still being constructed, rather than
+     * constructing all the lines in memory before writing any of them?
+     * 
+     * @return true if this writer is streaming
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
     /**
      * Get the useLittleEndianForUnicode
      * 
@@ -322,6 +518,21 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
         this.constructionNotificationRate = constructionNotificationRate;
     }
 
+    /**
+     * Set the number of threads to construct the records' lines on. When more than 1, the lines for each record are constructed on
+     * a pool of that many threads, and then written in the same order as they would be with just 1, so the output is the same
+     * either way. The default is 1, which constructs the records one after another on the calling thread.
+     * 
+     * @param emissionThreadCount
+     *            the number of threads to construct the records' lines on. Must be 1 or greater.
+     */
+    public void setEmissionThreadCount(int emissionThreadCount) {
+        if (emissionThreadCount < 1) {
+            throw new IllegalArgumentException("Emission Thread Count must be at least 1");
+        }
+        this.emissionThreadCount = emissionThreadCount;
+    }
+
     /**
      * Set the number of lines to be written between each file notification
      * 
@@ -335,6 +546,39 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
         this.fileNotificationRate = fileNotificationRate;
     }
 
+    /**
+     * Set whether the data is forced out to the storage device (see {@link FileChannel#force(boolean)}) after writing to a
+     * {@link Path}, or to a {@link WritableByteChannel} that is a {@link FileChannel}, so that it survives a system crash
+     * 
+     * @param forceToStorage
+     *            true if the data should be forced out to the storage device
+     */
+    public void setForceToStorage(boolean forceToStorage) {
+        this.forceToStorage = forceToStorage;
+    }
+
+    /**
+     * <p>
+     * Set whether to validate only the records that have changed since the last write that passed validation. The first write
+     * validates everything as usual. After that, only the root records that have been added, or whose
+     * {@link HasChangeCount#getChangeCount()} has gone up, are validated again, along with the header, submission and trailer.
+     * The supplementary validators (see {@link Validator#getSupplementaryValidators()}) look across many records at once, so they
+     * are run over all the records whenever any record has been added or changed, and skipped only when nothing has. The findings
+     * from {@link #getValidator()} cover only what was validated on the latest write.
+     * </p>
+     * <p>
+     * Records are not marked as changed automatically: call {@link HasChangeCount#markChanged()} on every record you alter,
+     * including the records that refer to a record you remove. Off by default.
+     * </p>
+     * 
+     * @param incrementalValidation
+     *            true to validate only the records that have changed since the last write that passed validation
+     */
+    public void setIncrementalValidation(boolean incrementalValidation) {
+        this.incrementalValidation = incrementalValidation;
+        validatedChangeCounts = null;
+    }
+
     /**
      * Set the line terminator
      * 
@@ -345,6 +589,71 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
         this.lineTerminator = lineTerminator;
     }
 
+    /**
+     * Set the number of bytes to allocate for a file before writing it to a {@link Path}. The space is allocated by writing that
+     * many zero bytes to the file, so if you know roughly how big the file will be, the file system has to find room for all of it
+     * (and reports a full disk) before any of the data is written. Writing the zeros costs about as much as writing the data does.
+     * The file is truncated to the size actually written afterwards.
+     * 
+     * @param preallocationSize
+     *            the number of bytes to allocate for the file before writing it, or 0 to not allocate any space up front. Must be 0
+     *            or greater.
+     */
+    public void setPreallocationSize(long preallocationSize) {
+        if (preallocationSize < 0) {
+            throw new IllegalArgumentException("Preallocation Size must be at least 0");
+        }
+        this.preallocationSize = preallocationSize;
+    }
+
+    /**
+     * <p>
+     * Set whether to reuse the lines rendered on the last write for records that have not been marked as changed since. When on,
+     * this writer remembers the lines it rendered for each root record (individuals, families, multimedia, notes, repositories,
+     * sources and submitters), and on the next write only renders the records whose {@link HasChangeCount#getChangeCount()} has
+     * gone up since, plus any records that have been added. This makes writing the same {@link Gedcom} again after a small edit
+     * much cheaper.
+     * </p>
+     * <p>
+     * Records are not marked as changed automatically: call {@link HasChangeCount#markChanged()} on every record you alter,
+     * including when the alteration is to something nested inside the record, such as a name or an event. If a record's xref has
+     * changed, everything is rendered again, since other records may refer to it. Off by default.
+     * </p>
+     * 
+     * @param reuseUnchangedRecords
+     *            true to reuse the lines rendered on the last write for records that have not been marked as changed since
+     */
+    public void setReuseUnchangedRecords(boolean reuseUnchangedRecords) {
+        this.reuseUnchangedRecords = reuseUnchangedRecords;
+        renderedRecords = new IdentityHashMap<>();
+    }
+
+    /**
+     * Set whether this writer is streaming. When streaming, lines are written out in batches of about
+     * {@link #getStreamingBufferSize()} lines while the rest are still being constructed, so the lines for the whole file are
+     * never held in memory at once. Streaming is off by default.
+     * 
+     * @param streaming
+     *            true if this writer should stream
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Set the number of lines that accumulate before they are written out, when streaming. Lines are only written out between
+     * records, so a single large record can make the buffer grow beyond this size.
+     * 
+     * @param streamingBufferSize
+     *            the number of lines that accumulate before they are written out, when streaming. Must be 1 or greater.
+     */
+    public void setStreamingBufferSize(int streamingBufferSize) {
+        if (streamingBufferSize < 1) {
+            throw new IllegalArgumentException("Streaming Buffer Size must be at least 1");
+        }
+        this.streamingBufferSize = streamingBufferSize;
+    }
+
     /**
      * Set the useLittleEndianForUnicode
      * 
@@ -414,12 +723,7 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
      *             if the data is malformed and cannot be written
      */
     public void write(File file) throws IOException, GedcomWriterException {
-        // Automatically replace the contents of the filename in the header
-        if (writeFrom.getHeader().getFileName() != null) {
-            writeFrom.getHeader().getFileName().setValue(file.getName());
-        } else {
-            writeFrom.getHeader().setFileName(new StringWithCustomFacts(file.getName()));
-        }
+        setHeaderFileName(file.getName());
 
         // If the file doesn't exist yet, we have to create it, otherwise a FileNotFoundException will be thrown
         if (!file.exists() && !file.getCanonicalFile().getParentFile().exists() && !file.getCanonicalFile().getParentFile().mkdirs()
@@ -443,6 +747,10 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
      *             severity ERROR (and validation is not suppressed - see {@link GedcomWriter#validationSuppressed})
      */
     public void write(OutputStream out) throws GedcomWriterException {
+        if (streaming) {
+            writeStreaming(out);
+            return;
+        }
         emit();
         try {
             GedcomFileWriter gfw = new GedcomFileWriter(this, lines);
@@ -454,6 +762,46 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
         }
     }
 
+    /**
+     * Write the {@link Gedcom} data as a GEDCOM 5.5 file through a {@link FileChannel}. Automatically fills in the value for the
+     * FILE tag in the HEAD structure. If {@link #getPreallocationSize()} is set, that many zero bytes are written to the file
+     * first, and it is truncated to the data actually written afterwards, even if the write fails. The data is forced to the
+     * storage device afterwards if {@link #isForceToStorage()} is set.
+     * 
+     * @param path
+     *            the path of the file to write to
+     * @throws IOException
+     *             if there's a problem writing the data
+     * @throws GedcomWriterException
+     *             if the data is malformed and cannot be written
+     */
+    public void write(Path path) throws IOException, GedcomWriterException {
+        setHeaderFileName(path.getFileName().toString());
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            if (preallocationSize > 0) {
+                preallocate(channel);
+            }
+            try {
+                write(Channels.newOutputStream(channel));
+            } finally {
+                // Trim off the unused preallocated space, even if the write failed part way through
+                if (preallocationSize > 0) {
+                    channel.truncate(channel.position());
+                }
+            }
+            if (forceToStorage) {
+                channel.force(true);
+            }
+        }
+    }
+
     /**
      * Write the {@link Gedcom} data as a GEDCOM 5.5 file, with the supplied file name
      * 
@@ -469,51 +817,199 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
         write(f);
     }
 
+    /**
+     * Write the {@link Gedcom} data in GEDCOM 5.5 format to a channel, such as a {@link FileChannel} or the sink of a
+     * {@link java.nio.channels.Pipe}. The encoded data is written to the channel in large chunks straight from the encoding
+     * buffer. The channel is not closed. If it is a {@link FileChannel}, the data is forced to the storage device afterwards if
+     * {@link #isForceToStorage()} is set.
+     * 
+     * @param channel
+     *            the channel we're writing to. Must be in blocking mode.
+     * @throws GedcomWriterException
+     *             if the data is malformed and cannot be written; or if the data fails validation with one or more finding of
+     *             severity ERROR (and validation is not suppressed - see {@link GedcomWriter#validationSuppressed})
+     */
+    public void write(WritableByteChannel channel) throws GedcomWriterException {
+        write(Channels.newOutputStream(channel));
+        if (forceToStorage && channel instanceof FileChannel) {
+            try {
+                ((FileChannel) channel).force(true);
+            } catch (IOException e) {
+                throw new GedcomWriterException("Unable to write file", e);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected void emit() throws GedcomWriterException {
+        autoRepaired = false;
         if (!validationSuppressed) {
             validator = new Validator(writeFrom);
             validator.setAutoRepairResponder(getAutoRepairResponder());
+            if (incrementalValidation && validatedChangeCounts != null) {
+                validator.setRecordsToValidate(getRecordsChangedSinceValidation());
+            }
             validator.validate();
             int numUnrepairedErrorFindings = 0;
             for (Finding f : validator.getResults().getAllFindings()) {
-                if (f.getSeverity() == Severity.ERROR && (f.getRepairs() == null || f.getRepairs().isEmpty())) {
+                boolean repaired = f.getRepairs() != null && !f.getRepairs().isEmpty();
+                if (f.getSeverity() == Severity.ERROR && !repaired) {
                     numUnrepairedErrorFindings++;
                 }
+                autoRepaired |= repaired;
             }
             if (numUnrepairedErrorFindings > 0) {
                 throw new GedcomWriterException("Cannot write file - " + numUnrepairedErrorFindings
                         + " error(s) found during validation requiring repair.  Review the validation findings to determine root cause.");
             }
+            if (incrementalValidation) {
+                validatedChangeCounts = getChangeCounts();
+            }
         }
         checkVersionCompatibility();
+        originalLinesReusable = areOriginalLinesReusable();
+        lines.clear();
+        linesConstructed = 0;
+        lastLineCountNotified = 0;
         new HeaderEmitter(baseWriter, 0, writeFrom.getHeader()).emit();
         new SubmissionEmitter(baseWriter, 0, writeFrom.getSubmission()).emit();
-        new IndividualEmitter(baseWriter, 0, writeFrom.getIndividuals().values()).emit();
-        new FamilyEmitter(baseWriter, 0, writeFrom.getFamilies().values()).emit();
-        if (g55()) {
-            new Multimedia55Emitter(baseWriter, 0, writeFrom.getMultimedia().values()).emit();
+        if (emissionThreadCount > 1 || reuseUnchangedRecords) {
+            emitRecordsSeparately();
         } else {
-            new Multimedia551Emitter(baseWriter, 0, writeFrom.getMultimedia().values()).emit();
+            new IndividualEmitter(baseWriter, 0, writeFrom.getIndividuals().values()).emit();
+            new FamilyEmitter(baseWriter, 0, writeFrom.getFamilies().values()).emit();
+            if (g55()) {
+                new Multimedia55Emitter(baseWriter, 0, writeFrom.getMultimedia().values()).emit();
+            } else {
+                new Multimedia551Emitter(baseWriter, 0, writeFrom.getMultimedia().values()).emit();
+            }
+            new NoteRecordEmitter(baseWriter, 0, writeFrom.getNotes().values()).emit();
+            new RepositoryEmitter(baseWriter, 0, writeFrom.getRepositories().values()).emit();
+            new SourceEmitter(baseWriter, 0, writeFrom.getSources().values()).emit();
+            new SubmittersEmitter(this, 0, writeFrom.getSubmitters().values()).emit();
         }
-        new NoteRecordEmitter(baseWriter, 0, writeFrom.getNotes().values()).emit();
-        new RepositoryEmitter(baseWriter, 0, writeFrom.getRepositories().values()).emit();
-        new SourceEmitter(baseWriter, 0, writeFrom.getSources().values()).emit();
-        new SubmittersEmitter(this, 0, writeFrom.getSubmitters().values()).emit();
         emitCustomFacts(0, writeFrom.getCustomFacts());
         emitTrailer();
     }
 
+    /**
+     * Add a constructed line
+     * 
+     * @param line
+     *            the line to add
+     */
+    void addLine(String line) {
+        lines.add(line);
+        linesConstructed++;
+    }
+
+    /**
+     * When streaming, write out the lines constructed so far if enough have accumulated. Called by the emitters between records.
+     * 
+     * @throws GedcomWriterException
+     *             if the lines cannot be written
+     */
+    void flushLinesIfNeeded() throws GedcomWriterException {
+        if (streamingFileWriter != null && lines.size() >= streamingBufferSize) {
+            flushLines();
+        }
+    }
+
+    /**
+     * Can the lines records were loaded from be written back out verbatim on the current write?
+     * 
+     * @return true if the lines records were loaded from can be written back out verbatim for records that haven't changed
+     */
+    boolean isOriginalLinesReusable() {
+        return originalLinesReusable;
+    }
+
     /**
      * Notify construct observers if more than 100 lines have been constructed since last time we notified them
      */
     void notifyConstructObserversIfNeeded() {
-        if (lines.size() - lastLineCountNotified > constructionNotificationRate) {
-            notifyConstructObservers(new ConstructProgressEvent(this, lines.size(), true));
+        if (linesConstructed - lastLineCountNotified > constructionNotificationRate) {
+            notifyConstructObservers(new ConstructProgressEvent(this, linesConstructed, true));
+        }
+    }
+
+    /**
+     * Add the lines rendered for a record, once they are ready, then notify the observers and write the lines out as needed
+     * 
+     * @param rendered
+     *            the lines rendered for the record
+     * @param current
+     *            the lines rendered for each record on this write, to be reused on the next one. Null if not reusing lines.
+     * @throws GedcomWriterException
+     *             if the record could not be rendered or the lines could not be written
+     */
+    private void addRenderedLines(Future<RenderedRecord> rendered, Map<Object, RenderedRecord> current)
+            throws GedcomWriterException {
+        RenderedRecord renderedRecord;
+        try {
+            renderedRecord = rendered.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriterCancelledException("Construction of GEDCOM data interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof GedcomWriterException) {
+                throw (GedcomWriterException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new GedcomWriterException("Unable to construct record", e.getCause());
+        }
+        for (String line : renderedRecord.lines) {
+            addLine(line);
+        }
+        if (current != null) {
+            current.put(renderedRecord.record, renderedRecord);
         }
+        notifyConstructObserversIfNeeded();
+        if (isCancelled()) {
+            throw new WriterCancelledException("Construction of GEDCOM data cancelled");
+        }
+        flushLinesIfNeeded();
+    }
+
+    /**
+     * Can the lines records were loaded from be written back out verbatim? They can't be if the data is being written in a
+     * different GEDCOM version than the file was loaded from, if any record's xref has changed since it was loaded, since other
+     * records' lines may refer to it, or if the validator made any automatic repairs, since the records it repaired aren't marked
+     * as changed.
+     * 
+     * @return true if the lines records were loaded from can be written back out verbatim for records that haven't changed
+     */
+    private boolean areOriginalLinesReusable() {
+        if (autoRepaired) {
+            return false;
+        }
+        String version = null;
+        if (writeFrom.getHeader() != null && writeFrom.getHeader().getGedcomVersion() != null && writeFrom.getHeader()
+                .getGedcomVersion().getVersionNumber() != null) {
+            version = writeFrom.getHeader().getGedcomVersion().getVersionNumber().getValue();
+        }
+        if (!Objects.equals(writeFrom.getOriginalLinesVersion(), version)) {
+            return false;
+        }
+        for (Collection<? extends HasChangeCount> records : getRecordCollections()) {
+            for (HasChangeCount record : records) {
+                if (record instanceof HasOriginalLines) {
+                    HasOriginalLines r = (HasOriginalLines) record;
+                    if (r.getOriginalLines() != null && !r.getOriginalLines().startsWith("0 " + r.getXref() + " ")) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
     }
 
     /**
@@ -671,12 +1167,195 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
         }
     }
 
+    /**
+     * Emit the lines for a single record
+     * 
+     * @param record
+     *            the record to emit
+     * @throws GedcomWriterException
+     *             if the data is malformed and cannot be written
+     */
+    private void emitRecord(Object record) throws GedcomWriterException {
+        if (record instanceof Individual) {
+            new IndividualEmitter(this, 0, Collections.singletonList((Individual) record)).emit();
+        } else if (record instanceof Family) {
+            new FamilyEmitter(this, 0, Collections.singletonList((Family) record)).emit();
+        } else if (record instanceof Multimedia) {
+            if (g55()) {
+                new Multimedia55Emitter(this, 0, Collections.singletonList((Multimedia) record)).emit();
+            } else {
+                new Multimedia551Emitter(this, 0, Collections.singletonList((Multimedia) record)).emit();
+            }
+        } else if (record instanceof NoteRecord) {
+            new NoteRecordEmitter(this, 0, Collections.singletonList((NoteRecord) record)).emit();
+        } else if (record instanceof Repository) {
+            new RepositoryEmitter(this, 0, Collections.singletonList((Repository) record)).emit();
+        } else if (record instanceof Source) {
+            new SourceEmitter(this, 0, Collections.singletonList((Source) record)).emit();
+        } else if (record instanceof Submitter) {
+            new SubmittersEmitter(this, 0, Collections.singletonList((Submitter) record)).emit();
+        } else {
+            throw new GedcomWriterException("Unexpected record type " + record.getClass().getName());
+        }
+    }
+
+    /**
+     * Construct the lines for the records one record at a time, on a pool of {@link #emissionThreadCount} threads if there is more
+     * than one, reusing the lines from the last write for unchanged records if {@link #reuseUnchangedRecords} is set. The lines are
+     * added in the same order they would be added by constructing all the records of each type together. Only a limited number of
+     * records are constructed ahead of the one being added, so memory use stays bounded when streaming.
+     * 
+     * @throws GedcomWriterException
+     *             if the data is malformed and cannot be written
+     */
+    private void emitRecordsSeparately() throws GedcomWriterException {
+        Map<Object, RenderedRecord> previous = getReusableRenderedRecords();
+        Map<Object, RenderedRecord> current = null;
+        if (reuseUnchangedRecords) {
+            current = new IdentityHashMap<>();
+        }
+        recordWriters = new ThreadLocal<>();
+        ExecutorService executor = null;
+        if (emissionThreadCount > 1) {
+            executor = Executors.newFixedThreadPool(emissionThreadCount, new ThreadFactory() {
+                private final AtomicInteger threadNum = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "gedcom4j-writer-" + threadNum.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        try {
+            int maxRecordsAhead = emissionThreadCount * 4;
+            Deque<Future<RenderedRecord>> pending = new ArrayDeque<>();
+            for (Collection<? extends HasChangeCount> records : getRecordCollections()) {
+                for (Object record : records) {
+                    if (pending.size() >= maxRecordsAhead) {
+                        addRenderedLines(pending.removeFirst(), current);
+                    }
+                    FutureTask<RenderedRecord> task = new FutureTask<>(new RecordRenderer(record, previous.get(record)));
+                    if (executor == null) {
+                        task.run();
+                    } else {
+                        executor.execute(task);
+                    }
+                    pending.add(task);
+                }
+            }
+            while (!pending.isEmpty()) {
+                addRenderedLines(pending.removeFirst(), current);
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            // The records are rendered on this thread if there is no executor, and its writer mustn't outlive the write
+            recordWriters.remove();
+            recordWriters = null;
+        }
+        if (current != null) {
+            renderedRecords = current;
+            renderedRecordsG55 = g55();
+        }
+    }
+
     /**
      * Write out the trailer record
      */
     private void emitTrailer() {
-        lines.add("0 TRLR");
-        notifyConstructObservers(new ConstructProgressEvent(this, lines.size(), true));
+        addLine("0 TRLR");
+        notifyConstructObservers(new ConstructProgressEvent(this, linesConstructed, true));
+    }
+
+    /**
+     * Write out the lines constructed so far and empty the buffer, when streaming
+     * 
+     * @throws GedcomWriterException
+     *             if the lines cannot be written
+     */
+    private void flushLines() throws GedcomWriterException {
+        try {
+            streamingFileWriter.writeLines(streamingOut);
+        } catch (IOException e) {
+            throw new GedcomWriterException("Unable to write file", e);
+        }
+        lines.clear();
+    }
+
+    /**
+     * Get the current change count of every record, by record identity
+     * 
+     * @return the current change count of every record, by record identity
+     */
+    private Map<HasChangeCount, Integer> getChangeCounts() {
+        Map<HasChangeCount, Integer> result = new IdentityHashMap<>();
+        for (Collection<? extends HasChangeCount> records : getRecordCollections()) {
+            for (HasChangeCount record : records) {
+                if (record != null) {
+                    result.put(record, record.getChangeCount());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the collections of root records, in the order they are written
+     * 
+     * @return the collections of root records, in the order they are written
+     */
+    private List<Collection<? extends HasChangeCount>> getRecordCollections() {
+        List<Collection<? extends HasChangeCount>> result = new ArrayList<>();
+        result.add(writeFrom.getIndividuals().values());
+        result.add(writeFrom.getFamilies().values());
+        result.add(writeFrom.getMultimedia().values());
+        result.add(writeFrom.getNotes().values());
+        result.add(writeFrom.getRepositories().values());
+        result.add(writeFrom.getSources().values());
+        result.add(writeFrom.getSubmitters().values());
+        return result;
+    }
+
+    /**
+     * Get the records that have been added, or marked as changed, since the last write that passed validation
+     * 
+     * @return the records that have been added, or marked as changed, since the last write that passed validation
+     */
+    private List<ModelElement> getRecordsChangedSinceValidation() {
+        List<ModelElement> result = new ArrayList<>();
+        for (Collection<? extends HasChangeCount> records : getRecordCollections()) {
+            for (HasChangeCount record : records) {
+                if (record != null) {
+                    Integer validatedChangeCount = validatedChangeCounts.get(record);
+                    if (validatedChangeCount == null || validatedChangeCount.intValue() != record.getChangeCount()) {
+                        result.add(record);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the lines rendered for each record on the last write, if they can be reused on this one. They can't be if reuse is off,
+     * if the GEDCOM version has changed, if any record's xref has changed, since other records' lines may refer to it, or if the
+     * validator made any automatic repairs, since the records it repaired aren't marked as changed.
+     * 
+     * @return the lines rendered for each record on the last write, or an empty map if they can't be reused
+     */
+    private Map<Object, RenderedRecord> getReusableRenderedRecords() {
+        if (!reuseUnchangedRecords || autoRepaired || renderedRecordsG55 != g55()) {
+            return Collections.emptyMap();
+        }
+        for (RenderedRecord r : renderedRecords.values()) {
+            if (!r.hasSameXref()) {
+                return Collections.emptyMap();
+            }
+        }
+        return renderedRecords;
     }
 
     /**
@@ -702,4 +1381,229 @@ public class GedcomWriter extends AbstractEmitter<Gedcom> {
         }
     }
 
+    /**
+     * Allocate the space for a file up front, by writing {@link #preallocationSize} zero bytes to it. The channel's position is
+     * left where it was.
+     * 
+     * @param channel
+     *            the channel to the file
+     * @throws IOException
+     *             if the zeros can't be written
+     */
+    private void preallocate(FileChannel channel) throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocate((int) Math.min(PREALLOCATION_CHUNK_SIZE, preallocationSize));
+        long pos = 0;
+        while (pos < preallocationSize) {
+            zeros.clear();
+            zeros.limit((int) Math.min(zeros.capacity(), preallocationSize - pos));
+            pos += channel.write(zeros, pos);
+        }
+    }
+
+    /**
+     * Automatically replace the contents of the filename in the header
+     * 
+     * @param fileName
+     *            the name of the file being written
+     */
+    private void setHeaderFileName(String fileName) {
+        if (writeFrom.getHeader().getFileName() != null) {
+            writeFrom.getHeader().getFileName().setValue(fileName);
+        } else {
+            writeFrom.getHeader().setFileName(new StringWithCustomFacts(fileName));
+        }
+    }
+
+    /**
+     * Write the {@link Gedcom} data in GEDCOM 5.5 format to an output stream, writing out the lines in batches as they are
+     * constructed
+     * 
+     * @param out
+     *            the output stream we're writing to
+     * @throws GedcomWriterException
+     *             if the data is malformed and cannot be written; or if the data fails validation with one or more finding of
+     *             severity ERROR (and validation is not suppressed - see {@link GedcomWriter#validationSuppressed})
+     */
+    private void writeStreaming(OutputStream out) throws GedcomWriterException {
+        streamingFileWriter = new GedcomFileWriter(this, lines);
+        streamingFileWriter.setUseLittleEndianForUnicode(useLittleEndianForUnicode);
+        streamingFileWriter.setTerminator(getLineTerminator());
+        streamingOut = out;
+        try {
+            emit();
+            flushLines();
+            streamingFileWriter.finish(out);
+        } catch (IOException e) {
+            throw new GedcomWriterException("Unable to write file", e);
+        } finally {
+            streamingFileWriter = null;
+            streamingOut = null;
+        }
+    }
+
+    /**
+     * Renders a single record into its own list of lines, on a worker thread when emitting in parallel, unless the lines from the
+     * last write can be reused
+     */
+    private final class RecordRenderer implements Callable<RenderedRecord> {
+        /**
+         * The lines rendered for the record on the last write, if they might be reused. Null if there are none.
+         */
+        private final RenderedRecord previous;
+
+        /**
+         * The record to render
+         */
+        private final Object record;
+
+        /**
+         * Constructor
+         * 
+         * @param record
+         *            the record to render
+         * @param previous
+         *            the lines rendered for the record on the last write, if they might be reused. Null if there are none.
+         */
+        RecordRenderer(Object record, RenderedRecord previous) {
+            this.record = record;
+            this.previous = previous;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public RenderedRecord call() throws GedcomWriterException {
+            if (previous != null && previous.isCurrent()) {
+                return previous;
+            }
+            GedcomWriter recordWriter = recordWriters.get();
+            if (recordWriter == null) {
+                recordWriter = new RecordWriter(GedcomWriter.this);
+                recordWriters.set(recordWriter);
+            }
+            // The lines go with the rendered record, so the writer starts a new list for each record
+            recordWriter.lines = new ArrayList<>();
+            recordWriter.lineBuffer.setLength(0);
+            recordWriter.emitRecord(record);
+            return new RenderedRecord(record, recordWriter.lines);
+        }
+    }
+
+    /**
+     * A writer that collects the lines for one record at a time, for emitting records separately. Each thread rendering records
+     * has one, which it reuses from record to record. It shares the data and cancellation state of the writer it is working for,
+     * but leaves the notifications and the writing of lines to that writer.
+     */
+    private static final class RecordWriter extends GedcomWriter {
+        /**
+         * The writer this one is working for
+         */
+        private final GedcomWriter parent;
+
+        /**
+         * Constructor
+         * 
+         * @param parent
+         *            the writer this one is working for
+         * @throws WriterCancelledException
+         *             if cancellation was requested during the operation
+         */
+        RecordWriter(GedcomWriter parent) throws WriterCancelledException {
+            super(parent.writeFrom);
+            this.parent = parent;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isCancelled() {
+            return parent.isCancelled();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void flushLinesIfNeeded() {
+            // The parent writes the lines out
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean isOriginalLinesReusable() {
+            return parent.isOriginalLinesReusable();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void notifyConstructObserversIfNeeded() {
+            // The parent notifies the observers
+        }
+    }
+
+    /**
+     * The lines rendered for a record, along with what the record looked like when they were rendered, so they can be reused if
+     * the record has not changed since
+     */
+    private static final class RenderedRecord {
+        /**
+         * The record's change count when the lines were rendered
+         */
+        private final int changeCount;
+
+        /**
+         * The lines rendered for the record
+         */
+        private final List<String> lines;
+
+        /**
+         * The record
+         */
+        private final Object record;
+
+        /**
+         * The record's xref when the lines were rendered
+         */
+        private final String xref;
+
+        /**
+         * Constructor
+         * 
+         * @param record
+         *            the record
+         * @param lines
+         *            the lines rendered for the record
+         */
+        RenderedRecord(Object record, List<String> lines) {
+            this.record = record;
+            this.lines = lines;
+            changeCount = ((HasChangeCount) record).getChangeCount();
+            xref = ((HasXref) record).getXref();
+        }
+
+        /**
+         * Are the lines still current - that is, the record has not been marked as changed since they were rendered?
+         * 
+         * @return true if the lines are still current
+         */
+        boolean isCurrent() {
+            return changeCount == ((HasChangeCount) record).getChangeCount() && hasSameXref();
+        }
+
+        /**
+         * Does the record still have the xref it had when the lines were rendered?
+         * 
+         * @return true if the record still has the xref it had when the lines were rendered
+         */
+        boolean hasSameXref() {
+            return Objects.equals(xref, ((HasXref) record).getXref());
+        }
+    }
+
 }
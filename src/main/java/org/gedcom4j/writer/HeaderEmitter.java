@@ -65,7 +65,7 @@ class HeaderEmitter extends AbstractEmitter<Header> {
         if (header == null) {
             header = new Header();
         }
-        baseWriter.lines.add("0 HEAD");
+        baseWriter.addLine("0 HEAD");
         emitSourceSystem(header.getSourceSystem());
         emitTagIfValueNotNull(1, "DEST", header.getDestinationSystem());
         if (header.getDate() != null) {
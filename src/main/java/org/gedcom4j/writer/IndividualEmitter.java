@@ -78,6 +78,9 @@ class IndividualEmitter extends AbstractEmitter<Collection<Individual>> {
             return;
         }
         for (Individual i : writeFrom) {
+            if (emitOriginalLines(i)) {
+                continue;
+            }
             emitTag(0, i.getXref(), "INDI");
             emitTagIfValueNotNull(1, "RESN", i.getRestrictionNotice());
             emitPersonalNames(1, i.getNames());
@@ -122,6 +125,7 @@ class IndividualEmitter extends AbstractEmitter<Collection<Individual>> {
             emitTagIfValueNotNull(1, "RIN", i.getRecIdNumber());
             new ChangeDateEmitter(baseWriter, 1, i.getChangeDate()).emit();
             emitCustomFacts(1, i.getCustomFacts());
+            baseWriter.flushLinesIfNeeded();
         }
 
     }
@@ -68,6 +68,9 @@ class Multimedia551Emitter extends AbstractEmitter<Collection<Multimedia>> {
             return;
         }
         for (Multimedia m : writeFrom) {
+            if (emitOriginalLines(m)) {
+                continue;
+            }
             emitTag(0, m.getXref(), "OBJE");
             if (m.getFileReferences() != null) {
                 for (FileReference fr : m.getFileReferences()) {
@@ -106,6 +109,7 @@ class Multimedia551Emitter extends AbstractEmitter<Collection<Multimedia>> {
                 throw new GedcomWriterVersionDataMismatchException("GEDCOM version is 5.5.1, but title on multimedia item " + m
                         .getXref() + " was found.  This is only allowed in GEDCOM 5.5");
             }
+            baseWriter.flushLinesIfNeeded();
         }
     }
 
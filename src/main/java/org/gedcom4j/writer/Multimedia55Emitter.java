@@ -66,6 +66,9 @@ class Multimedia55Emitter extends AbstractEmitter<Collection<Multimedia>> {
             return;
         }
         for (Multimedia m : writeFrom) {
+            if (emitOriginalLines(m)) {
+                continue;
+            }
             emitTag(0, m.getXref(), "OBJE");
             emitTagWithRequiredValue(1, "FORM", m.getEmbeddedMediaFormat());
             emitTagIfValueNotNull(1, "TITL", m.getEmbeddedTitle());
@@ -92,6 +95,7 @@ class Multimedia55Emitter extends AbstractEmitter<Collection<Multimedia>> {
                                 + " which are not allowed until GEDCOM 5.5.1");
             }
             emitCustomFacts(1, m.getCustomFacts());
+            baseWriter.flushLinesIfNeeded();
         }
     }
 
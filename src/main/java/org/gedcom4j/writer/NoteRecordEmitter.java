@@ -64,10 +64,14 @@ class NoteRecordEmitter extends AbstractEmitter<Collection<NoteRecord>> {
     protected void emit() throws GedcomWriterException {
         if (writeFrom != null) {
             for (NoteRecord n : writeFrom) {
+                if (emitOriginalLines(n)) {
+                    continue;
+                }
                 emitNoteRecord(n);
                 if (baseWriter.isCancelled()) {
                     throw new WriterCancelledException("Construction and writing of GEDCOM cancelled");
                 }
+                baseWriter.flushLinesIfNeeded();
             }
         }
     }
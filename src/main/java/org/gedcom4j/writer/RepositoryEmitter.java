@@ -61,6 +61,9 @@ class RepositoryEmitter extends AbstractEmitter<Collection<Repository>> {
     @Override
     protected void emit() throws GedcomWriterException {
         for (Repository r : writeFrom) {
+            if (emitOriginalLines(r)) {
+                continue;
+            }
             emitTag(0, r.getXref(), "REPO");
             emitTagIfValueNotNull(1, "NAME", r.getName());
             new AddressEmitter(baseWriter, 1, r.getAddress()).emit();
@@ -78,6 +81,7 @@ class RepositoryEmitter extends AbstractEmitter<Collection<Repository>> {
             emitStringsWithCustomFacts(1, r.getEmails(), "EMAIL");
             new ChangeDateEmitter(baseWriter, 1, r.getChangeDate()).emit();
             emitCustomFacts(1, r.getCustomFacts());
+            baseWriter.flushLinesIfNeeded();
         }
     }
 
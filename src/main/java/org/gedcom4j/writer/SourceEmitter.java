@@ -66,6 +66,9 @@ class SourceEmitter extends AbstractEmitter<Collection<Source>> {
     @Override
     protected void emit() throws GedcomWriterException {
         for (Source s : writeFrom) {
+            if (emitOriginalLines(s)) {
+                continue;
+            }
             emitTag(0, s.getXref(), "SOUR");
             SourceData d = s.getData();
             if (d != null) {
@@ -99,6 +102,7 @@ class SourceEmitter extends AbstractEmitter<Collection<Source>> {
             emitTagIfValueNotNull(1, "RIN", s.getRecIdNumber());
             new ChangeDateEmitter(baseWriter, 1, s.getChangeDate()).emit();
             emitCustomFacts(1, s.getCustomFacts());
+            baseWriter.flushLinesIfNeeded();
         }
     }
 
@@ -64,6 +64,9 @@ class SubmittersEmitter extends AbstractEmitter<Collection<Submitter>> {
             return;
         }
         for (Submitter s : writeFrom) {
+            if (emitOriginalLines(s)) {
+                continue;
+            }
             emitTag(0, s.getXref(), "SUBM");
             emitTagWithOptionalValueAndCustomSubtags(1, "NAME", s.getName());
             new AddressEmitter(baseWriter, 1, s.getAddress()).emit();
@@ -81,6 +84,7 @@ class SubmittersEmitter extends AbstractEmitter<Collection<Submitter>> {
             emitTagIfValueNotNull(1, "RIN", s.getRecIdNumber());
             new ChangeDateEmitter(baseWriter, 1, s.getChangeDate()).emit();
             emitCustomFacts(1, s.getCustomFacts());
+            baseWriter.flushLinesIfNeeded();
         }
     }
 
@@ -65,6 +65,17 @@ public class AnselHandlerTest {
         assertEquals("2 GIVN Dolor\u00E8s", classUnderTest.toUtf16("2 GIVN Dolor\u00E1es"));
     }
 
+    /**
+     * Test reading a range of a buffer, with plain characters, extended characters, and a diacritic left over at the end of the
+     * range
+     */
+    @Test
+    public void testReadRange() {
+        char[] buffer = "xx2 GIVN Dolor\u00E1es \u00A1\u00E2xx".toCharArray();
+        assertEquals("2 GIVN", classUnderTest.toUtf16(buffer, 2, 6));
+        assertEquals("2 GIVN Dolor\u00E8s \u0141\u0301", classUnderTest.toUtf16(buffer, 2, buffer.length - 4));
+    }
+
     /**
      * This is a longer read test with diacriticals. Note that:
      * <ul>
@@ -112,6 +123,24 @@ public class AnselHandlerTest {
                 .toAnsel("\u00C0B\u0300C\u0300D\u0300\u00C8F\u0300G\u0300H\u0300\u00CCJ\u0300K\u0300L\u0300M\u0300"));
     }
 
+    /**
+     * Test that writing into a byte buffer produces the same bytes as writing to a string, for a mix of plain, extended,
+     * precomposed, combining, and unmapped characters
+     */
+    @Test
+    public void testWriteToBuffer() {
+        String utf16 = "2 GIVN Dolor\u00E8s \u00B0\u1EA2B\u0309C\u0309\u0301\u00C6\u4E00x\uFE20";
+        String expected = classUnderTest.toAnsel(utf16);
+        byte[] buffer = new byte[2 + utf16.length() * 3];
+        buffer[0] = 'x';
+        buffer[1] = 'x';
+        int end = classUnderTest.toAnsel(utf16, buffer, 2);
+        assertEquals(expected.length(), end - 2);
+        for (int i = 0; i < expected.length(); i++) {
+            assertEquals("Byte " + i + " is not equal", (byte) expected.charAt(i), buffer[i + 2]);
+        }
+    }
+
     /**
      * This is a short test for extended characters - degree sign
      */
@@ -42,6 +42,23 @@ import org.junit.Test;
  */
 public class FileProgressEventTest {
 
+    /**
+     * Test an event for a compressed file
+     */
+    @Test
+    public void testCompressed() {
+        FileProgressEvent e = new FileProgressEvent(this, 10, 5000L, 1200L, false);
+        assertTrue(e.isCompressed());
+        assertEquals(5000L, e.getByteOffset());
+        assertEquals(1200L, e.getCompressedByteOffset());
+        assertEquals("FileProgressEvent [complete=false, linesProcessed=10, bytesProcessed=5000, compressedBytesProcessed=1200]", e
+                .toString());
+
+        e = new FileProgressEvent(this, 10, 5000L, false);
+        assertFalse(e.isCompressed());
+        assertEquals(5000L, e.getCompressedByteOffset());
+    }
+
     /**
      * Test #1
      */
@@ -36,6 +36,8 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -208,6 +210,43 @@ public class GedcomFileReaderTest {
         }
     }
 
+    /**
+     * Test reading ANSEL data where combining diacritics are separated from their base characters by a CONC line break, with long
+     * runs of plain characters so that lines span the reader's internal buffer and need synthetic CONC tags
+     * 
+     * @throws IOException
+     *             if the data can't be read
+     * @throws GedcomParserException
+     *             if the file load was cancelled or had malformed data
+     */
+    @Test
+    public void testAnselDiacriticsSplitAcrossLines() throws IOException, GedcomParserException {
+        StringBuilder data = new StringBuilder("0 HEAD\r\n1 CHAR ANSEL\r\n");
+        StringBuilder expected = new StringBuilder("0 HEAD|1 CHAR ANSEL|");
+        while (data.length() < 20000) {
+            data.append("1 NOTE d\u00E2\r\n2 CONC ecid\u00E3\u00F2\n2 CONC a\r\n");
+            expected.append("1 NOTE d|2 CONC \u00E9cid|2 CONC \u1EAD|");
+        }
+        StringBuilder longLine = new StringBuilder("1 NOTE ");
+        while (longLine.length() < 400) {
+            longLine.append("Plain text ");
+        }
+        data.append(longLine).append("\r\n0 TRLR");
+        expected.append(longLine.substring(0, 250)).append("|2 CONC ").append(longLine.substring(250)).append("|0 TRLR|");
+
+        byte[] anselData = data.toString().getBytes(StandardCharsets.ISO_8859_1);
+        try (BufferedInputStream s = new BufferedInputStream(new ByteArrayInputStream(anselData))) {
+            GedcomParser gp = new GedcomParser();
+            GedcomFileReader gr = new GedcomFileReader(gp, s);
+            StringBuilder actual = new StringBuilder();
+            for (String l : getLines(gr)) {
+                actual.append(l).append('|');
+            }
+            assertEquals(expected.toString(), actual.toString());
+            assertEquals(1, gp.getWarnings().size());
+        }
+    }
+
     /**
      * A test for whether the GedcomReader properly handles multi line files with LF-only line terminators
      * 
@@ -374,6 +413,38 @@ public class GedcomFileReaderTest {
         }
     }
 
+    /**
+     * Test reading unicode data in both byte orders, with byte order markers, a mix of line delimiters, and lines and characters
+     * that span the reader's internal buffers
+     * 
+     * @throws IOException
+     *             if the data can't be read
+     * @throws GedcomParserException
+     *             if the file load was cancelled or had malformed data
+     */
+    @Test
+    public void testUnicodeByteOrderMarkersAndBufferBoundaries() throws IOException, GedcomParserException {
+        StringBuilder longLine = new StringBuilder("2 CONC ");
+        while (longLine.length() < 20000) {
+            // Includes a character outside the basic multilingual plane, which takes two chars
+            longLine.append("Gr\u00FCber \uD835\uDC9C ");
+        }
+        String data = "\uFEFF0 HEAD\r\n1 CHAR UNICODE\n\n1 NOTE x\r" + longLine + "\n\r  0 TRLR";
+        for (Charset charset : new Charset[] { StandardCharsets.UTF_16BE, StandardCharsets.UTF_16LE }) {
+            byte[] unicodeData = data.getBytes(charset);
+            try (BufferedInputStream s = new BufferedInputStream(new ByteArrayInputStream(unicodeData))) {
+                GedcomFileReader gr = new GedcomFileReader(new GedcomParser(), s);
+                List<String> lines = getLines(gr);
+                assertEquals(charset.name(), 5, lines.size());
+                assertEquals("0 HEAD", lines.get(0));
+                assertEquals("1 CHAR UNICODE", lines.get(1));
+                assertEquals("1 NOTE x", lines.get(2));
+                assertEquals(longLine.toString(), lines.get(3));
+                assertEquals("0 TRLR", lines.get(4));
+            }
+        }
+    }
+
     /**
      * Test reading unicode data, little-endian byte order, with CRLF's as the line delimiter
      * 
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.io.event.FileProgressEvent;
+import org.gedcom4j.io.event.FileProgressListener;
+import org.gedcom4j.parser.GedcomParser;
+import org.junit.Test;
+
+/**
+ * Test for reading memory-mapped files with {@link GedcomFileReader}, which should give the same results as reading them as streams
+ * 
+ * @author frizbog
+ */
+public class MappedFileReaderTest implements FileProgressListener {
+
+    /**
+     * The last file progress event received
+     */
+    private FileProgressEvent lastEvent;
+
+    /**
+     * Get all the lines from the file as an arraylist of string
+     * 
+     * @param gr
+     *            the {@link GedcomFileReader}
+     * @return all the lines of the file
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws GedcomParserException
+     *             if the file cannot be parsed or the load was cancelled
+     */
+    private static List<String> getLines(GedcomFileReader gr) throws IOException, GedcomParserException {
+        ArrayList<String> result = new ArrayList<>();
+        String s = gr.nextLine();
+        while (s != null) {
+            result.add(s);
+            s = gr.nextLine();
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void progressNotification(FileProgressEvent e) {
+        lastEvent = e;
+    }
+
+    /**
+     * Test that every sample file reads the same lines whether it is memory-mapped or streamed
+     * 
+     * @throws IOException
+     *             if the files can't be read
+     * @throws GedcomParserException
+     *             if the files can't be parsed
+     */
+    @Test
+    public void testAllSamplesSameAsStreamed() throws IOException, GedcomParserException {
+        File[] files = new File("sample").listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.toLowerCase().endsWith(".ged");
+            }
+        });
+        assertNotNull(files);
+        assertTrue(files.length > 0);
+        for (File f : files) {
+            List<String> streamed;
+            try (FileInputStream fis = new FileInputStream(f); BufferedInputStream bis = new BufferedInputStream(fis)) {
+                streamed = getLines(new GedcomFileReader(new GedcomParser(), bis));
+            }
+            List<String> mapped;
+            try (FileInputStream fis = new FileInputStream(f); FileChannel channel = fis.getChannel()) {
+                mapped = getLines(new GedcomFileReader(new GedcomParser(), channel));
+            }
+            assertEquals("Lines read from " + f, streamed, mapped);
+        }
+    }
+
+    /**
+     * Test that memory-mapped lines made up of 7-bit characters are handed out as views of their bytes rather than as strings, and
+     * that only lines with other characters are decoded
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testLinesNotDecoded() throws IOException, GedcomParserException {
+        try (FileInputStream fis = new FileInputStream("sample/utf8_crlf_bom.ged"); FileChannel channel = fis.getChannel()) {
+            GedcomFileReader gfr = new GedcomFileReader(new GedcomParser(), channel);
+            CharSequence first = gfr.nextLineChars();
+            assertFalse(first instanceof String);
+            assertEquals("0 HEAD", first.toString());
+            int extended = 0;
+            for (CharSequence line = first; line != null; line = gfr.nextLineChars()) {
+                String text = line.toString();
+                if (text.matches("\\p{ASCII}*")) {
+                    assertSame(first, line);
+                    CharSequence value = line.subSequence(2, line.length());
+                    assertTrue(value instanceof String);
+                    assertEquals(text.substring(2), value);
+                } else {
+                    assertTrue(line instanceof String);
+                    extended++;
+                }
+            }
+            assertEquals(10, extended);
+        }
+    }
+
+    /**
+     * Test that loading memory-mapped files via the parser gives the same results as streaming them, and that the progress events
+     * report the offset into the file
+     * 
+     * @throws IOException
+     *             if the files can't be read
+     * @throws GedcomParserException
+     *             if the files can't be parsed
+     */
+    @Test
+    public void testParserLoad() throws IOException, GedcomParserException {
+        for (String fileName : new String[] { "sample/willis.ged", "sample/willis-ascii.ged", "sample/willis-ansel.ged",
+                "sample/willis-unicode-littleendian.ged", "sample/utf8_crlf_bom.ged" }) {
+            GedcomParser streamed = new GedcomParser();
+            streamed.load(fileName);
+
+            GedcomParser mapped = new GedcomParser();
+            mapped.setUseMemoryMappedFiles(true);
+            mapped.registerFileObserver(this);
+            lastEvent = null;
+            mapped.load(fileName);
+
+            assertEquals(fileName, streamed.getGedcom(), mapped.getGedcom());
+            assertEquals(fileName, streamed.getErrors(), mapped.getErrors());
+            assertEquals(fileName, streamed.getWarnings(), mapped.getWarnings());
+            assertNotNull(lastEvent);
+            assertTrue(lastEvent.isComplete());
+            assertEquals(new File(fileName).length(), lastEvent.getByteOffset());
+        }
+    }
+}
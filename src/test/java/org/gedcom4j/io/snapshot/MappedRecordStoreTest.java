@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.exception.IncompatibleSnapshotException;
+import org.gedcom4j.model.CitationWithSource;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.FamilyChild;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.model.IndividualReference;
+import org.gedcom4j.model.PersonalName;
+import org.gedcom4j.model.Source;
+import org.gedcom4j.parser.GedcomParser;
+import org.junit.Test;
+
+/**
+ * Test for {@link MappedRecordStore}
+ * 
+ * @author frizbog
+ */
+public class MappedRecordStoreTest {
+
+    /**
+     * Test that the individuals and families found in the store have the same data as the ones they were written from
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testFindRecords() throws IOException, GedcomParserException {
+        Gedcom g = load("sample/allged.ged");
+        try (MappedRecordStore store = new MappedRecordStore(snapshot(g, "allged"))) {
+            for (Individual i : g.getIndividuals().values()) {
+                Individual mapped = store.getIndividual(i.getXref());
+                assertNotNull(i.getXref(), mapped);
+                assertEquals(i.getXref(), mapped.getXref());
+                assertEquals(i.toString(), mapped.toString());
+                assertEquals(i.getNames(), mapped.getNames());
+                assertEquals(i.getEvents(), mapped.getEvents());
+            }
+            for (Family f : g.getFamilies().values()) {
+                Family mapped = store.getFamily(f.getXref());
+                assertNotNull(f.getXref(), mapped);
+                assertEquals(f.getEvents(), mapped.getEvents());
+                if (f.getHusband() == null) {
+                    assertNull(mapped.getHusband());
+                } else {
+                    assertEquals(f.getHusband().getIndividual().getXref(), mapped.getHusband().getIndividual().getXref());
+                }
+                assertEquals(f.getChildren().size(), mapped.getChildren().size());
+            }
+            assertNull(store.getIndividual("@NOBODY@"));
+            assertNull(store.getFamily("@PERSON1@"));
+            assertNull(store.getIndividual(null));
+        }
+    }
+
+    /**
+     * Test that records other than individuals and families are decoded when they are referred to, and not kept once they are no
+     * longer in use
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws InterruptedException
+     *             if interrupted while waiting for the garbage collector
+     */
+    @Test
+    public void testDecodedRecordsNotKept() throws IOException, GedcomParserException, InterruptedException {
+        Gedcom g = load("sample/allged.ged");
+        try (MappedRecordStore store = new MappedRecordStore(snapshot(g, "allged-decoded"))) {
+            Source source = sourceCitedByPerson1(store);
+            assertEquals(g.getSources().get("@SOURCE1@"), source);
+            assertSame(source, sourceCitedByPerson1(store));
+
+            WeakReference<Source> ref = new WeakReference<>(source);
+            source = null;
+            for (int i = 0; i < 100 && ref.get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertNull(ref.get());
+            assertEquals(g.getSources().get("@SOURCE1@"), sourceCitedByPerson1(store));
+        }
+    }
+
+    /**
+     * Test that asking for the same record twice gives the same flyweight, and that flyweights from different stores are equal
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testFlyweightsEqual() throws IOException, GedcomParserException {
+        File f = snapshot(load("sample/allged.ged"), "allged-equals");
+        try (MappedRecordStore store1 = new MappedRecordStore(f); MappedRecordStore store2 = new MappedRecordStore(f)) {
+            Individual i1 = store1.getIndividual("@PERSON1@");
+            assertSame(i1, store1.getIndividual("@PERSON1@"));
+            assertSame(i1, store1.getIndividuals().get(store1.getIndividuals().indexOf(i1)));
+            Individual i2 = store2.getIndividual("@PERSON1@");
+            assertNotSame(i1, i2);
+            assertEquals(i1, i2);
+            assertEquals(i1.hashCode(), i2.hashCode());
+        }
+    }
+
+    /**
+     * Test listing all the individuals and families in the store
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testLists() throws IOException, GedcomParserException {
+        Gedcom g = load("sample/RelationshipTest.ged");
+        try (MappedRecordStore store = new MappedRecordStore(snapshot(g, "relationships"))) {
+            List<Individual> individuals = store.getIndividuals();
+            assertEquals(g.getIndividuals().size(), individuals.size());
+            Set<String> xrefs = new TreeSet<>();
+            String previous = "";
+            for (Individual i : individuals) {
+                assertTrue(previous.compareTo(i.getXref()) < 0);
+                previous = i.getXref();
+                xrefs.add(i.getXref());
+            }
+            assertEquals(new TreeSet<>(g.getIndividuals().keySet()), xrefs);
+            assertEquals(g.getFamilies().size(), store.getFamilies().size());
+        }
+    }
+
+    /**
+     * Test following the links between records, from flyweight to flyweight
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testNavigateLinks() throws IOException, GedcomParserException {
+        Gedcom g = load("sample/RelationshipTest.ged");
+        try (MappedRecordStore store = new MappedRecordStore(snapshot(g, "relationships-links"))) {
+            for (Individual i : g.getIndividuals().values()) {
+                Individual mapped = store.getIndividual(i.getXref());
+                assertEquals(xrefsOf(i.getAncestors()), xrefsOf(mapped.getAncestors()));
+                assertEquals(xrefsOf(i.getDescendants()), xrefsOf(mapped.getDescendants()));
+            }
+            for (Family f : store.getFamilies()) {
+                if (f.getChildren() != null) {
+                    for (IndividualReference child : f.getChildren()) {
+                        boolean found = false;
+                        for (FamilyChild fc : child.getIndividual().getFamiliesWhereChild()) {
+                            found |= fc.getFamily() == f;
+                        }
+                        assertTrue(found);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that a file that isn't a snapshot is rejected
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     */
+    @Test
+    public void testNotASnapshot() throws IOException {
+        try (MappedRecordStore store = new MappedRecordStore(new File("sample/willis.ged"))) {
+            fail("Expected an IncompatibleSnapshotException");
+        } catch (IncompatibleSnapshotException expected) {
+            assertNotNull(expected.getMessage());
+        }
+    }
+
+    /**
+     * Test that flyweights can't be changed, since the changes would be lost when they are garbage collected
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testReadOnly() throws IOException, GedcomParserException {
+        try (MappedRecordStore store = new MappedRecordStore(snapshot(load("sample/allged.ged"), "allged-readonly"))) {
+            Individual i = store.getIndividual("@PERSON1@");
+            try {
+                i.setRecIdNumber("1");
+                fail("Expected an UnsupportedOperationException");
+            } catch (UnsupportedOperationException expected) {
+                assertTrue(expected.getMessage().contains("@PERSON1@"));
+            }
+            try {
+                i.getNames(true).add(new PersonalName());
+                fail("Expected an UnsupportedOperationException");
+            } catch (UnsupportedOperationException expected) {
+                // Good
+            }
+            try {
+                i.markChanged();
+                fail("Expected an UnsupportedOperationException");
+            } catch (UnsupportedOperationException expected) {
+                // Good
+            }
+            Family f = store.getFamily("@FAMILY1@");
+            try {
+                f.setHusband(null);
+                fail("Expected an UnsupportedOperationException");
+            } catch (UnsupportedOperationException expected) {
+                // Good
+            }
+            assertNotNull(f.getHusband());
+            try {
+                f.getChildren(true).clear();
+                fail("Expected an UnsupportedOperationException");
+            } catch (UnsupportedOperationException expected) {
+                // Good
+            }
+            assertEquals(store.getFamily("@FAMILY1@").getChildren().size(), f.getChildren().size());
+        }
+    }
+
+    /**
+     * Load a file
+     * 
+     * @param filename
+     *            the name of the file to load
+     * @return the data loaded from the file
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    private Gedcom load(String filename) throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.load(filename);
+        return gp.getGedcom();
+    }
+
+    /**
+     * Write a snapshot of the data to a file
+     * 
+     * @param g
+     *            the data
+     * @param name
+     *            the name of the snapshot
+     * @return the snapshot file
+     * @throws IOException
+     *             if the snapshot can't be written
+     */
+    private File snapshot(Gedcom g, String name) throws IOException {
+        File f = new File("tmp/snapshot/" + name + ".snapshot");
+        new SnapshotWriter(g).write(f);
+        return f;
+    }
+
+    /**
+     * Get the source that the first name of @PERSON1@ cites
+     * 
+     * @param store
+     *            the store to get it from
+     * @return the source
+     */
+    private Source sourceCitedByPerson1(MappedRecordStore store) {
+        return ((CitationWithSource) store.getIndividual("@PERSON1@").getNames().get(0).getCitations().get(0)).getSource();
+    }
+
+    /**
+     * Get the xrefs of some individuals
+     * 
+     * @param individuals
+     *            the individuals
+     * @return their xrefs, in order
+     */
+    private Set<String> xrefsOf(Set<Individual> individuals) {
+        Set<String> result = new TreeSet<>();
+        for (Individual i : individuals) {
+            result.add(i.getXref());
+        }
+        return result;
+    }
+}
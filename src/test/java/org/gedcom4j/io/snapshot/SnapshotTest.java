@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.io.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.exception.GedcomWriterException;
+import org.gedcom4j.exception.IncompatibleSnapshotException;
+import org.gedcom4j.io.writer.LineTerminator;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.parser.GedcomParser;
+import org.gedcom4j.writer.GedcomWriter;
+import org.junit.Test;
+
+/**
+ * Test for {@link SnapshotWriter} and {@link SnapshotReader}
+ * 
+ * @author frizbog
+ */
+public class SnapshotTest {
+
+    /**
+     * Test that a snapshot whose class table has a fingerprint that doesn't match the current model class is rejected
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testChangedClassRejected() throws IOException, GedcomParserException {
+        byte[] snapshot = snapshot(load("sample/willis.ged", false));
+
+        // Find the fingerprint of the first class in the class table
+        ByteArrayInputStream bais = new ByteArrayInputStream(snapshot);
+        DataInputStream din = new DataInputStream(bais);
+        din.readInt();
+        din.readInt();
+        int stringCount = din.readInt();
+        din.skipBytes(stringCount * 8);
+        din.skipBytes((int) din.readLong());
+        SnapshotFormat.readVarInt(din);
+        SnapshotFormat.readVarInt(din);
+        int fingerprintOffset = snapshot.length - bais.available();
+
+        snapshot[fingerprintOffset + 7] ^= 1;
+        try {
+            new SnapshotReader().read(new ByteArrayInputStream(snapshot));
+            fail("Expected an IncompatibleSnapshotException");
+        } catch (IncompatibleSnapshotException expected) {
+            assertNotNull(expected.getMessage());
+        }
+    }
+
+    /**
+     * Test that a snapshot in a different format version is rejected
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testFormatVersionRejected() throws IOException, GedcomParserException {
+        byte[] snapshot = snapshot(load("sample/willis.ged", false));
+        snapshot[7]++;
+        try {
+            new SnapshotReader().read(new ByteArrayInputStream(snapshot));
+            fail("Expected an IncompatibleSnapshotException");
+        } catch (IncompatibleSnapshotException expected) {
+            assertNotNull(expected.getMessage());
+        }
+    }
+
+    /**
+     * Test that the lengths and offsets of the record data are counted past the 2GB that an int can hold, so a snapshot can be
+     * larger than that
+     * 
+     * @throws IOException
+     *             if the offsets can't be written or read back
+     */
+    @Test
+    public void testLargeOffsets() throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(null);
+        byte[] chunk = new byte[1 << 20];
+        for (int i = 0; i < 2049; i++) {
+            counter.write(chunk);
+        }
+        assertEquals(2049L << 20, counter.getCount());
+        assertTrue(counter.getCount() > Integer.MAX_VALUE);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        long gb = 1L << 30;
+        assertEquals(3 * gb, SnapshotFormat.writeOffsets(new DataOutputStream(baos), Arrays.asList(gb, gb, gb)));
+        DataInputStream din = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        assertEquals(0, din.readLong());
+        assertEquals(gb, din.readLong());
+        assertEquals(2 * gb, din.readLong());
+        assertEquals(3 * gb, din.readLong());
+    }
+
+    /**
+     * Test that record data whose offsets are past the 2GB that an int can hold is read correctly, including a record that
+     * straddles the 2GB boundary. The offsets in the record table of a real snapshot are all moved up, as if the record data
+     * started just short of 2GB into the stream, rather than actually writing that much data.
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testLargeRecordData() throws IOException, GedcomParserException {
+        Gedcom g = load("sample/willis.ged", false);
+        byte[] snapshot = snapshot(g);
+
+        // Find the record table, skipping over the string and class tables
+        ByteArrayInputStream bais = new ByteArrayInputStream(snapshot);
+        DataInputStream din = new DataInputStream(bais);
+        din.readInt();
+        din.readInt();
+        int stringCount = din.readInt();
+        din.skipBytes(stringCount * 8);
+        din.skipBytes((int) din.readLong());
+        int classCount = SnapshotFormat.readVarInt(din);
+        for (int i = 0; i < classCount; i++) {
+            SnapshotFormat.readVarInt(din);
+            din.readLong();
+        }
+        int recordCount = din.readInt();
+        din.skipBytes(recordCount * 8);
+        int offsetsStart = snapshot.length - bais.available();
+
+        // Move the offsets up so that the 2GB boundary falls inside the middle record
+        ByteBuffer buf = ByteBuffer.wrap(snapshot);
+        int middle = recordCount / 2;
+        long shift = Integer.MAX_VALUE - buf.getLong(offsetsStart + middle * 8) - 1;
+        for (int i = 0; i <= recordCount; i++) {
+            buf.putLong(offsetsStart + i * 8, buf.getLong(offsetsStart + i * 8) + shift);
+        }
+        assertTrue(buf.getLong(offsetsStart + middle * 8) < Integer.MAX_VALUE);
+        assertTrue(buf.getLong(offsetsStart + (middle + 1) * 8) > Integer.MAX_VALUE);
+
+        assertEquals(g, restore(snapshot));
+    }
+
+    /**
+     * Test that lazily loaded records are loaded as they are written to the snapshot
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testLazilyLoadedRecords() throws IOException, GedcomParserException {
+        Gedcom restored = restore(snapshot(load("sample/allged.ged", true)));
+        assertEquals(load("sample/allged.ged", false), restored);
+        assertSame(Individual.class, restored.getIndividuals().get("@PERSON1@").getClass());
+    }
+
+    /**
+     * Test that something that isn't a snapshot at all is rejected
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     */
+    @Test
+    public void testNotASnapshot() throws IOException {
+        try {
+            new SnapshotReader().read(new File("sample/willis.ged"));
+            fail("Expected an IncompatibleSnapshotException");
+        } catch (IncompatibleSnapshotException expected) {
+            assertNotNull(expected.getMessage());
+        }
+        try {
+            restore(new byte[0]);
+            fail("Expected an IncompatibleSnapshotException");
+        } catch (IncompatibleSnapshotException expected) {
+            assertNotNull(expected.getMessage());
+        }
+    }
+
+    /**
+     * Test that references between records are restored as references to the same instances, not copies
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testReferencesRestored() throws IOException, GedcomParserException {
+        Gedcom g = restore(snapshot(load("sample/RelationshipTest.ged", false)));
+        for (Individual i : g.getIndividuals().values()) {
+            if (i.getFamiliesWhereChild() != null && !i.getFamiliesWhereChild().isEmpty()) {
+                Family f = i.getFamiliesWhereChild().get(0).getFamily();
+                assertSame(f, g.getFamilies().get(f.getXref()));
+            }
+        }
+        assertSame(g.getSubmitters().get(g.getHeader().getSubmitterReference().getSubmitter().getXref()), g.getHeader()
+                .getSubmitterReference().getSubmitter());
+    }
+
+    /**
+     * Test that the sample files come back from a snapshot exactly as they were loaded, and write out the same GEDCOM
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testRoundTrip() throws IOException, GedcomParserException, GedcomWriterException {
+        for (String filename : new String[] { "sample/allged.ged", "sample/TGC551.ged", "sample/willis-ansel.ged",
+                "sample/customtagstorture.ged" }) {
+            Gedcom g = load(filename, false);
+            Gedcom restored = restore(snapshot(g));
+            assertEquals(filename, g, restored);
+            assertEquals(filename, write(g), write(restored));
+        }
+    }
+
+    /**
+     * Test writing the snapshot to a file and reading it back
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testRoundTripFile() throws IOException, GedcomParserException {
+        Gedcom g = load("sample/willis.ged", false);
+        File f = new File("tmp/snapshot/willis.snapshot");
+        new SnapshotWriter(g).write(f);
+        assertEquals(g, new SnapshotReader().read(f));
+        assertEquals(Files.size(f.toPath()), snapshot(g).length);
+    }
+
+    /**
+     * Load a file
+     * 
+     * @param filename
+     *            the name of the file to load
+     * @param lazyLoading
+     *            whether to load individuals and families lazily
+     * @return the data loaded from the file
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    private Gedcom load(String filename, boolean lazyLoading) throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.setLazyLoading(lazyLoading);
+        gp.load(filename);
+        return gp.getGedcom();
+    }
+
+    /**
+     * Restore data from a snapshot
+     * 
+     * @param snapshot
+     *            the snapshot
+     * @return the data restored from the snapshot
+     * @throws IOException
+     *             if the snapshot can't be read
+     */
+    private Gedcom restore(byte[] snapshot) throws IOException {
+        return new SnapshotReader().read(new ByteArrayInputStream(snapshot));
+    }
+
+    /**
+     * Take a snapshot of the data
+     * 
+     * @param g
+     *            the data
+     * @return the snapshot
+     * @throws IOException
+     *             if the snapshot can't be written
+     */
+    private byte[] snapshot(Gedcom g) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new SnapshotWriter(g).write(baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Write the data as GEDCOM
+     * 
+     * @param g
+     *            the data to write
+     * @return the data written
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    private String write(Gedcom g) throws GedcomWriterException {
+        GedcomWriter w = new GedcomWriter(g);
+        w.setValidationSuppressed(true);
+        w.setLineTerminator(LineTerminator.LF_ONLY);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        w.write(baos);
+        return new String(baos.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+}
@@ -945,4 +945,42 @@ public class GedcomFileWriterTest {
         gw.write(fn);
     }
 
+    /**
+     * Test that the encoded data reaches the stream in large chunks rather than a byte at a time, for each encoding
+     * 
+     * @throws IOException
+     *             if the data cannot be written
+     * @throws WriterCancelledException
+     *             if the write operation was cancelled
+     */
+    @Test
+    public void testWritesInChunks() throws IOException, WriterCancelledException {
+        for (String encoding : Arrays.asList("ANSEL", "ASCII", "UTF-8", "UNICODE")) {
+            List<String> lines = new ArrayList<>();
+            lines.add("0 HEAD");
+            lines.add("1 CHAR " + encoding);
+            for (int i = 0; i < 2000; i++) {
+                lines.add("1 NOTE Line " + i + " of a note with an \u00E9 in it");
+            }
+            lines.add("0 TRLR");
+            final int[] writes = new int[1];
+            ByteArrayOutputStream baos = new ByteArrayOutputStream() {
+                @Override
+                public synchronized void write(byte[] b, int off, int len) {
+                    writes[0]++;
+                    super.write(b, off, len);
+                }
+
+                @Override
+                public synchronized void write(int b) {
+                    throw new AssertionError("Bytes should not be written one at a time");
+                }
+            };
+            GedcomFileWriter gfw = new GedcomFileWriter(new GedcomWriter(new Gedcom()), lines);
+            gfw.setTerminator(LineTerminator.CRLF);
+            gfw.write(baos);
+            assertTrue(encoding + " was written in " + writes[0] + " chunks", writes[0] <= baos.size() / 4096 + 1);
+        }
+    }
+
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.gedcom4j.Options;
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.parser.GedcomParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Test for {@link RecordEquality} and {@link Options#setIdentityEqualityEnabled(boolean)}
+ * 
+ * @author frizbog
+ */
+@NotThreadSafe
+public class RecordEqualityTest {
+
+    /**
+     * Reset options to defaults before testing
+     */
+    @Before
+    public void setUp() {
+        Options.resetToDefaults();
+    }
+
+    /**
+     * Reset options to defaults after testing
+     */
+    @After
+    public void tearDown() {
+        Options.resetToDefaults();
+    }
+
+    /**
+     * Test that ancestors and descendants come out the same whether records are compared by identity or field by field
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testAncestorsAndDescendants() throws IOException, GedcomParserException {
+        Gedcom g = load("sample/RelationshipTest.ged");
+        for (Individual i : g.getIndividuals().values()) {
+            Options.setIdentityEqualityEnabled(false);
+            Set<String> ancestors = xrefsOf(i.getAncestors());
+            Set<String> descendants = xrefsOf(i.getDescendants());
+            Options.setIdentityEqualityEnabled(true);
+            assertEquals(ancestors, xrefsOf(i.getAncestors()));
+            assertEquals(descendants, xrefsOf(i.getDescendants()));
+        }
+    }
+
+    /**
+     * Test that deep comparison still compares records field by field, including the records they link to, when identity equality
+     * is enabled
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testDeepEquals() throws IOException, GedcomParserException {
+        Options.setIdentityEqualityEnabled(true);
+        Gedcom g1 = load("sample/RelationshipTest.ged");
+        Gedcom g2 = load("sample/RelationshipTest.ged");
+        for (Individual i1 : g1.getIndividuals().values()) {
+            Individual i2 = g2.getIndividuals().get(i1.getXref());
+            assertFalse(i1.equals(i2));
+            assertTrue(RecordEquality.deepEquals(i1, i2));
+            assertEquals(RecordEquality.deepHashCode(i1), RecordEquality.deepHashCode(i2));
+        }
+        assertTrue(RecordEquality.deepEquals(g1, g2));
+        assertTrue(RecordEquality.isByIdentity());
+
+        g2.getFamilies().values().iterator().next().setHusband(null);
+        assertFalse(RecordEquality.deepEquals(g1, g2));
+        assertTrue(RecordEquality.deepEquals(null, null));
+        assertFalse(RecordEquality.deepEquals(g1, null));
+        assertEquals(0, RecordEquality.deepHashCode(null));
+    }
+
+    /**
+     * Test that records are equal only to themselves, and hash by identity, when identity equality is enabled
+     */
+    @Test
+    public void testIdentityEquality() {
+        Individual i1 = new Individual();
+        i1.setXref("@I1@");
+        Individual i2 = new Individual();
+        i2.setXref("@I1@");
+        Source s1 = new Source("@S1@");
+        Source s2 = new Source("@S1@");
+        assertEquals(i1, i2);
+        assertEquals(i1.hashCode(), i2.hashCode());
+        assertEquals(s1, s2);
+        assertFalse(RecordEquality.isByIdentity());
+
+        Options.setIdentityEqualityEnabled(true);
+        assertTrue(Options.isIdentityEqualityEnabled());
+        assertTrue(RecordEquality.isByIdentity());
+        assertEquals(i1, i1);
+        assertFalse(i1.equals(i2));
+        assertEquals(System.identityHashCode(i1), i1.hashCode());
+        assertFalse(s1.equals(s2));
+        assertTrue(RecordEquality.deepEquals(i1, i2));
+        assertTrue(RecordEquality.deepEquals(s1, s2));
+        assertTrue(RecordEquality.isByIdentity());
+
+        Set<Individual> set = new HashSet<>();
+        set.add(i1);
+        set.add(i2);
+        assertEquals(2, set.size());
+
+        Options.resetToDefaults();
+        assertFalse(Options.isIdentityEqualityEnabled());
+        assertEquals(i1, i2);
+    }
+
+    /**
+     * Load a file
+     * 
+     * @param filename
+     *            the name of the file to load
+     * @return the data loaded from the file
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    private Gedcom load(String filename) throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.load(filename);
+        return gp.getGedcom();
+    }
+
+    /**
+     * Get the xrefs of some individuals
+     * 
+     * @param individuals
+     *            the individuals
+     * @return their xrefs
+     */
+    private Set<String> xrefsOf(Set<Individual> individuals) {
+        Set<String> result = new HashSet<>();
+        for (Individual i : individuals) {
+            result.add(i.getXref());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.gedcom4j.io.event.FileProgressEvent;
+import org.gedcom4j.io.event.FileProgressListener;
+import org.gedcom4j.model.Gedcom;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test for loading files on another thread - see {@link GedcomParser#loadAsync(String, java.util.concurrent.Executor)}
+ * 
+ * @author frizbog
+ */
+public class AsyncLoadTest implements FileProgressListener {
+
+    /**
+     * The executor to load on
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Counted down when the load reaches the line to cancel it on
+     */
+    private final CountDownLatch reachedLine = new CountDownLatch(1);
+
+    /**
+     * Counted down when the load has been cancelled
+     */
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+
+    /**
+     * The line to wait for the load to be cancelled on. Zero if not cancelling.
+     */
+    private int cancelOnLine;
+
+    /**
+     * The number of lines read, according to the most recent progress event
+     */
+    private volatile int linesRead;
+
+    /**
+     * Shut down the executor
+     */
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void progressNotification(FileProgressEvent e) {
+        linesRead = e.getLinesProcessed();
+        if (linesRead == cancelOnLine) {
+            reachedLine.countDown();
+            try {
+                cancelled.await(10, TimeUnit.SECONDS);
+            } catch (@SuppressWarnings("unused") InterruptedException ex) {
+                // Cancelling the future interrupts the thread, which is fine
+            }
+        }
+    }
+
+    /**
+     * Test loading a file on another thread
+     * 
+     * @throws Exception
+     *             if the load fails
+     */
+    @Test
+    public void testLoad() throws Exception {
+        GedcomParser gp = new GedcomParser();
+        Future<Gedcom> future = gp.loadAsync("sample/willis.ged", executor);
+        Gedcom g = future.get(10, TimeUnit.SECONDS);
+
+        GedcomParser sync = new GedcomParser();
+        sync.load("sample/willis.ged");
+        assertEquals(sync.getGedcom(), g);
+        assertEquals(sync.getWarnings(), gp.getWarnings());
+        assertFalse(gp.isCancelled());
+    }
+
+    /**
+     * Test that a failed load is reported through the future
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted
+     */
+    @Test
+    public void testLoadFails() throws InterruptedException {
+        Future<Gedcom> future = new GedcomParser().loadAsync("sample/nosuchfile.ged", executor);
+        try {
+            future.get();
+            fail("Expected an exception");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    /**
+     * Test that cancelling the future stops the load on the next line, and doesn't stop the next load
+     * 
+     * @throws Exception
+     *             if the load fails
+     */
+    @Test
+    public void testCancel() throws Exception {
+        GedcomParser gp = new GedcomParser();
+        gp.setReadNotificationRate(1);
+        gp.registerFileObserver(this);
+        cancelOnLine = 1000;
+        Future<Gedcom> future = gp.loadAsync("sample/willis.ged", executor);
+        assertTrue(reachedLine.await(10, TimeUnit.SECONDS));
+        assertTrue(future.cancel(true));
+        cancelled.countDown();
+        try {
+            future.get();
+            fail("Expected the load to be cancelled");
+        } catch (@SuppressWarnings("unused") CancellationException e) {
+            // Good
+        }
+
+        // Once the thread is done, no more lines have been read
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                // Nothing to do
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertEquals(cancelOnLine, linesRead);
+
+        // Loading again works
+        cancelOnLine = 0;
+        gp.loadAsync("sample/willis.ged", executor).get(10, TimeUnit.SECONDS);
+        assertTrue(linesRead > 1000);
+    }
+
+    /**
+     * Test that a load that is cancelled before it starts never starts
+     */
+    @Test
+    public void testCancelBeforeStart() {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocked.await(10, TimeUnit.SECONDS);
+                } catch (@SuppressWarnings("unused") InterruptedException e) {
+                    // Done waiting
+                }
+            }
+        });
+        GedcomParser gp = new GedcomParser();
+        gp.registerFileObserver(this);
+        Future<Gedcom> future = gp.loadAsync("sample/willis.ged", executor);
+        assertTrue(future.cancel(false));
+        blocked.countDown();
+        assertTrue(future.isCancelled());
+        assertEquals(0, linesRead);
+        assertFalse(gp.isCancelled());
+    }
+}
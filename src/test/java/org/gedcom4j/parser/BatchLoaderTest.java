@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.io.event.FileProgressEvent;
+import org.gedcom4j.io.event.FileProgressListener;
+import org.gedcom4j.parser.event.ParseProgressEvent;
+import org.gedcom4j.parser.event.ParseProgressListener;
+import org.junit.Test;
+
+/**
+ * Test for {@link BatchLoader}
+ * 
+ * @author frizbog
+ */
+public class BatchLoaderTest implements BatchLoadHandler, FileProgressListener, ParseProgressListener {
+
+    /**
+     * The sample files to load, most of them several times, plus one that doesn't exist and one that can't be parsed with the
+     * default settings
+     */
+    private static final List<String> FILES = Arrays.asList("sample/willis.ged", "sample/RelationshipTest.ged",
+            "sample/Harry_Potter.ged", "sample/willis.ged", "sample/nosuchfile.ged", "sample/RelationshipTest.ged",
+            "sample/Harry_Potter.ged", "sample/willis.ged", "sample/Sopranos.ged", "sample/RelationshipTest.ged");
+
+    /**
+     * The results handled
+     */
+    private final List<BatchLoadResult> results = new ArrayList<>();
+
+    /**
+     * The number of parsers made by the batch loader
+     */
+    private final AtomicInteger parsersMade = new AtomicInteger();
+
+    /**
+     * The batch loader being tested
+     */
+    private BatchLoader batchLoader;
+
+    /**
+     * The most recent file progress event
+     */
+    private FileProgressEvent lastFileEvent;
+
+    /**
+     * The most recent parse progress event
+     */
+    private ParseProgressEvent lastParseEvent;
+
+    /**
+     * Should the batch be cancelled once the first file is handled?
+     */
+    private boolean cancelling;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fileLoaded(BatchLoadResult result) {
+        results.add(result);
+        // The loader doesn't get ahead of the handler
+        assertTrue(parsersMade.get() - results.size() <= batchLoader.getMaxFilesInProgress());
+        if (cancelling) {
+            batchLoader.cancel();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void progressNotification(FileProgressEvent e) {
+        assertFalse(lastFileEvent != null && lastFileEvent.isComplete());
+        lastFileEvent = e;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void progressNotification(ParseProgressEvent e) {
+        assertFalse(lastParseEvent != null && lastParseEvent.isComplete());
+        lastParseEvent = e;
+    }
+
+    /**
+     * Test loading a batch of files
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted
+     * @throws IOException
+     *             if a file can't be read
+     * @throws GedcomParserException
+     *             if a file can't be parsed
+     */
+    @Test
+    public void testLoad() throws InterruptedException, IOException, GedcomParserException {
+        batchLoader = new TestBatchLoader(3);
+        batchLoader.setMaxFilesInProgress(4);
+        batchLoader.registerFileObserver(this);
+        batchLoader.registerParseObserver(this);
+        batchLoader.load(FILES, this);
+        assertEquals(FILES.size(), results.size());
+        assertEquals(FILES.size(), parsersMade.get());
+
+        Map<String, Integer> individuals = new HashMap<>();
+        int totalIndividuals = 0;
+        for (BatchLoadResult r : results) {
+            assertNotNull(r.toString());
+            if ("sample/nosuchfile.ged".equals(r.getFilename())) {
+                assertFalse(r.isLoaded());
+                assertNull(r.getGedcom());
+                assertTrue(r.getException() instanceof FileNotFoundException);
+                continue;
+            }
+            if ("sample/Sopranos.ged".equals(r.getFilename())) {
+                // Needs strict line breaks turned off
+                assertTrue(r.getException() instanceof GedcomParserException);
+                continue;
+            }
+            assertTrue(r.isLoaded());
+            if (!individuals.containsKey(r.getFilename())) {
+                GedcomParser gp = new GedcomParser();
+                gp.load(r.getFilename());
+                individuals.put(r.getFilename(), gp.getGedcom().getIndividuals().size());
+                assertEquals(gp.getWarnings(), r.getWarnings());
+                assertEquals(gp.getErrors(), r.getErrors());
+            }
+            assertEquals(individuals.get(r.getFilename()).intValue(), r.getGedcom().getIndividuals().size());
+            totalIndividuals += r.getGedcom().getIndividuals().size();
+        }
+
+        assertTrue(lastFileEvent.isComplete());
+        assertTrue(lastFileEvent.getByteOffset() > 0);
+        assertTrue(lastParseEvent.isComplete());
+        assertEquals(totalIndividuals, lastParseEvent.getIndividualsProcessed());
+        assertTrue(lastParseEvent.getLinesParsed() > 0);
+    }
+
+    /**
+     * Test cancelling a batch
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted
+     */
+    @Test
+    public void testCancel() throws InterruptedException {
+        batchLoader = new TestBatchLoader(1);
+        batchLoader.setMaxFilesInProgress(1);
+        cancelling = true;
+        batchLoader.load(FILES, this);
+        assertTrue(batchLoader.isCancelled());
+        assertEquals(1, results.size());
+
+        // The next batch isn't cancelled
+        cancelling = false;
+        results.clear();
+        batchLoader.load(FILES.subList(0, 2), this);
+        assertEquals(2, results.size());
+    }
+
+    /**
+     * Test that there must be at least one thread
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() {
+        new BatchLoader(0);
+    }
+
+    /**
+     * A batch loader that counts the parsers it makes
+     */
+    private class TestBatchLoader extends BatchLoader {
+
+        /**
+         * Constructor
+         * 
+         * @param threadCount
+         *            the number of threads
+         */
+        TestBatchLoader(int threadCount) {
+            super(threadCount);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected GedcomParser newParser() {
+            parsersMade.incrementAndGet();
+            return super.newParser();
+        }
+    }
+}
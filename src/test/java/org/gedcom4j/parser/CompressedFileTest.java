@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.io.event.FileProgressEvent;
+import org.gedcom4j.io.event.FileProgressListener;
+import org.gedcom4j.io.reader.Compression;
+import org.gedcom4j.model.Gedcom;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for loading gzipped and zipped files
+ * 
+ * @author frizbog
+ */
+public class CompressedFileTest implements FileProgressListener {
+
+    /**
+     * The name of the sample file that is compressed
+     */
+    private static final String SAMPLE = "sample/willis.ged";
+
+    /**
+     * The contents of the sample file
+     */
+    private byte[] contents;
+
+    /**
+     * The sample file, loaded without compression, to compare with
+     */
+    private Gedcom expected;
+
+    /**
+     * The most recent progress event
+     */
+    private FileProgressEvent lastEvent;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void progressNotification(FileProgressEvent e) {
+        lastEvent = e;
+    }
+
+    /**
+     * Load the uncompressed sample file, and make sure there's somewhere to write the compressed versions to
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Before
+    public void setUp() throws IOException, GedcomParserException {
+        new File("tmp").mkdirs();
+        contents = Files.readAllBytes(Paths.get(SAMPLE));
+        GedcomParser gp = new GedcomParser();
+        gp.load(SAMPLE);
+        expected = gp.getGedcom();
+        assertEquals(Compression.NONE, Compression.of(SAMPLE));
+    }
+
+    /**
+     * Test loading a gzipped file, both by name and from a stream
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testGzip() throws IOException, GedcomParserException {
+        String filename = "tmp/compressedfiletest.ged.gz";
+        try (OutputStream os = new GZIPOutputStream(new FileOutputStream(filename))) {
+            os.write(contents);
+        }
+        assertEquals(Compression.GZIP, Compression.of(filename));
+        assertLoads(filename);
+
+        GedcomParser gp = new GedcomParser();
+        try (BufferedInputStream bis = new BufferedInputStream(new FileInputStream(filename))) {
+            gp.load(bis);
+        }
+        assertEquals(expected, gp.getGedcom());
+    }
+
+    /**
+     * Test loading a zipped file, with a directory before the file in the archive
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testZip() throws IOException, GedcomParserException {
+        String filename = "tmp/compressedfiletest.zip";
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(filename))) {
+            zos.putNextEntry(new ZipEntry("gedcoms/"));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("gedcoms/willis.ged"));
+            zos.write(contents);
+            zos.closeEntry();
+        }
+        assertEquals(Compression.ZIP, Compression.of(filename));
+        assertLoads(filename);
+    }
+
+    /**
+     * Assert that a compressed file loads the same as the uncompressed sample, with and without pre-scanning, and that progress is
+     * reported for both the compressed and decompressed data
+     * 
+     * @param filename
+     *            the name of the compressed file
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    private void assertLoads(String filename) throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.registerFileObserver(this);
+        gp.load(filename);
+        assertEquals(expected, gp.getGedcom());
+
+        assertNotNull(lastEvent);
+        assertTrue(lastEvent.isComplete());
+        assertTrue(lastEvent.isCompressed());
+        assertEquals(contents.length, lastEvent.getByteOffset());
+        assertTrue(lastEvent.getCompressedByteOffset() > 0);
+        assertTrue(lastEvent.getCompressedByteOffset() <= new File(filename).length());
+        assertTrue(lastEvent.getCompressedByteOffset() < contents.length);
+
+        gp = new GedcomParser();
+        gp.setPreScanning(true);
+        gp.load(filename);
+        assertEquals(expected, gp.getGedcom());
+        assertEquals(expected.getIndividuals().size(), gp.getPreScan().getRecordCount("INDI"));
+    }
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.model.IndividualReference;
+import org.junit.Test;
+
+/**
+ * Test for loading individuals and families lazily, with {@link GedcomParser#setLazyLoading(boolean)}
+ * 
+ * @author frizbog
+ */
+public class LazyLoadingTest {
+
+    /**
+     * Assert that a proxy class overrides every public, non-final, non-static method of the model class it stands in for, other
+     * than those declared by {@link Object} and those that never need the record to be loaded
+     * 
+     * @param modelClass
+     *            the model class
+     * @param proxyClass
+     *            the proxy class
+     */
+    private static void assertEveryMethodOverridden(Class<?> modelClass, Class<?> proxyClass) {
+        for (Method m : modelClass.getMethods()) {
+            int modifiers = m.getModifiers();
+            if (Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers) || m.getDeclaringClass() == Object.class || "getXref"
+                    .equals(m.getName()) || "getChangeCount".equals(m.getName())) {
+                continue;
+            }
+            try {
+                Method override = proxyClass.getMethod(m.getName(), m.getParameterTypes());
+                assertEquals(m.toString(), proxyClass, override.getDeclaringClass());
+            } catch (NoSuchMethodException e) {
+                fail(m.toString());
+            }
+        }
+    }
+
+    /**
+     * Assert that a lazily loaded family has the same data as one loaded eagerly. Proxies are never equal to plain model objects,
+     * so the data is compared a property at a time, with references to other individuals compared by xref.
+     * 
+     * @param expected
+     *            the eagerly loaded family
+     * @param actual
+     *            the lazily loaded family
+     */
+    private static void assertSameFamily(Family expected, Family actual) {
+        String xref = expected.getXref();
+        assertEquals(xref, expected.getEvents(), actual.getEvents());
+        assertEquals(xref, expected.getCitations(), actual.getCitations());
+        assertEquals(xref, expected.getNoteStructures(), actual.getNoteStructures());
+        assertEquals(xref, expected.getCustomFacts(), actual.getCustomFacts());
+        assertEquals(xref, expected.getMultimedia(), actual.getMultimedia());
+        assertEquals(xref, xrefs(Collections.singletonList(expected.getHusband())), xrefs(Collections.singletonList(actual
+                .getHusband())));
+        assertEquals(xref, xrefs(Collections.singletonList(expected.getWife())), xrefs(Collections.singletonList(actual
+                .getWife())));
+        assertEquals(xref, xrefs(expected.getChildren()), xrefs(actual.getChildren()));
+    }
+
+    /**
+     * Assert that a lazily loaded individual has the same data as one loaded eagerly. Proxies are never equal to plain model
+     * objects, so the data is compared a property at a time.
+     * 
+     * @param expected
+     *            the eagerly loaded individual
+     * @param actual
+     *            the lazily loaded individual
+     */
+    private static void assertSameIndividual(Individual expected, Individual actual) {
+        String xref = expected.getXref();
+        assertEquals(xref, expected.getNames(), actual.getNames());
+        assertEquals(xref, expected.getSex(), actual.getSex());
+        assertEquals(xref, expected.getEvents(), actual.getEvents());
+        assertEquals(xref, expected.getAttributes(), actual.getAttributes());
+        assertEquals(xref, expected.getCitations(), actual.getCitations());
+        assertEquals(xref, expected.getNoteStructures(), actual.getNoteStructures());
+        assertEquals(xref, expected.getCustomFacts(), actual.getCustomFacts());
+        assertEquals(xref, expected.getMultimedia(), actual.getMultimedia());
+        assertEquals(xref, expected.getFamiliesWhereChild(), actual.getFamiliesWhereChild());
+        assertEquals(xref, expected.getFamiliesWhereSpouse(), actual.getFamiliesWhereSpouse());
+        assertEquals(xref, expected.getChangeDate(), actual.getChangeDate());
+        assertEquals(xref, expected.toString(), actual.toString());
+    }
+
+    /**
+     * Get the xrefs of the individuals referred to
+     * 
+     * @param refs
+     *            the references to individuals. Optional, and may contain nulls.
+     * @return the xrefs of the individuals referred to, or null if there were no references
+     */
+    private static List<String> xrefs(List<IndividualReference> refs) {
+        if (refs == null) {
+            return null;
+        }
+        List<String> result = new ArrayList<>();
+        for (IndividualReference r : refs) {
+            result.add(r == null ? null : r.getIndividual().getXref());
+        }
+        return result;
+    }
+
+    /**
+     * Test that the proxies override every public method of {@link Individual} and {@link Family} that they can, so that none of
+     * them can be used without loading the record first. Only {@link Individual#getXref()} and {@link Individual#getChangeCount()}
+     * (and their {@link Family} equivalents) are left alone, since they never need the record to be loaded.
+     */
+    @Test
+    public void testEveryMethodOverridden() {
+        assertEveryMethodOverridden(Individual.class, LazyIndividual.class);
+        assertEveryMethodOverridden(Family.class, LazyFamily.class);
+    }
+
+    /**
+     * Test that records are only loaded when they are used
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testLoadedOnFirstUse() throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.setLazyLoading(true);
+        gp.load("sample/willis.ged");
+        Gedcom g = gp.getGedcom();
+        assertEquals(761, g.getIndividuals().size());
+        for (Individual i : g.getIndividuals().values()) {
+            assertFalse(((LazyIndividual) i).isLoaded());
+        }
+
+        LazyIndividual i = (LazyIndividual) g.getIndividuals().get("@I5169@");
+        assertEquals("@I5169@", i.getXref());
+        assertFalse(i.isLoaded());
+        assertFalse(i.getNames().isEmpty());
+        assertTrue(i.isLoaded());
+
+        // The families it refers to are not loaded until they are used themselves
+        LazyFamily f = (LazyFamily) i.getFamiliesWhereChild().get(0).getFamily();
+        assertFalse(f.isLoaded());
+        assertTrue(f.getChildren().get(0).getIndividual() == g.getIndividuals().get(f.getChildren().get(0).getIndividual()
+                .getXref()));
+        assertTrue(f.isLoaded());
+
+        int loaded = 0;
+        for (Individual each : g.getIndividuals().values()) {
+            if (((LazyIndividual) each).isLoaded()) {
+                loaded++;
+            }
+        }
+        assertEquals(1, loaded);
+    }
+
+    /**
+     * Test that loading lazily gives the same results as loading eagerly, in each encoding
+     * 
+     * @throws IOException
+     *             if the files can't be read
+     * @throws GedcomParserException
+     *             if the files can't be parsed
+     */
+    @Test
+    public void testSameAsEager() throws IOException, GedcomParserException {
+        for (String fileName : new String[] { "sample/TGC551.ged", "sample/willis.ged", "sample/willis-ascii.ged",
+                "sample/willis-ansel.ged", "sample/willis-unicode-bigendian.ged", "sample/willis-unicode-littleendian.ged",
+                "sample/utf8_crlf_bom.ged" }) {
+            GedcomParser eager = new GedcomParser();
+            eager.load(fileName);
+
+            GedcomParser lazy = new GedcomParser();
+            lazy.setLazyLoading(true);
+            lazy.load(fileName);
+
+            assertEquals(fileName, eager.getGedcom().getIndividuals().keySet(), lazy.getGedcom().getIndividuals().keySet());
+            assertEquals(fileName, eager.getGedcom().getFamilies().keySet(), lazy.getGedcom().getFamilies().keySet());
+            for (Individual i : lazy.getGedcom().getIndividuals().values()) {
+                assertSameIndividual(eager.getGedcom().getIndividuals().get(i.getXref()), i);
+            }
+            for (Family f : lazy.getGedcom().getFamilies().values()) {
+                assertSameFamily(eager.getGedcom().getFamilies().get(f.getXref()), f);
+            }
+            assertEquals(fileName, eager.getGedcom().getHeader(), lazy.getGedcom().getHeader());
+            assertEquals(fileName, eager.getGedcom().getNotes(), lazy.getGedcom().getNotes());
+            assertEquals(fileName, eager.getGedcom().getSources(), lazy.getGedcom().getSources());
+
+            // Now that everything is loaded, the findings should all be there too
+            List<String> eagerFindings = new ArrayList<>(eager.getErrors());
+            eagerFindings.addAll(eager.getWarnings());
+            Collections.sort(eagerFindings);
+            List<String> lazyFindings = new ArrayList<>(lazy.getErrors());
+            lazyFindings.addAll(lazy.getWarnings());
+            Collections.sort(lazyFindings);
+            assertEquals(fileName, eagerFindings, lazyFindings);
+        }
+    }
+}
@@ -29,6 +29,7 @@ package org.gedcom4j.parser;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import org.gedcom4j.exception.GedcomParserException;
 import org.junit.Rule;
@@ -138,4 +139,59 @@ public class LinePiecesTest {
         assertEquals("additional stuff", lp.remainder);
     }
 
+    /**
+     * Test that a single {@link LinePieces} object can be reused for multiple lines, that known tags come from {@link Tag}, and
+     * that custom tags are only allocated the first time they are seen
+     * 
+     * @throws GedcomParserException
+     *             if anything goes wrong
+     */
+    @Test
+    public void testLinePiecesReused() throws GedcomParserException {
+        LinePieces lp = new LinePieces();
+        lp.parse("0 @I1@ INDI", 1);
+        assertEquals(0, lp.level);
+        assertEquals("@I1@", lp.id);
+        assertSame(Tag.INDIVIDUAL.tagText, lp.tag);
+        assertNull(lp.remainder);
+
+        lp.parse("1 _CUSTOM first value", 2);
+        assertEquals(1, lp.level);
+        assertNull(lp.id);
+        assertEquals("_CUSTOM", lp.tag);
+        assertEquals("first value", lp.remainder);
+        String customTag = lp.tag;
+
+        lp.parse("12 _CUSTOM second value", 3);
+        assertEquals(12, lp.level);
+        assertSame(customTag, lp.tag);
+        assertEquals("second value", lp.remainder);
+    }
+
+    /**
+     * Test breaking lines up in two steps, where nothing but the level and tag is found until the rest is asked for
+     * 
+     * @throws GedcomParserException
+     *             if anything goes wrong
+     */
+    @Test
+    public void testLinePiecesTwoSteps() throws GedcomParserException {
+        LinePieces lp = new LinePieces();
+        lp.parse("1 NOTE previous", 1);
+        lp.parseLevelAndTag("0 @N1@ NOTE Some text", 2);
+        assertEquals(0, lp.level);
+        assertSame(Tag.NOTE.tagText, lp.tag);
+        assertNull(lp.id);
+        assertNull(lp.remainder);
+        lp.parseXrefAndRemainder();
+        assertEquals("@N1@", lp.id);
+        assertEquals("Some text", lp.remainder);
+
+        lp.parseLevelAndTag("2 DATE 1 JAN 1900", 3);
+        assertEquals(2, lp.level);
+        assertSame(Tag.DATE.tagText, lp.tag);
+        assertNull(lp.id);
+        assertNull(lp.remainder);
+    }
+
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Individual;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for loading only the records that have changed in a new version of a file - see {@link GedcomParser#loadChanges(String)}
+ * 
+ * @author frizbog
+ */
+public class LoadChangesTest {
+
+    /**
+     * The name of the file that the versions are written to
+     */
+    private static final String FILENAME = "tmp/loadchangestest.ged";
+
+    /**
+     * The original version of the file
+     */
+    private String original;
+
+    /**
+     * Read the original version of the file, and make sure there's somewhere to write the versions to
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     */
+    @Before
+    public void setUp() throws IOException {
+        new File("tmp").mkdirs();
+        original = new String(Files.readAllBytes(Paths.get("sample/willis.ged")), StandardCharsets.UTF_8).replace("\r\n", "\n");
+    }
+
+    /**
+     * Test that changes to individuals, families and the header are loaded on their own, with the same result as loading the whole
+     * file
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testChangedIndividualsAndFamilies() throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        writeVersion(original);
+        gp.loadChanges(FILENAME);
+        Gedcom g = gp.getGedcom();
+        Individual unchanged = g.getIndividuals().get("@I5168@");
+        Individual changed = g.getIndividuals().get("@I5169@");
+        Family changedFamily = g.getFamilies().get("@F1802@");
+
+        // Change an individual and a family, remove one individual, add another, and change the header
+        String v2 = original.replace("1 NAME George Stanley /Carey/", "1 NAME George S. /Carey/");
+        v2 = v2.replace("1 HUSB @I5167@\n1 WIFE @I5166@\n1 CHIL @I5168@\n2 _FREL Natural\n2 _MREL Natural\n",
+                "1 HUSB @I5167@\n1 WIFE @I5166@\n1 CHIL @I5168@\n2 _FREL Adopted\n2 _MREL Natural\n");
+        v2 = v2.replace("0 @I5120@ INDI\n1 NAME /Chapman/\n1 SEX M\n1 FAMS @F1782@\n", "");
+        v2 = v2.replace("0 TRLR", "0 @I99999@ INDI\n1 NAME New /Person/\n1 FAMC @F1802@\n1 FAMS @F88888@\n0 TRLR");
+        v2 = v2.replace("1 DATE 21 MAY 2016", "1 DATE 22 MAY 2016");
+        assertFalse(v2.equals(original));
+        writeVersion(v2);
+        gp.loadChanges(FILENAME);
+
+        assertSame(g, gp.getGedcom());
+        assertEquals(fullLoad(), g);
+        assertSame(unchanged, g.getIndividuals().get("@I5168@"));
+        assertNotSame(changed, g.getIndividuals().get("@I5169@"));
+        assertNotSame(changedFamily, g.getFamilies().get("@F1802@"));
+        assertSame(g.getFamilies().get("@F1802@"), unchanged.getFamiliesWhereChild().get(0).getFamily());
+        assertSame(g.getIndividuals().get("@I5169@"), g.getFamilies().get("@F1802@").getChildren().get(1).getIndividual());
+        assertSame(g.getIndividuals().get("@I5120@"), g.getFamilies().get("@F1782@").getHusband().getIndividual());
+        assertNull(g.getIndividuals().get("@I5120@").getNames());
+        assertTrue(g.getFamilies().containsKey("@F88888@"));
+        assertEquals("22 MAY 2016", g.getHeader().getDate().getValue());
+
+        // Remove the added individual again, and the placeholder for the family they referred to goes too
+        writeVersion(original);
+        gp.loadChanges(FILENAME);
+        assertEquals(fullLoad(), g);
+        assertFalse(g.getFamilies().containsKey("@F88888@"));
+        assertSame(unchanged, g.getIndividuals().get("@I5168@"));
+    }
+
+    /**
+     * Test that changing which note and source an individual refers to is loaded on its own, and that the placeholders for the
+     * note and source go when nothing refers to them any more
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testChangedNoteAndSourceReferences() throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        writeVersion(original);
+        gp.loadChanges(FILENAME);
+        Gedcom g = gp.getGedcom();
+        Individual unchanged = g.getIndividuals().get("@I5168@");
+
+        // Refer to a note and a source that aren't in the file, so there are placeholders for them
+        String v2 = original.replace("1 NAME George Stanley /Carey/\n1 SEX M\n",
+                "1 NAME George Stanley /Carey/\n2 SOUR @S99999@\n1 SEX M\n1 NOTE @N99999@\n");
+        assertFalse(v2.equals(original));
+        writeVersion(v2);
+        gp.loadChanges(FILENAME);
+        assertSame(g, gp.getGedcom());
+        assertEquals(fullLoad(), g);
+        assertSame(unchanged, g.getIndividuals().get("@I5168@"));
+        assertTrue(g.getNotes().containsKey("@N99999@"));
+        assertTrue(g.getSources().containsKey("@S99999@"));
+
+        // Refer to a different source, and no note, so the placeholders aren't referred to any more
+        String v3 = original.replace("1 NAME George Stanley /Carey/\n1 SEX M\n",
+                "1 NAME George Stanley /Carey/\n2 SOUR @S453@\n1 SEX M\n");
+        assertFalse(v3.equals(original));
+        writeVersion(v3);
+        gp.loadChanges(FILENAME);
+        assertEquals(fullLoad(), g);
+        assertSame(unchanged, g.getIndividuals().get("@I5168@"));
+        assertFalse(g.getNotes().containsKey("@N99999@"));
+        assertFalse(g.getSources().containsKey("@S99999@"));
+        assertTrue(g.getSources().containsKey("@S453@"));
+    }
+
+    /**
+     * Test that the whole file is loaded if a record changes that can't be loaded on its own
+     * 
+     * @throws IOException
+     *             if the file can't be read or written
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testChangedSource() throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        writeVersion(original);
+        gp.loadChanges(FILENAME);
+        Individual unchanged = gp.getGedcom().getIndividuals().get("@I5168@");
+
+        String v2 = original.replaceFirst("(0 @S453@ SOUR\n)", "$11 NOTE Changed\n");
+        assertFalse(v2.equals(original));
+        writeVersion(v2);
+        gp.loadChanges(FILENAME);
+        assertEquals(fullLoad(), gp.getGedcom());
+        assertNotSame(unchanged, gp.getGedcom().getIndividuals().get("@I5168@"));
+
+        // A normal load means the next call loads the whole file too
+        gp.load("sample/willis.ged");
+        unchanged = gp.getGedcom().getIndividuals().get("@I5168@");
+        gp.loadChanges(FILENAME);
+        assertNotSame(unchanged, gp.getGedcom().getIndividuals().get("@I5168@"));
+        assertEquals(fullLoad(), gp.getGedcom());
+    }
+
+    /**
+     * Load the whole of the current version of the file, to compare with
+     * 
+     * @return the gedcom loaded from the current version of the file
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    private Gedcom fullLoad() throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.load(FILENAME);
+        return gp.getGedcom();
+    }
+
+    /**
+     * Write a version of the file
+     * 
+     * @param contents
+     *            the contents of the file
+     * @throws IOException
+     *             if the file can't be written
+     */
+    private void writeVersion(String contents) throws IOException {
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(FILENAME), StandardCharsets.UTF_8)) {
+            w.write(contents);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.FamilyChild;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Individual;
+import org.junit.Test;
+
+/**
+ * Test for parsing with multiple threads (see {@link GedcomParser#setParseThreadCount(int)}), which should give the same results as
+ * parsing with just one
+ * 
+ * @author frizbog
+ */
+public class ParallelParseTest {
+
+    /**
+     * Sort a copy of a list of strings
+     * 
+     * @param list
+     *            the list
+     * @return a sorted copy of the list
+     */
+    private static List<String> sorted(List<String> list) {
+        List<String> result = new ArrayList<>(list);
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Test that all the samples parse the same whether in parallel or not
+     * 
+     * @throws IOException
+     *             if a file can't be read
+     * @throws GedcomParserException
+     *             if a file can't be parsed
+     */
+    @Test
+    public void testAllSamples() throws IOException, GedcomParserException {
+        String[] allFiles = new File("sample").list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".ged");
+            }
+        });
+        assertNotNull(allFiles);
+        GedcomParser sequential = new GedcomParser();
+        sequential.setStrictCustomTags(false);
+        sequential.setStrictLineBreaks(false);
+        GedcomParser parallel = new GedcomParser();
+        parallel.setStrictCustomTags(false);
+        parallel.setStrictLineBreaks(false);
+        parallel.setParseThreadCount(4);
+        for (String s : allFiles) {
+            sequential.load("sample/" + s);
+            parallel.load("sample/" + s);
+            assertEquals(s, sequential.getGedcom(), parallel.getGedcom());
+            assertEquals(s, sorted(sequential.getErrors()), sorted(parallel.getErrors()));
+            assertEquals(s, sorted(sequential.getWarnings()), sorted(parallel.getWarnings()));
+        }
+    }
+
+    /**
+     * Test that cross-references made on different threads resolve to the same objects
+     * 
+     * @throws IOException
+     *             if a file can't be read
+     * @throws GedcomParserException
+     *             if a file can't be parsed
+     */
+    @Test
+    public void testCrossReferences() throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.setParseThreadCount(8);
+        gp.load("sample/willis.ged");
+        Gedcom g = gp.getGedcom();
+        assertEquals(761, g.getIndividuals().size());
+        for (Individual i : g.getIndividuals().values()) {
+            if (i.getFamiliesWhereChild() != null) {
+                for (FamilyChild fc : i.getFamiliesWhereChild()) {
+                    Family f = fc.getFamily();
+                    assertSame(f, g.getFamilies().get(f.getXref()));
+                }
+            }
+        }
+        for (Family f : g.getFamilies().values()) {
+            if (f.getHusband() != null) {
+                assertSame(f.getHusband().getIndividual(), g.getIndividuals().get(f.getHusband().getIndividual().getXref()));
+            }
+            if (f.getWife() != null) {
+                assertSame(f.getWife().getIndividual(), g.getIndividuals().get(f.getWife().getIndividual().getXref()));
+            }
+        }
+    }
+
+    /**
+     * Test that an invalid thread count is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreadCount() {
+        new GedcomParser().setParseThreadCount(0);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.model.Source;
+import org.junit.Test;
+
+/**
+ * Test for loading only parts of a file with a {@link ParseFilter}
+ * 
+ * @author frizbog
+ */
+public class ParseFilterTest {
+
+    /**
+     * Test filtering both record types and the tags beneath them
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testFilterRecordsAndSubTags() throws IOException, GedcomParserException {
+        GedcomParser full = new GedcomParser();
+        full.load("sample/TGC551.ged");
+
+        GedcomParser gp = new GedcomParser();
+        gp.setParseFilter(new ParseFilter(Arrays.asList("INDI", "FAM"), Arrays.asList("NAME", "SEX", "FAMS", "FAMC", "HUSB",
+                "WIFE", "CHIL")));
+        gp.load("sample/TGC551.ged");
+        Gedcom g = gp.getGedcom();
+
+        assertNotNull(g.getHeader());
+        assertEquals(full.getGedcom().getHeader().getSourceSystem(), g.getHeader().getSourceSystem());
+        assertNotNull(g.getTrailer());
+        for (Source s : g.getSources().values()) {
+            // Only placeholders for sources cited beneath the kept tags
+            assertNull(s.getTitle());
+        }
+        assertTrue(g.getNotes().isEmpty());
+        assertTrue(g.getMultimedia().isEmpty());
+        assertTrue(g.getRepositories().isEmpty());
+
+        assertEquals(full.getGedcom().getIndividuals().keySet(), g.getIndividuals().keySet());
+        for (Individual i : g.getIndividuals().values()) {
+            Individual fullI = full.getGedcom().getIndividuals().get(i.getXref());
+            assertEquals(fullI.getNames().size(), i.getNames().size());
+            for (int n = 0; n < i.getNames().size(); n++) {
+                assertEquals(fullI.getNames().get(n).getBasic(), i.getNames().get(n).getBasic());
+            }
+            assertEquals(fullI.getSex(), i.getSex());
+            assertEquals(fullI.getFamiliesWhereSpouse() == null, i.getFamiliesWhereSpouse() == null);
+            assertNull(i.getEvents());
+            assertNull(i.getCitations());
+        }
+        assertEquals(full.getGedcom().getFamilies().keySet(), g.getFamilies().keySet());
+        for (Family f : g.getFamilies().values()) {
+            Family fullF = full.getGedcom().getFamilies().get(f.getXref());
+            assertEquals(fullF.getHusband() == null, f.getHusband() == null);
+            if (f.getHusband() != null) {
+                assertEquals(fullF.getHusband().getIndividual().getXref(), f.getHusband().getIndividual().getXref());
+            }
+            assertEquals(fullF.getChildren() == null, f.getChildren() == null);
+            if (f.getChildren() != null) {
+                assertEquals(fullF.getChildren().size(), f.getChildren().size());
+            }
+            assertNull(f.getEvents());
+        }
+    }
+
+    /**
+     * Test filtering record types only, which keeps everything beneath the kept records
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testFilterRecordsOnly() throws IOException, GedcomParserException {
+        GedcomParser full = new GedcomParser();
+        full.load("sample/TGC551.ged");
+
+        GedcomParser gp = new GedcomParser();
+        gp.setParseFilter(new ParseFilter(Collections.singletonList("NOTE")));
+        gp.load("sample/TGC551.ged");
+        Gedcom g = gp.getGedcom();
+
+        assertTrue(g.getIndividuals().isEmpty());
+        assertTrue(g.getFamilies().isEmpty());
+        assertEquals(full.getGedcom().getNotes().size(), g.getNotes().size());
+        assertEquals(full.getGedcom().getNotes().get("@N1@").getLines(), g.getNotes().get("@N1@").getLines());
+    }
+
+    /**
+     * Test that a filter requires record tags
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordTagsRequired() {
+        new ParseFilter(null);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.model.Gedcom;
+import org.junit.Test;
+
+/**
+ * Test for scanning files quickly before loading them - see {@link GedcomParser#setPreScanning(boolean)}
+ * 
+ * @author frizbog
+ */
+public class PreScanTest {
+
+    /**
+     * Test that the records are counted, and the file loads the same as without the scan
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testRecordCounts() throws IOException, GedcomParserException {
+        GedcomParser plain = new GedcomParser();
+        plain.load("sample/willis.ged");
+        assertNull(plain.getPreScan());
+
+        GedcomParser gp = new GedcomParser();
+        gp.setPreScanning(true);
+        gp.load("sample/willis.ged");
+        PreScan preScan = gp.getPreScan();
+        assertNotNull(preScan);
+        assertNull(preScan.getXrefs());
+        assertNull(preScan.getUnresolvedReferences());
+
+        Gedcom g = gp.getGedcom();
+        assertEquals(g.getIndividuals().size(), preScan.getRecordCount("INDI"));
+        assertEquals(g.getFamilies().size(), preScan.getRecordCount("FAM"));
+        assertEquals(g.getSources().size(), preScan.getRecordCount("SOUR"));
+        assertEquals(g.getNotes().size(), preScan.getRecordCount("NOTE"));
+        assertEquals(1, preScan.getRecordCount("HEAD"));
+        assertEquals(0, preScan.getRecordCount("_FOO"));
+        assertEquals(plain.getGedcom(), g);
+        assertEquals(plain.getErrors(), gp.getErrors());
+        assertEquals(plain.getWarnings(), gp.getWarnings());
+
+        // Streams aren't scanned
+        try (BufferedInputStream bis = new BufferedInputStream(new FileInputStream("sample/willis.ged"))) {
+            gp.load(bis);
+        }
+        assertNull(gp.getPreScan());
+    }
+
+    /**
+     * Test that references to records that aren't in the file are reported
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testUnresolvedReferences() throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.setPreScanning(true);
+        gp.setPreScanningReferences(true);
+        gp.load("sample/legacynocustomtags.ged");
+        PreScan preScan = gp.getPreScan();
+        assertTrue(preScan.getXrefs().contains("@I2@"));
+        assertFalse(preScan.getXrefs().contains("@F1@"));
+        assertEquals(Integer.valueOf(60), preScan.getUnresolvedReferences().get("@F1@"));
+        assertTrue(gp.getWarnings().contains("Line 60 refers to @F1@, which is not the xref of any record in the file"));
+
+        // The placeholder is still made, as usual
+        assertNotNull(gp.getGedcom().getFamilies().get("@F1@"));
+
+        gp.load("sample/willis.ged");
+        assertEquals(Collections.emptyMap(), gp.getPreScan().getUnresolvedReferences());
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.FamilySpouse;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.model.Submission;
+import org.junit.Test;
+
+/**
+ * Test for streaming records to {@link RecordHandler}s rather than building a whole {@link Gedcom}
+ * 
+ * @author frizbog
+ */
+public class RecordHandlerTest {
+
+    /**
+     * A handler that just keeps the records it's given
+     * 
+     * @param <T>
+     *            the type of record
+     */
+    private static class CollectingHandler<T> implements RecordHandler<T> {
+        /** The records handled */
+        private final List<T> records = new ArrayList<>();
+
+        @Override
+        public void handleRecord(T record) {
+            records.add(record);
+        }
+    }
+
+    /**
+     * Test streaming individuals and families, sequentially and in parallel
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testStreaming() throws IOException, GedcomParserException {
+        GedcomParser full = new GedcomParser();
+        full.load("sample/TGC551.ged");
+        Gedcom g = full.getGedcom();
+
+        for (int threads = 1; threads <= 4; threads += 3) {
+            CollectingHandler<Individual> individuals = new CollectingHandler<>();
+            CollectingHandler<Family> families = new CollectingHandler<>();
+            GedcomParser gp = new GedcomParser();
+            gp.setParseThreadCount(threads);
+            gp.registerRecordHandler(Individual.class, individuals);
+            gp.registerRecordHandler(Family.class, families);
+            gp.load("sample/TGC551.ged");
+
+            // Nothing kept in the Gedcom except the header and such
+            assertTrue(gp.getGedcom().getIndividuals().isEmpty());
+            assertTrue(gp.getGedcom().getFamilies().isEmpty());
+            assertTrue(gp.getGedcom().getSources().isEmpty());
+            assertTrue(gp.getGedcom().getNotes().isEmpty());
+            assertTrue(gp.getGedcom().getSubmitters().isEmpty());
+            assertNotNull(gp.getGedcom().getHeader().getSourceSystem());
+            assertEquals(g.getHeader().getSourceSystem(), gp.getGedcom().getHeader().getSourceSystem());
+
+            assertEquals(g.getIndividuals().size(), individuals.records.size());
+            assertEquals(g.getFamilies().size(), families.records.size());
+            for (Individual i : individuals.records) {
+                Individual loaded = g.getIndividuals().get(i.getXref());
+                assertNotNull(loaded);
+                // Citations will be to placeholder sources, so just compare the names themselves
+                assertEquals(loaded.getNames().size(), i.getNames().size());
+                for (int n = 0; n < i.getNames().size(); n++) {
+                    assertEquals(loaded.getNames().get(n).getBasic(), i.getNames().get(n).getBasic());
+                }
+                if (i.getFamiliesWhereSpouse() != null) {
+                    for (FamilySpouse fs : i.getFamiliesWhereSpouse()) {
+                        // References are to placeholders
+                        assertNotNull(fs.getFamily().getXref());
+                        assertNull(fs.getFamily().getHusband());
+                        assertNull(fs.getFamily().getWife());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that records are handed over in file order
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testFileOrder() throws IOException, GedcomParserException {
+        final List<String> xrefs = new ArrayList<>();
+        GedcomParser gp = new GedcomParser();
+        gp.setParseThreadCount(4);
+        gp.registerRecordHandler(Individual.class, new RecordHandler<Individual>() {
+            @Override
+            public void handleRecord(Individual record) {
+                xrefs.add(record.getXref());
+            }
+        });
+        gp.load("sample/willis.ged");
+        assertEquals(761, xrefs.size());
+        assertEquals("@I5169@", xrefs.get(0));
+    }
+
+    /**
+     * Test unregistering the last handler leaves streaming mode
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testUnregister() throws IOException, GedcomParserException {
+        CollectingHandler<Individual> individuals = new CollectingHandler<>();
+        GedcomParser gp = new GedcomParser();
+        gp.registerRecordHandler(Individual.class, individuals);
+        gp.unregisterRecordHandler(Individual.class, individuals);
+        gp.load("sample/TGC551.ged");
+        assertTrue(individuals.records.isEmpty());
+        assertEquals(15, gp.getGedcom().getIndividuals().size());
+    }
+
+    /**
+     * Test that handlers can't be registered for things that aren't records
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterForNonRecordType() {
+        new GedcomParser().registerRecordHandler(Submission.class, new CollectingHandler<Submission>());
+    }
+}
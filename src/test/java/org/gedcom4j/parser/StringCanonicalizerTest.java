@@ -27,13 +27,20 @@
 package org.gedcom4j.parser;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
 import java.util.Random;
 
-import org.gedcom4j.parser.StringCanonicalizer.CanonicalizedString;
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.exception.ParserCancelledException;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.model.IndividualEvent;
+import org.gedcom4j.parser.event.ParseProgressEvent;
+import org.gedcom4j.parser.event.ParseProgressListener;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -63,39 +70,52 @@ public class StringCanonicalizerTest {
     }
 
     /**
-     * Test with a larger population that should exceed the pool size, but some of the entries should be below the usage threshold,
-     * which means eviction should get triggered
+     * Test that canonicalization can be turned off
+     */
+    @Test
+    public void testDisabled() {
+        classUnderTest = new StringCanonicalizer(0);
+        String s = new String("Foo");
+        classUnderTest.getCanonicalVersion(s);
+        String s2 = new String("Foo");
+        assertSame(s2, classUnderTest.getCanonicalVersion(s2));
+        assertEquals(0, classUnderTest.getStatistics().getSize());
+    }
+
+    /**
+     * Test that a stream of values that never repeat, far bigger than the pool, doesn't evict the values that do keep repeating -
+     * and that new values can still be canonicalized afterwards
      */
     @Test
     public void testLargerPopulation() {
-        // Load the string pool
-        final int numValues = classUnderTest.getMaxPoolSize() + 100;
-        for (int values = 0; values < numValues; values++) {
-            for (int uses = 0; uses < 20 + random.nextInt(20); uses++) {
-                String s = Integer.toString(values);
-                String c = classUnderTest.getCanonicalVersion(s);
-                assertEquals(s, c);
+        final int maxPoolSize = classUnderTest.getMaxPoolSize();
+        String[] canons = new String[100];
+        for (int i = 0; i < maxPoolSize * 10; i++) {
+            if (i % 10 == 0) {
+                int values = i / 10 % canons.length;
+                String c = classUnderTest.getCanonicalVersion(Integer.toString(values));
+                if (canons[values] == null) {
+                    canons[values] = c;
+                } else {
+                    assertSame(canons[values], c);
+                }
             }
+            classUnderTest.getCanonicalVersion("One-off " + i);
         }
 
-        assertEquals(1, classUnderTest.numEvictions);
-        assertNull(classUnderTest.stringPool.get("499"));
-        CanonicalizedString c = classUnderTest.stringPool.get("498");
-        assertNotNull(c);
-        assertEquals("498", c.value);
-        assertEquals(25, c.count);
+        StringPoolStatistics stats = classUnderTest.getStatistics();
+        assertEquals(maxPoolSize, stats.getSize());
+        assertTrue(stats.getEvictions() > maxPoolSize * 8);
 
         // Make sure we get canonical versions
-        for (int values = 0; values < numValues; values++) {
-            String s = Integer.toString(values);
-            String c2 = classUnderTest.getCanonicalVersion(s);
-            assertEquals(s, c2);
-            StringCanonicalizer.CanonicalizedString cv = classUnderTest.stringPool.get(s);
-            if (cv != null) {
-                assertSame(cv.value, c2);
-            }
+        for (int values = 0; values < canons.length; values++) {
+            String c = classUnderTest.getCanonicalVersion(Integer.toString(values));
+            assertSame(canons[values], c);
         }
 
+        // Values first seen after the pool filled up are still canonicalized
+        String s = classUnderTest.getCanonicalVersion(new String("Latecomer"));
+        assertSame(s, classUnderTest.getCanonicalVersion(new String("Latecomer")));
     }
 
     /**
@@ -121,6 +141,96 @@ public class StringCanonicalizerTest {
             assertEquals(c, canons[values]);
             assertSame(c, canons[values]);
         }
+        assertEquals(0, classUnderTest.getStatistics().getEvictions());
+    }
+
+    /**
+     * Test the statistics exposed by the parser after loading a file
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testParserStatistics() throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.load("sample/willis.ged");
+        StringPoolStatistics stats = gp.getStringPoolStatistics();
+        assertTrue(stats.getHits() > 0);
+        assertTrue(stats.getMisses() > 0);
+        assertTrue(stats.getSize() > 0);
+        assertPoolsEmpty(gp.getStringCanonicalizer());
+
+        // Repeated places are shared between records
+        String place = null;
+        int found = 0;
+        for (Individual i : gp.getGedcom().getIndividuals().values()) {
+            if (i.getEvents() != null) {
+                for (IndividualEvent e : i.getEvents()) {
+                    if (e.getPlace() != null && "Lawrence, Ohio, USA".equals(e.getPlace().getPlaceName())) {
+                        if (place == null) {
+                            place = e.getPlace().getPlaceName();
+                        } else {
+                            assertSame(place, e.getPlace().getPlaceName());
+                        }
+                        found++;
+                    }
+                }
+            }
+        }
+        assertTrue(found > 1);
+
+        gp.setStringPoolSize(0);
+        gp.load("sample/willis.ged");
+        assertEquals(0, gp.getStringPoolStatistics().getHits());
+    }
+
+    /**
+     * Test that the pools are emptied when a load is cancelled, as well as when it finishes
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testPoolsEmptiedWhenCancelled() throws IOException, GedcomParserException {
+        final GedcomParser gp = new GedcomParser();
+        ParseProgressListener canceller = new ParseProgressListener() {
+            @Override
+            public void progressNotification(ParseProgressEvent e) {
+                gp.cancel();
+            }
+        };
+        gp.registerParseObserver(canceller);
+        try {
+            gp.load("sample/willis.ged");
+            fail("Expected a ParserCancelledException");
+        } catch (ParserCancelledException expected) {
+            assertTrue(gp.getStringPoolStatistics().getMisses() > 0);
+            assertPoolsEmpty(gp.getStringCanonicalizer());
+        } finally {
+            // The parser only keeps a weak reference to its observers
+            gp.unregisterParseObserver(canceller);
+        }
+    }
+
+    /**
+     * Test that the values of the busiest tags have pools of their own, so that they don't evict each other's values
+     */
+    @Test
+    public void testSeparatePools() {
+        String place = classUnderTest.getCanonicalVersion("PLAC", new String("Paris"));
+        classUnderTest.getCanonicalVersion("PLAC", new String("Paris"));
+        for (int i = 0; i < classUnderTest.getMaxPoolSize() * 2; i++) {
+            classUnderTest.getCanonicalVersion("DATE", Integer.toString(i));
+            classUnderTest.getCanonicalVersion("NOTE", Integer.toString(i));
+        }
+        assertSame(place, classUnderTest.getCanonicalVersion("PLAC", new String("Paris")));
+
+        // The same value for a different tag is a different entry
+        assertNotSame(place, classUnderTest.getCanonicalVersion("NOTE", new String("Paris")));
     }
 
     /**
@@ -150,43 +260,49 @@ public class StringCanonicalizerTest {
     }
 
     /**
-     * Test with a larger population that should exceed the pool size, but some of the entries should be below the usage threshold,
-     * which means eviction should get triggered
+     * Test the hit, miss and eviction counts
      */
     @Test
-    public void testVeryLargePopulation() {
-        // Load the string pool
-        final int numValues = classUnderTest.getMaxPoolSize() * 3;
-        for (int values = 0; values < numValues; values++) {
-            for (int uses = 0; uses < 20 + random.nextInt(20); uses++) {
-                String s = Integer.toString(values);
-                String c = classUnderTest.getCanonicalVersion(s);
-                assertEquals(s, c);
-            }
+    public void testStatistics() {
+        classUnderTest = new StringCanonicalizer(5);
+        for (int i = 0; i < 10; i++) {
+            classUnderTest.getCanonicalVersion(Integer.toString(i));
         }
+        classUnderTest.getCanonicalVersion("9");
+        classUnderTest.getCanonicalVersion("9");
+        classUnderTest.getCanonicalVersion("0");
+        StringPoolStatistics stats = classUnderTest.getStatistics();
+        assertEquals(2, stats.getHits());
+        assertEquals(11, stats.getMisses());
+        assertEquals(6, stats.getEvictions());
+        assertEquals(5, stats.getSize());
 
-        assertEquals(8, classUnderTest.numEvictions);
-        /*
-         * Because we used a java.util.Random with a fixed seed, which items remain in the pool should be predictable, so these
-         * asserts should be safe
-         */
-        assertNull(classUnderTest.stringPool.get("499"));
-        CanonicalizedString c = classUnderTest.stringPool.get("498");
-        assertNotNull(c);
-        assertEquals("498", c.value);
-        assertEquals(25, c.count);
+        classUnderTest.reset();
+        stats = classUnderTest.getStatistics();
+        assertEquals(0, stats.getHits());
+        assertEquals(0, stats.getMisses());
+        assertEquals(0, stats.getSize());
+    }
 
-        // Make sure we get canonical versions
-        for (int values = 0; values < numValues; values++) {
-            String s = Integer.toString(values);
-            StringCanonicalizer.CanonicalizedString cv = classUnderTest.stringPool.get(s);
-            if (cv != null) {
-                String c2 = classUnderTest.getCanonicalVersion(s);
-                assertEquals(s, c2);
-                assertSame(cv.value, c2);
-            }
-        }
+    /**
+     * Test that the pool size can't be negative
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testStringPoolSizeNotNegative() {
+        new GedcomParser().setStringPoolSize(-1);
+    }
 
+    /**
+     * Assert that all the pools of a canonicalizer are empty
+     * 
+     * @param canonicalizer
+     *            the canonicalizer
+     */
+    private void assertPoolsEmpty(StringCanonicalizer canonicalizer) {
+        for (StringCanonicalizer.Pool pool : canonicalizer.tagPools.values()) {
+            assertEquals(0, pool.size());
+        }
+        assertEquals(0, canonicalizer.otherValues.size());
     }
 
 }
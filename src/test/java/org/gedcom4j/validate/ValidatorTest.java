@@ -28,9 +28,17 @@ package org.gedcom4j.validate;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.util.Collections;
+
+import org.gedcom4j.factory.IndividualFactory;
+import org.gedcom4j.factory.Sex;
 import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.model.NoteStructure;
+import org.gedcom4j.model.TestHelper;
 import org.gedcom4j.validate.Validator.Finding;
 import org.junit.Test;
 
@@ -98,6 +106,32 @@ public class ValidatorTest implements AutoRepairResponder {
         assertEquals(1, v.getResults().getAllFindings().size());
     }
 
+    /**
+     * Test method for {@link Validator#setRecordsToValidate(java.util.Collection)}.
+     */
+    @Test
+    public void testRecordsToValidate() {
+        Gedcom g = TestHelper.getMinimalGedcom();
+        Individual bob = new IndividualFactory().create(g, "Bob", "Boberts", Sex.MALE, (String) null, null, null, null);
+        Individual jim = new IndividualFactory().create(g, "Jim", "Jimson", Sex.MALE, (String) null, null, null, null);
+        NoteStructure bobsNote = new NoteStructure();
+        bob.getNoteStructures(true).add(bobsNote);
+        NoteStructure jimsNote = new NoteStructure();
+        jim.getNoteStructures(true).add(jimsNote);
+
+        Validator v = new Validator(g);
+        assertNull(v.getRecordsToValidate());
+        v.setRecordsToValidate(Collections.singletonList(jim));
+        assertEquals(1, v.getRecordsToValidate().size());
+        v.validate();
+        assertEquals(1, v.getResults().getAllFindings().size());
+        assertSame(jimsNote, v.getResults().getAllFindings().get(0).getItemOfConcern());
+
+        v.setRecordsToValidate(null);
+        v.validate();
+        assertEquals(2, v.getResults().getAllFindings().size());
+    }
+
     /**
      * Test method for {@link Validator#setAutoRepairResponder(AutoRepairResponder)}.
      */
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.writer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.exception.GedcomWriterException;
+import org.gedcom4j.exception.WriterCancelledException;
+import org.gedcom4j.io.writer.LineTerminator;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.parser.GedcomParser;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for writing to channels and paths with the {@link GedcomWriter}
+ * 
+ * @author frizbog
+ */
+public class GedcomWriterChannelTest {
+
+    /**
+     * The data being written
+     */
+    private Gedcom g;
+
+    /**
+     * Set up the test
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Before
+    public void setUp() throws IOException, GedcomParserException {
+        new File("tmp").mkdirs();
+        GedcomParser gp = new GedcomParser();
+        gp.load("sample/willis-ansel.ged");
+        g = gp.getGedcom();
+    }
+
+    /**
+     * Test that the preallocation size can't be negative
+     * 
+     * @throws GedcomWriterException
+     *             if the writer can't be created
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePreallocation() throws GedcomWriterException {
+        new GedcomWriter(new Gedcom()).setPreallocationSize(-1);
+    }
+
+    /**
+     * Test that a preallocated file is trimmed back even when the write fails, rather than being left padded with zero bytes
+     * 
+     * @throws IOException
+     *             if the file can't be written or read back
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testPreallocatedPathTrimmedOnFailure() throws IOException, GedcomWriterException {
+        Path path = Paths.get("tmp", "c", "cancelled.ged");
+        GedcomWriter gw = newWriter();
+        gw.setPreallocationSize(1000000);
+        gw.cancel();
+        try {
+            gw.write(path);
+            fail("Should have been cancelled");
+        } catch (WriterCancelledException expected) {
+            assertTrue(Files.size(path) < 1000000);
+        }
+    }
+
+    /**
+     * Test writing to a path, with and without preallocation and forcing, writes the same bytes as writing to a file
+     * 
+     * @throws IOException
+     *             if the file can't be written or read back
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testWritePath() throws IOException, GedcomWriterException {
+        File file = new File("tmp/a/channel.ged");
+        newWriter().write(file);
+        byte[] expected = Files.readAllBytes(file.toPath());
+
+        Path path = Paths.get("tmp", "b", "channel.ged");
+        newWriter().write(path);
+        assertArrayEquals(expected, Files.readAllBytes(path));
+
+        GedcomWriter gw = newWriter();
+        gw.setPreallocationSize(expected.length * 2L);
+        gw.setForceToStorage(true);
+        gw.write(path);
+        assertEquals(expected.length, Files.size(path));
+        assertArrayEquals(expected, Files.readAllBytes(path));
+    }
+
+    /**
+     * Test writing to an in-process pipe
+     * 
+     * @throws IOException
+     *             if the pipe can't be read
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     * @throws InterruptedException
+     *             if interrupted while waiting for the writing thread
+     */
+    @Test
+    public void testWritePipe() throws IOException, GedcomWriterException, InterruptedException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        newWriter().write(expected);
+
+        final Pipe pipe = Pipe.open();
+        final GedcomWriter gw = newWriter();
+        final GedcomWriterException[] failure = new GedcomWriterException[1];
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    gw.write(pipe.sink());
+                    pipe.sink().close();
+                } catch (GedcomWriterException e) {
+                    failure[0] = e;
+                } catch (IOException e) {
+                    failure[0] = new GedcomWriterException("Unable to close pipe", e);
+                }
+            }
+        });
+        t.start();
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ByteBuffer bb = ByteBuffer.allocate(4096);
+        while (pipe.source().read(bb) >= 0) {
+            bb.flip();
+            Channels.newChannel(actual).write(bb);
+            bb.clear();
+        }
+        t.join();
+
+        assertNull(failure[0]);
+        assertTrue(expected.size() > 0);
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+    /**
+     * Create a writer for the data with a fixed line terminator
+     * 
+     * @return the writer
+     * @throws GedcomWriterException
+     *             if the writer can't be created
+     */
+    private GedcomWriter newWriter() throws GedcomWriterException {
+        GedcomWriter gw = new GedcomWriter(g);
+        gw.setValidationSuppressed(true);
+        gw.setLineTerminator(LineTerminator.CRLF);
+        return gw;
+    }
+
+}
@@ -32,6 +32,7 @@ import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -42,7 +43,6 @@ import java.util.Map.Entry;
 
 import org.gedcom4j.exception.GedcomParserException;
 import org.gedcom4j.exception.GedcomWriterException;
-import org.gedcom4j.exception.WriterCancelledException;
 import org.gedcom4j.io.reader.GedcomFileReader;
 import org.gedcom4j.model.Family;
 import org.gedcom4j.model.Gedcom;
@@ -296,42 +296,92 @@ public class GedcomWriterTest {
     }
 
     /**
-     * Test for {@link GedcomWriter#splitLinesOnBreakingCharacters(List)}
+     * Test that values with line break characters in them are emitted as CONT lines, and that lines too long to fit are continued
+     * on CONC lines
      * 
-     * @throws WriterCancelledException
-     *             if the writer operation is cancelled
+     * @throws GedcomWriterException
+     *             if the data can't be written
      */
     @Test
-    public void testSplitLines() throws WriterCancelledException {
-        AbstractEmitter<Gedcom> gw = new GedcomWriter(null);
+    public void testSplitLines() throws GedcomWriterException {
+        GedcomWriter gw = new GedcomWriter(null);
         List<String> original = new ArrayList<>();
         original.add("This is a test");
-        List<String> result = gw.splitLinesOnBreakingCharacters(original);
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("This is a test", result.get(0));
+        gw.emitLinesOfText(1, "NOTE", original);
+        assertEquals(1, gw.lines.size());
+        assertEquals("1 NOTE This is a test", gw.lines.get(0));
 
+        gw.lines.clear();
         original.add("This has a line break\nright in the middle");
-        result = gw.splitLinesOnBreakingCharacters(original);
-        assertNotNull(result);
-        assertEquals(3, result.size());
-        assertEquals("This is a test", result.get(0));
-        assertEquals("This has a line break", result.get(1));
-        assertEquals("right in the middle", result.get(2));
-
+        gw.emitLinesOfText(1, "NOTE", original);
+        assertEquals(3, gw.lines.size());
+        assertEquals("1 NOTE This is a test", gw.lines.get(0));
+        assertEquals("2 CONT This has a line break", gw.lines.get(1));
+        assertEquals("2 CONT right in the middle", gw.lines.get(2));
+
+        // Trailing line breaks are dropped, and a line break followed by the other kind is a single break
+        gw.lines.clear();
         original.add("\nThis has\r\nlots of\rbreaking characters\n\rall over\nthe place\n");
-        result = gw.splitLinesOnBreakingCharacters(original);
-        assertNotNull(result);
-        assertEquals(9, result.size());
-        assertEquals("This is a test", result.get(0));
-        assertEquals("This has a line break", result.get(1));
-        assertEquals("right in the middle", result.get(2));
-        assertEquals("", result.get(3));
-        assertEquals("This has", result.get(4));
-        assertEquals("lots of", result.get(5));
-        assertEquals("breaking characters", result.get(6));
-        assertEquals("all over", result.get(7));
-        assertEquals("the place", result.get(8));
+        gw.emitLinesOfText(1, "NOTE", original);
+        assertEquals(9, gw.lines.size());
+        assertEquals("1 NOTE This is a test", gw.lines.get(0));
+        assertEquals("2 CONT This has a line break", gw.lines.get(1));
+        assertEquals("2 CONT right in the middle", gw.lines.get(2));
+        assertEquals("2 CONT ", gw.lines.get(3));
+        assertEquals("2 CONT This has", gw.lines.get(4));
+        assertEquals("2 CONT lots of", gw.lines.get(5));
+        assertEquals("2 CONT breaking characters", gw.lines.get(6));
+        assertEquals("2 CONT all over", gw.lines.get(7));
+        assertEquals("2 CONT the place", gw.lines.get(8));
+
+        // An empty value is emitted, but a value of nothing but line breaks isn't
+        gw.lines.clear();
+        original.clear();
+        original.add("");
+        original.add("\r\n\n");
+        gw.emitLinesOfText(1, "NOTE", original);
+        assertEquals(1, gw.lines.size());
+        assertEquals("1 NOTE ", gw.lines.get(0));
+
+        // A tag's value is continued a level deeper than lines of text are, and its CONC lines are deeper still
+        gw.lines.clear();
+        StringBuilder longLine = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            longLine.append("0123456789");
+        }
+        gw.emitTagWithOptionalValue(1, "PAGE", "First\n" + longLine + "\n");
+        assertEquals(3, gw.lines.size());
+        assertEquals("1 PAGE First", gw.lines.get(0));
+        assertTrue(gw.lines.get(1).startsWith("2 CONT 0123456789"));
+        assertEquals(128, gw.lines.get(1).length());
+        assertTrue(gw.lines.get(2).startsWith("3 CONC "));
+        assertEquals(longLine.toString(), gw.lines.get(1).substring(7) + gw.lines.get(2).substring(7));
+    }
+
+    /**
+     * Test that text with line breaks and lines too long to fit is split into CONT and CONC lines
+     * 
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testSplitLongLinesOfText() throws GedcomWriterException {
+        Gedcom g = new Gedcom();
+        NoteRecord n = new NoteRecord("@N1@");
+        StringBuilder longLine = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            longLine.append("0123456789");
+        }
+        n.getLines(true).add("First\r\n" + longLine + "\n\nLast\n");
+        g.getNotes().put(n.getXref(), n);
+        GedcomWriter gw = new GedcomWriter(g);
+        gw.setValidationSuppressed(true);
+        gw.write(new ByteArrayOutputStream());
+
+        String prefix = "1 @N1@ CONT ";
+        assertLineSequence("Note not split as expected", gw.lines, "0 @N1@ NOTE First", prefix + longLine.substring(0, 128 - prefix
+                .length()), "1 CONC " + longLine.substring(128 - prefix.length(), 256 - prefix.length()), "1 CONC " + longLine
+                        .substring(256 - prefix.length()), "1 @N1@ CONT ", "1 @N1@ CONT Last", "0 TRLR");
     }
 
     /**
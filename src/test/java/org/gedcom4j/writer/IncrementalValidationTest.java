@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+
+import org.gedcom4j.exception.GedcomWriterException;
+import org.gedcom4j.factory.FamilyFactory;
+import org.gedcom4j.factory.IndividualFactory;
+import org.gedcom4j.factory.Sex;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.model.NoteStructure;
+import org.gedcom4j.model.TestHelper;
+import org.gedcom4j.model.enumerations.IndividualEventType;
+import org.gedcom4j.validate.ProblemCode;
+import org.gedcom4j.validate.Validator.Finding;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for validating only the records that have changed since the last write, with
+ * {@link GedcomWriter#setIncrementalValidation(boolean)}
+ * 
+ * @author frizbog
+ */
+public class IncrementalValidationTest {
+
+    /**
+     * The individual being altered
+     */
+    private Individual bob;
+
+    /**
+     * The data being written
+     */
+    private Gedcom g;
+
+    /**
+     * The writer being tested
+     */
+    private GedcomWriter gw;
+
+    /**
+     * Set up the test
+     * 
+     * @throws GedcomWriterException
+     *             if the writer can't be created
+     */
+    @Before
+    public void setUp() throws GedcomWriterException {
+        g = TestHelper.getMinimalGedcom();
+        bob = new IndividualFactory().create(g, "Bob", "Boberts", Sex.MALE, (String) null, null, null, null);
+        new IndividualFactory().create(g, "Jim", "Jimson", Sex.MALE, (String) null, null, null, null);
+        gw = new GedcomWriter(g);
+        gw.setIncrementalValidation(true);
+    }
+
+    /**
+     * Test that a record marked as changed is validated again
+     * 
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testChangedRecordValidated() throws GedcomWriterException {
+        write();
+        bob.getNoteStructures(true).add(new NoteStructure());
+        bob.markChanged();
+        assertWriteFails();
+
+        // The failed write doesn't count as validated, so the record is still validated again even if not marked
+        assertWriteFails();
+        bob.getNoteStructures().get(0).getLines(true).add("Fixed");
+        write();
+        assertEquals(0, gw.getValidator().getResults().getAllFindings().size());
+    }
+
+    /**
+     * Test that the supplementary validators are run again when a record has changed, since a change to one record can break a rule
+     * that looks across several
+     * 
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testChangedRecordSupplementaryValidation() throws GedcomWriterException {
+        Individual dad = new IndividualFactory().create(g, "Dad", "Smith", Sex.MALE, "1 JAN 1950", null, null, null);
+        Individual mom = new IndividualFactory().create(g, "Mom", "Smith", Sex.FEMALE, "1 JAN 1950", null, null, null);
+        Individual son = new IndividualFactory().create(g, "Son", "Smith", Sex.MALE, "1 JAN 1980", null, null, null);
+        new FamilyFactory().create(g, dad, mom, son);
+        write();
+        assertEquals(0, gw.getValidator().getResults().getAllFindings().size());
+
+        // Nothing has changed, so the supplementary validators are not run
+        son.getEventsOfType(IndividualEventType.BIRTH).get(0).setDate("1 JAN 1940");
+        write();
+        assertEquals(0, gw.getValidator().getResults().getAllFindings().size());
+
+        son.markChanged();
+        write();
+        int bornBeforeAncestors = 0;
+        for (Finding f : gw.getValidator().getResults().getAllFindings()) {
+            if (f.getProblemCode() == ProblemCode.DESCENDANT_BORN_BEFORE_ANCESTOR.getCode()) {
+                assertSame(son, f.getItemOfConcern());
+                bornBeforeAncestors++;
+            }
+        }
+        assertEquals(2, bornBeforeAncestors);
+    }
+
+    /**
+     * Test that a record added since the last write is validated
+     * 
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testNewRecordValidated() throws GedcomWriterException {
+        write();
+        Individual sue = new IndividualFactory().create(g, "Sue", "Suzuki", Sex.FEMALE, (String) null, null, null, null);
+        sue.getNoteStructures(true).add(new NoteStructure());
+        assertWriteFails();
+    }
+
+    /**
+     * Test that records that have not been marked as changed are not validated again
+     * 
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testUnchangedRecordNotValidated() throws GedcomWriterException {
+        assertTrue(gw.isIncrementalValidation());
+        write();
+        bob.getNoteStructures(true).add(new NoteStructure());
+        write();
+        assertEquals(0, gw.getValidator().getResults().getAllFindings().size());
+
+        // Turning incremental validation off and on again starts afresh
+        gw.setIncrementalValidation(false);
+        assertFalse(gw.isIncrementalValidation());
+        assertWriteFails();
+        gw.setIncrementalValidation(true);
+        assertWriteFails();
+    }
+
+    /**
+     * Assert that writing the data fails validation
+     */
+    private void assertWriteFails() {
+        try {
+            write();
+            fail("Expected validation to fail");
+        } catch (GedcomWriterException expected) {
+            assertEquals(1, gw.getValidator().getResults().getAllFindings().size());
+        }
+    }
+
+    /**
+     * Write the data
+     * 
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    private void write() throws GedcomWriterException {
+        gw.write(new ByteArrayOutputStream());
+    }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.exception.GedcomWriterException;
+import org.gedcom4j.io.writer.LineTerminator;
+import org.gedcom4j.model.Family;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.model.enumerations.SupportedVersion;
+import org.gedcom4j.parser.GedcomParser;
+import org.gedcom4j.validate.Validator;
+import org.junit.Test;
+
+/**
+ * Test for writing records back out verbatim from the lines they were loaded from, with
+ * {@link GedcomParser#setKeepingOriginalLines(boolean)}
+ * 
+ * @author frizbog
+ */
+public class OriginalLinesTest {
+
+    /**
+     * Test that a record marked as changed is constructed again rather than written out as it was loaded
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testChangedRecordConstructed() throws IOException, GedcomParserException, GedcomWriterException {
+        Gedcom g = load("sample/allged.ged", true);
+        Individual i = g.getIndividuals().get("@PERSON1@");
+        i.getNames().get(0).setBasic("Changed /Name/");
+        assertTrue(write(g).contains("0 @PERSON1@ INDI\n1 NAME given name /surname/jr.\n"));
+
+        i.markChanged();
+        String s = write(g);
+        assertTrue(s.contains("0 @PERSON1@ INDI\n1 NAME Changed /Name/\n"));
+        assertFalse(s.contains("1 NAME given name /surname/jr.\n"));
+    }
+
+    /**
+     * Test that a record whose xref has changed is constructed again
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testChangedXrefConstructed() throws IOException, GedcomParserException, GedcomWriterException {
+        Gedcom g = load("sample/allged.ged", true);
+        Individual i = g.getIndividuals().get("@PERSON1@");
+        i.setXref("@PERSON99@");
+        String s = write(g);
+        assertTrue(s.contains("0 @PERSON99@ INDI\n"));
+        assertFalse(s.contains("0 @PERSON1@ INDI\n"));
+    }
+
+    /**
+     * Test that the original lines are not used for any record, once the GEDCOM version being written differs from the version of
+     * the file they were loaded from
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testChangedVersionConstructed() throws IOException, GedcomParserException, GedcomWriterException {
+        Gedcom g = load("sample/RelationshipTest.ged", true);
+        assertEquals("5.5", g.getOriginalLinesVersion());
+        g.getIndividuals().get("@I00001@").getNames().get(0).setBasic("Changed /Name/");
+        assertTrue(write(g).contains("0 @I00001@ INDI\n1 NAME Alex /Zucco/\n"));
+
+        g.getHeader().getGedcomVersion().setVersionNumber(SupportedVersion.V5_5_1);
+        String s = write(g);
+        assertTrue(s.contains("0 @I00001@ INDI\n1 NAME Changed /Name/\n"));
+        assertFalse(s.contains("1 NAME Alex /Zucco/\n"));
+    }
+
+    /**
+     * Test that records are not written out as they were loaded once the validator has repaired any of them, since the repairs
+     * don't mark the records as changed
+     * 
+     * @throws IOException
+     *             if the data can't be read
+     * @throws GedcomParserException
+     *             if the data can't be parsed
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testRepairedRecordConstructed() throws IOException, GedcomParserException, GedcomWriterException {
+        String data = "0 HEAD\n1 SOUR test\n1 SUBM @SUBM1@\n1 GEDC\n2 VERS 5.5\n2 FORM LINEAGE-LINKED\n1 CHAR ASCII\n"
+                + "0 @SUBM1@ SUBM\n1 NAME Submitter\n0 @I1@ INDI\n1 NAME John /Doe/\n1 NAME John /Doe/\n0 TRLR\n";
+        GedcomParser gp = new GedcomParser();
+        gp.setKeepingOriginalLines(true);
+        gp.load(new BufferedInputStream(new ByteArrayInputStream(data.getBytes(StandardCharsets.US_ASCII))));
+        Gedcom g = gp.getGedcom();
+        Individual i = g.getIndividuals().get("@I1@");
+        assertEquals("0 @I1@ INDI\n1 NAME John /Doe/\n1 NAME John /Doe/", i.getOriginalLines());
+
+        GedcomWriter w = new GedcomWriter(g);
+        w.setAutoRepairResponder(Validator.AUTO_REPAIR_ALL);
+        w.setLineTerminator(LineTerminator.LF_ONLY);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        w.write(baos);
+        assertEquals(0, i.getChangeCount());
+        assertEquals(1, i.getNames().size());
+        String s = new String(baos.toByteArray(), StandardCharsets.US_ASCII);
+        assertTrue(s.contains("0 @I1@ INDI\n1 NAME John /Doe/\n"));
+        assertFalse(s.contains("1 NAME John /Doe/\n1 NAME John /Doe/\n"));
+    }
+
+    /**
+     * Test that unchanged records that refer to a record whose xref has changed are constructed again, rather than written out with
+     * the old xref
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testReferencedXrefChangedConstructed() throws IOException, GedcomParserException, GedcomWriterException {
+        Gedcom g = load("sample/allged.ged", true);
+        Family f = g.getFamilies().get("@FAMILY1@");
+        f.setXref("@FNEW@");
+        f.markChanged();
+        String s = write(g);
+        assertTrue(s.contains("0 @FNEW@ FAM\n"));
+        assertTrue(s.contains("1 FAMS @FNEW@\n"));
+        assertTrue(s.contains("1 FAMC @FNEW@\n"));
+        assertFalse(s.contains("@FAMILY1@"));
+    }
+
+    /**
+     * Test that the original lines are kept with the records only when asked for, including when loading lazily or in parallel
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testOriginalLinesKept() throws IOException, GedcomParserException {
+        assertNull(load("sample/allged.ged", false).getIndividuals().get("@PERSON1@").getOriginalLines());
+
+        Gedcom g = load("sample/allged.ged", true);
+        assertTrue(g.getIndividuals().get("@PERSON1@").getOriginalLines().startsWith("0 @PERSON1@ INDI\n1 NAME given name"));
+        assertTrue(g.getFamilies().get("@FAMILY1@").getOriginalLines().startsWith("0 @FAMILY1@ FAM\n"));
+        assertTrue(g.getSources().get("@SOURCE1@").getOriginalLines().startsWith("0 @SOURCE1@ SOUR\n"));
+
+        GedcomParser gp = new GedcomParser();
+        gp.setKeepingOriginalLines(true);
+        assertTrue(gp.isKeepingOriginalLines());
+        gp.setLazyLoading(true);
+        gp.setParseThreadCount(2);
+        gp.load("sample/allged.ged");
+        assertEquals(g.getIndividuals().get("@PERSON1@").getOriginalLines(), gp.getGedcom().getIndividuals().get("@PERSON1@")
+                .getOriginalLines());
+        assertNotNull(gp.getGedcom().getFamilies().get("@FAMILY1@").getOriginalLines());
+    }
+
+    /**
+     * Test that unchanged records are written out exactly as they were in the file, including where the long values were broken
+     * across CONC lines
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testUnchangedRecordsWrittenVerbatim() throws IOException, GedcomParserException, GedcomWriterException {
+        List<String> fileLines = Files.readAllLines(Paths.get("sample/allged.ged"), StandardCharsets.US_ASCII);
+        int start = fileLines.indexOf("0 @PERSON1@ INDI");
+        int end = fileLines.indexOf("0 @PERSON2@ INDI");
+        StringBuilder record = new StringBuilder();
+        for (String line : fileLines.subList(start, end)) {
+            record.append(line).append('\n');
+        }
+
+        Gedcom g = load("sample/allged.ged", true);
+        assertTrue(write(g).contains(record));
+        assertFalse(write(load("sample/allged.ged", false)).contains(record));
+    }
+
+    /**
+     * Load a file
+     * 
+     * @param filename
+     *            the name of the file to load
+     * @param keepingOriginalLines
+     *            whether to keep the lines each record was loaded from
+     * @return the data loaded from the file
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    private Gedcom load(String filename, boolean keepingOriginalLines) throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.setKeepingOriginalLines(keepingOriginalLines);
+        gp.load(filename);
+        return gp.getGedcom();
+    }
+
+    /**
+     * Write the data
+     * 
+     * @param g
+     *            the data to write
+     * @return the data written
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    private String write(Gedcom g) throws GedcomWriterException {
+        GedcomWriter w = new GedcomWriter(g);
+        w.setValidationSuppressed(true);
+        w.setLineTerminator(LineTerminator.LF_ONLY);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        w.write(baos);
+        return new String(baos.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.writer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.exception.GedcomWriterException;
+import org.gedcom4j.exception.WriterCancelledException;
+import org.gedcom4j.io.writer.LineTerminator;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.parser.GedcomParser;
+import org.gedcom4j.writer.event.ConstructProgressEvent;
+import org.gedcom4j.writer.event.ConstructProgressListener;
+import org.junit.Test;
+
+/**
+ * Test for constructing the records' lines in parallel with the {@link GedcomWriter}
+ * 
+ * @author frizbog
+ */
+public class ParallelGedcomWriterTest implements ConstructProgressListener {
+
+    /**
+     * Number of construction notifications received
+     */
+    private int constructNotificationCount;
+
+    /**
+     * The writer being tested
+     */
+    private GedcomWriter gw;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void progressNotification(ConstructProgressEvent e) {
+        constructNotificationCount++;
+        if (constructNotificationCount >= 5) {
+            gw.cancel();
+        }
+    }
+
+    /**
+     * Test cancelling construction while constructing in parallel
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the file can't be written (or is cancelled)
+     */
+    @Test(expected = WriterCancelledException.class)
+    public void testCancel() throws IOException, GedcomParserException, GedcomWriterException {
+        gw = new GedcomWriter(load("sample/willis-ascii.ged"));
+        gw.setValidationSuppressed(true);
+        gw.setEmissionThreadCount(4);
+        gw.registerConstructObserver(this);
+        gw.write(new ByteArrayOutputStream());
+    }
+
+    /**
+     * Test that an exception thrown while constructing a record on a worker thread is thrown by the write
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    @Test
+    public void testException() throws IOException, GedcomParserException {
+        Gedcom g = load("sample/TGC55C.ged");
+        String expected = null;
+        try {
+            write(g, 1, false);
+            fail("Expected exception");
+        } catch (GedcomWriterException e) {
+            expected = e.getMessage();
+        }
+        try {
+            write(g, 4, false);
+            fail("Expected exception");
+        } catch (GedcomWriterException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+
+    /**
+     * Test that the thread count must be positive
+     * 
+     * @throws GedcomWriterException
+     *             if the writer can't be created
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() throws GedcomWriterException {
+        new GedcomWriter(new Gedcom()).setEmissionThreadCount(0);
+    }
+
+    /**
+     * Test that constructing in parallel writes the same bytes as constructing sequentially
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the file can't be written
+     */
+    @Test
+    public void testSameOutput() throws IOException, GedcomParserException, GedcomWriterException {
+        for (String filename : new String[] { "sample/willis-ansel.ged", "sample/TGC551.ged", "sample/allged.ged",
+                "sample/customtagstorture.ged" }) {
+            Gedcom g = load(filename);
+            byte[] expected = write(g, 1, false);
+            assertTrue(expected.length > 0);
+            assertArrayEquals(filename, expected, write(g, 4, false));
+            assertArrayEquals(filename, expected, write(g, 3, true));
+        }
+    }
+
+    /**
+     * Load a file
+     * 
+     * @param filename
+     *            the name of the file to load
+     * @return the data loaded from the file
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    private Gedcom load(String filename) throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.load(filename);
+        return gp.getGedcom();
+    }
+
+    /**
+     * Write the data
+     * 
+     * @param g
+     *            the data to write
+     * @param threadCount
+     *            the number of threads to construct the records' lines on
+     * @param streaming
+     *            whether to stream the lines as they are constructed
+     * @return the bytes written
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    private byte[] write(Gedcom g, int threadCount, boolean streaming) throws GedcomWriterException {
+        GedcomWriter w = new GedcomWriter(g);
+        w.setValidationSuppressed(true);
+        w.setLineTerminator(LineTerminator.CRLF);
+        w.setEmissionThreadCount(threadCount);
+        w.setStreaming(streaming);
+        w.setStreamingBufferSize(50);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        w.write(baos);
+        return baos.toByteArray();
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.exception.GedcomWriterException;
+import org.gedcom4j.io.writer.LineTerminator;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.Individual;
+import org.gedcom4j.parser.GedcomParser;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for reusing the lines rendered on the last write for records that have not changed since, with the {@link GedcomWriter}
+ * 
+ * @author frizbog
+ */
+public class ReuseUnchangedRecordsTest {
+
+    /**
+     * The data being written
+     */
+    private Gedcom g;
+
+    /**
+     * The individual being altered
+     */
+    private Individual maggie;
+
+    /**
+     * The writer being tested
+     */
+    private GedcomWriter gw;
+
+    /**
+     * Set up the test
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the writer can't be created
+     */
+    @Before
+    public void setUp() throws IOException, GedcomParserException, GedcomWriterException {
+        GedcomParser gp = new GedcomParser();
+        gp.load("sample/willis-ascii.ged");
+        g = gp.getGedcom();
+        maggie = g.getIndividuals().get("@I402@");
+        gw = new GedcomWriter(g);
+        gw.setValidationSuppressed(true);
+        gw.setLineTerminator(LineTerminator.LF_ONLY);
+        gw.setReuseUnchangedRecords(true);
+    }
+
+    /**
+     * Test that a record marked as changed is rendered again, and the output matches a fresh write
+     * 
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testChangedRecordRenderedAgain() throws GedcomWriterException {
+        write(gw);
+        maggie.getNames().get(0).setBasic("Margaret /Coleman/");
+        maggie.markChanged();
+        String s = write(gw);
+        assertTrue(s.contains("1 NAME Margaret /Coleman/\n"));
+        assertEquals(write(newWriter()), s);
+    }
+
+    /**
+     * Test that the lines are rendered again when an xref changes, since other records may refer to the record
+     * 
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testChangedXrefRendersEverything() throws GedcomWriterException {
+        write(gw);
+        maggie.getNames().get(0).setBasic("Margaret /Coleman/");
+        maggie.setXref("@I999@");
+        String s = write(gw);
+        assertTrue(s.contains("0 @I999@ INDI\n1 NAME Margaret /Coleman/\n"));
+        assertEquals(write(newWriter()), s);
+    }
+
+    /**
+     * Test that writing repeatedly without changes gives the same output as a writer that doesn't reuse lines
+     * 
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testRepeatedWrites() throws GedcomWriterException {
+        String expected = write(newWriter());
+        assertEquals(expected, write(gw));
+        assertEquals(expected, write(gw));
+        gw.setEmissionThreadCount(3);
+        gw.setStreaming(true);
+        assertEquals(expected, write(gw));
+    }
+
+    /**
+     * Test that the lines for a record that has not been marked as changed are reused, even if the record has in fact changed
+     * 
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    @Test
+    public void testUnmarkedRecordReused() throws GedcomWriterException {
+        String expected = write(gw);
+        maggie.getNames().get(0).setBasic("Margaret /Coleman/");
+        assertEquals(expected, write(gw));
+
+        gw.setReuseUnchangedRecords(false);
+        assertFalse(gw.isReuseUnchangedRecords());
+        assertTrue(write(gw).contains("1 NAME Margaret /Coleman/\n"));
+    }
+
+    /**
+     * Create a writer for the data that doesn't reuse lines
+     * 
+     * @return a writer for the data that doesn't reuse lines
+     * @throws GedcomWriterException
+     *             if the writer can't be created
+     */
+    private GedcomWriter newWriter() throws GedcomWriterException {
+        GedcomWriter result = new GedcomWriter(g);
+        result.setValidationSuppressed(true);
+        result.setLineTerminator(LineTerminator.LF_ONLY);
+        return result;
+    }
+
+    /**
+     * Write the data
+     * 
+     * @param w
+     *            the writer to write with
+     * @return the data written
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    private String write(GedcomWriter w) throws GedcomWriterException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        w.write(baos);
+        return new String(baos.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+}
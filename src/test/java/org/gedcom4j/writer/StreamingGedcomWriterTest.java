@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2009-2016 Matthew R. Harrah
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.gedcom4j.writer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.gedcom4j.exception.GedcomParserException;
+import org.gedcom4j.exception.GedcomWriterException;
+import org.gedcom4j.io.event.FileProgressEvent;
+import org.gedcom4j.io.event.FileProgressListener;
+import org.gedcom4j.io.writer.LineTerminator;
+import org.gedcom4j.model.Gedcom;
+import org.gedcom4j.model.GedcomVersion;
+import org.gedcom4j.parser.GedcomParser;
+import org.gedcom4j.writer.event.ConstructProgressEvent;
+import org.gedcom4j.writer.event.ConstructProgressListener;
+import org.junit.Test;
+
+/**
+ * Test for writing GEDCOM data in streaming mode with the {@link GedcomWriter}
+ * 
+ * @author frizbog
+ */
+public class StreamingGedcomWriterTest implements ConstructProgressListener, FileProgressListener {
+
+    /**
+     * The last construction notification received
+     */
+    private ConstructProgressEvent lastConstructEvent;
+
+    /**
+     * The last file notification received
+     */
+    private FileProgressEvent lastFileEvent;
+
+    /**
+     * The number of file notifications received
+     */
+    private int fileNotificationCount;
+
+    /**
+     * The largest number of lines held by the writer when a file notification was received
+     */
+    private int mostLinesBuffered;
+
+    /**
+     * The writer being tested
+     */
+    private GedcomWriter gw;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void progressNotification(ConstructProgressEvent e) {
+        lastConstructEvent = e;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void progressNotification(FileProgressEvent e) {
+        lastFileEvent = e;
+        fileNotificationCount++;
+        mostLinesBuffered = Math.max(mostLinesBuffered, gw.lines.size());
+    }
+
+    /**
+     * Test that the streaming buffer size must be positive
+     * 
+     * @throws GedcomWriterException
+     *             if the writer can't be created
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBufferSizeTooSmall() throws GedcomWriterException {
+        new GedcomWriter(new Gedcom()).setStreamingBufferSize(0);
+    }
+
+    /**
+     * Test that the construction and file progress events are sent when streaming, and that the lines are written out in batches
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the file can't be written
+     */
+    @Test
+    public void testProgressEvents() throws IOException, GedcomParserException, GedcomWriterException {
+        GedcomParser gp = new GedcomParser();
+        gp.load("sample/willis-ascii.ged");
+        gw = new GedcomWriter(gp.getGedcom());
+        gw.setValidationSuppressed(true);
+        gw.setStreaming(true);
+        gw.setStreamingBufferSize(100);
+        gw.setFileNotificationRate(50);
+        gw.registerConstructObserver(this);
+        gw.registerFileObserver(this);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        gw.write(baos);
+
+        assertTrue(gw.lines.isEmpty());
+        assertTrue(lastConstructEvent.isComplete());
+        assertTrue(lastFileEvent.isComplete());
+        assertEquals(lastConstructEvent.getLinesProcessed(), lastFileEvent.getLinesProcessed());
+        assertEquals(baos.size(), lastFileEvent.getBytesProcessed());
+        assertTrue(fileNotificationCount > lastFileEvent.getLinesProcessed() / 50);
+        assertTrue("Buffer should never hold the whole file", mostLinesBuffered < lastFileEvent.getLinesProcessed() / 2);
+    }
+
+    /**
+     * Test that streaming writes the same bytes as non-streaming for ANSEL data
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the file can't be written
+     */
+    @Test
+    public void testSameOutputAnsel() throws IOException, GedcomParserException, GedcomWriterException {
+        assertSameOutput(load("sample/willis-ansel.ged"));
+    }
+
+    /**
+     * Test that streaming writes the same bytes as non-streaming for ASCII data
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the file can't be written
+     */
+    @Test
+    public void testSameOutputAscii() throws IOException, GedcomParserException, GedcomWriterException {
+        assertSameOutput(load("sample/willis-ascii.ged"));
+    }
+
+    /**
+     * Test that streaming writes the same bytes as non-streaming for UNICODE data
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the file can't be written
+     */
+    @Test
+    public void testSameOutputUnicode() throws IOException, GedcomParserException, GedcomWriterException {
+        assertSameOutput(load("sample/willis-unicode-littleendian.ged"));
+    }
+
+    /**
+     * Test that streaming writes the same bytes as non-streaming for UTF-8 data
+     * 
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     * @throws GedcomWriterException
+     *             if the file can't be written
+     */
+    @Test
+    public void testSameOutputUtf8() throws IOException, GedcomParserException, GedcomWriterException {
+        Gedcom g = load("sample/willis-ascii.ged");
+        g.getHeader().setGedcomVersion(new GedcomVersion());
+        g.getHeader().getCharacterSet().setCharacterSetName("UTF-8");
+        assertSameOutput(g);
+    }
+
+    /**
+     * Assert that writing the data with streaming turned on writes exactly the same bytes as without
+     * 
+     * @param g
+     *            the data to write
+     * @throws GedcomWriterException
+     *             if the data can't be written
+     */
+    private void assertSameOutput(Gedcom g) throws GedcomWriterException {
+        GedcomWriter w = new GedcomWriter(g);
+        w.setValidationSuppressed(true);
+        w.setLineTerminator(LineTerminator.CRLF);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        w.write(expected);
+
+        w = new GedcomWriter(g);
+        w.setValidationSuppressed(true);
+        w.setLineTerminator(LineTerminator.CRLF);
+        w.setStreaming(true);
+        w.setStreamingBufferSize(10);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        w.write(actual);
+
+        assertTrue(expected.size() > 0);
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+    /**
+     * Load a file
+     * 
+     * @param filename
+     *            the name of the file to load
+     * @return the data loaded from the file
+     * @throws IOException
+     *             if the file can't be read
+     * @throws GedcomParserException
+     *             if the file can't be parsed
+     */
+    private Gedcom load(String filename) throws IOException, GedcomParserException {
+        GedcomParser gp = new GedcomParser();
+        gp.load(filename);
+        return gp.getGedcom();
+    }
+
+}